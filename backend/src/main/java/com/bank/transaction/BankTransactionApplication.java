@@ -40,6 +40,7 @@ public class BankTransactionApplication {
         log.info("   mvn test -Dtest=TestRunner                  # 查看测试指南");
         log.info("");
         log.info("⚠️  注意: 这是Demo版本，数据在应用重启后会丢失！");
+        log.info("   如需保留数据: bank.persistence.enabled=true (日志+快照) 或 storage.type=mysql");
         log.info("=".repeat(80));
     }
 } 
\ No newline at end of file
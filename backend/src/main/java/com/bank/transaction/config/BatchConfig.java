@@ -0,0 +1,27 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.util.Constants.BatchMode;
+
+/**
+ * 批量创建交易配置类
+ * 控制单次批量请求的最大条数和未指定时的部分失败处理方式
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.transaction.batch")
+public class BatchConfig {
+
+    /**
+     * 单次批量请求最多包含的交易数
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 请求未指定处理方式时使用的默认方式
+     */
+    private BatchMode defaultMode = BatchMode.ALL_OR_NOTHING;
+}
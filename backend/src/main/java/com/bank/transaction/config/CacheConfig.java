@@ -1,35 +1,84 @@
 package com.bank.transaction.config;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.bank.transaction.dao.TransactionDao;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 /**
  * 缓存配置类 - Demo 环境专用
- * 
+ *
  * 配置说明：
- * - 使用 Spring Boot 自带的 ConcurrentMapCacheManager
+ * - 缓存管理器由 storage.cache.manager 选择：
+ *   caffeine（默认）：有界缓存，W-TinyLFU 淘汰，按缓存名称配置容量/过期/刷新，记录命中统计
+ *   simple：ConcurrentMapCacheManager，不淘汰、无统计，仅用于排查问题
+ * - 各缓存规格来自 storage.cache，storage.cache.specs.<缓存名称> 可单独覆盖
+ * - storage.cache.async=true 时使用 Caffeine AsyncCache
+ * - 配置了 refresh-minutes 且有加载器的缓存（transactions）在写入后定期异步刷新，刷新期间仍返回旧值
+ * - 命中率等统计由 Spring Boot Actuator 自动注册到 Micrometer（cache.gets / cache.evictions 等）
  * - 基于内存存储，重启后数据丢失
- * - 适用于演示和开发环境
- * - 高性能，无网络延迟
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    public static final String TRANSACTIONS = "transactions";                      // 交易缓存
+    public static final String TRANSACTIONS_BY_ACCOUNT = "transactionsByAccount";  // 按账户查询缓存
+    public static final String TRANSACTIONS_BY_STATUS = "transactionsByStatus";    // 按状态查询缓存
+    public static final String TRANSACTION_STATISTICS = "transactionStatistics";   // 统计数据缓存
+
+    private static final List<String> CACHE_NAMES = List.of(
+        TRANSACTIONS, TRANSACTIONS_BY_ACCOUNT, TRANSACTIONS_BY_STATUS, TRANSACTION_STATISTICS);
+
     /**
      * 配置缓存管理器
-     * 使用内存缓存，支持多个缓存区域
      */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-            "transactions",           // 交易缓存
-            "transactionsByAccount",  // 按账户查询缓存
-            "transactionsByStatus",   // 按状态查询缓存
-            "transactionStatistics"   // 统计数据缓存
-        );
+    public CacheManager cacheManager(StorageConfig storageConfig, TransactionDao transactionDao) {
+        StorageConfig.Cache cacheConfig = storageConfig.getCache();
+        if ("simple".equalsIgnoreCase(cacheConfig.getManager())) {
+            return new ConcurrentMapCacheManager(CACHE_NAMES.toArray(String[]::new));
+        }
+
+        // 有数据源可回源的缓存才能配置写入后刷新
+        Map<String, CacheLoader<Object, Object>> loaders = Map.of(
+            TRANSACTIONS, key -> transactionDao.findById((String) key).orElse(null));
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAsyncCacheMode(cacheConfig.isAsync());
+        for (String cacheName : CACHE_NAMES) {
+            Caffeine<Object, Object> builder = caffeineBuilder(cacheConfig.specOf(cacheName), loaders.containsKey(cacheName));
+            CacheLoader<Object, Object> loader = loaders.get(cacheName);
+            if (cacheConfig.isAsync()) {
+                cacheManager.registerCustomCache(cacheName, loader != null ? builder.buildAsync(loader) : builder.buildAsync());
+            } else {
+                cacheManager.registerCustomCache(cacheName, loader != null ? builder.build(loader) : builder.build());
+            }
+        }
+        return cacheManager;
+    }
+
+    /**
+     * 按缓存规格构建 Caffeine，无加载器时忽略刷新配置
+     */
+    static Caffeine<Object, Object> caffeineBuilder(StorageConfig.Spec spec, boolean hasLoader) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .maximumSize(spec.getMaxSize())
+            .expireAfterWrite(Duration.ofMinutes(spec.getExpireMinutes()))
+            .recordStats();
+        if (hasLoader && spec.getRefreshMinutes() > 0 && spec.getRefreshMinutes() < spec.getExpireMinutes()) {
+            builder.refreshAfterWrite(Duration.ofMinutes(spec.getRefreshMinutes()));
+        }
+        return builder;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 错误日志配置类
+ * 控制按错误码汇总的时间窗口、致命异常告警频率和本地错误日志文件
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.error-log")
+public class ErrorLogConfig {
+
+    /**
+     * 汇总窗口（秒），同一错误码在一个窗口内只输出一条汇总记录
+     */
+    private long windowSeconds = 10;
+
+    /**
+     * 最多汇总的错误码数量，超出后新错误码只计数不记录
+     */
+    private int maxKeys = 1024;
+
+    /**
+     * 同一错误码致命异常告警的最小间隔（秒），间隔内的告警只计数
+     */
+    private long alertIntervalSeconds = 60;
+
+    /**
+     * 是否把汇总记录追加写入本地文件（每天一个 NDJSON 文件），默认关闭
+     */
+    private boolean fileEnabled = false;
+
+    /**
+     * 错误日志文件目录，相对路径按进程工作目录解析，生产环境应配置为绝对路径
+     */
+    private String directory = "data/errors";
+}
@@ -0,0 +1,45 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 交易事件日志配置类
+ * 控制环形缓冲区容量、批量输出大小和过载时的采样/丢弃策略
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.event-log")
+public class EventLogConfig {
+
+    /**
+     * 是否记录交易事件，关闭时记录方法直接返回
+     */
+    private boolean enabled = true;
+
+    /**
+     * 环形缓冲区容量（向上取整为2的幂），缓冲区满时丢弃新事件
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 输出线程每次从缓冲区取出的最大事件数，每个事件一次日志输出
+     */
+    private int batchSize = 256;
+
+    /**
+     * 缓冲区为空时输出线程的最长等待时间（毫秒）
+     */
+    private long flushIntervalMillis = 100;
+
+    /**
+     * 缓冲区占用达到该比例后开始采样 INFO 事件，WARN 事件不采样；不小于1时不采样，只在缓冲区满时丢弃
+     */
+    private double sampleThreshold = 0.75;
+
+    /**
+     * 采样时每 sampleRate 个 INFO 事件保留1个
+     */
+    private int sampleRate = 10;
+}
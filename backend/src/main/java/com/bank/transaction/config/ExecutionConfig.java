@@ -0,0 +1,32 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.util.Constants.ExecutionMode;
+
+/**
+ * 余额变更执行配置类
+ * 控制余额变更的执行方式，以及分片执行时的分片数和输入缓冲区容量
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.execution")
+public class ExecutionConfig {
+
+    /**
+     * 执行方式：LOCKED 调用线程加锁执行，SHARDED 按账户分片单线程执行
+     */
+    private ExecutionMode mode = ExecutionMode.LOCKED;
+
+    /**
+     * 分片数，每个分片一个执行线程，独占自己分片内账户的余额
+     */
+    private int shards = 4;
+
+    /**
+     * 每个分片输入环形缓冲区的容量（向上取整为2的幂），缓冲区满时提交线程等待
+     */
+    private int bufferSize = 1024;
+}
@@ -0,0 +1,20 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 交易标识生成器配置类
+ * 多节点部署时每个节点必须配置不同的节点号，保证生成的交易ID、参考号和幂等性键不冲突
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.id-generator")
+public class IdGeneratorConfig {
+
+    /**
+     * 节点号（0-63）
+     */
+    private int nodeId = 0;
+}
@@ -0,0 +1,40 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 幂等性键存储配置类
+ * 控制幂等性键的保留时间、过期时间桶粒度和内存上限
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.idempotency")
+public class IdempotencyConfig {
+
+    /**
+     * 幂等性键保留时间（分钟），过期后相同的键视为新请求
+     */
+    private long ttlMinutes = 1440;
+
+    /**
+     * 过期时间桶粒度（秒），同一时间桶内的键一起过期，实际保留时间最多多出一个时间桶
+     */
+    private long bucketSeconds = 60;
+
+    /**
+     * 最多保留的幂等性键数量，达到上限时提前淘汰最早过期的时间桶
+     */
+    private int maxEntries = 2_000_000;
+
+    /**
+     * 分段数（2的幂），不同分段上的读写互不阻塞
+     */
+    private int segments = 64;
+
+    /**
+     * 相同幂等性键的请求正在处理时，重复请求最长等待时间（毫秒）
+     */
+    private long waitTimeoutMillis = 3000;
+}
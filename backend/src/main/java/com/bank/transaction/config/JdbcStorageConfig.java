@@ -0,0 +1,49 @@
+package com.bank.transaction.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * JDBC 存储配置 - storage.type=mysql 时生效
+ *
+ * 配置说明：
+ * - 连接池：HikariCP，大小由 storage.mysql.connection-pool-size 决定
+ * - MySQL 驱动开启客户端预编译语句缓存、服务端预编译和批量语句改写，组提交的批量插入在驱动层合并为一条多值 INSERT
+ * - 其他数据库（如测试用的 H2）不设置驱动专有参数
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "mysql")
+public class JdbcStorageConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource transactionDataSource(StorageConfig storageConfig) {
+        return createDataSource(storageConfig.getMysql());
+    }
+
+    /**
+     * 按 storage.mysql 配置创建连接池
+     */
+    public static HikariDataSource createDataSource(StorageConfig.Mysql mysql) {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("bank-transaction-jdbc");
+        hikari.setJdbcUrl(mysql.getUrl());
+        hikari.setUsername(mysql.getUsername());
+        hikari.setPassword(mysql.getPassword());
+        hikari.setMaximumPoolSize(mysql.getConnectionPoolSize());
+        hikari.setConnectionTimeout(TimeUnit.SECONDS.toMillis(mysql.getQueryTimeout()));
+        if (mysql.getUrl().startsWith("jdbc:mysql:")) {
+            hikari.addDataSourceProperty("cachePrepStmts", "true");
+            hikari.addDataSourceProperty("prepStmtCacheSize", "256");
+            hikari.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            hikari.addDataSourceProperty("useServerPrepStmts", "true");
+            hikari.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+        return new HikariDataSource(hikari);
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 账本配置类
+ * 控制记账分录重放到账户余额视图的分片数和批量大小
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.ledger")
+public class LedgerConfig {
+
+    /**
+     * 余额视图分片数，每个分片由一个线程按分录顺序重放，只维护自己分片内的账户
+     */
+    private int shards = 4;
+
+    /**
+     * 每批重放的最大分录数，一批重放完成后才发布新的已应用序号
+     */
+    private int batchSize = 4096;
+
+    /**
+     * 没有新分录时重放线程的最长等待时间（毫秒）
+     */
+    private long idleWaitMillis = 1;
+}
@@ -0,0 +1,45 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内存存储持久化配置类
+ * 控制预写日志（WAL）和快照的存放目录、段大小、刷盘方式和快照间隔，仅在 storage.type=cache 时生效
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.persistence")
+public class PersistenceConfig {
+
+    /**
+     * 是否启用持久化；关闭时内存存储重启后数据丢失
+     */
+    private boolean enabled = false;
+
+    /**
+     * WAL 段文件和快照文件的存放目录
+     */
+    private String directory = "data";
+
+    /**
+     * 单个 WAL 段文件大小（字节），写满后切换到新段
+     */
+    private int segmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * 写入是否等待刷盘（fsync）完成；关闭后写入只进入页缓存，进程崩溃不丢数据，操作系统崩溃可能丢失最近的写入
+     */
+    private boolean fsync = true;
+
+    /**
+     * 快照间隔（秒），快照完成后删除快照之前的 WAL 段
+     */
+    private long snapshotIntervalSeconds = 300;
+
+    /**
+     * 保留的快照个数，最新快照损坏时使用上一个快照恢复
+     */
+    private int retainedSnapshots = 2;
+}
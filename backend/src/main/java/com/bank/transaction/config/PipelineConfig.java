@@ -0,0 +1,69 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 交易后续处理流水线配置类
+ * 每个处理阶段独立配置队列容量、批量大小、并发数和入队等待时间
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.pipeline")
+public class PipelineConfig {
+
+    /**
+     * 银行核心系统（记账）阶段
+     * 默认单线程消费，保证同一账户的余额更新按入队顺序执行
+     */
+    private Stage coreLedger = new Stage(10000, 64, 1);
+
+    /**
+     * 审计日志阶段
+     */
+    private Stage audit = new Stage(10000, 256, 2);
+
+    /**
+     * 风控检查阶段
+     */
+    private Stage risk = new Stage(10000, 128, 2);
+
+    /**
+     * 通知服务阶段
+     */
+    private Stage notification = new Stage(10000, 128, 2);
+
+    @Data
+    public static class Stage {
+
+        /**
+         * 队列容量，队列满时触发背压
+         */
+        private int queueCapacity;
+
+        /**
+         * 每批最多处理的消息数
+         */
+        private int batchSize;
+
+        /**
+         * 消费线程数（阶段并发上限）
+         */
+        private int concurrency;
+
+        /**
+         * 队列满时入队最长等待时间（毫秒），超时后由提交线程直接处理
+         */
+        private long offerTimeoutMillis = 50;
+
+        public Stage() {
+        }
+
+        public Stage(int queueCapacity, int batchSize, int concurrency) {
+            this.queueCapacity = queueCapacity;
+            this.batchSize = batchSize;
+            this.concurrency = concurrency;
+        }
+    }
+}
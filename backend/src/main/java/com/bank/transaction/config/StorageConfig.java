@@ -1,12 +1,15 @@
 package com.bank.transaction.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ConfigurationProperties(prefix = "storage")
 public class StorageConfig {
-    private String type = "cache"; // 默认缓存
+    private String type = "cache"; // 存储类型: cache(内存，默认) | mysql(JDBC)
     private Cache cache = new Cache();
     private Mysql mysql = new Mysql();
 
@@ -20,20 +23,75 @@ public class StorageConfig {
     public static class Cache {
         private int maxSize = 10000; // 最大缓存条数
         private long expireMinutes = 60; // 过期时间(分钟)
+        private long maxRecords = 5_000_000; // 内存存储最多保存的交易条数，达到上限后拒绝新交易
+        private String manager = "caffeine"; // 缓存管理器: caffeine | simple
+        private boolean async = false; // 是否使用异步缓存(AsyncCache)
+        private long refreshMinutes = 0; // 写入后自动刷新时间(分钟)，0表示不刷新，仅对有加载器的缓存生效
+        private Map<String, Spec> specs = new HashMap<>(); // 按缓存名称覆盖的规格
 
         public int getMaxSize() {return maxSize;}
         public void setMaxSize(int maxSize) {this.maxSize = maxSize;}
         public long getExpireMinutes() {return expireMinutes;}
         public void setExpireMinutes(long expireMinutes) {this.expireMinutes = expireMinutes;}
+        public long getMaxRecords() {return maxRecords;}
+        public void setMaxRecords(long maxRecords) {this.maxRecords = maxRecords;}
+        public String getManager() {return manager;}
+        public void setManager(String manager) {this.manager = manager;}
+        public boolean isAsync() {return async;}
+        public void setAsync(boolean async) {this.async = async;}
+        public long getRefreshMinutes() {return refreshMinutes;}
+        public void setRefreshMinutes(long refreshMinutes) {this.refreshMinutes = refreshMinutes;}
+        public Map<String, Spec> getSpecs() {return specs;}
+        public void setSpecs(Map<String, Spec> specs) {this.specs = specs;}
+
+        /**
+         * 获取指定缓存的规格，未单独配置的项使用全局默认值
+         */
+        public Spec specOf(String cacheName) {
+            Spec override = specs.getOrDefault(cacheName, new Spec());
+            Spec spec = new Spec();
+            spec.setMaxSize(override.getMaxSize() != null ? override.getMaxSize() : maxSize);
+            spec.setExpireMinutes(override.getExpireMinutes() != null ? override.getExpireMinutes() : expireMinutes);
+            spec.setRefreshMinutes(override.getRefreshMinutes() != null ? override.getRefreshMinutes() : refreshMinutes);
+            return spec;
+        }
+    }
+
+    public static class Spec {
+        private Integer maxSize; // 最大缓存条数
+        private Long expireMinutes; // 过期时间(分钟)
+        private Long refreshMinutes; // 写入后自动刷新时间(分钟)
+
+        public Integer getMaxSize() {return maxSize;}
+        public void setMaxSize(Integer maxSize) {this.maxSize = maxSize;}
+        public Long getExpireMinutes() {return expireMinutes;}
+        public void setExpireMinutes(Long expireMinutes) {this.expireMinutes = expireMinutes;}
+        public Long getRefreshMinutes() {return refreshMinutes;}
+        public void setRefreshMinutes(Long refreshMinutes) {this.refreshMinutes = refreshMinutes;}
     }
 
     public static class Mysql {
+        private String url = "jdbc:mysql://localhost:3306/bank"; // JDBC 连接地址
+        private String username = "bank"; // 数据库用户名
+        private String password = ""; // 数据库密码
         private int connectionPoolSize = 20; // 连接池大小
         private int queryTimeout = 30; // 查询超时时间(秒)
+        private int batchSize = 256; // 组提交每批最多写入条数
+        private int writeQueueCapacity = 10000; // 组提交待写入队列容量
 
+        public String getUrl() {return url;}
+        public void setUrl(String url) {this.url = url;}
+        public String getUsername() {return username;}
+        public void setUsername(String username) {this.username = username;}
+        public String getPassword() {return password;}
+        public void setPassword(String password) {this.password = password;}
         public int getConnectionPoolSize() {return connectionPoolSize;}
         public void setConnectionPoolSize(int connectionPoolSize) {this.connectionPoolSize = connectionPoolSize;}
         public int getQueryTimeout() {return queryTimeout;}
         public void setQueryTimeout(int queryTimeout) {this.queryTimeout = queryTimeout;}
+        public int getBatchSize() {return batchSize;}
+        public void setBatchSize(int batchSize) {this.batchSize = batchSize;}
+        public int getWriteQueueCapacity() {return writeQueueCapacity;}
+        public void setWriteQueueCapacity(int writeQueueCapacity) {this.writeQueueCapacity = writeQueueCapacity;}
     }
 } 
\ No newline at end of file
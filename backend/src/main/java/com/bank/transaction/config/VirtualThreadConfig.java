@@ -0,0 +1,25 @@
+package com.bank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 虚拟线程执行器配置类
+ * 限制并行任务对下游存储的并发压力，并为每次并行调用设置默认超时
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.virtual-thread")
+public class VirtualThreadConfig {
+
+    /**
+     * 同时执行的任务数上限（所有并行调用共享），超出的任务排队等待
+     */
+    private int maxConcurrency = 64;
+
+    /**
+     * 每次并行调用的默认超时时间（毫秒），超时后取消未完成的任务
+     */
+    private long timeoutMillis = 5000;
+}
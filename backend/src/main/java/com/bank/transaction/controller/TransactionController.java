@@ -1,30 +1,49 @@
 package com.bank.transaction.controller;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.bank.transaction.index.TransactionQuery;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionExportService;
 import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.BatchResult;
 import com.bank.transaction.util.PageInfo;
 import com.bank.transaction.exception.business.ValidationException;
+import com.bank.transaction.util.Constants.BatchMode;
+import com.bank.transaction.util.Constants.Currency;
 import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.ExportFormat;
+import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -33,7 +52,7 @@ import lombok.RequiredArgsConstructor;
  * 特别说明：
  * - 为了兼容旧设备和网络设备，统一使用 POST 方法
  * - 部分旧设备/代理不支持 PUT/DELETE 方法
- * - 通过不同的路径区分操作类型：/create, /update, /delete
+ * - 通过不同的路径区分操作类型：/create, /batch, /update, /delete, /search, /export, /statistics
  * - 金额验证通过Bean Validation注解在Transaction实体上处理
  */
 @Validated
@@ -45,17 +64,38 @@ import lombok.RequiredArgsConstructor;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
     
     @PostMapping("/create")
-    @Operation(summary = "创建交易", description = "新增一笔交易记录")
-    public ResponseEntity<Transaction> createTransaction(@Valid @RequestBody Transaction transaction) {
+    @Operation(summary = "创建交易", description = "新增一笔交易记录，携带相同 Idempotency-Key 的重复请求返回首次创建的交易")
+    public ResponseEntity<Transaction> createTransaction(
+            @Valid @RequestBody Transaction transaction,
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 64, message = "幂等性标识不能超过64字符") String idempotencyKey) {
         // 复杂业务校验（金额验证现在由Bean Validation处理）
         validateTransactionBusiness(transaction);
         
+        // 幂等性标识不在请求体中返回和接收，通过请求头传入
+        if (idempotencyKey != null) {
+            transaction.setIdempotencyKey(idempotencyKey);
+        }
+        
         Transaction result = transactionService.createTransaction(transaction);
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "批量创建交易", description = "一次提交多笔交易（如代发工资），按账户合并余额变更后一次生效并批量保存，返回每笔交易的结果。"
+            + "mode=ALL_OR_NOTHING 时任一笔失败整批不生效，mode=BEST_EFFORT 时跳过失败的交易；请求格式错误时整批拒绝")
+    public ResponseEntity<BatchResult> createTransactions(@Valid @RequestBody BatchCreateRequest request) {
+        // 请求格式和复杂业务校验不通过时整批拒绝，与单笔创建一致
+        for (Transaction transaction : request.getTransactions()) {
+            validateTransactionBusiness(transaction);
+        }
+        
+        BatchResult result = transactionService.createTransactions(request.getTransactions(), request.getMode());
+        return ResponseEntity.ok(result);
+    }
+    
     @PostMapping("/update")
     @Operation(summary = "修改交易", description = "根据交易ID修改指定交易内容，需要在请求体中包含交易ID")
     public ResponseEntity<Transaction> updateTransaction(@Valid @RequestBody UpdateTransactionRequest request) {
@@ -82,14 +122,71 @@ public class TransactionController {
     }
     
     @PostMapping
-    @Operation(summary = "列出所有交易", description = "分页展示所有交易记录")
+    @Operation(summary = "列出所有交易", description = "分页展示所有交易记录。传入 cursor 参数（首页传空字符串）时使用游标分页，"
+            + "按返回的 nextCursor 继续翻页，深度翻页耗时不变且不受新交易插入影响")
     public ResponseEntity<PageInfo<Transaction>> getAllTransactions(
             @RequestParam(defaultValue = "0") @Min(value = 0, message = "页码不能小于0") int page,
-            @RequestParam(defaultValue = "20") @Min(value = 1, message = "每页大小必须大于0") @Max(value = 100, message = "每页大小不能超过100") int size) {
-        PageInfo<Transaction> result = transactionService.getAllTransactions(page, size);
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "每页大小必须大于0") @Max(value = 100, message = "每页大小不能超过100") int size,
+            @RequestParam(required = false) String cursor) {
+        PageInfo<Transaction> result = cursor != null
+                ? transactionService.getTransactionsByCursor(cursor, size)
+                : transactionService.getAllTransactions(page, size);
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/search")
+    @Operation(summary = "组合查询交易", description = "按状态、类型、币种、渠道、金额范围 [minAmount, maxAmount] 和时间范围 [from, to) 筛选，"
+            + "条件之间为且的关系，按时间倒序分页返回")
+    public ResponseEntity<PageInfo<Transaction>> searchTransactions(
+            @RequestParam(required = false) TransactionStatus status,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) Currency currency,
+            @RequestParam(required = false) String channel,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") @Min(value = 0, message = "页码不能小于0") int page,
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "每页大小必须大于0") @Max(value = 100, message = "每页大小不能超过100") int size) {
+        TransactionQuery query = new TransactionQuery(status, type, currency, channel, minAmount, maxAmount, from, to);
+        return ResponseEntity.ok(transactionService.searchTransactions(query, page, size));
+    }
+    
+    @PostMapping("/statistics")
+    @Operation(summary = "交易实时统计", description = "自应用启动起按类型、状态、币种、渠道的交易笔数和金额，以及最近60秒的TPS。"
+            + "统计在交易创建和记账完成时增量更新，查询不扫描交易")
+    public ResponseEntity<TransactionStatistics.Snapshot> getStatistics() {
+        return ResponseEntity.ok(transactionService.getStatistics());
+    }
+    
+    @PostMapping("/statistics/accounts/{accountId}")
+    @Operation(summary = "账户流入流出统计", description = "自应用启动起账户已完成交易的流入（转入）和流出（转出）笔数和金额")
+    public ResponseEntity<TransactionStatistics.AccountFlow> getAccountFlow(
+            @PathVariable @NotBlank(message = "账户ID不能为空") String accountId) {
+        return ResponseEntity.ok(transactionService.getAccountFlow(accountId));
+    }
+    
+    @PostMapping("/export")
+    @Operation(summary = "导出交易", description = "按账户、时间范围 [from, to) 和状态筛选，按时间升序以 NDJSON 或 CSV 流式导出交易。"
+            + "未指定 to 时导出到请求开始时刻为止，导出期间新创建的交易不包含在内")
+    public void exportTransactions(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) TransactionStatus status,
+            HttpServletResponse response) throws IOException {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "开始时间必须早于结束时间");
+        }
+        
+        // 同步写出，长时间导出不受异步请求超时限制
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + format.getExtension() + "\"");
+        transactionExportService.export(new TransactionExportService.Filter(accountId, from, to, status), format,
+                response.getOutputStream());
+    }
+    
     // 复杂业务校验方法
     private void validateTransactionBusiness(Transaction transaction) {
         // 1. 防止自转账（转出账户ID不能相同）
@@ -107,6 +204,21 @@ public class TransactionController {
         // 注意：金额范围校验现在由Bean Validation注解在Transaction实体上处理
     }
     
+    /**
+     * 批量创建交易请求对象
+     */
+    public static class BatchCreateRequest {
+        private BatchMode mode;
+        
+        @NotEmpty(message = "批量交易不能为空")
+        private List<@NotNull(message = "交易不能为空") @Valid Transaction> transactions;
+        
+        public BatchMode getMode() { return mode; }
+        public void setMode(BatchMode mode) { this.mode = mode; }
+        public List<Transaction> getTransactions() { return transactions; }
+        public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
+    }
+    
     /**
      * 更新交易请求对象
      */
@@ -1,14 +1,102 @@
 package com.bank.transaction.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.PageInfo;
 
 public interface TransactionDao {
     
     Transaction save(Transaction transaction);
+
+    /**
+     * 批量保存交易（新增或覆盖），一次提交
+     * @param transactions 交易列表
+     * @return 保存的交易，顺序同 transactions
+     */
+    List<Transaction> saveAll(List<Transaction> transactions);
     
     Optional<Transaction> findById(String id);
 
+    /**
+     * 仅当存储中的交易状态为 expected 时更新状态，其余字段保留存储中的当前值
+     * 同一交易的状态更新和备注更新互斥，不会互相覆盖
+     * @param id 交易ID
+     * @param expected 期望的当前状态
+     * @param status 新状态
+     * @return 更新后的交易；交易不存在或当前状态不是 expected 时返回空
+     */
+    Optional<Transaction> updateStatus(String id, TransactionStatus expected, TransactionStatus status);
+
+    /**
+     * 仅当存储中的交易状态为 expected 时更新备注，其余字段保留存储中的当前值
+     * @param id 交易ID
+     * @param expected 期望的当前状态
+     * @param remark 新备注
+     * @return 更新后的交易；交易不存在或当前状态不是 expected 时返回空
+     */
+    Optional<Transaction> updateRemark(String id, TransactionStatus expected, String remark);
+
+    /**
+     * 批量查询交易，一次访问存储
+     * @param ids 交易ID列表
+     * @return 按 ids 顺序返回存在的交易，不存在的ID跳过
+     */
+    List<Transaction> findAllById(Collection<String> ids);
+
     List<Transaction> findByAccountId(String accountId);
-} 
\ No newline at end of file
+
+    /**
+     * 按时间升序分批查询账户相关交易（导出用）
+     * @param accountId 账户ID
+     * @param after 起始位置（不含），以上一批最后一条交易的 (时间键, 交易ID) 继续
+     * @param endTimeKey 结束时间键（不含），见 {@link TransactionTimeIndex#toTimeKey}
+     * @param limit 返回的最大条数
+     * @return 晚于 after、按时间升序排列的交易
+     */
+    List<Transaction> findByAccountIdAfter(String accountId, TimeCursor after, long endTimeKey, int limit);
+
+    /**
+     * 按时间倒序（最新在前）偏移分页查询全部交易
+     * @param page 页码（从0开始）
+     * @param size 每页条数
+     * @return 本页交易
+     */
+    List<Transaction> findNewestFirst(int page, int size);
+
+    /**
+     * 按时间倒序（最新在前）查询早于游标位置的交易（游标分页）
+     * @param before 游标位置（不含），为null时从最新的交易开始
+     * @param limit 返回的最大条数
+     * @return 早于 before、按时间倒序排列的交易
+     */
+    List<Transaction> findBefore(TimeCursor before, int limit);
+
+    /**
+     * 按时间升序分批查询全部交易（导出用）
+     * @param after 起始位置（不含），以上一批最后一条交易的 (时间键, 交易ID) 继续
+     * @param endTimeKey 结束时间键（不含），见 {@link TransactionTimeIndex#toTimeKey}
+     * @param limit 返回的最大条数
+     * @return 晚于 after、按时间升序排列的交易
+     */
+    List<Transaction> findAfter(TimeCursor after, long endTimeKey, int limit);
+
+    /**
+     * 交易总数
+     */
+    int count();
+
+    /**
+     * 按状态、类型、币种、渠道、金额范围和时间范围组合查询，按时间倒序（最新在前）分页
+     * @param query 查询条件
+     * @param page 页码（从0开始）
+     * @param size 每页条数
+     * @return 本页交易和满足条件的总数
+     */
+    PageInfo<Transaction> findByQuery(TransactionQuery query, int page, int size);
+}
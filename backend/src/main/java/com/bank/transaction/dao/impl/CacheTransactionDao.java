@@ -1,54 +1,459 @@
 package com.bank.transaction.dao.impl;
 
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.config.StorageConfig;
 import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionQueryIndex;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.storage.ChangeJournal;
+import com.bank.transaction.storage.CompactTransactionStore;
+import com.bank.transaction.storage.TransactionCodec;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.PageInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * 基于内存缓存的交易数据访问层实现
  * 
  * 特性：
- * - 使用 ConcurrentHashMap 提供线程安全的内存存储
- * - 支持基础 CRUD 操作
- * - 适用于 Demo 环境，数据在应用重启后会丢失
+ * - 两级存储：
+ *   热层：Caffeine（W-TinyLFU 淘汰），按 storage.cache.max-size / expire-minutes 限制条数和访问过期时间
+ *   冷层：CompactTransactionStore，以紧凑二进制保存全部交易，热层淘汰后从冷层解码恢复；
+ *   条数上限为 storage.cache.max-records（冷层和各索引都随条数增长），达到上限后拒绝新交易（SystemException），已有交易仍可更新
+ * - 写入同时写冷层和热层（write-through），热层淘汰不会丢数据，堆内对象数量保持平稳
+ * - 维护全部交易按时间排序的索引（偏移分页、游标分页、导出）和 账户 → 按时间排序的交易ID 二级索引，账户流水查询 O(k)，无需全表扫描
+ * - 维护状态/类型/币种/渠道位图索引（{@link TransactionQueryIndex}），组合查询对位图求交集，不扫描交易
+ * - 批量查询（findAllById）一次从热层取出全部命中，只对未命中的ID回落冷层
+ * - 启用持久化（bank.persistence.enabled）时，保存和删除写入 {@link ChangeJournal}，重启后由快照和日志恢复
+ * - 暴露热层命中、冷层命中、未命中、淘汰计数（Micrometer: bank.storage.*）
+ * - 未启用持久化时数据在应用重启后会丢失；storage.type=mysql 时改用 {@link JdbcTransactionDao}
  * - 高性能，无网络延迟
  */
 @Repository
-public class CacheTransactionDao implements TransactionDao {
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "cache", matchIfMissing = true)
+public class CacheTransactionDao implements TransactionDao, MeterBinder {
     
     /**
-     * 内存缓存存储，使用交易ID作为键
-     * 使用 ConcurrentHashMap 保证线程安全
+     * 热层：最近/最常访问的交易对象
      */
-    private final Map<String, Transaction> cache = new ConcurrentHashMap<>();
+    private final Cache<String, Transaction> hotTier;
+    
+    /**
+     * 冷层：全部交易的紧凑编码
+     */
+    private final CompactTransactionStore coldTier;
+    
+    /**
+     * 时间索引：全部交易按 (交易时间, 交易ID) 排序
+     */
+    private final TransactionTimeIndex timeIndex = new TransactionTimeIndex();
+    
+    /**
+     * 账户二级索引：账户ID → 该账户相关交易（转出或转入）的时间索引
+     */
+    private final Map<String, TransactionTimeIndex> accountIndex = new ConcurrentHashMap<>();
+    
+    /**
+     * 组合查询索引
+     */
+    private final TransactionQueryIndex queryIndex = new TransactionQueryIndex();
+    
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+
+    public CacheTransactionDao() {
+        this(new StorageConfig());
+    }
+
+    @Autowired
+    public CacheTransactionDao(StorageConfig storageConfig) {
+        StorageConfig.Cache cacheConfig = storageConfig.getCache();
+        this.coldTier = new CompactTransactionStore(cacheConfig.getMaxRecords());
+        this.hotTier = Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaxSize())
+                .expireAfterAccess(Duration.ofMinutes(cacheConfig.getExpireMinutes()))
+                .recordStats()
+                .build();
+    }
 
     @Override
     public Transaction save(Transaction transaction) {
         String transactionId = transaction.getId();
-        cache.put(transactionId, transaction);
+        ChangeJournal journal = this.journal;
+        long[] ticket = new long[1];
+        // 在同一交易ID的 compute 中先写冷层和索引再写入热层，同一交易的并发保存/加载互斥，变更日志顺序与写入顺序一致
+        hotTier.asMap().compute(transactionId, (id, previous) -> {
+            byte[] encoded = putCold(transaction);
+            indexTransaction(transaction);
+            ticket[0] = journal.transactionSaved(encoded);
+            return transaction;
+        });
+        journal.awaitDurable(ticket[0]);
         return transaction;
     }
 
+    /**
+     * 批量保存：逐笔写入存储和变更日志，全部写入后只等待一次刷盘
+     * 剩余容量不足整批时不写入任何交易
+     */
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        if (coldTier.remainingCapacity() < transactions.size()) {
+            throw storageFull();
+        }
+        ChangeJournal journal = this.journal;
+        long[] ticket = new long[1];
+        for (Transaction transaction : transactions) {
+            hotTier.asMap().compute(transaction.getId(), (id, previous) -> {
+                byte[] encoded = putCold(transaction);
+                indexTransaction(transaction);
+                ticket[0] = Math.max(ticket[0], journal.transactionSaved(encoded));
+                return transaction;
+            });
+        }
+        journal.awaitDurable(ticket[0]);
+        return transactions;
+    }
+
+    /**
+     * 从快照/日志恢复交易：写入冷层和索引，不记录变更日志，不占用热层
+     * @param encoded 交易编码
+     * @return 解码后的交易
+     */
+    public Transaction restore(byte[] encoded) {
+        Transaction transaction = TransactionCodec.decode(encoded);
+        hotTier.invalidate(transaction.getId());
+        coldTier.putEncoded(transaction.getId(), encoded);
+        indexTransaction(transaction);
+        return transaction;
+    }
+
+    /**
+     * 从日志恢复删除操作，不记录变更日志
+     */
+    public void restoreDeletion(String id) {
+        hotTier.asMap().compute(id, (key, previous) -> {
+            removeFromStores(id, previous);
+            return null;
+        });
+    }
+
+    /**
+     * 遍历全部交易编码，用于写快照
+     */
+    public void forEachEncoded(Consumer<byte[]> action) {
+        coldTier.forEachEncoded(action);
+    }
+
+    /**
+     * 设置变更日志，保存和删除在交易级互斥区内记录日志，返回前等待落盘
+     */
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal != null ? journal : ChangeJournal.NONE;
+    }
+
     @Override
     public Optional<Transaction> findById(String id) {
-        return Optional.ofNullable(cache.get(id));
+        Transaction transaction = hotTier.getIfPresent(id);
+        if (transaction != null) {
+            hotHits.increment();
+            return Optional.of(transaction);
+        }
+        // 热层未命中：原子地从冷层加载并回填热层
+        return Optional.ofNullable(hotTier.get(id, this::loadFromColdTier));
+    }
+
+    @Override
+    public Optional<Transaction> updateStatus(String id, TransactionStatus expected, TransactionStatus status) {
+        return updateIfStatus(id, expected, transaction -> transaction.setStatus(status));
     }
 
+    @Override
+    public Optional<Transaction> updateRemark(String id, TransactionStatus expected, String remark) {
+        return updateIfStatus(id, expected, transaction -> transaction.setRemark(remark));
+    }
+
+    /**
+     * 在该交易ID的 compute 中读取当前交易，状态符合时修改副本并写入冷层、索引和热层；
+     * 已返回给调用方的交易对象不会被修改
+     */
+    private Optional<Transaction> updateIfStatus(String id, TransactionStatus expected, Consumer<Transaction> change) {
+        ChangeJournal journal = this.journal;
+        long[] ticket = new long[1];
+        Transaction[] updated = new Transaction[1];
+        hotTier.asMap().compute(id, (key, previous) -> {
+            Transaction current = previous != null ? previous : coldTier.get(id);
+            if (current == null || current.getStatus() != expected) {
+                return previous;
+            }
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(current, transaction);
+            change.accept(transaction);
+            byte[] encoded = coldTier.put(transaction);
+            indexTransaction(transaction);
+            ticket[0] = journal.transactionSaved(encoded);
+            updated[0] = transaction;
+            return transaction;
+        });
+        journal.awaitDurable(ticket[0]);
+        return Optional.ofNullable(updated[0]);
+    }
+
+    /**
+     * 批量查询：一次遍历热层取出命中的交易，未命中的逐个从冷层加载并回填热层
+     */
+    @Override
+    public List<Transaction> findAllById(Collection<String> ids) {
+        Map<String, Transaction> hot = hotTier.getAllPresent(ids);
+        hotHits.add(hot.size());
+        List<Transaction> transactions = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Transaction transaction = hot.get(id);
+            if (transaction == null) {
+                transaction = hotTier.get(id, this::loadFromColdTier);
+            }
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * 查询账户相关的所有交易，按时间倒序（最新在前）
+     */
     @Override
     public List<Transaction> findByAccountId(String accountId) {
-        return cache.values().stream()
-                .filter(t -> (t.getFromAccount() != null && accountId.equals(t.getFromAccount().getAccountId())) ||
-                            (t.getToAccount() != null && accountId.equals(t.getToAccount().getAccountId())))
-                .toList();
+        TransactionTimeIndex index = accountIndex.get(accountId);
+        if (index == null) {
+            return List.of();
+        }
+        return findAllById(index.newestFirst(0, index.size()));
+    }
+    
+    /**
+     * 按时间升序分批查询账户相关交易：在账户索引上范围扫描，再批量读取
+     */
+    @Override
+    public List<Transaction> findByAccountIdAfter(String accountId, TimeCursor after, long endTimeKey, int limit) {
+        TransactionTimeIndex index = accountIndex.get(accountId);
+        if (index == null) {
+            return List.of();
+        }
+        return findAllById(idsOf(index.oldestAfter(after, endTimeKey, limit)));
+    }
+    
+    /**
+     * 偏移分页：在时间索引上定位本页交易ID，再批量读取
+     */
+    @Override
+    public List<Transaction> findNewestFirst(int page, int size) {
+        long offset = (long) page * size;
+        if (offset >= timeIndex.size()) {
+            return List.of();
+        }
+        return findAllById(timeIndex.newestFirst((int) offset, size));
+    }
+    
+    /**
+     * 游标分页：在时间索引上从游标位置向前扫描，再批量读取
+     */
+    @Override
+    public List<Transaction> findBefore(TimeCursor before, int limit) {
+        List<String> ids = before == null
+                ? timeIndex.newestFirst(0, limit)
+                : timeIndex.newestBefore(before.timeKey(), before.transactionId(), limit);
+        return findAllById(ids);
+    }
+    
+    /**
+     * 按时间升序分批查询：在时间索引上范围扫描，再批量读取
+     */
+    @Override
+    public List<Transaction> findAfter(TimeCursor after, long endTimeKey, int limit) {
+        return findAllById(idsOf(timeIndex.oldestAfter(after, endTimeKey, limit)));
+    }
+    
+    @Override
+    public int count() {
+        return timeIndex.size();
+    }
+    
+    /**
+     * 组合查询：在位图索引上求出本页交易ID，再批量读取
+     */
+    @Override
+    public PageInfo<Transaction> findByQuery(TransactionQuery query, int page, int size) {
+        TransactionQueryIndex.Result result = queryIndex.query(query, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+        return PageInfo.of(findAllById(result.transactionIds()), page, size, result.total());
     }
     
     /**
      * 根据ID删除交易
      */
     public void deleteById(String id) {
-        cache.remove(id);
+        ChangeJournal journal = this.journal;
+        long[] ticket = new long[1];
+        hotTier.asMap().compute(id, (key, previous) -> {
+            if (removeFromStores(id, previous)) {
+                ticket[0] = journal.transactionDeleted(id);
+            }
+            return null;
+        });
+        journal.awaitDurable(ticket[0]);
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.storage.requests", hotHits, LongAdder::sum)
+                .tag("result", "hot_hit").description("交易存储读取次数").register(registry);
+        FunctionCounter.builder("bank.storage.requests", coldHits, LongAdder::sum)
+                .tag("result", "cold_hit").description("交易存储读取次数").register(registry);
+        FunctionCounter.builder("bank.storage.requests", misses, LongAdder::sum)
+                .tag("result", "miss").description("交易存储读取次数").register(registry);
+        FunctionCounter.builder("bank.storage.evictions", hotTier, cache -> cache.stats().evictionCount())
+                .description("热层淘汰次数").register(registry);
+        Gauge.builder("bank.storage.size", hotTier, Cache::estimatedSize)
+                .tag("tier", "hot").description("存储层交易条数").register(registry);
+        Gauge.builder("bank.storage.size", coldTier, CompactTransactionStore::size)
+                .tag("tier", "cold").description("存储层交易条数").register(registry);
+        Gauge.builder("bank.storage.cold.bytes", coldTier, CompactTransactionStore::totalBytes)
+                .description("冷层编码字节数").baseUnit("bytes").register(registry);
+    }
+    
+    /**
+     * 存储层统计快照
+     */
+    public StorageStats getStorageStats() {
+        return new StorageStats(hotHits.sum(), coldHits.sum(), misses.sum(),
+                hotTier.stats().evictionCount(), hotTier.estimatedSize(), coldTier.size());
+    }
+    
+    /**
+     * 立即执行热层的待处理淘汰（Caffeine 默认异步维护）
+     */
+    void cleanUp() {
+        hotTier.cleanUp();
+    }
+    
+    /**
+     * 从冷层和索引删除交易（在该交易ID的 compute 中调用）
+     * @return 交易存在并已删除时返回true
+     */
+    private boolean removeFromStores(String id, Transaction cached) {
+        Transaction removed = cached != null ? cached : coldTier.get(id);
+        if (removed == null) {
+            return false;
+        }
+        coldTier.remove(id);
+        timeIndex.remove(id);
+        queryIndex.remove(id);
+        for (String accountId : accountIdsOf(removed)) {
+            TransactionTimeIndex index = accountIndex.get(accountId);
+            if (index != null) {
+                index.remove(id);
+            }
+        }
+        return true;
+    }
+    
+    private Transaction loadFromColdTier(String transactionId) {
+        Transaction transaction = coldTier.get(transactionId);
+        if (transaction != null) {
+            coldHits.increment();
+        } else {
+            misses.increment();
+        }
+        return transaction;
+    }
+    
+    /**
+     * 写入冷层，新交易超过 storage.cache.max-records 时拒绝
+     */
+    private byte[] putCold(Transaction transaction) {
+        byte[] encoded = coldTier.put(transaction);
+        if (encoded == null) {
+            throw storageFull();
+        }
+        return encoded;
+    }
+
+    private static SystemException storageFull() {
+        return new SystemException(ErrorCode.DATABASE_ERROR, "交易存储已满，请调整 storage.cache.max-records 或改用数据库存储");
     }
-} 
\ No newline at end of file
+
+    /**
+     * 将交易加入时间索引、转出/转入账户的索引和组合查询索引（重复保存时索引自动去重）
+     */
+    private void indexTransaction(Transaction transaction) {
+        timeIndex.add(transaction.getId(), transaction.getTimestamp());
+        queryIndex.add(transaction);
+        for (String accountId : accountIdsOf(transaction)) {
+            accountIndex.computeIfAbsent(accountId, key -> new TransactionTimeIndex())
+                    .add(transaction.getId(), transaction.getTimestamp());
+        }
+    }
+    
+    private static List<String> idsOf(List<TimeCursor> positions) {
+        List<String> ids = new ArrayList<>(positions.size());
+        for (TimeCursor position : positions) {
+            ids.add(position.transactionId());
+        }
+        return ids;
+    }
+    
+    /**
+     * 交易涉及的账户ID，同时识别账户ID字段和账户对象
+     */
+    private static Set<String> accountIdsOf(Transaction transaction) {
+        Set<String> accountIds = new HashSet<>(4);
+        addIfPresent(accountIds, transaction.getFromAccountId());
+        addIfPresent(accountIds, transaction.getToAccountId());
+        if (transaction.getFromAccount() != null) {
+            addIfPresent(accountIds, transaction.getFromAccount().getAccountId());
+        }
+        if (transaction.getToAccount() != null) {
+            addIfPresent(accountIds, transaction.getToAccount().getAccountId());
+        }
+        return accountIds;
+    }
+    
+    private static void addIfPresent(Set<String> accountIds, String accountId) {
+        if (accountId != null && !accountId.isBlank()) {
+            accountIds.add(accountId);
+        }
+    }
+    
+    /**
+     * 存储层统计
+     * @param hotHits 热层命中次数
+     * @param coldHits 冷层命中次数
+     * @param misses 未命中次数
+     * @param evictions 热层淘汰次数
+     * @param hotSize 热层条数（估算）
+     * @param coldSize 冷层条数
+     */
+    public record StorageStats(long hotHits, long coldHits, long misses, long evictions, long hotSize, long coldSize) {}
+}
@@ -0,0 +1,778 @@
+package com.bank.transaction.dao.impl;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.bank.transaction.config.StorageConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.VirtualThreadExecutor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 基于 JDBC 的交易数据访问层实现 - storage.type=mysql 时启用
+ *
+ * 特性：
+ * - 组提交：save 将交易放入写入队列并等待提交完成，单个写入线程每次取出队列中已有的交易（最多 batch-size 条），
+ *   在一个事务中批量 upsert 后提交，再唤醒这一批的所有调用方；并发写入越多，每次提交分摊的交易越多
+ * - SQL 文本固定：IN 查询的参数个数补齐到2的幂，语句数量有限，可以被驱动/连接池的预编译语句缓存复用
+ * - 账户流水按 (转出账户, 交易时间)、(转入账户, 交易时间) 两个索引查询，按时间倒序返回
+ * - 全部交易的分页、游标分页和导出按 (交易时间, 交易ID) 排序，走交易时间索引；游标分页和导出使用键集条件，不随翻页深度变慢
+ * - 组合查询按条件拼接 WHERE，状态、渠道条件走 (状态/渠道, 交易时间) 索引并按索引顺序取最新的一页，
+ *   类型、币种取值少、选择性低，在索引结果上过滤；表已存在时不会补建新增的索引
+ * - 启动时自动建表（表已存在时跳过），DDL 兼容 MySQL 和 MySQL 模式的 H2
+ * - 交易时间存为 DATETIME(6)，按 LocalDateTime 读写，不经过会话时区换算，时间键与游标往返不变
+ * - 暴露组提交批次数、写入条数、待写入队列长度（Micrometer: bank.storage.jdbc.*）
+ */
+@Repository
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "mysql")
+public class JdbcTransactionDao implements TransactionDao, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcTransactionDao.class);
+
+    static final String TABLE = "bank_transaction";
+
+    // DATETIME 列的最早取值
+    private static final LocalDateTime MIN_DATETIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private static final String COLUMNS = "id, amount, type, txn_timestamp, status, currency, channel, reference_number, "
+            + "direction, remark, from_account_id, to_account_id, idempotency_key, initiated_by, approved_by";
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "id VARCHAR(64) NOT NULL PRIMARY KEY, "
+            + "amount DECIMAL(19, 4) NOT NULL, "
+            + "type VARCHAR(16) NOT NULL, "
+            + "txn_timestamp DATETIME(6) NULL, "
+            + "status VARCHAR(16) NULL, "
+            + "currency VARCHAR(8) NULL, "
+            + "channel VARCHAR(32) NULL, "
+            + "reference_number VARCHAR(64) NULL, "
+            + "direction VARCHAR(32) NULL, "
+            + "remark VARCHAR(255) NULL, "
+            + "from_account_id VARCHAR(32) NULL, "
+            + "to_account_id VARCHAR(32) NULL, "
+            + "idempotency_key VARCHAR(64) NULL, "
+            + "initiated_by VARCHAR(64) NULL, "
+            + "approved_by VARCHAR(64) NULL, "
+            + "INDEX idx_txn_from_account (from_account_id, txn_timestamp), "
+            + "INDEX idx_txn_to_account (to_account_id, txn_timestamp), "
+            + "INDEX idx_txn_status (status, txn_timestamp), "
+            + "INDEX idx_txn_channel (channel, txn_timestamp), "
+            + "INDEX idx_txn_timestamp (txn_timestamp))";
+
+    private static final String UPSERT = "INSERT INTO " + TABLE + " (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "amount = VALUES(amount), type = VALUES(type), txn_timestamp = VALUES(txn_timestamp), "
+            + "status = VALUES(status), currency = VALUES(currency), channel = VALUES(channel), "
+            + "reference_number = VALUES(reference_number), direction = VALUES(direction), remark = VALUES(remark), "
+            + "from_account_id = VALUES(from_account_id), to_account_id = VALUES(to_account_id), "
+            + "idempotency_key = VALUES(idempotency_key), initiated_by = VALUES(initiated_by), approved_by = VALUES(approved_by)";
+
+    private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE id = ?";
+
+    private static final String UPDATE_STATUS = "UPDATE " + TABLE + " SET status = ? WHERE id = ? AND status = ?";
+
+    private static final String UPDATE_REMARK = "UPDATE " + TABLE + " SET remark = ? WHERE id = ? AND status = ?";
+
+    private static final String SELECT_BY_ACCOUNT = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE from_account_id = ? "
+            + "UNION SELECT " + COLUMNS + " FROM " + TABLE + " WHERE to_account_id = ? "
+            + "ORDER BY txn_timestamp DESC, id DESC";
+
+    private static final String RANGE_CONDITION = " AND (txn_timestamp > ? OR (txn_timestamp = ? AND id > ?)) AND txn_timestamp < ?";
+
+    private static final String SELECT_BY_ACCOUNT_AFTER = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE from_account_id = ?" + RANGE_CONDITION
+            + " UNION SELECT " + COLUMNS + " FROM " + TABLE + " WHERE to_account_id = ?" + RANGE_CONDITION
+            + " ORDER BY txn_timestamp, id LIMIT ?";
+
+    private static final String SELECT_NEWEST = "SELECT " + COLUMNS + " FROM " + TABLE
+            + " ORDER BY txn_timestamp DESC, id DESC LIMIT ? OFFSET ?";
+
+    private static final String SELECT_BEFORE = "SELECT " + COLUMNS + " FROM " + TABLE
+            + " WHERE txn_timestamp < ? OR (txn_timestamp = ? AND id < ?) ORDER BY txn_timestamp DESC, id DESC LIMIT ?";
+
+    private static final String SELECT_AFTER = "SELECT " + COLUMNS + " FROM " + TABLE
+            + " WHERE (txn_timestamp > ? OR (txn_timestamp = ? AND id > ?)) AND txn_timestamp < ? ORDER BY txn_timestamp, id LIMIT ?";
+
+    private static final String COUNT = "SELECT COUNT(*) FROM " + TABLE;
+
+    /**
+     * 单条 IN 查询的最大参数个数，超过时分多次查询
+     */
+    static final int MAX_IN_PARAMETERS = 128;
+
+    private final DataSource dataSource;
+    // 多批 IN 查询并行执行；为 null 时在调用线程依次查询
+    private final VirtualThreadExecutor virtualThreadExecutor;
+    private final int queryTimeout;
+    private final int batchSize;
+    private final BlockingQueue<PendingWrite> writeQueue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+
+    public JdbcTransactionDao(DataSource dataSource, StorageConfig storageConfig) {
+        this(dataSource, storageConfig, null);
+    }
+
+    @Autowired
+    public JdbcTransactionDao(DataSource dataSource, StorageConfig storageConfig, VirtualThreadExecutor virtualThreadExecutor) {
+        StorageConfig.Mysql mysql = storageConfig.getMysql();
+        this.dataSource = dataSource;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        this.queryTimeout = mysql.getQueryTimeout();
+        this.batchSize = Math.max(1, mysql.getBatchSize());
+        this.writeQueue = new ArrayBlockingQueue<>(Math.max(this.batchSize, mysql.getWriteQueueCapacity()));
+        createTableIfAbsent();
+        this.writer = Thread.ofPlatform().name("jdbc-group-commit").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * 保存交易（新增或覆盖），返回时已提交到数据库
+     */
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (!running) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, "交易存储已关闭");
+        }
+        PendingWrite write = new PendingWrite(transaction);
+        try {
+            if (!writeQueue.offer(write, queryTimeout, TimeUnit.SECONDS)) {
+                throw new SystemException(ErrorCode.DATABASE_ERROR, "交易写入队列已满");
+            }
+            write.committed.get(queryTimeout, TimeUnit.SECONDS);
+            return transaction;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException(ErrorCode.DATABASE_ERROR, "等待交易写入被中断");
+        } catch (TimeoutException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, "交易写入超时");
+        } catch (ExecutionException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e.getCause());
+        }
+    }
+
+    /**
+     * 批量保存：不经过组提交队列，调用线程在一个数据库事务中写入全部交易，整批成功或整批回滚
+     */
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        if (!running) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, "交易存储已关闭");
+        }
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            upsertInTransaction(connection, transactions);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+        batches.increment();
+        rowsWritten.add(transactions.size());
+        return transactions;
+    }
+
+    @Override
+    public Optional<Transaction> findById(String id) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_BY_ID)) {
+            statement.setString(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.of(mapRow(resultSet)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 条件更新状态：单条 UPDATE 带状态条件，只改 status 列，不覆盖并发修改的备注
+     */
+    @Override
+    public Optional<Transaction> updateStatus(String id, TransactionStatus expected, TransactionStatus status) {
+        return updateIfStatus(UPDATE_STATUS, status.name(), id, expected);
+    }
+
+    /**
+     * 条件更新备注：单条 UPDATE 带状态条件，只改 remark 列
+     */
+    @Override
+    public Optional<Transaction> updateRemark(String id, TransactionStatus expected, String remark) {
+        return updateIfStatus(UPDATE_REMARK, remark, id, expected);
+    }
+
+    private Optional<Transaction> updateIfStatus(String sql, String value, String id, TransactionStatus expected) {
+        if (!running) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, "交易存储已关闭");
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, sql)) {
+            statement.setString(1, value);
+            statement.setString(2, id);
+            statement.setString(3, expected.name());
+            if (statement.executeUpdate() == 0) {
+                return Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+        return findById(id);
+    }
+
+    /**
+     * 批量查询：按 IN 查询分组读取，多组时由虚拟线程执行器并行查询，结果按 ids 顺序重排
+     */
+    @Override
+    public List<Transaction> findAllById(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<String> idList = List.copyOf(ids);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += MAX_IN_PARAMETERS) {
+            chunks.add(idList.subList(from, Math.min(idList.size(), from + MAX_IN_PARAMETERS)));
+        }
+        // 超过一批时各批用各自的连接并行查询，并发数受虚拟线程执行器的许可数和连接池大小限制
+        List<List<Transaction>> results = chunks.size() > 1 && virtualThreadExecutor != null
+            ? virtualThreadExecutor.runWithVirtualThreadsLogic(chunks, this::findChunk)
+            : chunks.stream().map(this::findChunk).toList();
+        Map<String, Transaction> found = new HashMap<>(idList.size() * 2);
+        for (List<Transaction> result : results) {
+            for (Transaction transaction : result) {
+                found.put(transaction.getId(), transaction);
+            }
+        }
+        List<Transaction> transactions = new ArrayList<>(idList.size());
+        for (String id : idList) {
+            Transaction transaction = found.get(id);
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * 一次 IN 查询最多 {@link #MAX_IN_PARAMETERS} 个ID
+     */
+    private List<Transaction> findChunk(List<String> chunk) {
+        int parameters = paddedSize(chunk.size());
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, selectByIds(parameters))) {
+            for (int i = 0; i < parameters; i++) {
+                // 补齐的参数重复最后一个ID，不影响结果
+                statement.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    transactions.add(mapRow(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+        return transactions;
+    }
+
+    /**
+     * 查询账户相关的所有交易，按时间倒序（最新在前）
+     */
+    @Override
+    public List<Transaction> findByAccountId(String accountId) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_BY_ACCOUNT)) {
+            statement.setString(1, accountId);
+            statement.setString(2, accountId);
+            List<Transaction> transactions = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    transactions.add(mapRow(resultSet));
+                }
+            }
+            return transactions;
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 按时间升序分批查询账户相关交易：键集分页，走 (账户, 时间) 索引
+     */
+    @Override
+    public List<Transaction> findByAccountIdAfter(String accountId, TimeCursor after, long endTimeKey, int limit) {
+        LocalDateTime afterTime = dateTimeOf(after.timeKey());
+        LocalDateTime endTime = dateTimeOf(endTimeKey);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_BY_ACCOUNT_AFTER)) {
+            int parameter = 1;
+            for (int i = 0; i < 2; i++) {
+                statement.setString(parameter++, accountId);
+                statement.setObject(parameter++, afterTime);
+                statement.setObject(parameter++, afterTime);
+                statement.setString(parameter++, after.transactionId());
+                statement.setObject(parameter++, endTime);
+            }
+            statement.setInt(parameter, limit);
+            List<Transaction> transactions = new ArrayList<>(limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    transactions.add(mapRow(resultSet));
+                }
+            }
+            return transactions;
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 偏移分页：按交易时间索引倒序取一页
+     */
+    @Override
+    public List<Transaction> findNewestFirst(int page, int size) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_NEWEST)) {
+            statement.setInt(1, size);
+            statement.setLong(2, (long) page * size);
+            return queryList(statement, size);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 游标分页：键集条件从游标位置向前扫描交易时间索引
+     */
+    @Override
+    public List<Transaction> findBefore(TimeCursor before, int limit) {
+        if (before == null) {
+            return findNewestFirst(0, limit);
+        }
+        LocalDateTime beforeTime = dateTimeOf(before.timeKey());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_BEFORE)) {
+            statement.setObject(1, beforeTime);
+            statement.setObject(2, beforeTime);
+            statement.setString(3, before.transactionId());
+            statement.setInt(4, limit);
+            return queryList(statement, limit);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 按时间升序分批查询全部交易：键集分页，走交易时间索引
+     */
+    @Override
+    public List<Transaction> findAfter(TimeCursor after, long endTimeKey, int limit) {
+        LocalDateTime afterTime = dateTimeOf(after.timeKey());
+        LocalDateTime endTime = dateTimeOf(endTimeKey);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, SELECT_AFTER)) {
+            statement.setObject(1, afterTime);
+            statement.setObject(2, afterTime);
+            statement.setString(3, after.transactionId());
+            statement.setObject(4, endTime);
+            statement.setInt(5, limit);
+            return queryList(statement, limit);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, COUNT);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    /**
+     * 组合查询：先按条件计数，本页有数据时再按时间倒序取一页
+     */
+    @Override
+    public PageInfo<Transaction> findByQuery(TransactionQuery query, int page, int size) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>(8);
+        if (query.status() != null) {
+            where.append(" AND status = ?");
+            parameters.add(query.status().name());
+        }
+        if (query.type() != null) {
+            where.append(" AND type = ?");
+            parameters.add(query.type().name());
+        }
+        if (query.currency() != null) {
+            where.append(" AND currency = ?");
+            parameters.add(query.currency().name());
+        }
+        if (query.channel() != null) {
+            where.append(" AND channel = ?");
+            parameters.add(query.channel());
+        }
+        if (query.minAmount() != null) {
+            where.append(" AND amount >= ?");
+            parameters.add(query.minAmount());
+        }
+        if (query.maxAmount() != null) {
+            where.append(" AND amount <= ?");
+            parameters.add(query.maxAmount());
+        }
+        if (query.from() != null) {
+            where.append(" AND txn_timestamp >= ?");
+            parameters.add(query.from());
+        }
+        if (query.to() != null) {
+            where.append(" AND txn_timestamp < ?");
+            parameters.add(query.to());
+        }
+
+        long offset = (long) page * size;
+        try (Connection connection = dataSource.getConnection()) {
+            int total;
+            try (PreparedStatement statement = prepare(connection, "SELECT COUNT(*) FROM " + TABLE + where)) {
+                bindParameters(statement, parameters);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    total = resultSet.getInt(1);
+                }
+            }
+            List<Transaction> transactions = new ArrayList<>(size);
+            if (total > offset) {
+                String sql = "SELECT " + COLUMNS + " FROM " + TABLE + where + " ORDER BY txn_timestamp DESC, id DESC LIMIT ? OFFSET ?";
+                try (PreparedStatement statement = prepare(connection, sql)) {
+                    bindParameters(statement, parameters);
+                    statement.setInt(parameters.size() + 1, size);
+                    statement.setLong(parameters.size() + 2, offset);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            transactions.add(mapRow(resultSet));
+                        }
+                    }
+                }
+            }
+            return PageInfo.of(transactions, page, size, total);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.storage.jdbc.batches", batches, LongAdder::sum)
+                .description("组提交批次数").register(registry);
+        FunctionCounter.builder("bank.storage.jdbc.rows", rowsWritten, LongAdder::sum)
+                .description("组提交写入的交易条数").register(registry);
+        Gauge.builder("bank.storage.jdbc.queue", writeQueue, BlockingQueue::size)
+                .description("等待组提交的交易条数").register(registry);
+    }
+
+    /**
+     * 已提交的批次数
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * 已写入的交易条数
+     */
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    /**
+     * 在应用关闭时，提交队列中剩余的交易后停止写入线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(queryTimeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写入线程：阻塞等待第一条，再取出队列中已有的交易组成一批
+     */
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                PendingWrite first = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writeQueue.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("组提交写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中批量 upsert，提交后唤醒调用方；失败时整批回滚，调用方收到异常
+     */
+    private void commit(List<PendingWrite> batch) {
+        try (Connection connection = dataSource.getConnection()) {
+            List<Transaction> transactions = new ArrayList<>(batch.size());
+            for (PendingWrite write : batch) {
+                transactions.add(write.transaction);
+            }
+            upsertInTransaction(connection, transactions);
+            batches.increment();
+            rowsWritten.add(batch.size());
+            for (PendingWrite write : batch) {
+                write.committed.complete(null);
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("交易批量写入失败，批次条数: {}", batch.size(), e);
+            for (PendingWrite write : batch) {
+                write.committed.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中批量 upsert，每 batchSize 条执行一次；失败时整体回滚
+     */
+    private void upsertInTransaction(Connection connection, List<Transaction> transactions) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = prepare(connection, UPSERT)) {
+            int pending = 0;
+            for (Transaction transaction : transactions) {
+                bindRow(statement, transaction);
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void createTableIfAbsent() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        } catch (SQLException e) {
+            throw new SystemException(ErrorCode.DATABASE_ERROR, e);
+        }
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statement.setQueryTimeout(queryTimeout);
+        return statement;
+    }
+
+    /**
+     * IN 查询参数个数补齐到2的幂（最多 MAX_IN_PARAMETERS），使不同批量大小共用少量 SQL 文本
+     */
+    static int paddedSize(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        return Math.min(MAX_IN_PARAMETERS, Integer.highestOneBit(size - 1) << 1);
+    }
+
+    private static String selectByIds(int parameters) {
+        StringBuilder sql = new StringBuilder(128 + parameters * 3)
+                .append("SELECT ").append(COLUMNS).append(" FROM ").append(TABLE).append(" WHERE id IN (");
+        for (int i = 0; i < parameters; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static List<Transaction> queryList(PreparedStatement statement, int expectedSize) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>(expectedSize);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                transactions.add(mapRow(resultSet));
+            }
+        }
+        return transactions;
+    }
+
+    private static void bindParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * 时间键转为查询参数；早于 DATETIME 下限（1000年）的时间键（如不限起始时间的 Long.MIN_VALUE）按下限处理
+     */
+    private static LocalDateTime dateTimeOf(long timeKey) {
+        LocalDateTime time = TransactionTimeIndex.toTimestamp(timeKey);
+        return time.isBefore(MIN_DATETIME) ? MIN_DATETIME : time;
+    }
+
+    private static void bindRow(PreparedStatement statement, Transaction transaction) throws SQLException {
+        statement.setString(1, transaction.getId());
+        statement.setBigDecimal(2, transaction.getAmount());
+        statement.setString(3, transaction.getType() != null ? transaction.getType().name() : null);
+        if (transaction.getTimestamp() != null) {
+            statement.setObject(4, transaction.getTimestamp());
+        } else {
+            statement.setNull(4, Types.TIMESTAMP);
+        }
+        statement.setString(5, transaction.getStatus() != null ? transaction.getStatus().name() : null);
+        statement.setString(6, transaction.getCurrency() != null ? transaction.getCurrency().name() : null);
+        statement.setString(7, transaction.getChannel());
+        statement.setString(8, transaction.getReferenceNumber());
+        statement.setString(9, transaction.getDirection());
+        statement.setString(10, transaction.getRemark());
+        setNullableString(statement, 11, fromAccountIdOf(transaction));
+        setNullableString(statement, 12, toAccountIdOf(transaction));
+        statement.setString(13, transaction.getIdempotencyKey());
+        statement.setString(14, transaction.getInitiatedBy());
+        statement.setString(15, transaction.getApprovedBy());
+    }
+
+    private static Transaction mapRow(ResultSet resultSet) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setId(resultSet.getString("id"));
+        Currency currency = enumOrNull(Currency.class, resultSet.getString("currency"));
+        transaction.setCurrency(currency);
+        transaction.setAmount(normalizeAmount(resultSet.getBigDecimal("amount"), currency));
+        transaction.setType(enumOrNull(TransactionType.class, resultSet.getString("type")));
+        transaction.setTimestamp(resultSet.getObject("txn_timestamp", LocalDateTime.class));
+        transaction.setStatus(enumOrNull(TransactionStatus.class, resultSet.getString("status")));
+        transaction.setChannel(resultSet.getString("channel"));
+        transaction.setReferenceNumber(resultSet.getString("reference_number"));
+        transaction.setDirection(resultSet.getString("direction"));
+        transaction.setRemark(resultSet.getString("remark"));
+        transaction.setFromAccountId(resultSet.getString("from_account_id"));
+        transaction.setToAccountId(resultSet.getString("to_account_id"));
+        transaction.setIdempotencyKey(resultSet.getString("idempotency_key"));
+        transaction.setInitiatedBy(resultSet.getString("initiated_by"));
+        transaction.setApprovedBy(resultSet.getString("approved_by"));
+        return transaction;
+    }
+
+    /**
+     * 去掉 DECIMAL 列补齐的尾部0，但至少保留币种的小数位数
+     */
+    private static BigDecimal normalizeAmount(BigDecimal amount, Currency currency) {
+        if (amount == null) {
+            return null;
+        }
+        BigDecimal stripped = amount.stripTrailingZeros();
+        int minScale = currency != null ? currency.getScale() : 0;
+        return stripped.scale() < minScale ? stripped.setScale(minScale) : stripped;
+    }
+
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    private static void setNullableString(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value == null || value.isBlank()) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+
+    /**
+     * 转出账户ID，同时识别账户ID字段和账户对象
+     */
+    private static String fromAccountIdOf(Transaction transaction) {
+        if (transaction.getFromAccountId() != null || transaction.getFromAccount() == null) {
+            return transaction.getFromAccountId();
+        }
+        return transaction.getFromAccount().getAccountId();
+    }
+
+    /**
+     * 转入账户ID，同时识别账户ID字段和账户对象
+     */
+    private static String toAccountIdOf(Transaction transaction) {
+        if (transaction.getToAccountId() != null || transaction.getToAccount() == null) {
+            return transaction.getToAccountId();
+        }
+        return transaction.getToAccount().getAccountId();
+    }
+
+    /**
+     * 等待组提交的一条写入
+     */
+    private static final class PendingWrite {
+        private final Transaction transaction;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        private PendingWrite(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bank.transaction.errorlog;
+
+import com.bank.transaction.util.Constants.ErrorLevel;
+
+/**
+ * 错误事件
+ * @param errorCode 错误码
+ * @param errorMessage 错误信息
+ * @param detail 详细描述
+ * @param level 错误级别
+ * @param uri 请求URI
+ * @param method 请求方法
+ * @param clientIp 客户端IP
+ */
+public record ErrorEvent(String errorCode, String errorMessage, String detail, ErrorLevel level,
+                         String uri, String method, String clientIp) {}
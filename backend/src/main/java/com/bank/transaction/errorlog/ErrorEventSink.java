@@ -0,0 +1,294 @@
+package com.bank.transaction.errorlog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.ErrorLogConfig;
+import com.bank.transaction.util.Constants.ErrorLevel;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 错误事件汇总输出
+ *
+ * 请求线程只做计数，格式化和写入在后台线程按时间窗口批量完成，异常风暴时输出量不随异常数增长：
+ * - 按错误码汇总：每个错误码一个计数器（LongAdder），窗口内只保留第一次出现时的请求信息作为示例
+ * - 每个窗口结束时，每个出现过的错误码输出一条汇总日志（次数、首次/末次时间、示例），
+ *   开启 fileEnabled 时同时追加写入当天的 NDJSON 文件，一个窗口只打开一次文件
+ * - 错误码数量达到 maxKeys 后，新错误码只计入 bank.errors.overflow，不再汇总
+ * - 致命异常立即告警，同一错误码 alertIntervalSeconds 内只告警一次，被抑制的次数随下一次告警输出
+ */
+@Slf4j
+@Component
+public class ErrorEventSink implements MeterBinder {
+
+    private static final String FILE_PREFIX = "errors-";
+    private static final String FILE_SUFFIX = ".ndjson";
+
+    private final ErrorLogConfig config;
+    private final LongSupplier clock;
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Map<String, Alert> alerts = new ConcurrentHashMap<>();
+    // 每行一条 JSON 记录
+    private final JsonFactory jsonFactory = new JsonFactory().setRootValueSeparator("\n");
+    private volatile long windowStart;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+    private final LongAdder suppressedAlerts = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public ErrorEventSink(ErrorLogConfig config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    ErrorEventSink(ErrorLogConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.windowStart = clock.getAsLong();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable ->
+                Thread.ofPlatform().daemon().name("error-log-flusher").unstarted(runnable));
+        long windowMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getWindowSeconds()));
+        flusher.scheduleWithFixedDelay(this::flushSafely, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台线程，输出最后一个窗口
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+        flushSafely();
+    }
+
+    /**
+     * 记录一次错误，只更新计数（每个错误码每个窗口的第一次额外保存请求信息）
+     */
+    public void record(ErrorEvent event) {
+        recorded.increment();
+        long now = clock.getAsLong();
+        Aggregate aggregate = aggregates.get(event.errorCode());
+        if (aggregate == null) {
+            if (aggregates.size() >= config.getMaxKeys()) {
+                overflow.increment();
+                return;
+            }
+            aggregate = aggregates.computeIfAbsent(event.errorCode(), key -> new Aggregate());
+        }
+        aggregate.add(event, now);
+        if (event.level() == ErrorLevel.FATAL) {
+            alert(event, now);
+        }
+    }
+
+    /**
+     * 输出当前窗口的汇总记录并开始新窗口
+     * @return 本窗口汇总的错误码数
+     */
+    public int flush() throws IOException {
+        long start = windowStart;
+        long end = clock.getAsLong();
+        windowStart = end;
+        List<Summary> summaries = new ArrayList<>();
+        aggregates.forEach((errorCode, aggregate) -> {
+            Summary summary = aggregate.drain(errorCode);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        });
+        if (summaries.isEmpty()) {
+            return 0;
+        }
+        for (Summary summary : summaries) {
+            logSummary(summary);
+        }
+        if (config.isFileEnabled()) {
+            writeFile(start, end, summaries);
+        }
+        return summaries.size();
+    }
+
+    /**
+     * 已记录的错误数
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * 错误码数量超出上限、未汇总的错误数
+     */
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+
+    /**
+     * 被抑制的致命异常告警数
+     */
+    public long getSuppressedAlertCount() {
+        return suppressedAlerts.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.errors.recorded", recorded, LongAdder::sum)
+                .description("记录的错误数").register(registry);
+        FunctionCounter.builder("bank.errors.overflow", overflow, LongAdder::sum)
+                .description("错误码数量超出上限、未汇总的错误数").register(registry);
+        FunctionCounter.builder("bank.errors.alerts.suppressed", suppressedAlerts, LongAdder::sum)
+                .description("告警间隔内被抑制的致命异常告警数").register(registry);
+        FunctionCounter.builder("bank.errors.write.failures", writeFailures, LongAdder::sum)
+                .description("错误日志文件写入失败次数").register(registry);
+    }
+
+    private void alert(ErrorEvent event, long now) {
+        Alert alert = alerts.computeIfAbsent(event.errorCode(), key -> new Alert());
+        long next = alert.nextAllowed.get();
+        if (now < next || !alert.nextAllowed.compareAndSet(next, now + TimeUnit.SECONDS.toMillis(config.getAlertIntervalSeconds()))) {
+            alert.suppressed.increment();
+            suppressedAlerts.increment();
+            return;
+        }
+        log.error("*** 致命异常告警 *** - 错误码: {}, 错误信息: {}, 详细描述: {}, 请求URI: {}, 此前抑制告警: {}次 - 需要立即通知运维团队",
+                event.errorCode(), event.errorMessage(), event.detail(), event.uri(), alert.suppressed.sumThenReset());
+    }
+
+    private void logSummary(Summary summary) {
+        ErrorEvent sample = summary.sample();
+        String format = "错误汇总 - 错误码: {}, 错误级别: {}, 次数: {}, 错误信息: {}, 示例: [详细描述: {}, 请求: {} {}, 客户端IP: {}]";
+        Object[] arguments = {sample.errorCode(), sample.level(), summary.count(), sample.errorMessage(),
+                sample.detail(), sample.method(), sample.uri(), sample.clientIp()};
+        switch (sample.level() != null ? sample.level() : ErrorLevel.ERROR) {
+            case FATAL -> log.error(format, arguments);
+            case ERROR, WARN -> log.warn(format, arguments);
+            default -> log.info(format, arguments);
+        }
+    }
+
+    private void writeFile(long start, long end, List<Summary> summaries) throws IOException {
+        LocalDate day = Instant.ofEpochMilli(end).atZone(ZoneId.systemDefault()).toLocalDate();
+        Path directory = Files.createDirectories(Paths.get(config.getDirectory()));
+        Path file = directory.resolve(FILE_PREFIX + day + FILE_SUFFIX);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+             JsonGenerator json = jsonFactory.createGenerator(writer)) {
+            for (Summary summary : summaries) {
+                ErrorEvent sample = summary.sample();
+                json.writeStartObject();
+                json.writeStringField("windowStart", Instant.ofEpochMilli(start).toString());
+                json.writeStringField("windowEnd", Instant.ofEpochMilli(end).toString());
+                json.writeStringField("errorCode", sample.errorCode());
+                json.writeStringField("level", sample.level() != null ? sample.level().name() : null);
+                json.writeStringField("errorMessage", sample.errorMessage());
+                json.writeNumberField("count", summary.count());
+                json.writeStringField("firstSeen", Instant.ofEpochMilli(summary.firstSeen()).toString());
+                json.writeStringField("lastSeen", Instant.ofEpochMilli(summary.lastSeen()).toString());
+                json.writeStringField("detail", sample.detail());
+                json.writeStringField("uri", sample.uri());
+                json.writeStringField("method", sample.method());
+                json.writeStringField("clientIp", sample.clientIp());
+                json.writeEndObject();
+            }
+            json.writeRaw('\n');
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            writeFailures.increment();
+            log.error("错误日志输出失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 一个错误码的窗口内计数，示例和首次时间在窗口内第一次出现时设置
+     */
+    private static final class Aggregate {
+        private final LongAdder count = new LongAdder();
+        private final AtomicReference<ErrorEvent> sample = new AtomicReference<>();
+        private final AtomicLong firstSeen = new AtomicLong(Long.MAX_VALUE);
+        private volatile long lastSeen;
+
+        private void add(ErrorEvent event, long now) {
+            if (sample.get() == null && sample.compareAndSet(null, event)) {
+                firstSeen.set(now);
+            }
+            lastSeen = now;
+            count.increment();
+        }
+
+        /**
+         * 取出并清零本窗口的计数，窗口内没有出现时返回 null
+         */
+        private Summary drain(String errorCode) {
+            long total = count.sumThenReset();
+            ErrorEvent event = sample.getAndSet(null);
+            long first = firstSeen.getAndSet(Long.MAX_VALUE);
+            if (total == 0) {
+                return null;
+            }
+            if (event == null) {
+                // 计数在上一个示例取出之后到达：用错误码补一个示例
+                event = new ErrorEvent(errorCode, null, null, null, null, null, null);
+            }
+            return new Summary(event, total, first != Long.MAX_VALUE ? first : lastSeen, lastSeen);
+        }
+    }
+
+    private static final class Alert {
+        private final AtomicLong nextAllowed = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder suppressed = new LongAdder();
+    }
+
+    private record Summary(ErrorEvent sample, long count, long firstSeen, long lastSeen) {}
+}
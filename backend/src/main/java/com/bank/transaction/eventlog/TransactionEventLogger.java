@@ -0,0 +1,364 @@
+package com.bank.transaction.eventlog;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.EventLogConfig;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易事件日志
+ *
+ * 交易热路径上只把事件字段复制到预先分配的环形缓冲区槽位，由独立的输出线程批量格式化并写入日志
+ * （logger 名称 com.bank.transaction.events，每行一个 key=value 格式的事件）：
+ * - 多生产者单消费者环形缓冲区，每个槽位带序号，生产者 CAS 占用位置，不加锁、不分配对象
+ * - 对应级别未开启或事件日志关闭时，记录方法在读取任何字段之前返回，不产生任何分配
+ * - 输出线程每次最多取 batchSize 个事件，每个事件一次日志调用，格式化和 appender 的 I/O 都在输出线程内完成；
+ *   缓冲区为空时等待 flushIntervalMillis
+ * - 过载：缓冲区占用超过 sampleThreshold 后 INFO 事件按 1/sampleRate 采样，缓冲区满时丢弃新事件，分别计数
+ * - 应用关闭时输出缓冲区中剩余的事件
+ */
+@Slf4j
+@Component
+public class TransactionEventLogger implements MeterBinder {
+
+    /**
+     * 事件类型
+     */
+    public enum EventType {
+        CREATED(false),
+        STATUS_CHANGED(false),
+        LARGE_AMOUNT(true);
+
+        private final boolean warn;
+        EventType(boolean warn) {this.warn = warn;}
+        public boolean isWarn() {return warn;}
+    }
+
+    private static final String EVENT_LOGGER = "com.bank.transaction.events";
+    private static final long SHUTDOWN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final boolean enabled;
+    private final Logger eventLog;
+    private final int mask;
+    private final Slot[] slots;
+    // 槽位序号：等于位置时可写入，等于位置 + 1 时可读取
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 只由输出线程写入
+    private volatile long head;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long sampleThreshold;
+    private final int sampleRate;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+
+    // 只由输出线程使用
+    private final StringBuilder line = new StringBuilder(256);
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public TransactionEventLogger(EventLogConfig config) {
+        this(config, LoggerFactory.getLogger(EVENT_LOGGER));
+    }
+
+    TransactionEventLogger(EventLogConfig config, Logger eventLog) {
+        this.enabled = config.isEnabled();
+        this.eventLog = eventLog;
+        int capacity = Integer.highestOneBit(Math.max(2, config.getBufferSize()) * 2 - 1);
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getFlushIntervalMillis()));
+        this.sampleThreshold = config.getSampleThreshold() < 1 ? (long) (capacity * config.getSampleThreshold()) : Long.MAX_VALUE;
+        this.sampleRate = Math.max(1, config.getSampleRate());
+    }
+
+    /**
+     * 不记录任何事件的实例，用于未注入事件日志的场景
+     */
+    public static TransactionEventLogger disabled() {
+        EventLogConfig config = new EventLogConfig();
+        config.setEnabled(false);
+        config.setBufferSize(2);
+        return new TransactionEventLogger(config);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running || !enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("transaction-event-log").start(this::writeLoop);
+    }
+
+    /**
+     * 停止输出线程，输出缓冲区中剩余的事件
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(SHUTDOWN_TIMEOUT_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 交易已创建
+     */
+    public void created(Transaction transaction) {
+        if (isEnabled(EventType.CREATED)) {
+            publish(EventType.CREATED, transaction, null, null);
+        }
+    }
+
+    /**
+     * 交易状态已变更（交易已更新为新状态）
+     */
+    public void statusChanged(Transaction transaction, TransactionStatus previous) {
+        if (isEnabled(EventType.STATUS_CHANGED)) {
+            publish(EventType.STATUS_CHANGED, transaction, previous, null);
+        }
+    }
+
+    /**
+     * 大额交易预警
+     * @param threshold 预警阈值
+     */
+    public void largeAmount(Transaction transaction, BigDecimal threshold) {
+        if (isEnabled(EventType.LARGE_AMOUNT)) {
+            publish(EventType.LARGE_AMOUNT, transaction, null, threshold);
+        }
+    }
+
+    /**
+     * 事件日志已开启且对应级别的日志已开启
+     */
+    public boolean isEnabled(EventType type) {
+        return enabled && (type.isWarn() ? eventLog.isWarnEnabled() : eventLog.isInfoEnabled());
+    }
+
+    /**
+     * 已写入缓冲区的事件数
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * 缓冲区满被丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 过载采样未记录的事件数
+     */
+    public long getSampledCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * 缓冲区中等待输出的事件数
+     */
+    public int getBufferedCount() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.events.published", published, LongAdder::sum)
+                .description("写入缓冲区的交易事件数").register(registry);
+        FunctionCounter.builder("bank.events.dropped", dropped, LongAdder::sum)
+                .description("缓冲区满被丢弃的交易事件数").register(registry);
+        FunctionCounter.builder("bank.events.sampled", sampled, LongAdder::sum)
+                .description("过载采样未记录的交易事件数").register(registry);
+        Gauge.builder("bank.events.buffered", this, TransactionEventLogger::getBufferedCount)
+                .description("等待输出的交易事件数").register(registry);
+    }
+
+    private void publish(EventType type, Transaction transaction, TransactionStatus previous, BigDecimal threshold) {
+        if (!type.isWarn() && getBufferedCount() >= sampleThreshold
+                && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampled.increment();
+            return;
+        }
+        long position;
+        while (true) {
+            position = tail.get();
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // 槽位中的事件还未输出：缓冲区已满
+                dropped.increment();
+                return;
+            }
+        }
+        int index = (int) position & mask;
+        slots[index].fill(type, transaction, previous, threshold);
+        sequences.lazySet(index, position + 1);
+        published.increment();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT_NANOS;
+        while (drain() > 0 && System.nanoTime() < deadline) {
+            // 输出剩余事件
+        }
+    }
+
+    /**
+     * 取出最多 batchSize 个事件，逐个输出
+     * @return 本次取出的事件数
+     */
+    int drain() {
+        long position = head;
+        int count = 0;
+        while (count < batchSize) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            Slot slot = slots[index];
+            boolean warn = slot.type.isWarn();
+            slot.format(line);
+            slot.clear();
+            sequences.lazySet(index, position + mask + 1);
+            position++;
+            count++;
+            write(warn);
+        }
+        if (count > 0) {
+            head = position;
+        }
+        return count;
+    }
+
+    private void write(boolean warn) {
+        try {
+            if (warn) {
+                eventLog.warn(line.toString());
+            } else {
+                eventLog.info(line.toString());
+            }
+        } catch (RuntimeException e) {
+            log.error("交易事件日志输出失败 - 错误: {}", e.getMessage());
+        } finally {
+            line.setLength(0);
+        }
+    }
+
+    /**
+     * 缓冲区槽位，事件字段在写入时从交易复制，输出时不再读取交易
+     */
+    private static final class Slot {
+        EventType type;
+        long timestampMillis;
+        String transactionId;
+        TransactionType transactionType;
+        TransactionStatus status;
+        TransactionStatus previous;
+        BigDecimal amount;
+        Currency currency;
+        String channel;
+        String fromAccountId;
+        String toAccountId;
+        BigDecimal threshold;
+
+        void fill(EventType type, Transaction transaction, TransactionStatus previous, BigDecimal threshold) {
+            this.type = type;
+            this.timestampMillis = System.currentTimeMillis();
+            this.transactionId = transaction.getId();
+            this.transactionType = transaction.getType();
+            this.status = transaction.getStatus();
+            this.previous = previous;
+            this.amount = transaction.getAmount();
+            this.currency = transaction.getCurrency();
+            this.channel = transaction.getChannel();
+            this.fromAccountId = transaction.getFromAccountId();
+            this.toAccountId = transaction.getToAccountId();
+            this.threshold = threshold;
+        }
+
+        void format(StringBuilder out) {
+            out.append("event=").append(type.name());
+            out.append(" time=");
+            DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestampMillis), out);
+            append(out, "txnId", transactionId);
+            append(out, "type", transactionType);
+            append(out, "amount", amount != null ? amount.toPlainString() : null);
+            append(out, "currency", currency);
+            append(out, "status", status);
+            append(out, "previous", previous);
+            append(out, "channel", channel);
+            append(out, "from", fromAccountId);
+            append(out, "to", toAccountId);
+            append(out, "threshold", threshold != null ? threshold.toPlainString() : null);
+        }
+
+        void clear() {
+            type = null;
+            transactionId = null;
+            amount = null;
+            channel = null;
+            fromAccountId = null;
+            toAccountId = null;
+            threshold = null;
+        }
+
+        private static void append(StringBuilder out, String key, Object value) {
+            if (value != null) {
+                out.append(' ').append(key).append('=').append(value);
+            }
+        }
+    }
+}
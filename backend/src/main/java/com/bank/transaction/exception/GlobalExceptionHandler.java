@@ -3,6 +3,7 @@ package com.bank.transaction.exception;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,17 +13,24 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import com.bank.transaction.exception.business.BusinessException;
 import com.bank.transaction.exception.business.ValidationException;
 import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.service.ErrorLogService;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.ErrorLevel;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
+    @Autowired
+    private ErrorLogService errorLogService;
+    
     /**
      * 处理JSR-380校验异常（@RequestBody校验）
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
+    public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex, HttpServletRequest request) {
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
             errors.put(error.getField(), error.getDefaultMessage()));
@@ -31,6 +39,7 @@ public class GlobalExceptionHandler {
         response.put("code", "3000");
         response.put("message", "参数校验失败");
         response.put("errors", errors);
+        errorLogService.saveError(ErrorCode.VALIDATION_ERROR.getCode(), "参数校验失败", errors.toString(), ErrorLevel.INFO, request);
         
         return ResponseEntity.badRequest().body(response);
     }
@@ -39,11 +48,12 @@ public class GlobalExceptionHandler {
      * 处理JSR-380校验异常（@PathVariable/@RequestParam校验）
      */
     @ExceptionHandler(ConstraintViolationException.class)
-    public ResponseEntity<Map<String, Object>> handleConstraintViolation(ConstraintViolationException ex) {
+    public ResponseEntity<Map<String, Object>> handleConstraintViolation(ConstraintViolationException ex, HttpServletRequest request) {
         Map<String, Object> response = new HashMap<>();
         response.put("code", "3000");
         response.put("message", "参数校验失败");
         response.put("error", ex.getMessage());
+        errorLogService.saveError(ErrorCode.VALIDATION_ERROR.getCode(), "参数校验失败", ex.getMessage(), ErrorLevel.INFO, request);
         
         return ResponseEntity.badRequest().body(response);
     }
@@ -52,7 +62,8 @@ public class GlobalExceptionHandler {
      * 处理业务校验异常
      */
     @ExceptionHandler(ValidationException.class)
-    public ResponseEntity<Map<String, Object>> handleBusinessValidation(ValidationException ex) {
+    public ResponseEntity<Map<String, Object>> handleBusinessValidation(ValidationException ex, HttpServletRequest request) {
+        errorLogService.saveError(ex, request);
         Map<String, Object> response = new HashMap<>();
         response.put("code", ex.getErrorCode().getCode());
         response.put("message", ex.getMessage());
@@ -64,7 +75,8 @@ public class GlobalExceptionHandler {
      * 处理业务异常
      */
     @ExceptionHandler(BusinessException.class)
-    public ResponseEntity<Map<String, Object>> handleBusinessException(BusinessException ex) {
+    public ResponseEntity<Map<String, Object>> handleBusinessException(BusinessException ex, HttpServletRequest request) {
+        errorLogService.saveError(ex, request);
         Map<String, Object> response = new HashMap<>();
         response.put("code", ex.getErrorCode().getCode());
         response.put("message", ex.getMessage());
@@ -76,7 +88,8 @@ public class GlobalExceptionHandler {
      * 处理系统异常
      */
     @ExceptionHandler(SystemException.class)
-    public ResponseEntity<Map<String, Object>> handleSystemException(SystemException ex) {
+    public ResponseEntity<Map<String, Object>> handleSystemException(SystemException ex, HttpServletRequest request) {
+        errorLogService.saveError(ex, request);
         Map<String, Object> response = new HashMap<>();
         response.put("code", ex.getErrorCode().getCode());
         response.put("message", ex.getMessage());
@@ -88,7 +101,8 @@ public class GlobalExceptionHandler {
      * 处理其他未知异常
      */
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
+    public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex, HttpServletRequest request) {
+        errorLogService.saveError(ex, request);
         Map<String, Object> response = new HashMap<>();
         response.put("code", "1000");
         response.put("message", "系统异常");
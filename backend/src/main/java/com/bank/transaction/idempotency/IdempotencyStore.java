@@ -0,0 +1,538 @@
+package com.bank.transaction.idempotency;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.IdempotencyConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 幂等性键存储
+ *
+ * 特性：
+ * - 幂等性键映射到首次请求创建的交易ID，重复请求直接返回原交易，不会重复记账
+ * - 首次请求处理期间持有预留记录，并发的重复请求等待其完成，而不是同时通过校验；
+ *   首次请求失败时释放预留，等待中的重复请求重新竞争处理权
+ * - 按时间桶过期：每个键记录过期时间桶序号，过期的键在查找时视为不存在，在扩容或写满时批量清理
+ * - 紧凑哈希表：键只保存64位指纹，开放寻址存放在基本类型数组中，每个槽位16字节（另加交易ID），
+ *   指纹冲突概率极低，由调用方比对原交易的幂等性键兜底（见 {@link Claim#getKey()}）
+ * - 分段加锁，每个分段的键数量有上限，写满时提前淘汰最早过期的时间桶，内存占用可预测
+ * - 启动时（所有单例初始化完成、内存存储恢复之后）从已保存的交易恢复保留期内的键，重启后重试的请求仍返回原交易
+ */
+@Slf4j
+@Component
+public class IdempotencyStore implements MeterBinder, SmartInitializingSingleton {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 写满时淘汰到分段上限的比例，避免每次写入都触发淘汰
+     */
+    private static final double EVICT_TO_RATIO = 0.9;
+
+    /**
+     * 恢复键时每批读取的交易数
+     */
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlMillis;
+    private final long bucketMillis;
+    private final long waitTimeoutNanos;
+    private final LongSupplier clock;
+    private final TransactionDao transactionDao;
+
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyStore(IdempotencyConfig config) {
+        this(config, System::currentTimeMillis, null);
+    }
+
+    @Autowired
+    public IdempotencyStore(IdempotencyConfig config, TransactionDao transactionDao) {
+        this(config, System::currentTimeMillis, transactionDao);
+    }
+
+    IdempotencyStore(IdempotencyConfig config, LongSupplier clock) {
+        this(config, clock, null);
+    }
+
+    IdempotencyStore(IdempotencyConfig config, LongSupplier clock, TransactionDao transactionDao) {
+        int segmentCount = powerOfTwo(config.getSegments());
+        int maxSize = Math.max(1, (config.getMaxEntries() + segmentCount - 1) / segmentCount);
+        int maxCapacity = powerOfTwo((int) Math.ceil(maxSize / LOAD_FACTOR) + 1);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.min(INITIAL_CAPACITY, maxCapacity), maxCapacity, maxSize);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(config.getTtlMinutes());
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getBucketSeconds()));
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getWaitTimeoutMillis());
+        this.clock = clock;
+        this.transactionDao = transactionDao;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (transactionDao != null) {
+            long start = System.nanoTime();
+            int restored = rebuild();
+            log.info("幂等性键恢复完成: {} 个, 耗时 {} ms", restored, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 从已保存的交易恢复保留期内的幂等性键
+     * 从保留期起点按时间键分批读取交易，键的过期时间按交易时间计算；已存在的键不覆盖
+     * @return 恢复的键数量
+     */
+    public int rebuild() {
+        long now = clock.getAsLong();
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(now - ttlMillis), zone);
+        TimeCursor position = new TimeCursor(TransactionTimeIndex.toTimeKey(since), "");
+        int restored = 0;
+        while (position != null) {
+            List<Transaction> chunk = transactionDao.findAfter(position, Long.MAX_VALUE, REBUILD_CHUNK_SIZE);
+            for (Transaction transaction : chunk) {
+                String key = transaction.getIdempotencyKey();
+                if (key != null && !key.trim().isEmpty() && transaction.getTimestamp() != null
+                    && restore(key, transaction.getId(), transaction.getTimestamp().atZone(zone).toInstant().toEpochMilli())) {
+                    restored++;
+                }
+            }
+            if (chunk.size() < REBUILD_CHUNK_SIZE) {
+                position = null;
+            } else {
+                Transaction last = chunk.get(chunk.size() - 1);
+                position = new TimeCursor(TransactionTimeIndex.toTimeKey(last.getTimestamp()), last.getId());
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * 获取幂等性键的处理权
+     *
+     * - 键不存在或已过期：预留该键并返回处理权，调用方处理完成后必须调用 {@link #complete} 或 {@link #release}
+     * - 键已完成：返回首次请求创建的交易ID
+     * - 键正在处理：等待首次请求完成，超时抛出 BusinessException(TRANSACTION_CONFLICT)
+     *
+     * @param key 幂等性键
+     * @return 处理权或重放结果
+     */
+    public Claim claim(String key) {
+        long fingerprint = fingerprint(key);
+        Segment segment = segmentOf(fingerprint);
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        while (true) {
+            Reservation pending;
+            segment.lock.lock();
+            try {
+                int now = currentBucket();
+                Object value = segment.get(fingerprint, now);
+                if (value == null) {
+                    Reservation reservation = new Reservation();
+                    segment.put(fingerprint, reservation, expiryBucket(), now);
+                    return new Claim(key, fingerprint, null, reservation);
+                }
+                if (value instanceof String transactionId) {
+                    replays.increment();
+                    return new Claim(key, fingerprint, transactionId, null);
+                }
+                pending = (Reservation) value;
+            } finally {
+                segment.lock.unlock();
+            }
+            // 相同的键正在处理，锁外等待首次请求完成或释放后重新查找
+            waits.increment();
+            await(pending, deadline);
+        }
+    }
+
+    /**
+     * 首次请求处理成功，记录创建的交易ID并唤醒等待中的重复请求
+     * @param claim 处理权
+     * @param transactionId 交易ID
+     */
+    public void complete(Claim claim, String transactionId) {
+        Reservation reservation = claim.reservation;
+        if (reservation == null) {
+            return;
+        }
+        Segment segment = segmentOf(claim.fingerprint);
+        segment.lock.lock();
+        try {
+            int slot = segment.indexOf(claim.fingerprint);
+            if (slot >= 0 && segment.values[slot] == reservation) {
+                segment.values[slot] = transactionId;
+                segment.expiries[slot] = expiryBucket();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        reservation.done.countDown();
+    }
+
+    /**
+     * 首次请求处理失败，释放预留，等待中的重复请求重新竞争处理权
+     * 已完成的处理权调用此方法无效果，可以放在 finally 中统一调用
+     * @param claim 处理权
+     */
+    public void release(Claim claim) {
+        Reservation reservation = claim.reservation;
+        if (reservation == null || reservation.done.getCount() == 0) {
+            return;
+        }
+        Segment segment = segmentOf(claim.fingerprint);
+        segment.lock.lock();
+        try {
+            int slot = segment.indexOf(claim.fingerprint);
+            if (slot >= 0 && segment.values[slot] == reservation) {
+                segment.remove(slot);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        reservation.done.countDown();
+    }
+
+    /**
+     * 恢复一个已完成的键，键已存在或按创建时间已过期时跳过
+     */
+    private boolean restore(String key, String transactionId, long createdMillis) {
+        long fingerprint = fingerprint(key);
+        Segment segment = segmentOf(fingerprint);
+        segment.lock.lock();
+        try {
+            int now = currentBucket();
+            int expiry = (int) ((createdMillis + ttlMillis) / bucketMillis);
+            if (expiry < now || segment.get(fingerprint, now) != null) {
+                return false;
+            }
+            segment.put(fingerprint, transactionId, expiry, now);
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * 清理所有已过期的键
+     */
+    public void purgeExpired() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.rebuild(segment.capacity(), currentBucket());
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前保存的键数量（包含已过期但尚未清理的键）
+     */
+    public long size() {
+        long total = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                total += segment.size;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bank.idempotency.keys", this, IdempotencyStore::size)
+                .description("幂等性键数量").register(registry);
+        FunctionCounter.builder("bank.idempotency.replays", replays, LongAdder::sum)
+                .description("重复请求直接返回原交易的次数").register(registry);
+        FunctionCounter.builder("bank.idempotency.waits", waits, LongAdder::sum)
+                .description("重复请求等待首次请求完成的次数").register(registry);
+        FunctionCounter.builder("bank.idempotency.evictions", evictions, LongAdder::sum)
+                .description("容量写满时提前淘汰的键数量").register(registry);
+    }
+
+    private void await(Reservation pending, long deadline) {
+        try {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !pending.done.await(remaining, TimeUnit.NANOSECONDS)) {
+                throw new BusinessException(ErrorCode.TRANSACTION_CONFLICT, "相同幂等性键的交易正在处理中，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.TRANSACTION_CONFLICT, "等待相同幂等性键的交易处理结果时被中断");
+        }
+    }
+
+    private int currentBucket() {
+        return (int) (clock.getAsLong() / bucketMillis);
+    }
+
+    private int expiryBucket() {
+        return (int) ((clock.getAsLong() + ttlMillis) / bucketMillis);
+    }
+
+    private Segment segmentOf(long fingerprint) {
+        return segments[(int) (fingerprint >>> 40) & segmentMask];
+    }
+
+    /**
+     * 幂等性键的64位指纹（FNV-1a + murmur3 fmix64 打散），0 保留表示空槽位
+     */
+    static long fingerprint(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * 分段：线性探测开放寻址哈希表
+     * 值为交易ID（已完成）或 Reservation（处理中），处理中的键不参与过期和淘汰
+     */
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxCapacity;
+        private final int maxSize;
+        private long[] fingerprints;
+        private int[] expiries;
+        private Object[] values;
+        private int size;
+
+        private Segment(int capacity, int maxCapacity, int maxSize) {
+            this.maxCapacity = maxCapacity;
+            this.maxSize = maxSize;
+            allocate(capacity);
+        }
+
+        int capacity() {
+            return fingerprints.length;
+        }
+
+        int indexOf(long fingerprint) {
+            int mask = fingerprints.length - 1;
+            for (int i = (int) fingerprint & mask; fingerprints[i] != 0; i = (i + 1) & mask) {
+                if (fingerprints[i] == fingerprint) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Object get(long fingerprint, int now) {
+            int slot = indexOf(fingerprint);
+            if (slot < 0 || (expiries[slot] < now && !(values[slot] instanceof Reservation))) {
+                return null;
+            }
+            return values[slot];
+        }
+
+        void put(long fingerprint, Object value, int expiry, int now) {
+            int slot = indexOf(fingerprint);
+            if (slot >= 0) {
+                // 已过期的同名键原地覆盖
+                values[slot] = value;
+                expiries[slot] = expiry;
+                return;
+            }
+            ensureCapacity(now);
+            insert(fingerprint, value, expiry);
+        }
+
+        /**
+         * 删除槽位，后续探测链上的元素前移填补空位（不使用墓碑标记）
+         */
+        void remove(int slot) {
+            int mask = fingerprints.length - 1;
+            int hole = slot;
+            for (int i = (slot + 1) & mask; fingerprints[i] != 0; i = (i + 1) & mask) {
+                int home = (int) fingerprints[i] & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    fingerprints[hole] = fingerprints[i];
+                    expiries[hole] = expiries[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            fingerprints[hole] = 0;
+            expiries[hole] = 0;
+            values[hole] = null;
+            size--;
+        }
+
+        /**
+         * 写入前保证容量：先清理过期键，仍不足时扩容，达到分段上限时淘汰最早过期的时间桶
+         */
+        private void ensureCapacity(int now) {
+            if (size < threshold()) {
+                return;
+            }
+            rebuild(capacity(), now);
+            if (size >= threshold() && capacity() < maxCapacity) {
+                rebuild(capacity() << 1, now);
+            }
+            if (size >= maxSize) {
+                evictOldestBuckets();
+            }
+            if (size >= (int) (capacity() * LOAD_FACTOR)) {
+                // 只剩处理中的键时无法淘汰，临时扩容保证探测链不会填满
+                rebuild(capacity() << 1, now);
+            }
+        }
+
+        private int threshold() {
+            return Math.min((int) (capacity() * LOAD_FACTOR), maxSize);
+        }
+
+        private void evictOldestBuckets() {
+            int[] completed = new int[size];
+            int count = 0;
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (fingerprints[i] != 0 && !(values[i] instanceof Reservation)) {
+                    completed[count++] = expiries[i];
+                }
+            }
+            int excess = size - (int) (maxSize * EVICT_TO_RATIO);
+            if (count == 0 || excess <= 0) {
+                return;
+            }
+            Arrays.sort(completed, 0, count);
+            // 整桶淘汰：过期时间桶不晚于第 excess 个键的键全部淘汰
+            int cutoff = completed[Math.min(excess, count) - 1] + 1;
+            evictions.add(rebuild(capacity(), cutoff));
+        }
+
+        /**
+         * 按指定容量重建哈希表，丢弃过期时间桶早于 cutoff 的已完成键
+         * @return 丢弃的键数量
+         */
+        private int rebuild(int capacity, int cutoff) {
+            long[] oldFingerprints = fingerprints;
+            int[] oldExpiries = expiries;
+            Object[] oldValues = values;
+            allocate(capacity);
+            int dropped = 0;
+            for (int i = 0; i < oldFingerprints.length; i++) {
+                if (oldFingerprints[i] == 0) {
+                    continue;
+                }
+                if (oldExpiries[i] < cutoff && !(oldValues[i] instanceof Reservation)) {
+                    dropped++;
+                } else {
+                    insert(oldFingerprints[i], oldValues[i], oldExpiries[i]);
+                }
+            }
+            return dropped;
+        }
+
+        private void insert(long fingerprint, Object value, int expiry) {
+            int mask = fingerprints.length - 1;
+            int i = (int) fingerprint & mask;
+            while (fingerprints[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            fingerprints[i] = fingerprint;
+            expiries[i] = expiry;
+            values[i] = value;
+            size++;
+        }
+
+        private void allocate(int capacity) {
+            fingerprints = new long[capacity];
+            expiries = new int[capacity];
+            values = new Object[capacity];
+            size = 0;
+        }
+    }
+
+    /**
+     * 处理中的预留记录，首次请求完成或释放时唤醒等待者
+     */
+    private static final class Reservation {
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+
+    /**
+     * 幂等性键的处理权或重放结果
+     */
+    public static final class Claim {
+        private final String key;
+        private final long fingerprint;
+        private final String transactionId;
+        private final Reservation reservation;
+
+        private Claim(String key, long fingerprint, String transactionId, Reservation reservation) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.transactionId = transactionId;
+            this.reservation = reservation;
+        }
+
+        /**
+         * 是否为重复请求（相同的键已处理完成）
+         */
+        public boolean isReplay() {
+            return transactionId != null;
+        }
+
+        /**
+         * 幂等性键，重放时用于与原交易的幂等性键比对，排除指纹冲突
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 首次请求创建的交易ID，仅重放时有值
+         */
+        public String getTransactionId() {
+            return transactionId;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.transaction.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 时间游标
+ * 记录上一页最后一条交易的 (时间键, 交易ID)，对外编码为不透明的 Base64URL 字符串
+ *
+ * @param timeKey 交易时间键，见 {@link TransactionTimeIndex#toTimeKey}
+ * @param transactionId 交易ID
+ */
+public record TimeCursor(long timeKey, String transactionId) {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * 编码为对外的游标字符串
+     */
+    public String encode() {
+        String raw = Long.toString(timeKey, 36) + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     * @throws IllegalArgumentException 游标格式不合法
+     */
+    public static TimeCursor decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        try {
+            return new TimeCursor(Long.parseLong(raw.substring(0, separator), 36), raw.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.transaction.index;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 交易组合查询条件，各条件为空时不限制，多个条件同时满足
+ *
+ * @param status 交易状态
+ * @param type 交易类型
+ * @param currency 币种
+ * @param channel 交易渠道
+ * @param minAmount 最小金额（含）
+ * @param maxAmount 最大金额（含）
+ * @param from 开始时间（含）
+ * @param to 结束时间（不含）
+ */
+public record TransactionQuery(TransactionStatus status, TransactionType type, Currency currency, String channel,
+                               BigDecimal minAmount, BigDecimal maxAmount, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * 是否有金额范围条件
+     */
+    public boolean hasAmountRange() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    /**
+     * 是否有时间范围条件
+     */
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+}
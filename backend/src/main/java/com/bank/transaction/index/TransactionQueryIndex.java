@@ -0,0 +1,347 @@
+package com.bank.transaction.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Money;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 交易组合查询索引
+ *
+ * 结构说明：
+ * - 每笔交易分配一个稠密行号，删除后行号回收复用
+ * - 状态、类型、币种、渠道的每个取值对应一个 BitSet 位图，第 n 位表示第 n 行取该值；
+ *   等值条件对位图按位与求交集（每 64 行一次运算），不读取交易
+ * - 金额（按 AMOUNT_SCALE 位小数转为 long）和时间键按行号存放在 long 数组中，范围条件只在交集后的候选行上比较
+ * - 结果按 (时间键, 交易ID) 倒序（最新在前）：从大行号向小行号遍历候选行，用大小为 offset + limit 的小顶堆保留最新的行；
+ *   交易基本按时间顺序写入，多数候选行与堆顶比较一次即被跳过
+ * - 每行约 80 字节，主要是 交易ID → 行号 的映射
+ *
+ * 并发：读写锁保护全部结构，多个查询可并行执行，写入只持有极短的写锁
+ */
+public class TransactionQueryIndex {
+
+    /**
+     * 金额列的小数位数，不小于所有币种的小数位数
+     */
+    static final int AMOUNT_SCALE = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte NO_VALUE = -1;
+
+    /**
+     * 金额为空的行，不满足任何金额范围条件
+     */
+    private static final long NO_AMOUNT = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 以下字段由 lock 保护
+    private final Map<String, Integer> rows = new HashMap<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private long[] timeKeys = new long[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] currencies = new byte[INITIAL_CAPACITY];
+    private int[] channels = new int[INITIAL_CAPACITY];
+    private int rowLimit = 0;
+
+    private final BitSet live = new BitSet();
+    private final BitSet[] statusBitmaps = bitmaps(TransactionStatus.values().length);
+    private final BitSet[] typeBitmaps = bitmaps(TransactionType.values().length);
+    private final BitSet[] currencyBitmaps = bitmaps(Currency.values().length);
+    private final Map<String, Integer> channelCodes = new HashMap<>();
+    private final List<BitSet> channelBitmaps = new ArrayList<>();
+
+    /**
+     * 添加或更新交易（重复保存时按最新的字段值重建该行）
+     */
+    public void add(Transaction transaction) {
+        String transactionId = transaction.getId();
+        lock.writeLock().lock();
+        try {
+            Integer existing = rows.get(transactionId);
+            int row;
+            if (existing != null) {
+                row = existing;
+                clearValues(row);
+            } else {
+                row = allocateRow();
+                rows.put(transactionId, row);
+                ids[row] = transactionId;
+                live.set(row);
+            }
+            timeKeys[row] = TransactionTimeIndex.toTimeKey(transaction.getTimestamp());
+            amounts[row] = transaction.getAmount() != null ? amountKey(transaction.getAmount(), RoundingMode.FLOOR) : NO_AMOUNT;
+            statuses[row] = setValue(statusBitmaps, transaction.getStatus(), row);
+            types[row] = setValue(typeBitmaps, transaction.getType(), row);
+            currencies[row] = setValue(currencyBitmaps, transaction.getCurrency(), row);
+            channels[row] = setChannel(transaction.getChannel(), row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除交易，行号回收复用
+     */
+    public void remove(String transactionId) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(transactionId);
+            if (row == null) {
+                return;
+            }
+            clearValues(row);
+            live.clear(row);
+            ids[row] = null;
+            freeRows.push(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的交易数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 组合查询（最新的交易在前）
+     * @param query 查询条件
+     * @param offset 跳过的记录数
+     * @param limit 返回的最大记录数
+     * @return 本页交易ID和满足条件的总数
+     */
+    public Result query(TransactionQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(query);
+            boolean amountRange = query.hasAmountRange();
+            long minAmount = query.minAmount() != null ? amountKey(query.minAmount(), RoundingMode.CEILING) : Long.MIN_VALUE + 1;
+            long maxAmount = query.maxAmount() != null ? amountKey(query.maxAmount(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            boolean timeRange = query.hasTimeRange();
+            long fromKey = query.from() != null ? TransactionTimeIndex.toTimeKey(query.from()) : Long.MIN_VALUE;
+            long toKey = query.to() != null ? TransactionTimeIndex.toTimeKey(query.to()) : Long.MAX_VALUE;
+
+            int capacity = (int) Math.min((long) offset + limit, rowLimit);
+            int[] heap = new int[capacity];
+            int heapSize = 0;
+            int total = 0;
+            for (int row = candidates.previousSetBit(rowLimit - 1); row >= 0; row = candidates.previousSetBit(row - 1)) {
+                if (amountRange && (amounts[row] < minAmount || amounts[row] > maxAmount)) {
+                    continue;
+                }
+                if (timeRange && (timeKeys[row] < fromKey || timeKeys[row] >= toKey)) {
+                    continue;
+                }
+                total++;
+                if (heapSize < capacity) {
+                    heap[heapSize] = row;
+                    siftUp(heap, heapSize++);
+                } else if (capacity > 0 && isNewer(row, heap[0])) {
+                    heap[0] = row;
+                    siftDown(heap, heapSize);
+                }
+            }
+
+            // 依次弹出堆顶（最旧的行），从后向前填充即为最新在前的顺序
+            String[] newestFirst = new String[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                newestFirst[i] = ids[heap[0]];
+                heap[0] = heap[i];
+                siftDown(heap, i);
+            }
+            List<String> page = offset < newestFirst.length
+                    ? Arrays.asList(newestFirst).subList(offset, newestFirst.length)
+                    : List.of();
+            return new Result(List.copyOf(page), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 等值条件的位图交集，没有等值条件时为全部行；返回的位图只在持有读锁期间读取
+     */
+    private BitSet candidates(TransactionQuery query) {
+        List<BitSet> bitmaps = new ArrayList<>(4);
+        if (query.status() != null) {
+            bitmaps.add(statusBitmaps[query.status().ordinal()]);
+        }
+        if (query.type() != null) {
+            bitmaps.add(typeBitmaps[query.type().ordinal()]);
+        }
+        if (query.currency() != null) {
+            bitmaps.add(currencyBitmaps[query.currency().ordinal()]);
+        }
+        if (query.channel() != null) {
+            Integer code = channelCodes.get(query.channel());
+            if (code == null) {
+                return new BitSet();
+            }
+            bitmaps.add(channelBitmaps.get(code));
+        }
+        if (bitmaps.isEmpty()) {
+            return live;
+        }
+        if (bitmaps.size() == 1) {
+            return bitmaps.get(0);
+        }
+        // 从最短的位图开始求交集，结果不超过最短位图的长度
+        bitmaps.sort(Comparator.comparingInt(BitSet::length));
+        BitSet result = (BitSet) bitmaps.get(0).clone();
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            result.and(bitmaps.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 按 (时间键, 交易ID) 比较，rowA 比 rowB 新时返回true
+     */
+    private boolean isNewer(int rowA, int rowB) {
+        if (timeKeys[rowA] != timeKeys[rowB]) {
+            return timeKeys[rowA] > timeKeys[rowB];
+        }
+        return ids[rowA].compareTo(ids[rowB]) > 0;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isNewer(heap[parent], row)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        if (heapSize == 0) {
+            return;
+        }
+        int row = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && isNewer(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!isNewer(row, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+
+    private int allocateRow() {
+        Integer free = freeRows.poll();
+        if (free != null) {
+            return free;
+        }
+        if (rowLimit == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            timeKeys = Arrays.copyOf(timeKeys, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            types = Arrays.copyOf(types, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+            channels = Arrays.copyOf(channels, capacity);
+        }
+        return rowLimit++;
+    }
+
+    private void clearValues(int row) {
+        clearValue(statusBitmaps, statuses[row], row);
+        clearValue(typeBitmaps, types[row], row);
+        clearValue(currencyBitmaps, currencies[row], row);
+        if (channels[row] != NO_VALUE) {
+            channelBitmaps.get(channels[row]).clear(row);
+        }
+    }
+
+    private static byte setValue(BitSet[] bitmaps, Enum<?> value, int row) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        bitmaps[value.ordinal()].set(row);
+        return (byte) value.ordinal();
+    }
+
+    private static void clearValue(BitSet[] bitmaps, byte ordinal, int row) {
+        if (ordinal != NO_VALUE) {
+            bitmaps[ordinal].clear(row);
+        }
+    }
+
+    private int setChannel(String channel, int row) {
+        if (channel == null) {
+            return NO_VALUE;
+        }
+        int code = channelCodes.computeIfAbsent(channel, key -> {
+            channelBitmaps.add(new BitSet());
+            return channelBitmaps.size() - 1;
+        });
+        channelBitmaps.get(code).set(row);
+        return code;
+    }
+
+    /**
+     * 金额转换为 AMOUNT_SCALE 位小数的 long，超出范围时取边界值
+     */
+    private static long amountKey(BigDecimal amount, RoundingMode roundingMode) {
+        try {
+            return Money.toMinor(amount, AMOUNT_SCALE, roundingMode);
+        } catch (ArithmeticException e) {
+            return amount.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE + 1;
+        }
+    }
+
+    private static BitSet[] bitmaps(int count) {
+        BitSet[] bitmaps = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new BitSet();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * 组合查询结果
+     * @param transactionIds 本页交易ID，最新在前
+     * @param total 满足条件的交易总数
+     */
+    public record Result(List<String> transactionIds, int total) {}
+}
@@ -0,0 +1,266 @@
+package com.bank.transaction.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 交易时间索引
+ *
+ * 结构说明：
+ * - 按 (时间键, 交易ID) 升序保存在分页数组中，每页 4096 条，扩容时只追加新页，不复制旧数据
+ * - 首页从 8 条按需倍增，大量小索引（如按账户索引）不会各自预分配整页
+ * - 时间键为 long 纳秒值，交易ID 直接存 String，不为每条记录创建包装对象
+ * - 交易基本按时间顺序到达，插入位置先比较尾部，通常为 O(1) 追加；乱序到达时二分定位并后移少量元素
+ * - 偏移分页：按下标直接定位，O(size)
+ * - 游标分页：二分查找游标位置，O(log n + size)
+ * - 范围扫描（导出）：按时间升序从上一批末尾继续，O(log n + size)
+ * - 去重：ConcurrentHashMap 记录 交易ID → 时间键，O(1)
+ *
+ * 并发：读写锁保护分页数组，多个分页查询可并行执行，写入只持有极短的写锁
+ */
+public class TransactionTimeIndex {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int INITIAL_PAGE_CAPACITY = 8;
+
+    /**
+     * 交易ID → 时间键，用于 O(1) 去重和按ID定位
+     */
+    private final Map<String, Long> timeKeys = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 以下字段由 lock 保护
+    private long[][] timePages = new long[1][];
+    private String[][] idPages = new String[1][];
+    private int size = 0;
+
+    /**
+     * 将交易时间转换为索引使用的时间键（纳秒精度，仅用于排序）
+     */
+    public static long toTimeKey(LocalDateTime timestamp) {
+        LocalDateTime time = timestamp != null ? timestamp : LocalDateTime.now();
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * 时间键转换回交易时间
+     */
+    public static LocalDateTime toTimestamp(long timeKey) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timeKey, 1_000_000_000L), (int) Math.floorMod(timeKey, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * 添加交易到索引
+     * @return 是否新增（已存在时返回false）
+     */
+    public boolean add(String transactionId, LocalDateTime timestamp) {
+        long timeKey = toTimeKey(timestamp);
+        if (timeKeys.putIfAbsent(transactionId, timeKey) != null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int position = insertionPoint(timeKey, transactionId);
+            ensureCapacity(size + 1);
+            // 乱序到达时后移插入点之后的元素（通常只有几个）
+            for (int i = size; i > position; i--) {
+                set(i, timeAt(i - 1), idAt(i - 1));
+            }
+            set(position, timeKey, transactionId);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 从索引中移除交易
+     * 银行交易记录不允许删除，此操作仅用于数据修复，复杂度 O(n)
+     */
+    public boolean remove(String transactionId) {
+        Long timeKey = timeKeys.remove(transactionId);
+        if (timeKey == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int position = lowerBound(timeKey, transactionId);
+            if (position >= size || !transactionId.equals(idAt(position))) {
+                return false;
+            }
+            for (int i = position; i < size - 1; i++) {
+                set(i, timeAt(i + 1), idAt(i + 1));
+            }
+            size--;
+            set(size, 0L, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    public boolean contains(String transactionId) {
+        return timeKeys.containsKey(transactionId);
+    }
+
+    /**
+     * 获取交易的时间键，不存在时返回null
+     */
+    public Long getTimeKey(String transactionId) {
+        return timeKeys.get(transactionId);
+    }
+
+    public int size() {
+        return timeKeys.size();
+    }
+
+    /**
+     * 偏移分页（最新的交易在前）
+     * @param offset 跳过的记录数
+     * @param limit 返回的最大记录数
+     */
+    public List<String> newestFirst(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int start = size - 1 - offset;
+            if (offset < 0 || start < 0 || limit <= 0) {
+                return List.of();
+            }
+            int end = Math.max(start - limit + 1, 0);
+            List<String> ids = new ArrayList<>(start - end + 1);
+            for (int i = start; i >= end; i--) {
+                ids.add(idAt(i));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 游标分页（最新的交易在前）：返回严格早于游标 (timeKey, transactionId) 的交易
+     * @param timeKey 游标时间键
+     * @param transactionId 游标交易ID
+     * @param limit 返回的最大记录数
+     */
+    public List<String> newestBefore(long timeKey, String transactionId, int limit) {
+        lock.readLock().lock();
+        try {
+            int start = lowerBound(timeKey, transactionId) - 1;
+            if (start < 0 || limit <= 0) {
+                return List.of();
+            }
+            int end = Math.max(start - limit + 1, 0);
+            List<String> ids = new ArrayList<>(start - end + 1);
+            for (int i = start; i >= end; i--) {
+                ids.add(idAt(i));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 范围扫描（最早的交易在前）：返回严格晚于 after 且时间键小于 endTimeKey 的交易位置，用于导出
+     * 以上一批最后一条作为下一批的 after，逐批遍历全部范围，每批 O(log n + limit)
+     * @param after 起始位置（不含），交易ID为空字符串时包含该时间键上的全部交易
+     * @param endTimeKey 结束时间键（不含）
+     * @param limit 返回的最大记录数
+     */
+    public List<TimeCursor> oldestAfter(TimeCursor after, long endTimeKey, int limit) {
+        lock.readLock().lock();
+        try {
+            int start = lowerBound(after.timeKey(), after.transactionId());
+            if (start < size && timeAt(start) == after.timeKey() && idAt(start).equals(after.transactionId())) {
+                start++;
+            }
+            List<TimeCursor> positions = new ArrayList<>(Math.max(0, Math.min(limit, size - start)));
+            for (int i = start; i < size && positions.size() < limit && timeAt(i) < endTimeKey; i++) {
+                positions.add(new TimeCursor(timeAt(i), idAt(i)));
+            }
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找插入位置：先与尾部比较，按时间顺序到达时直接追加
+     */
+    private int insertionPoint(long timeKey, String transactionId) {
+        if (size == 0 || compare(timeAt(size - 1), idAt(size - 1), timeKey, transactionId) < 0) {
+            return size;
+        }
+        return lowerBound(timeKey, transactionId);
+    }
+
+    /**
+     * 二分查找第一个不小于 (timeKey, transactionId) 的位置
+     */
+    private int lowerBound(long timeKey, String transactionId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(timeAt(mid), idAt(mid), timeKey, transactionId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long timeKeyA, String idA, long timeKeyB, String idB) {
+        int result = Long.compare(timeKeyA, timeKeyB);
+        return result != 0 ? result : idA.compareTo(idB);
+    }
+
+    private void ensureCapacity(int capacity) {
+        int pageIndex = (capacity - 1) >>> PAGE_SHIFT;
+        if (pageIndex == 0) {
+            // 首页按需倍增，避免小索引（如单账户索引）预分配整页
+            if (timePages[0] == null || timePages[0].length < capacity) {
+                int length = Math.min(PAGE_SIZE, Math.max(INITIAL_PAGE_CAPACITY, Integer.highestOneBit(capacity - 1) << 1));
+                timePages[0] = timePages[0] == null ? new long[length] : Arrays.copyOf(timePages[0], length);
+                idPages[0] = idPages[0] == null ? new String[length] : Arrays.copyOf(idPages[0], length);
+            }
+            return;
+        }
+        if (pageIndex >= timePages.length) {
+            int newLength = Math.max(timePages.length * 2, pageIndex + 1);
+            timePages = Arrays.copyOf(timePages, newLength);
+            idPages = Arrays.copyOf(idPages, newLength);
+        }
+        if (timePages[pageIndex] == null) {
+            timePages[pageIndex] = new long[PAGE_SIZE];
+            idPages[pageIndex] = new String[PAGE_SIZE];
+        }
+    }
+
+    private long timeAt(int index) {
+        return timePages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    private String idAt(int index) {
+        return idPages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    private void set(int index, long timeKey, String transactionId) {
+        timePages[index >>> PAGE_SHIFT][index & PAGE_MASK] = timeKey;
+        idPages[index >>> PAGE_SHIFT][index & PAGE_MASK] = transactionId;
+    }
+}
@@ -0,0 +1,328 @@
+package com.bank.transaction.ledger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.storage.ChangeJournal;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Money;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 账户余额引擎
+ *
+ * 特性：
+ * - 余额以 long 最小货币单位计算（见 {@link Money}），加锁区间内不分配对象
+ * - 分段锁：账户ID哈希到固定数量的锁段，不同锁段上的余额变更完全并行，同一账户的 读-加-校验-写 原子执行
+ * - 转账同时锁住转出和转入账户所在锁段，按锁段序号从小到大加锁，避免相反方向的并发转账死锁；
+ *   批量变更（applyAll）以同样的顺序锁住涉及的全部锁段
+ * - 余额不足时抛出 BusinessException(INSUFFICIENT_BALANCE)，余额不变
+ * - 统计每个锁段的加锁次数、竞争次数和等待时间，用于发现热点账户
+ * - 启用持久化时，变更后的余额在锁内写入 {@link ChangeJournal}，同一账户的日志顺序与余额变更顺序一致
+ * - 各变更方法可以传入 onApplied，在余额更新之后、释放锁之前执行（用于写入 {@link PostingJournal}），
+ *   同一账户的分录顺序与余额变更顺序一致；onApplied 不能抛出异常
+ */
+public class BalanceEngine implements BalanceExecutor {
+
+    /**
+     * 默认锁段数，2的幂
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+
+    public BalanceEngine() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public BalanceEngine(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 原子变更单个账户余额
+     * @param account 账户
+     * @param amount 变更金额（正数为增加，负数为减少）
+     * @return 变更后的余额（最小货币单位）
+     */
+    public long apply(Account account, BigDecimal amount) {
+        return applyMinor(account, Money.toMinor(amount, account.getBalanceScale()));
+    }
+
+    /**
+     * 原子变更单个账户余额
+     * @param account 账户
+     * @param amountMinor 变更金额（最小货币单位，小数位数同账户余额）
+     * @return 变更后的余额（最小货币单位）
+     */
+    public long applyMinor(Account account, long amountMinor) {
+        return applyMinor(account, amountMinor, null);
+    }
+
+    /**
+     * 原子变更单个账户余额，余额更新后在锁内执行 onApplied
+     * @param onApplied 余额更新之后、释放锁之前执行，可以为 null
+     * @return 变更后的余额（最小货币单位）
+     */
+    @Override
+    public long applyMinor(Account account, long amountMinor, Runnable onApplied) {
+        ChangeJournal journal = this.journal;
+        Stripe stripe = stripeOf(account.getAccountId());
+        long newBalance;
+        long ticket;
+        stripe.lock();
+        try {
+            newBalance = Math.addExact(account.getBalanceMinor(), amountMinor);
+            checkNotNegative(newBalance);
+            account.setBalanceMinor(newBalance);
+            ticket = journal.balanceChanged(account.getAccountId(), newBalance, account.getBalanceScale());
+            if (onApplied != null) {
+                onApplied.run();
+            }
+        } finally {
+            stripe.unlock();
+        }
+        journal.awaitDurable(ticket);
+        return newBalance;
+    }
+
+    /**
+     * 原子转账：转出账户扣款和转入账户入账同时成功或同时不生效
+     * @param from 转出账户
+     * @param to 转入账户
+     * @param amount 转账金额（正数）
+     */
+    public void transfer(Account from, Account to, BigDecimal amount) {
+        transferMinor(from, to, Money.toMinor(amount, from.getBalanceScale()), Money.toMinor(amount, to.getBalanceScale()));
+    }
+
+    /**
+     * 原子转账（最小货币单位）
+     * @param from 转出账户
+     * @param to 转入账户
+     * @param debitMinor 转出账户扣款金额（按转出账户余额小数位数）
+     * @param creditMinor 转入账户入账金额（按转入账户余额小数位数）
+     */
+    public void transferMinor(Account from, Account to, long debitMinor, long creditMinor) {
+        transferMinor(from, to, debitMinor, creditMinor, null);
+    }
+
+    /**
+     * 原子转账（最小货币单位），两个账户余额更新后在锁内执行 onApplied
+     * @param onApplied 余额更新之后、释放锁之前执行，可以为 null
+     */
+    @Override
+    public void transferMinor(Account from, Account to, long debitMinor, long creditMinor, Runnable onApplied) {
+        ChangeJournal journal = this.journal;
+        long ticket;
+        Stripe first = stripeOf(from.getAccountId());
+        Stripe second = stripeOf(to.getAccountId());
+        if (first.index > second.index) {
+            Stripe swap = first;
+            first = second;
+            second = swap;
+        }
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                long newFromBalance = Math.subtractExact(from.getBalanceMinor(), debitMinor);
+                checkNotNegative(newFromBalance);
+                long newToBalance = Math.addExact(to.getBalanceMinor(), creditMinor);
+                from.setBalanceMinor(newFromBalance);
+                to.setBalanceMinor(newToBalance);
+                journal.balanceChanged(from.getAccountId(), newFromBalance, from.getBalanceScale());
+                ticket = journal.balanceChanged(to.getAccountId(), newToBalance, to.getBalanceScale());
+                if (onApplied != null) {
+                    onApplied.run();
+                }
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+        journal.awaitDurable(ticket);
+    }
+
+    /**
+     * 原子变更多个账户余额：任一账户变更后余额为负时全部不生效
+     * 按锁段序号从小到大锁住涉及的全部锁段，加锁顺序与转账一致
+     * @param accounts 账户，不能重复（同一账户的多笔变更应预先合并）
+     * @param amountsMinor 各账户变更金额（最小货币单位，小数位数同账户余额），与 accounts 一一对应
+     */
+    public void applyAll(List<Account> accounts, long[] amountsMinor) {
+        applyAll(accounts, amountsMinor, null);
+    }
+
+    /**
+     * 原子变更多个账户余额，全部账户更新后在锁内执行 onApplied
+     * @param onApplied 余额更新之后、释放锁之前执行，可以为 null；accounts 为空时不加锁直接执行
+     */
+    @Override
+    public void applyAll(List<Account> accounts, long[] amountsMinor, Runnable onApplied) {
+        if (accounts.isEmpty()) {
+            if (onApplied != null) {
+                onApplied.run();
+            }
+            return;
+        }
+        ChangeJournal journal = this.journal;
+        boolean[] involved = new boolean[stripes.length];
+        for (Account account : accounts) {
+            involved[stripeOf(account.getAccountId()).index] = true;
+        }
+        long ticket = 0;
+        int acquired = 0;
+        try {
+            for (; acquired < stripes.length; acquired++) {
+                if (involved[acquired]) {
+                    stripes[acquired].lock();
+                }
+            }
+            long[] newBalances = new long[accounts.size()];
+            for (int i = 0; i < newBalances.length; i++) {
+                Account account = accounts.get(i);
+                newBalances[i] = Math.addExact(account.getBalanceMinor(), amountsMinor[i]);
+                if (newBalances[i] < 0) {
+                    throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, "账户余额不足，无法完成交易: " + account.getAccountId());
+                }
+            }
+            for (int i = 0; i < newBalances.length; i++) {
+                Account account = accounts.get(i);
+                account.setBalanceMinor(newBalances[i]);
+                ticket = journal.balanceChanged(account.getAccountId(), newBalances[i], account.getBalanceScale());
+            }
+            if (onApplied != null) {
+                onApplied.run();
+            }
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                if (involved[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+        journal.awaitDurable(ticket);
+    }
+
+    /**
+     * 设置余额变更日志，变更后的余额在锁内记录，释放锁后等待落盘
+     */
+    @Override
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal != null ? journal : ChangeJournal.NONE;
+    }
+
+    /**
+     * 锁竞争统计快照，按竞争次数从高到低排序，只返回发生过加锁的锁段
+     */
+    public List<StripeStats> getContentionStats() {
+        List<StripeStats> stats = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            long acquisitions = stripe.acquisitions.sum();
+            if (acquisitions > 0) {
+                stats.add(new StripeStats(stripe.index, acquisitions, stripe.contended.sum(), stripe.waitNanos.sum()));
+            }
+        }
+        stats.sort(Comparator.comparingLong(StripeStats::contended).reversed());
+        return stats;
+    }
+
+    /**
+     * 账户所在锁段序号
+     */
+    public int stripeIndexOf(String accountId) {
+        return stripeOf(accountId).index;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.balance.lock.acquisitions", this, engine -> engine.sum(stripe -> stripe.acquisitions))
+                .description("余额锁加锁次数").register(registry);
+        FunctionCounter.builder("bank.balance.lock.contended", this, engine -> engine.sum(stripe -> stripe.contended))
+                .description("余额锁竞争次数（加锁时需要等待）").register(registry);
+        FunctionCounter.builder("bank.balance.lock.wait", this, engine -> engine.sum(stripe -> stripe.waitNanos) / 1e9)
+                .description("余额锁等待总时间").baseUnit("seconds").register(registry);
+    }
+
+    private double sum(Function<Stripe, LongAdder> counter) {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += counter.apply(stripe).sum();
+        }
+        return total;
+    }
+
+    private Stripe stripeOf(String accountId) {
+        int hash = accountId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static void checkNotNegative(long balanceMinor) {
+        if (balanceMinor < 0) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, "账户余额不足，无法完成交易");
+        }
+    }
+
+    /**
+     * 锁段：可重入锁 + 竞争统计
+     */
+    private static final class Stripe {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        void lock() {
+            acquisitions.increment();
+            if (lock.tryLock()) {
+                return;
+            }
+            // 未能立即拿到锁，记录为一次竞争并统计等待时间
+            contended.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.add(System.nanoTime() - start);
+        }
+
+        void unlock() {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 锁段竞争统计
+     * @param stripe 锁段序号
+     * @param acquisitions 加锁次数
+     * @param contended 竞争次数
+     * @param waitNanos 等待总时间（纳秒）
+     */
+    public record StripeStats(int stripe, long acquisitions, long contended, long waitNanos) {}
+}
@@ -0,0 +1,54 @@
+package com.bank.transaction.ledger;
+
+import java.util.List;
+
+import com.bank.transaction.model.Account;
+import com.bank.transaction.storage.ChangeJournal;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 余额变更执行器
+ *
+ * 各变更方法原子执行：余额不足时抛出 BusinessException(INSUFFICIENT_BALANCE)，余额不变；
+ * onApplied 在变更生效后执行（用于写入 {@link PostingJournal}），不能抛出异常
+ * - {@link BalanceEngine}：调用线程按账户分段加锁执行
+ * - {@link ShardedBalanceEngine}：按账户分片由单线程执行，跨分片的变更两阶段提交
+ */
+public interface BalanceExecutor extends MeterBinder {
+
+    /**
+     * 原子变更单个账户余额
+     * @param amountMinor 变更金额（最小货币单位，小数位数同账户余额）
+     * @param onApplied 变更生效后执行，可以为 null
+     * @return 变更后的余额（最小货币单位）
+     */
+    long applyMinor(Account account, long amountMinor, Runnable onApplied);
+
+    /**
+     * 原子转账：转出账户扣款和转入账户入账同时成功或同时不生效
+     * @param debitMinor 转出账户扣款金额（按转出账户余额小数位数）
+     * @param creditMinor 转入账户入账金额（按转入账户余额小数位数）
+     * @param onApplied 变更生效后执行，可以为 null
+     */
+    void transferMinor(Account from, Account to, long debitMinor, long creditMinor, Runnable onApplied);
+
+    /**
+     * 原子变更多个账户余额：任一账户变更后余额为负时全部不生效
+     * @param accounts 账户，不能重复（同一账户的多笔变更应预先合并）
+     * @param amountsMinor 各账户变更金额，与 accounts 一一对应
+     * @param onApplied 变更生效后执行，可以为 null；accounts 为空时直接执行
+     */
+    void applyAll(List<Account> accounts, long[] amountsMinor, Runnable onApplied);
+
+    /**
+     * 设置余额变更日志（持久化）
+     */
+    void setJournal(ChangeJournal journal);
+
+    /**
+     * 停止执行器持有的线程
+     */
+    default void shutdown() {
+    }
+}
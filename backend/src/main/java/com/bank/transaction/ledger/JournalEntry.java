@@ -0,0 +1,63 @@
+package com.bank.transaction.ledger;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 记账分录，各分录行金额合计为零，创建时校验
+ * @param sequence 分录序号，从1开始连续递增；待追加的分录为0
+ * @param timestampMillis 创建时间，在加锁追加之前取得，不保证随序号单调
+ * @param type 分录类型
+ * @param transactionId 交易ID，调整分录为 null
+ * @param postings 分录行
+ * @throws IllegalArgumentException 没有分录行、金额小数位数无效或借贷不平衡
+ */
+public record JournalEntry(long sequence, long timestampMillis, Type type, String transactionId, List<Posting> postings) {
+
+    public JournalEntry {
+        if (postings.isEmpty() || postings.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("分录行数无效: " + postings.size());
+        }
+        int scale = postings.get(0).scale();
+        boolean sameScale = true;
+        long total = 0;
+        for (Posting posting : postings) {
+            if (posting.scale() < 0 || posting.scale() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("金额小数位数无效: " + posting);
+            }
+            sameScale &= posting.scale() == scale;
+            total = Math.addExact(total, posting.amountMinor());
+        }
+        // 小数位数相同时按最小单位合计，否则按金额合计
+        if (sameScale ? total != 0 : signumOf(postings) != 0) {
+            throw new IllegalArgumentException("分录借贷不平衡: " + postings);
+        }
+    }
+
+    /**
+     * 分录类型
+     */
+    public enum Type {
+        // 交易记账，每笔交易只能记账一次
+        POSTING,
+        // 冲正，与原分录方向相反
+        REVERSAL,
+        // 余额调整：开户余额、直接变更余额、从快照/日志恢复的余额
+        ADJUSTMENT
+    }
+
+    /**
+     * 待追加的分录，序号由 {@link PostingJournal} 分配
+     */
+    public static JournalEntry draft(Type type, String transactionId, List<Posting> postings) {
+        return new JournalEntry(0, System.currentTimeMillis(), type, transactionId, List.copyOf(postings));
+    }
+
+    private static int signumOf(List<Posting> postings) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Posting posting : postings) {
+            total = total.add(BigDecimal.valueOf(posting.amountMinor(), posting.scale()));
+        }
+        return total.signum();
+    }
+}
@@ -0,0 +1,245 @@
+package com.bank.transaction.ledger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.LedgerConfig;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.util.Money;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 账户余额视图（由记账分录重放得到）
+ *
+ * - 账户按分录日志中的账户序号分到 shards 个分片，每个分片由一个线程按分录顺序重放，只累加自己分片内账户的分录行；
+ *   每个账户只有一个写线程，余额数组不加锁
+ * - 每次最多重放 batchSize 条分录，重放完一批后发布该分片的已应用序号；没有新分录时等待 idleWaitMillis
+ * - 读取余额不加锁，读到的余额至少包含 {@link #getAppliedSequence()} 及之前的全部分录
+ * - 视图只依赖分录日志：对同一个日志新建并启动一个实例，即从期初余额和之后的分录重建全部余额；
+ *   某个分片落后超过日志保留的分录数时无法继续重放，需要重建
+ * - 余额引擎就地更新的账户余额是可用余额（用于余额不足校验），本视图是账本余额，
+ *   两者在没有并发变更时应该一致，见 {@link #reconcile}
+ */
+@Slf4j
+@Component
+public class LedgerApplier implements MeterBinder {
+
+    private final PostingJournal journal;
+    private final Shard[] shards;
+    private final int batchSize;
+    private final long idleWaitNanos;
+
+    private volatile boolean running;
+    private Thread[] workers;
+
+    @Autowired
+    public LedgerApplier(LedgerConfig config, AccountServiceImpl accountService) {
+        this(accountService.getPostingJournal(), config);
+    }
+
+    public LedgerApplier(PostingJournal journal, LedgerConfig config) {
+        this.journal = journal;
+        this.shards = new Shard[Math.max(1, config.getShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getIdleWaitMillis()));
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (getAppliedSequence() == 0) {
+            long base = journal.forEachOpeningBalance((accountIndex, amountMinor, scale) ->
+                shards[accountIndex % shards.length].posting(accountIndex, amountMinor, scale));
+            for (Shard shard : shards) {
+                shard.appliedSequence = base;
+            }
+        }
+        workers = new Thread[shards.length];
+        for (Shard shard : shards) {
+            workers[shard.index] = Thread.ofPlatform().daemon().name("ledger-applier-" + shard.index).start(() -> applyLoop(shard));
+        }
+    }
+
+    /**
+     * 停止重放线程，已重放的余额保留
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 全部分片都已重放到的分录序号
+     */
+    public long getAppliedSequence() {
+        long applied = Long.MAX_VALUE;
+        for (Shard shard : shards) {
+            applied = Math.min(applied, shard.appliedSequence);
+        }
+        return applied;
+    }
+
+    /**
+     * 等待全部分片重放到指定分录序号
+     * @return 超时前是否已重放到
+     */
+    public boolean awaitApplied(long sequence, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (getAppliedSequence() < sequence) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+
+    /**
+     * 账本余额，账户没有分录时为空
+     */
+    public Optional<BigDecimal> getLedgerBalance(String accountId) {
+        int accountIndex = journal.accountIndexOf(accountId);
+        if (accountIndex < 0) {
+            return Optional.empty();
+        }
+        Shard shard = shards[accountIndex % shards.length];
+        int slot = accountIndex / shards.length;
+        // 先读已应用序号，再读余额数组
+        if (shard.appliedSequence == 0) {
+            return Optional.empty();
+        }
+        long[] balances = shard.balances;
+        int[] scales = shard.scales;
+        if (slot >= balances.length || slot >= scales.length || scales[slot] < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Money.toBigDecimal(balances[slot], scales[slot]));
+    }
+
+    /**
+     * 对账：比较账户余额和账本余额，在没有并发变更、并且已重放到最新分录（{@link #awaitApplied}）时调用
+     * @return 余额不一致的账户ID
+     */
+    public List<String> reconcile(Collection<Account> accounts) {
+        List<String> mismatched = new ArrayList<>();
+        for (Account account : accounts) {
+            BigDecimal ledgerBalance = getLedgerBalance(account.getAccountId()).orElse(BigDecimal.ZERO);
+            BigDecimal balance = account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO;
+            if (ledgerBalance.compareTo(balance) != 0) {
+                mismatched.add(account.getAccountId());
+            }
+        }
+        return mismatched;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.ledger.entries", journal, PostingJournal::getLastSequence)
+                .description("记账分录数").register(registry);
+        Gauge.builder("bank.ledger.apply.lag", this, applier -> applier.journal.getLastSequence() - applier.getAppliedSequence())
+                .description("尚未重放到余额视图的分录数").register(registry);
+    }
+
+    private void applyLoop(Shard shard) {
+        while (running) {
+            try {
+                if (!shard.applyBatch()) {
+                    LockSupport.parkNanos(idleWaitNanos);
+                }
+            } catch (RuntimeException e) {
+                // 一批分录可能已部分累加，不能重试：停止该分片，bank.ledger.apply.lag 持续增长，需要重建
+                log.error("账本余额重放失败，分片停止重放 - 分片: {}, 已应用序号: {}", shard.index, shard.appliedSequence, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 余额分片：账户序号 % 分片数 == index 的账户，只由本分片的重放线程写入
+     */
+    private final class Shard implements PostingJournal.PostingVisitor {
+        private final int index;
+        private long[] balances = new long[16];
+        private int[] scales = emptyScales(16);
+        private volatile long appliedSequence;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 重放一批分录
+         * @return 是否有新分录
+         */
+        private boolean applyBatch() {
+            long from = appliedSequence;
+            long to = Math.min(journal.getLastSequence(), from + batchSize);
+            if (to == from) {
+                return false;
+            }
+            journal.forEachPosting(from + 1, to, this);
+            appliedSequence = to;
+            return true;
+        }
+
+        @Override
+        public void posting(int accountIndex, long amountMinor, int scale) {
+            if (accountIndex % shards.length != index) {
+                return;
+            }
+            int slot = accountIndex / shards.length;
+            if (slot >= balances.length) {
+                int size = Math.max(slot + 1, balances.length * 2);
+                int[] grownScales = Arrays.copyOf(scales, size);
+                Arrays.fill(grownScales, scales.length, size, -1);
+                balances = Arrays.copyOf(balances, size);
+                scales = grownScales;
+            }
+            balances[slot] += amountMinor;
+            scales[slot] = scale;
+        }
+    }
+
+    private static int[] emptyScales(int size) {
+        int[] scales = new int[size];
+        Arrays.fill(scales, -1);
+        return scales;
+    }
+}
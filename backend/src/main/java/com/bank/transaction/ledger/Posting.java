@@ -0,0 +1,17 @@
+package com.bank.transaction.ledger;
+
+/**
+ * 分录行
+ * @param accountId 账户ID
+ * @param amountMinor 账户余额变动（最小货币单位）：负数为借方（扣款），正数为贷方（入账）
+ * @param scale 金额小数位数，同账户余额
+ */
+public record Posting(String accountId, long amountMinor, int scale) {
+
+    /**
+     * 方向相反的分录行（冲正）
+     */
+    public Posting negate() {
+        return new Posting(accountId, Math.negateExact(amountMinor), scale);
+    }
+}
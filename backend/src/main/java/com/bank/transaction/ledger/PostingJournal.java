@@ -0,0 +1,589 @@
+package com.bank.transaction.ledger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+/**
+ * 复式记账分录日志（只追加）
+ *
+ * 每次余额变更追加一条分录，分录由借贷分录行组成，各行金额合计为零：
+ * - 存款：清算账户借方 + 转入账户贷方；取款：转出账户借方 + 清算账户贷方；转账：转出账户借方 + 转入账户贷方
+ * - 冲正和余额调整同样成对记账，对方为清算账户（{@link #CLEARING_ACCOUNT}），所有账户的分录合计始终为零
+ * - 每笔交易只能记账一次：记账前用 {@link #reserve} 占用交易ID，重复记账抛出 BusinessException(DUPLICATE_TRANSACTION)
+ *
+ * 存储按列分块：账户ID编码为从0开始的连续序号，每条分录行只占账户序号、金额、小数位数三列，不为分录创建对象；
+ * 追加在锁内进行，一批分录写完后才发布分录数（volatile）；并发追加时未取得锁的线程不排队等锁，
+ * 而是把追加请求交给持锁线程，由它在同一次加锁内一起写入、一起发布，发布后各自返回；
+ * 读取不加锁，只能读到已发布的分录。
+ *
+ * 内存只保留最近 retainedEntries 条分录：更早的整块分录在追加时按账户累加到期初余额后释放。
+ * 已记账的交易ID不随分录释放，始终参与重复记账检查（每笔交易约占100字节）。
+ * 账户余额视图由 {@link LedgerApplier} 从期初余额开始按分录顺序重放得到，可以随时重建。
+ * 启用持久化时记账和冲正分录写入 WAL，重启后由 {@link com.bank.transaction.storage.DurableStore} 重建。
+ */
+public class PostingJournal {
+
+    /**
+     * 清算账户：存取款、冲正和余额调整的对方账户
+     */
+    public static final String CLEARING_ACCOUNT = "CLEARING";
+
+    /**
+     * 分录行访问器，按分录顺序依次调用
+     */
+    @FunctionalInterface
+    public interface PostingVisitor {
+        void posting(int accountIndex, long amountMinor, int scale);
+    }
+
+    /**
+     * 默认保留的分录数
+     */
+    public static final int DEFAULT_RETAINED_ENTRIES = 1 << 18;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final JournalEntry.Type[] TYPES = JournalEntry.Type.values();
+    // 交易ID已占用、分录尚未追加
+    private static final long RESERVED = -1;
+    // 交易已记账，分录不在本日志中（恢复时登记）
+    private static final long POSTED_BEFORE = 0;
+
+    private final int retainedEntries;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Map<String, Integer> accountIndexes = new ConcurrentHashMap<>();
+    // 交易ID → 记账分录序号
+    private final Map<String, Long> postedTransactions = new ConcurrentHashMap<>();
+    // 未取得追加锁的线程提交的追加请求（后进先出链表），由持锁线程写入
+    private final AtomicReference<PendingAppend> pendingAppends = new AtomicReference<>();
+
+    // 以下字段只在 appendLock 内写入，通过 entryCount 发布
+    private String[] accountIds = new String[64];
+    private EntryChunk[] entryChunks = new EntryChunk[16];
+    private LineChunk[] lineChunks = new LineChunk[16];
+    private long lineCount;
+    private volatile long entryCount;
+    // 已累加到期初余额、已释放的分录数，是 CHUNK_SIZE 的整数倍
+    private volatile long baseSequence;
+    private long[] baseBalances = new long[0];
+    private int[] baseScales = new int[0];
+
+    public PostingJournal() {
+        this(DEFAULT_RETAINED_ENTRIES);
+    }
+
+    /**
+     * @param retainedEntries 内存中至少保留的分录数，向上取整为分块大小的整数倍
+     */
+    public PostingJournal(int retainedEntries) {
+        long rounded = ((long) retainedEntries + CHUNK_MASK) & ~CHUNK_MASK;
+        this.retainedEntries = (int) Math.max(CHUNK_SIZE, Math.min(rounded, Integer.MAX_VALUE & ~CHUNK_MASK));
+    }
+
+    /**
+     * 占用交易ID，占用后才能追加这些交易的记账分录；任一交易已记账或已被占用时全部不占用
+     * @param transactionIds 交易ID，null 忽略
+     * @throws BusinessException 交易已记账（DUPLICATE_TRANSACTION）
+     */
+    public void reserve(List<String> transactionIds) {
+        for (int i = 0; i < transactionIds.size(); i++) {
+            String transactionId = transactionIds.get(i);
+            if (transactionId != null && postedTransactions.putIfAbsent(transactionId, RESERVED) != null) {
+                release(transactionIds.subList(0, i));
+                throw new BusinessException(ErrorCode.DUPLICATE_TRANSACTION, "交易已记账: " + transactionId);
+            }
+        }
+    }
+
+    /**
+     * 释放占用但未追加分录的交易ID（记账失败时调用）
+     */
+    public void release(List<String> transactionIds) {
+        for (String transactionId : transactionIds) {
+            if (transactionId != null) {
+                postedTransactions.remove(transactionId, RESERVED);
+            }
+        }
+    }
+
+    /**
+     * 追加一条分录
+     * @return 分录序号
+     */
+    public long append(JournalEntry.Type type, String transactionId, List<Posting> postings) {
+        return appendAll(List.of(JournalEntry.draft(type, transactionId, postings)));
+    }
+
+    /**
+     * 按顺序追加一批分录，一批分录的序号连续
+     * @param drafts 待追加的分录（{@link JournalEntry#draft}），记账分录的交易ID需要预先 {@link #reserve}
+     * @return 最后一条分录的序号
+     */
+    public long appendAll(List<JournalEntry> drafts) {
+        if (drafts.isEmpty()) {
+            return entryCount;
+        }
+        if (appendLock.tryLock()) {
+            try {
+                long entry = writeDrafts(entryCount, drafts);
+                appendPending(entry);
+                return entry;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        return submit(new PendingAppend(drafts, 0, null, 0, 0));
+    }
+
+    /**
+     * 追加单个账户的余额调整分录，对方为清算账户；不创建分录对象，用于余额变更的热点路径
+     * @param timestampMillis 分录时间，由调用方在加锁前取得
+     * @param amountMinor 变更金额（最小货币单位）
+     * @param scale 金额小数位数
+     * @return 分录序号
+     */
+    public long appendAdjustment(long timestampMillis, String accountId, long amountMinor, int scale) {
+        if (scale < 0 || scale > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("金额小数位数无效: " + scale);
+        }
+        if (appendLock.tryLock()) {
+            try {
+                long entry = writeAdjustment(entryCount, timestampMillis, accountId, amountMinor, scale);
+                appendPending(entry);
+                return entry;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        return submit(new PendingAppend(null, timestampMillis, accountId, amountMinor, scale));
+    }
+
+    /**
+     * 登记分录不在本日志中的已记账交易（从快照恢复的已完成交易），之后不能再记账
+     */
+    public void markPosted(String transactionId) {
+        postedTransactions.merge(transactionId, POSTED_BEFORE, (current, posted) -> current == RESERVED ? posted : current);
+    }
+
+    /**
+     * 交易是否已记账
+     */
+    public boolean isPosted(String transactionId) {
+        Long sequence = postedTransactions.get(transactionId);
+        return sequence != null && sequence != RESERVED;
+    }
+
+    /**
+     * 最后一条已发布分录的序号，没有分录时为0
+     */
+    public long getLastSequence() {
+        return entryCount;
+    }
+
+    /**
+     * 已累加到期初余额并释放的最后一条分录的序号，之后的分录可以读取
+     */
+    public long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * 访问各账户的期初余额（{@link #getBaseSequence()} 及之前全部分录的合计），期间不能追加分录
+     * @return 期初余额对应的分录序号
+     */
+    public long forEachOpeningBalance(PostingVisitor visitor) {
+        appendLock.lock();
+        try {
+            long base = baseSequence;
+            if (base > 0) {
+                for (int accountIndex = 0; accountIndex < baseScales.length; accountIndex++) {
+                    if (baseScales[accountIndex] >= 0) {
+                        visitor.posting(accountIndex, baseBalances[accountIndex], baseScales[accountIndex]);
+                    }
+                }
+            }
+            return base;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 访问各账户当前的账本余额（期初余额加上之后全部已发布分录的合计），期间不能追加分录
+     * @return 账本余额对应的分录序号
+     */
+    public long forEachBalance(PostingVisitor visitor) {
+        appendLock.lock();
+        try {
+            int accounts = accountIndexes.size();
+            long[] balances = Arrays.copyOf(baseBalances, Math.max(accounts, baseBalances.length));
+            int[] scales = Arrays.copyOf(baseScales, balances.length);
+            Arrays.fill(scales, baseScales.length, scales.length, -1);
+            long last = entryCount;
+            forEachPosting(baseSequence + 1, last, (accountIndex, amountMinor, scale) -> {
+                if (scales[accountIndex] < 0) {
+                    scales[accountIndex] = scale;
+                }
+                balances[accountIndex] += amountMinor;
+            });
+            for (int accountIndex = 0; accountIndex < accounts; accountIndex++) {
+                if (scales[accountIndex] >= 0) {
+                    visitor.posting(accountIndex, balances[accountIndex], scales[accountIndex]);
+                }
+            }
+            return last;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 读取一条分录
+     * @param sequence 分录序号，{@link #getBaseSequence()} + 1 到 {@link #getLastSequence()}
+     */
+    public JournalEntry get(long sequence) {
+        long count = entryCount;
+        if (sequence < 1 || sequence > count) {
+            throw new IllegalArgumentException("分录不存在: " + sequence);
+        }
+        EntryChunk entries = entryChunk(entryChunks, sequence);
+        int e = (int) ((sequence - 1) & CHUNK_MASK);
+        List<Posting> postings = new ArrayList<>(entries.lineCounts[e]);
+        String[] ids = accountIds;
+        long line = entries.firstLines[e];
+        for (int i = 0; i < entries.lineCounts[e]; i++, line++) {
+            LineChunk lines = lineChunk(lineChunks, line);
+            int l = (int) (line & CHUNK_MASK);
+            postings.add(new Posting(ids[lines.accounts[l]], lines.amounts[l], lines.scales[l]));
+        }
+        return new JournalEntry(sequence, entries.timestamps[e], TYPES[entries.types[e]], entries.transactionIds[e], List.copyOf(postings));
+    }
+
+    /**
+     * 按顺序读取 fromSequence 及之后的已发布分录，从 {@link #getBaseSequence()} 之后开始
+     */
+    public void forEach(long fromSequence, Consumer<JournalEntry> action) {
+        long last = entryCount;
+        for (long sequence = Math.max(baseSequence + 1, fromSequence); sequence <= last; sequence++) {
+            action.accept(get(sequence));
+        }
+    }
+
+    /**
+     * 按顺序访问 [fromSequence, toSequence] 范围内已发布分录的全部分录行，不创建对象
+     * @throws IllegalStateException 范围内的分录已释放
+     */
+    public void forEachPosting(long fromSequence, long toSequence, PostingVisitor visitor) {
+        long last = Math.min(toSequence, entryCount);
+        long first = Math.max(1, fromSequence);
+        if (first > last) {
+            return;
+        }
+        EntryChunk[] entries = entryChunks;
+        LineChunk[] lines = lineChunks;
+        long start = entryChunk(entries, first).firstLines[(int) ((first - 1) & CHUNK_MASK)];
+        EntryChunk lastChunk = entryChunk(entries, last);
+        int lastIndex = (int) ((last - 1) & CHUNK_MASK);
+        long end = lastChunk.firstLines[lastIndex] + lastChunk.lineCounts[lastIndex];
+        long line = start;
+        while (line < end) {
+            LineChunk chunk = lineChunk(lines, line);
+            int from = (int) (line & CHUNK_MASK);
+            int to = (int) Math.min(CHUNK_SIZE, from + (end - line));
+            for (int l = from; l < to; l++) {
+                visitor.posting(chunk.accounts[l], chunk.amounts[l], chunk.scales[l]);
+            }
+            line += to - from;
+        }
+    }
+
+    /**
+     * 交易的记账分录序号，未记账或分录已释放时为空
+     */
+    public OptionalLong sequenceOf(String transactionId) {
+        Long sequence = postedTransactions.get(transactionId);
+        return sequence != null && sequence > baseSequence ? OptionalLong.of(sequence) : OptionalLong.empty();
+    }
+
+    /**
+     * 账户序号，账户没有分录时返回 -1
+     */
+    public int accountIndexOf(String accountId) {
+        Integer index = accountIndexes.get(accountId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 账户序号对应的账户ID
+     */
+    public String accountIdOf(int accountIndex) {
+        long published = entryCount;
+        String[] ids = accountIds;
+        if (published == 0 || accountIndex < 0 || accountIndex >= ids.length || ids[accountIndex] == null) {
+            throw new IllegalArgumentException("账户序号不存在: " + accountIndex);
+        }
+        return ids[accountIndex];
+    }
+
+    /**
+     * 有分录的账户数（含清算账户）
+     */
+    public int getAccountCount() {
+        return accountIndexes.size();
+    }
+
+    private int indexOf(String accountId) {
+        Integer index = accountIndexes.get(accountId);
+        if (index != null) {
+            return index;
+        }
+        int next = accountIndexes.size();
+        if (next == accountIds.length) {
+            accountIds = Arrays.copyOf(accountIds, next * 2);
+        }
+        accountIds[next] = accountId;
+        accountIndexes.put(accountId, next);
+        return next;
+    }
+
+    /**
+     * 把最早的一整块分录累加到期初余额并释放（在 appendLock 内调用）
+     */
+    private void compactOldestChunk() {
+        long base = baseSequence;
+        EntryChunk entries = entryChunks[(int) (base >>> CHUNK_BITS)];
+        long firstLine = entries.firstLines[0];
+        long endLine = entries.firstLines[CHUNK_MASK] + entries.lineCounts[CHUNK_MASK];
+        for (long line = firstLine; line < endLine; line++) {
+            LineChunk lines = lineChunks[(int) (line >>> CHUNK_BITS)];
+            int l = (int) (line & CHUNK_MASK);
+            int accountIndex = lines.accounts[l];
+            if (accountIndex >= baseScales.length) {
+                int size = Math.max(accountIndex + 1, Math.max(64, baseScales.length * 2));
+                baseBalances = Arrays.copyOf(baseBalances, size);
+                int previous = baseScales.length;
+                baseScales = Arrays.copyOf(baseScales, size);
+                Arrays.fill(baseScales, previous, size, -1);
+            }
+            if (baseScales[accountIndex] < 0) {
+                baseScales[accountIndex] = lines.scales[l];
+            }
+            baseBalances[accountIndex] += lines.amounts[l];
+        }
+        // 先发布新的期初序号，再释放分块
+        baseSequence = base + CHUNK_SIZE;
+        entryChunks[(int) (base >>> CHUNK_BITS)] = null;
+        for (long chunk = firstLine >>> CHUNK_BITS; chunk < endLine >>> CHUNK_BITS; chunk++) {
+            lineChunks[(int) chunk] = null;
+        }
+    }
+
+    /**
+     * 未取得追加锁时提交追加请求并等待分录发布：持锁线程在释放锁之前写入已提交的请求；
+     * 等待期间让出CPU，锁空闲时自己加锁写入
+     */
+    private long submit(PendingAppend request) {
+        PendingAppend head;
+        do {
+            head = pendingAppends.get();
+            request.next = head;
+        } while (!pendingAppends.compareAndSet(head, request));
+        while (true) {
+            long sequence = request.sequence;
+            if (sequence > 0) {
+                return sequence;
+            }
+            if (appendLock.tryLock()) {
+                try {
+                    appendPending(entryCount);
+                } finally {
+                    appendLock.unlock();
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * 写入已提交的追加请求（按提交顺序），与持锁线程已写入的分录一起发布（在 appendLock 内调用）
+     * @param entry 持锁线程写入后的分录数
+     */
+    private void appendPending(long entry) {
+        PendingAppend pending = pendingAppends.getAndSet(null);
+        PendingAppend ordered = null;
+        while (pending != null) {
+            PendingAppend next = pending.next;
+            pending.next = ordered;
+            ordered = pending;
+            pending = next;
+        }
+        for (PendingAppend request = ordered; request != null; request = request.next) {
+            entry = request.drafts != null
+                ? writeDrafts(entry, request.drafts)
+                : writeAdjustment(entry, request.timestampMillis, request.accountId, request.amountMinor, request.scale);
+            request.lastEntry = entry;
+        }
+        publish(entry);
+        for (PendingAppend request = ordered; request != null; request = request.next) {
+            request.sequence = request.lastEntry;
+        }
+    }
+
+    private static EntryChunk entryChunk(EntryChunk[] chunks, long sequence) {
+        EntryChunk chunk = chunks[(int) ((sequence - 1) >>> CHUNK_BITS)];
+        if (chunk == null) {
+            throw new IllegalStateException("分录已释放: " + sequence);
+        }
+        return chunk;
+    }
+
+    private static LineChunk lineChunk(LineChunk[] chunks, long line) {
+        LineChunk chunk = chunks[(int) (line >>> CHUNK_BITS)];
+        if (chunk == null) {
+            throw new IllegalStateException("分录行已释放: " + line);
+        }
+        return chunk;
+    }
+
+    /**
+     * 写入一批分录（未发布）
+     * @return 写入后的分录数
+     */
+    private long writeDrafts(long entry, List<JournalEntry> drafts) {
+        long line = lineCount;
+        for (JournalEntry draft : drafts) {
+            writeEntry(entry, draft.timestampMillis(), draft.type(), draft.transactionId(), line, draft.postings().size());
+            for (Posting posting : draft.postings()) {
+                writeLine(line++, posting.accountId(), posting.amountMinor(), posting.scale());
+            }
+            entry++;
+            if (draft.type() == JournalEntry.Type.POSTING && draft.transactionId() != null) {
+                postedTransactions.put(draft.transactionId(), entry);
+            }
+        }
+        lineCount = line;
+        return entry;
+    }
+
+    /**
+     * 写入一条单账户余额调整分录（未发布）
+     * @return 写入后的分录数
+     */
+    private long writeAdjustment(long entry, long timestampMillis, String accountId, long amountMinor, int scale) {
+        long line = lineCount;
+        writeEntry(entry, timestampMillis, JournalEntry.Type.ADJUSTMENT, null, line, amountMinor != 0 ? 2 : 1);
+        writeLine(line++, accountId, amountMinor, scale);
+        if (amountMinor != 0) {
+            writeLine(line++, CLEARING_ACCOUNT, Math.negateExact(amountMinor), scale);
+        }
+        lineCount = line;
+        return entry + 1;
+    }
+
+    private void writeEntry(long entry, long timestamp, JournalEntry.Type type, String transactionId, long firstLine, int lineCount) {
+        EntryChunk entries = entryChunk(entry);
+        int e = (int) (entry & CHUNK_MASK);
+        entries.timestamps[e] = timestamp;
+        entries.types[e] = (byte) type.ordinal();
+        entries.transactionIds[e] = transactionId;
+        entries.firstLines[e] = firstLine;
+        entries.lineCounts[e] = (short) lineCount;
+    }
+
+    private void writeLine(long line, String accountId, long amountMinor, int scale) {
+        LineChunk lines = lineChunk(line);
+        int l = (int) (line & CHUNK_MASK);
+        lines.accounts[l] = indexOf(accountId);
+        lines.amounts[l] = amountMinor;
+        lines.scales[l] = (byte) scale;
+    }
+
+    /**
+     * 发布已写入的分录，并释放超出保留数量的早期分录
+     */
+    private void publish(long entry) {
+        entryCount = entry;
+        while (entry - baseSequence >= (long) retainedEntries + CHUNK_SIZE) {
+            compactOldestChunk();
+        }
+    }
+
+    private EntryChunk entryChunk(long entry) {
+        int chunk = (int) (entry >>> CHUNK_BITS);
+        if (chunk == entryChunks.length) {
+            entryChunks = Arrays.copyOf(entryChunks, chunk * 2);
+        }
+        if (entryChunks[chunk] == null) {
+            entryChunks[chunk] = new EntryChunk();
+        }
+        return entryChunks[chunk];
+    }
+
+    private LineChunk lineChunk(long line) {
+        int chunk = (int) (line >>> CHUNK_BITS);
+        if (chunk == lineChunks.length) {
+            lineChunks = Arrays.copyOf(lineChunks, chunk * 2);
+        }
+        if (lineChunks[chunk] == null) {
+            lineChunks[chunk] = new LineChunk();
+        }
+        return lineChunks[chunk];
+    }
+
+    /**
+     * 追加请求：一批分录，或 drafts 为 null 时的单账户余额调整
+     */
+    private static final class PendingAppend {
+        private final List<JournalEntry> drafts;
+        private final long timestampMillis;
+        private final String accountId;
+        private final long amountMinor;
+        private final int scale;
+        // 提交时指向之前提交的请求，写入时改为按提交顺序链接
+        private PendingAppend next;
+        // 写入后的分录数，只在 appendLock 内访问
+        private long lastEntry;
+        // 发布后设置为最后一条分录的序号
+        private volatile long sequence;
+
+        private PendingAppend(List<JournalEntry> drafts, long timestampMillis, String accountId, long amountMinor, int scale) {
+            this.drafts = drafts;
+            this.timestampMillis = timestampMillis;
+            this.accountId = accountId;
+            this.amountMinor = amountMinor;
+            this.scale = scale;
+        }
+    }
+
+    /**
+     * 分录列
+     */
+    private static final class EntryChunk {
+        private final long[] timestamps = new long[CHUNK_SIZE];
+        private final byte[] types = new byte[CHUNK_SIZE];
+        private final String[] transactionIds = new String[CHUNK_SIZE];
+        private final long[] firstLines = new long[CHUNK_SIZE];
+        private final short[] lineCounts = new short[CHUNK_SIZE];
+    }
+
+    /**
+     * 分录行列
+     */
+    private static final class LineChunk {
+        private final int[] accounts = new int[CHUNK_SIZE];
+        private final long[] amounts = new long[CHUNK_SIZE];
+        private final byte[] scales = new byte[CHUNK_SIZE];
+    }
+}
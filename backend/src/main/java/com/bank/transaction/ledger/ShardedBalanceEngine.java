@@ -0,0 +1,511 @@
+package com.bank.transaction.ledger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+import com.bank.transaction.config.ExecutionConfig;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.storage.ChangeJournal;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 分片余额执行引擎
+ *
+ * 特性：
+ * - 账户ID哈希到 shards 个分片，每个分片由一个执行线程独占自己分片内账户的余额，余额的 读-校验-写 不加锁
+ * - 提交线程把变更命令放入目标分片的输入环形缓冲区（多生产者单消费者，槽位带序号，CAS 占用位置），缓冲区满时等待；
+ *   执行线程按顺序取出命令执行，完成后唤醒等待结果的提交线程
+ * - 只涉及一个分片的变更在执行线程内原子完成，onApplied 也在执行线程内执行，同一账户的分录顺序与余额变更顺序一致
+ * - 跨分片的变更两阶段提交：
+ *   1. 预留：各分片校验本分片账户变更后的余额并扣减扣款，余额不足时本分片不变更
+ *   2. 全部分片预留成功后在提交线程执行 onApplied，再由各分片入账；任一分片预留失败时，已预留的分片退回扣款
+ *   扣款在分录之前生效、入账在分录之后生效，按分录重放的账本余额不会低于同一时刻的可用余额
+ * - 执行线程空闲时先自旋再休眠（只有一个处理器时不自旋），提交线程放入命令后唤醒休眠的执行线程
+ * - 余额变更日志在执行线程内记录，提交线程在变更完成后等待落盘
+ * - 停止时执行线程处理完所有已占用位置的命令才退出；提交线程按时间片等待结果，
+ *   执行线程已退出而命令仍未完成时抛出 IllegalStateException，不会一直等待
+ */
+@Slf4j
+public class ShardedBalanceEngine implements BalanceExecutor {
+
+    // 只有一个处理器时自旋只会占满时间片，直接休眠
+    private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 1000 : 0;
+    // 提交线程每次休眠的最长时间，醒来后检查执行线程是否已退出
+    private static final long AWAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Shard[] shards;
+    private final LongAdder crossShard = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+    private volatile boolean running = true;
+
+    public ShardedBalanceEngine(ExecutionConfig config) {
+        int capacity = Integer.highestOneBit(Math.max(2, config.getBufferSize()) * 2 - 1);
+        this.shards = new Shard[Math.max(1, config.getShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, capacity);
+        }
+        for (Shard shard : shards) {
+            shard.worker = Thread.ofPlatform().daemon().name("balance-shard-" + shard.index).start(shard::run);
+        }
+    }
+
+    @Override
+    public long applyMinor(Account account, long amountMinor, Runnable onApplied) {
+        Completion completion = new Completion(1);
+        Command command = new Command(Kind.APPLY, new Account[] {account}, new long[] {amountMinor}, onApplied, completion);
+        shardOf(account).submit(command);
+        completion.await();
+        if (command.failure != null) {
+            throw command.failure;
+        }
+        journal.awaitDurable(command.ticket);
+        return command.balance;
+    }
+
+    /**
+     * 转出和转入为同一账户时按差额变更
+     */
+    @Override
+    public void transferMinor(Account from, Account to, long debitMinor, long creditMinor, Runnable onApplied) {
+        if (from == to) {
+            applyMinor(from, Math.subtractExact(creditMinor, debitMinor), onApplied);
+            return;
+        }
+        applyAll(List.of(from, to), new long[] {Math.negateExact(debitMinor), creditMinor}, onApplied);
+    }
+
+    @Override
+    public void applyAll(List<Account> accounts, long[] amountsMinor, Runnable onApplied) {
+        if (accounts.isEmpty()) {
+            if (onApplied != null) {
+                onApplied.run();
+            }
+            return;
+        }
+        // 按分片分组
+        int[] shardIndexes = new int[accounts.size()];
+        int[] counts = new int[shards.length];
+        int involved = 0;
+        for (int i = 0; i < shardIndexes.length; i++) {
+            shardIndexes[i] = shardOf(accounts.get(i)).index;
+            if (counts[shardIndexes[i]]++ == 0) {
+                involved++;
+            }
+        }
+        if (involved == 1) {
+            Completion completion = new Completion(1);
+            Command command = new Command(Kind.APPLY, accounts.toArray(new Account[0]), amountsMinor.clone(), onApplied, completion);
+            shards[shardIndexes[0]].submit(command);
+            completion.await();
+            if (command.failure != null) {
+                throw command.failure;
+            }
+            journal.awaitDurable(command.ticket);
+            return;
+        }
+        crossShard.increment();
+        Command[] reservations = new Command[shards.length];
+        Account[][] shardAccounts = new Account[shards.length][];
+        long[][] shardAmounts = new long[shards.length][];
+        for (int s = 0; s < shards.length; s++) {
+            if (counts[s] > 0) {
+                shardAccounts[s] = new Account[counts[s]];
+                shardAmounts[s] = new long[counts[s]];
+                counts[s] = 0;
+            }
+        }
+        for (int i = 0; i < shardIndexes.length; i++) {
+            int s = shardIndexes[i];
+            shardAccounts[s][counts[s]] = accounts.get(i);
+            shardAmounts[s][counts[s]++] = amountsMinor[i];
+        }
+
+        // 1. 预留：各分片校验并扣减扣款
+        Completion reserved = new Completion(involved);
+        for (int s = 0; s < shards.length; s++) {
+            if (shardAccounts[s] != null) {
+                reservations[s] = new Command(Kind.RESERVE, shardAccounts[s], shardAmounts[s], null, reserved);
+                shards[s].submit(reservations[s]);
+            }
+        }
+        reserved.await();
+        RuntimeException failure = null;
+        for (Command reservation : reservations) {
+            if (reservation != null && reservation.failure != null && failure == null) {
+                failure = reservation.failure;
+            }
+        }
+        if (failure != null) {
+            aborted.increment();
+            finish(reservations, Kind.ABORT);
+            throw failure;
+        }
+
+        // 2. 提交：记录分录后各分片入账
+        if (onApplied != null) {
+            onApplied.run();
+        }
+        long ticket = Math.max(maxTicket(reservations), finish(reservations, Kind.COMMIT));
+        journal.awaitDurable(ticket);
+    }
+
+    @Override
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal != null ? journal : ChangeJournal.NONE;
+    }
+
+    /**
+     * 停止执行线程，缓冲区中已提交的命令执行完后退出
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.worker);
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 是否已停止且全部执行线程已退出
+     */
+    private boolean stopped() {
+        if (running) {
+            return false;
+        }
+        for (Shard shard : shards) {
+            if (shard.worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 账户所在分片序号
+     */
+    public int shardIndexOf(String accountId) {
+        int hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.execution.commands", this, engine -> engine.sum(shard -> shard.executed))
+                .description("分片执行的余额变更命令数").register(registry);
+        FunctionCounter.builder("bank.execution.cross.shard", crossShard, LongAdder::sum)
+                .description("跨分片两阶段提交的余额变更数").register(registry);
+        FunctionCounter.builder("bank.execution.aborted", aborted, LongAdder::sum)
+                .description("预留失败而退回的跨分片余额变更数").register(registry);
+        FunctionCounter.builder("bank.execution.buffer.full", this, engine -> engine.sum(shard -> shard.fullWaits.sum()))
+                .description("输入缓冲区已满、提交线程等待的次数").register(registry);
+        Gauge.builder("bank.execution.buffered", this, engine -> engine.sum(shard -> shard.tail.get() - shard.head))
+                .description("等待执行的余额变更命令数").register(registry);
+    }
+
+    private double sum(ToLongFunction<Shard> counter) {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += counter.applyAsLong(shard);
+        }
+        return total;
+    }
+
+    /**
+     * 向预留成功的分片发送提交或退回命令并等待完成
+     * @return 最大的变更日志序号
+     */
+    private long finish(Command[] reservations, Kind kind) {
+        int count = 0;
+        for (Command reservation : reservations) {
+            if (reservation != null && reservation.failure == null) {
+                count++;
+            }
+        }
+        Completion completion = new Completion(count);
+        Command[] commands = new Command[reservations.length];
+        for (int s = 0; s < reservations.length; s++) {
+            Command reservation = reservations[s];
+            if (reservation != null && reservation.failure == null) {
+                commands[s] = new Command(kind, reservation.accounts, reservation.amounts, null, completion);
+                shards[s].submit(commands[s]);
+            }
+        }
+        completion.await();
+        for (Command command : commands) {
+            if (command != null && command.failure != null) {
+                // 入账/退回只做加法，只有余额溢出时才会失败
+                log.error("跨分片余额变更{}失败，需要人工对账 - 错误: {}", kind == Kind.COMMIT ? "入账" : "退回", command.failure.getMessage());
+            }
+        }
+        return maxTicket(commands);
+    }
+
+    private static long maxTicket(Command[] commands) {
+        long ticket = 0;
+        for (Command command : commands) {
+            if (command != null) {
+                ticket = Math.max(ticket, command.ticket);
+            }
+        }
+        return ticket;
+    }
+
+    private Shard shardOf(Account account) {
+        return shards[shardIndexOf(account.getAccountId())];
+    }
+
+    /**
+     * 命令类型
+     */
+    private enum Kind {
+        // 单分片变更：校验全部账户后一起生效，并执行 onApplied
+        APPLY,
+        // 跨分片第一阶段：校验本分片账户，扣减扣款
+        RESERVE,
+        // 跨分片第二阶段：入账
+        COMMIT,
+        // 跨分片预留失败：退回已扣减的扣款
+        ABORT
+    }
+
+    /**
+     * 余额变更命令，执行结果在 {@link Completion#done()} 之前写入
+     */
+    private static final class Command {
+        private final Kind kind;
+        private final Account[] accounts;
+        private final long[] amounts;
+        private final Runnable onApplied;
+        private final Completion completion;
+        private long balance;
+        private long ticket;
+        private RuntimeException failure;
+
+        private Command(Kind kind, Account[] accounts, long[] amounts, Runnable onApplied, Completion completion) {
+            this.kind = kind;
+            this.accounts = accounts;
+            this.amounts = amounts;
+            this.onApplied = onApplied;
+            this.completion = completion;
+        }
+    }
+
+    /**
+     * 提交线程等待一组命令执行完成：先自旋，再休眠到最后一个命令完成时被唤醒
+     */
+    private final class Completion {
+        private final Thread waiter = Thread.currentThread();
+        private final AtomicInteger pending;
+
+        private Completion(int count) {
+            this.pending = new AtomicInteger(count);
+        }
+
+        private void done() {
+            if (pending.decrementAndGet() == 0) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        /**
+         * @throws IllegalStateException 引擎已停止，命令不会再执行
+         */
+        private void await() {
+            int spins = 0;
+            while (pending.get() != 0) {
+                if (spins++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, AWAIT_SLICE_NANOS);
+                    if (pending.get() != 0 && stopped()) {
+                        throw new IllegalStateException("余额执行引擎已停止，余额变更未执行");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 余额分片：输入环形缓冲区 + 执行线程
+     */
+    private final class Shard {
+        private final int index;
+        private final int mask;
+        private final Command[] slots;
+        // 槽位序号：等于位置时可写入，等于位置 + 1 时可读取
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final LongAdder fullWaits = new LongAdder();
+        // 只由执行线程写入
+        private volatile long head;
+        private volatile long executed;
+        private volatile boolean sleeping;
+        private Thread worker;
+
+        private Shard(int index, int capacity) {
+            this.index = index;
+            this.mask = capacity - 1;
+            this.slots = new Command[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        private void submit(Command command) {
+            if (!running) {
+                throw new IllegalStateException("余额执行引擎已停止");
+            }
+            long position;
+            int spins = 0;
+            while (true) {
+                position = tail.get();
+                long difference = sequences.get((int) position & mask) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        break;
+                    }
+                } else if (difference < 0) {
+                    // 缓冲区已满：等待执行线程取出命令
+                    if (!running) {
+                        throw new IllegalStateException("余额执行引擎已停止");
+                    }
+                    if (spins++ == 0) {
+                        fullWaits.increment();
+                    }
+                    if (spins <= SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(1000);
+                    }
+                }
+            }
+            int slot = (int) position & mask;
+            slots[slot] = command;
+            sequences.set(slot, position + 1);
+            if (sleeping) {
+                LockSupport.unpark(worker);
+            }
+        }
+
+        private void run() {
+            int idle = 0;
+            while (true) {
+                long position = head;
+                int slot = (int) position & mask;
+                if (sequences.get(slot) == position + 1) {
+                    Command command = slots[slot];
+                    slots[slot] = null;
+                    sequences.lazySet(slot, position + mask + 1);
+                    head = position + 1;
+                    execute(command);
+                    executed++;
+                    idle = 0;
+                } else if (!running) {
+                    // 已停止：处理完已占用位置的命令再退出，占用了位置但还没写入命令时等待写入
+                    if (tail.get() == position) {
+                        return;
+                    }
+                    Thread.yield();
+                } else if (idle++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (sequences.get(slot) != position + 1 && running) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        private void execute(Command command) {
+            try {
+                switch (command.kind) {
+                    case APPLY -> apply(command);
+                    case RESERVE -> reserve(command);
+                    case COMMIT -> add(command, 1, true);
+                    case ABORT -> add(command, -1, false);
+                }
+            } catch (RuntimeException e) {
+                command.failure = e;
+            } finally {
+                command.completion.done();
+            }
+        }
+
+        private void apply(Command command) {
+            Account[] accounts = command.accounts;
+            long[] newBalances = new long[accounts.length];
+            for (int i = 0; i < accounts.length; i++) {
+                newBalances[i] = Math.addExact(accounts[i].getBalanceMinor(), command.amounts[i]);
+                checkNotNegative(newBalances[i], accounts[i]);
+            }
+            ChangeJournal journal = ShardedBalanceEngine.this.journal;
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i].setBalanceMinor(newBalances[i]);
+                command.ticket = journal.balanceChanged(accounts[i].getAccountId(), newBalances[i], accounts[i].getBalanceScale());
+            }
+            if (command.onApplied != null) {
+                command.onApplied.run();
+            }
+            command.balance = newBalances[0];
+        }
+
+        /**
+         * 校验本分片全部账户变更后的余额，通过后只扣减扣款，入账留到提交阶段
+         */
+        private void reserve(Command command) {
+            Account[] accounts = command.accounts;
+            for (int i = 0; i < accounts.length; i++) {
+                checkNotNegative(Math.addExact(accounts[i].getBalanceMinor(), command.amounts[i]), accounts[i]);
+            }
+            add(command, 1, false);
+        }
+
+        /**
+         * 变更余额
+         * @param sign 1 为按变更金额，-1 为反向
+         * @param credits true 只处理入账（正数金额），false 只处理扣款（负数金额）
+         */
+        private void add(Command command, int sign, boolean credits) {
+            ChangeJournal journal = ShardedBalanceEngine.this.journal;
+            for (int i = 0; i < command.accounts.length; i++) {
+                long amount = command.amounts[i];
+                if (credits ? amount > 0 : amount < 0) {
+                    Account account = command.accounts[i];
+                    long newBalance = Math.addExact(account.getBalanceMinor(), sign * amount);
+                    account.setBalanceMinor(newBalance);
+                    command.ticket = journal.balanceChanged(account.getAccountId(), newBalance, account.getBalanceScale());
+                }
+            }
+        }
+    }
+
+    private static void checkNotNegative(long balanceMinor, Account account) {
+        if (balanceMinor < 0) {
+            throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, "账户余额不足，无法完成交易: " + account.getAccountId());
+        }
+    }
+}
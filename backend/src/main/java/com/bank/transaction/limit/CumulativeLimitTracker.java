@@ -0,0 +1,251 @@
+package com.bank.transaction.limit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.TransactionConfig;
+import com.bank.transaction.config.TransactionLimitConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Money;
+
+/**
+ * 账户累计限额跟踪器
+ *
+ * 对转出账户的扣款类交易按滚动窗口累计：
+ * - 日累计金额、日累计笔数：最近24个小时桶（TransactionLimitConfig.dailyTransactionLimit、TransactionConfig.dailyLimit）
+ * - 月累计金额：最近30个日桶（TransactionLimitConfig.monthlyTransactionLimit）
+ *
+ * 特性：
+ * - 先累加再校验，超限时撤销本次累加并拒绝，并发交易不会合计超过限额；每笔交易 O(1)，不再汇总历史交易
+ * - 计数器按账户首次使用时从历史交易重建（只查询和计入窗口内、未失败的扣款交易），重启后限额不会清零
+ * - 已保存的交易异步记账失败（PENDING→FAILED）时归还额度，与重建结果保持一致
+ * - 限额未配置或不大于0时不做限制
+ */
+@Component
+public class CumulativeLimitTracker {
+
+    static final int DAILY_HOUR_BUCKETS = 24;
+    static final int MONTHLY_DAY_BUCKETS = 30;
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 重建计数器时每批读取的交易数
+     */
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final TransactionLimitConfig limitConfig;
+    private final TransactionConfig transactionConfig;
+    private final TransactionDao transactionDao;
+    private final LongSupplier clock;
+
+    private final Map<String, AccountCounters> accounts = new ConcurrentHashMap<>();
+
+    private volatile Limits cachedLimits;
+
+    @Autowired
+    public CumulativeLimitTracker(TransactionLimitConfig limitConfig, TransactionConfig transactionConfig, TransactionDao transactionDao) {
+        this(limitConfig, transactionConfig, transactionDao, System::currentTimeMillis);
+    }
+
+    CumulativeLimitTracker(TransactionLimitConfig limitConfig, TransactionConfig transactionConfig,
+                           TransactionDao transactionDao, LongSupplier clock) {
+        this.limitConfig = limitConfig;
+        this.transactionConfig = transactionConfig;
+        this.transactionDao = transactionDao;
+        this.clock = clock;
+    }
+
+    /**
+     * 占用转出账户的累计额度，超过任一累计限额时抛出 BusinessException(VALIDATION_ERROR)
+     * 交易最终未保存时必须调用 {@link #release}
+     * @param accountId 转出账户ID
+     * @param amount 交易金额
+     * @return 额度占用记录，未配置任何累计限额时返回 null
+     */
+    public Reservation reserve(String accountId, BigDecimal amount) {
+        Limits limits = currentLimits();
+        if (!limits.enabled()) {
+            return null;
+        }
+        AccountCounters counters = accounts.computeIfAbsent(accountId, this::rebuild);
+        long now = clock.getAsLong();
+        Reservation reservation = new Reservation(counters, now / HOUR_MILLIS, now / DAY_MILLIS, toMinor(amount));
+        counters.add(reservation.hour, reservation.day, reservation.amountMinor, 1);
+
+        if (limits.dailyAmount() > 0 && counters.hourlyAmount.sum(reservation.hour) > limits.dailyAmount()) {
+            release(reservation);
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "日累计交易金额超过限额: " + limitConfig.getDailyTransactionLimit());
+        }
+        if (limits.monthlyAmount() > 0 && counters.dailyAmount.sum(reservation.day) > limits.monthlyAmount()) {
+            release(reservation);
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "月累计交易金额超过限额: " + limitConfig.getMonthlyTransactionLimit());
+        }
+        if (limits.dailyCount() > 0 && counters.hourlyCount.sum(reservation.hour) > limits.dailyCount()) {
+            release(reservation);
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR, "日累计交易笔数超过限制: " + limits.dailyCount());
+        }
+        return reservation;
+    }
+
+    /**
+     * 交易已保存，额度正式占用
+     */
+    public void confirm(Reservation reservation) {
+        if (reservation != null) {
+            reservation.settled = true;
+        }
+    }
+
+    /**
+     * 交易未保存，归还占用的额度；已确认的占用调用此方法无效果，可以放在 finally 中统一调用
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null || reservation.settled) {
+            return;
+        }
+        reservation.settled = true;
+        reservation.counters.add(reservation.hour, reservation.day, -reservation.amountMinor, -1);
+    }
+
+    /**
+     * 已确认占用额度的交易记账失败（PENDING→FAILED），按交易时间归还其额度
+     * 重建计数器时不计入失败交易，归还后实时计数与重建结果一致；账户计数器尚未建立或交易已滚出窗口时无需归还
+     */
+    public void releaseFailed(Transaction transaction) {
+        String accountId = transaction.getFromAccountId();
+        AccountCounters counters = accountId != null ? accounts.get(accountId) : null;
+        if (counters == null || !isCountedDebit(accountId, transaction)) {
+            return;
+        }
+        long millis = transaction.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        counters.add(millis / HOUR_MILLIS, millis / DAY_MILLIS, -toMinor(transaction.getAmount()), -1);
+    }
+
+    /**
+     * 账户最近24小时的累计扣款金额
+     */
+    public BigDecimal getDailyAmount(String accountId) {
+        AccountCounters counters = accounts.get(accountId);
+        long sum = counters != null ? counters.hourlyAmount.sum(clock.getAsLong() / HOUR_MILLIS) : 0;
+        return Money.toBigDecimal(sum, Money.DEFAULT_SCALE);
+    }
+
+    /**
+     * 从历史交易重建账户计数器，只计入窗口内、未失败的扣款交易
+     * 从月窗口最早的日桶开始按时间键分批查询，不加载账户的全部历史
+     */
+    private AccountCounters rebuild(String accountId) {
+        AccountCounters counters = new AccountCounters();
+        long now = clock.getAsLong();
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime windowStart = LocalDateTime.ofInstant(
+            Instant.ofEpochMilli((now / DAY_MILLIS - (MONTHLY_DAY_BUCKETS - 1)) * DAY_MILLIS), zone);
+        TimeCursor position = new TimeCursor(TransactionTimeIndex.toTimeKey(windowStart), "");
+        while (position != null) {
+            List<Transaction> chunk = transactionDao.findByAccountIdAfter(accountId, position, Long.MAX_VALUE, REBUILD_CHUNK_SIZE);
+            for (Transaction transaction : chunk) {
+                if (transaction.getStatus() == TransactionStatus.FAILED || !isCountedDebit(accountId, transaction)) {
+                    continue;
+                }
+                long millis = transaction.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+                if (now / DAY_MILLIS - millis / DAY_MILLIS < MONTHLY_DAY_BUCKETS) {
+                    counters.add(millis / HOUR_MILLIS, millis / DAY_MILLIS, toMinor(transaction.getAmount()), 1);
+                }
+            }
+            if (chunk.size() < REBUILD_CHUNK_SIZE) {
+                position = null;
+            } else {
+                Transaction last = chunk.get(chunk.size() - 1);
+                position = new TimeCursor(TransactionTimeIndex.toTimeKey(last.getTimestamp()), last.getId());
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * 是否为计入该账户累计限额的扣款交易（该账户转出，且交易时间和金额完整）
+     */
+    private static boolean isCountedDebit(String accountId, Transaction transaction) {
+        return accountId.equals(transaction.getFromAccountId())
+            && transaction.getType() != null && transaction.getType().isDebit()
+            && transaction.getTimestamp() != null && transaction.getAmount() != null;
+    }
+
+    /**
+     * 当前限额（最小货币单位），配置对象未变化时复用上次的转换结果
+     */
+    private Limits currentLimits() {
+        BigDecimal daily = limitConfig.getDailyTransactionLimit();
+        BigDecimal monthly = limitConfig.getMonthlyTransactionLimit();
+        int dailyCount = transactionConfig.getDailyLimit();
+        Limits limits = cachedLimits;
+        if (limits == null || limits.dailySource() != daily || limits.monthlySource() != monthly || limits.dailyCount() != dailyCount) {
+            limits = new Limits(daily, monthly, daily != null ? toMinor(daily) : 0, monthly != null ? toMinor(monthly) : 0, dailyCount);
+            cachedLimits = limits;
+        }
+        return limits;
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return Money.toMinor(amount, Money.DEFAULT_SCALE, RoundingMode.CEILING);
+    }
+
+    /**
+     * 单个账户的滚动计数器
+     */
+    private static final class AccountCounters {
+        private final RollingCounter hourlyAmount = new RollingCounter(DAILY_HOUR_BUCKETS);
+        private final RollingCounter hourlyCount = new RollingCounter(DAILY_HOUR_BUCKETS);
+        private final RollingCounter dailyAmount = new RollingCounter(MONTHLY_DAY_BUCKETS);
+
+        void add(long hour, long day, long amountMinor, long count) {
+            hourlyAmount.add(hour, amountMinor);
+            hourlyCount.add(hour, count);
+            dailyAmount.add(day, amountMinor);
+        }
+    }
+
+    private record Limits(BigDecimal dailySource, BigDecimal monthlySource, long dailyAmount, long monthlyAmount, int dailyCount) {
+
+        boolean enabled() {
+            return dailyAmount > 0 || monthlyAmount > 0 || dailyCount > 0;
+        }
+    }
+
+    /**
+     * 额度占用记录，仅由发起交易的线程使用
+     */
+    public static final class Reservation {
+        private final AccountCounters counters;
+        private final long hour;
+        private final long day;
+        private final long amountMinor;
+        private boolean settled;
+
+        private Reservation(AccountCounters counters, long hour, long day, long amountMinor) {
+            this.counters = counters;
+            this.hour = hour;
+            this.day = day;
+            this.amountMinor = amountMinor;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.transaction.limit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滚动窗口计数器
+ *
+ * 特性：
+ * - 固定数量的时间桶组成环形数组，时间桶序号（如自1970年起的小时数）对桶数取模定位槽位
+ * - 每个槽位把 时间桶序号（低20位）和累计值（44位）打包在一个 long 中，CAS 无锁更新
+ * - 写入新时间桶时原子地覆盖槽位中的过期值，不需要后台线程清理
+ * - 窗口总和只累加序号落在 (当前时间桶 - 桶数, 当前时间桶] 内的槽位，O(桶数)
+ */
+public final class RollingCounter {
+
+    private static final int VALUE_BITS = 44;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - VALUE_BITS)) - 1;
+
+    private final AtomicLongArray slots;
+    private final int buckets;
+
+    /**
+     * @param buckets 窗口内的时间桶数量
+     */
+    public RollingCounter(int buckets) {
+        this.buckets = buckets;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    /**
+     * 向指定时间桶累加
+     * 槽位中是更早的时间桶或为空时先清零；槽位已被更新的时间桶占用时，说明该时间桶已滚出窗口，忽略本次累加
+     * @param epoch 时间桶序号
+     * @param delta 变化量，可以为负数（撤销之前的累加）
+     */
+    public void add(long epoch, long delta) {
+        int index = (int) Math.floorMod(epoch, (long) buckets);
+        long tag = epoch & EPOCH_MASK;
+        while (true) {
+            long current = slots.get(index);
+            long slotEpoch = current >>> VALUE_BITS;
+            long value;
+            if (slotEpoch == tag) {
+                value = current & VALUE_MASK;
+            } else if (isNewer(tag, slotEpoch) || (current & VALUE_MASK) == 0) {
+                // 空槽位（包括从未写入的槽位，序号为0）没有需要保留的值，直接占用
+                value = 0;
+            } else {
+                return;
+            }
+            long updated = Math.max(0, value + delta);
+            if (updated > VALUE_MASK) {
+                throw new ArithmeticException("滚动窗口计数超出范围");
+            }
+            if (slots.compareAndSet(index, current, tag << VALUE_BITS | updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 窗口 (epoch - 桶数, epoch] 内的累计值
+     * @param epoch 当前时间桶序号
+     */
+    public long sum(long epoch) {
+        return sum(epoch, buckets);
+    }
+
+    /**
+     * 窗口 (epoch - window, epoch] 内的累计值
+     * @param epoch 窗口内最后一个时间桶序号
+     * @param window 窗口内的时间桶数量，不大于桶数
+     */
+    public long sum(long epoch, int window) {
+        long tag = epoch & EPOCH_MASK;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            long slot = slots.get(i);
+            if (((tag - (slot >>> VALUE_BITS)) & EPOCH_MASK) < window) {
+                total += slot & VALUE_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 按20位序号回绕比较，tag 是否晚于 slotEpoch
+     */
+    private static boolean isNewer(long tag, long slotEpoch) {
+        long diff = (tag - slotEpoch) & EPOCH_MASK;
+        return diff != 0 && diff < (EPOCH_MASK >>> 1);
+    }
+}
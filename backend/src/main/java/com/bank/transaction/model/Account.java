@@ -5,6 +5,8 @@ import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.media.Schema;
 import com.bank.transaction.util.Constants.AccountStatus;
 import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.math.BigDecimal;
 
@@ -30,10 +32,10 @@ public class Account {
     @Schema(description = "所属银行")
     private Bank bank; // 所属银行，不能为空
 
-    @Schema(description = "账户余额", example = "10000.50")
-    @NotNull(message = "账户余额不能为空")
-    @PositiveOrZero(message = "账户余额不能为负数")
-    private BigDecimal balance;
+    // 余额以最小货币单位存储，小数位数为 balanceScale（默认取币种小数位数），-1 表示未设置
+    // 余额由 BalanceEngine 加锁更新（分片执行时只由账户所在分片的执行线程更新），读取无需加锁
+    private volatile long balanceMinor;
+    private volatile int balanceScale = -1;
 
     @Schema(description = "账户货币类型", example = "CNY")
     @NotNull(message = "账户币种不能为空")
@@ -50,8 +52,8 @@ public class Account {
         this.accountNumber = accountNumber;
         this.accountName = accountName;
         this.bank = bank;
-        this.balance = balance;
         this.currency = currency;
+        setBalance(balance);
         this.status = status;
     }
 
@@ -63,10 +65,40 @@ public class Account {
     public void setAccountName(String accountName) {this.accountName = accountName;}
     public Bank getBank() {return bank;}
     public void setBank(Bank bank) {this.bank = bank;}
-    public BigDecimal getBalance() {return balance;}
-    public void setBalance(BigDecimal balance) {this.balance = balance;}
+    @Schema(description = "账户余额", example = "10000.50")
+    @NotNull(message = "账户余额不能为空")
+    @PositiveOrZero(message = "账户余额不能为负数")
+    public BigDecimal getBalance() {return balanceScale < 0 ? null : Money.toBigDecimal(balanceMinor, balanceScale);}
     public Currency getCurrency() {return currency;}
+
+    /**
+     * 设置余额，小数位数取币种小数位数和金额自身小数位数中较大者，不丢失精度
+     */
+    public void setBalance(BigDecimal balance) {
+        if (balance == null) {
+            this.balanceScale = -1;
+            this.balanceMinor = 0;
+            return;
+        }
+        int scale = Math.max(Money.scaleOf(currency), balance.scale());
+        this.balanceMinor = Money.toMinor(balance, scale);
+        this.balanceScale = scale;
+    }
+
     public void setCurrency(Currency currency) {this.currency = currency;}
+
+    /**
+     * 余额（最小货币单位）
+     */
+    @JsonIgnore
+    public long getBalanceMinor() {return balanceMinor;}
+    public void setBalanceMinor(long balanceMinor) {this.balanceMinor = balanceMinor;}
+
+    /**
+     * 余额小数位数，未设置余额时为 -1
+     */
+    @JsonIgnore
+    public int getBalanceScale() {return balanceScale;}
     public AccountStatus getStatus() {return status;}
     public void setStatus(AccountStatus status) {this.status = status;}
 } 
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.bank.transaction.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.bank.transaction.config.PipelineConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 流水线处理阶段
+ *
+ * 特性：
+ * - 有界队列，容量由 queueCapacity 限制
+ * - 固定数量的消费线程（并发上限），每次从队列批量取出最多 batchSize 条消息处理
+ * - 背压：队列满时提交线程最多等待 offerTimeoutMillis，仍未入队则由提交线程直接处理（caller-runs），
+ *   不丢消息，同时自然降低上游提交速度
+ * - 停止时先处理完队列中剩余消息；与停止并发入队的消息在入队后发现阶段已停止时由提交线程处理，不会滞留在队列中
+ *
+ * @param <T> 消息类型
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int batchSize;
+    private final int concurrency;
+    private final long offerTimeoutMillis;
+    private final Consumer<List<T>> handler;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    // 已提交但尚未处理完成的消息数
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    public PipelineStage(String name, PipelineConfig.Stage config, Consumer<List<T>> handler) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.concurrency = Math.max(1, config.getConcurrency());
+        this.offerTimeoutMillis = config.getOfferTimeoutMillis();
+        this.handler = handler;
+    }
+
+    /**
+     * 启动消费线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofPlatform().daemon().name("pipeline-" + name + "-" + i).start(this::consume));
+        }
+    }
+
+    /**
+     * 提交消息，队列满时按背压策略处理
+     */
+    public void submit(T item) {
+        pending.incrementAndGet();
+        if (!running) {
+            // 未启动或已停止：直接在提交线程处理，保证消息不丢失
+            handle(List.of(item));
+            return;
+        }
+        boolean accepted;
+        try {
+            accepted = queue.offer(item, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            callerRuns.increment();
+            handle(List.of(item));
+        } else if (!running) {
+            // 检查运行状态后阶段被停止：停止线程可能已经取完队列，由提交线程处理剩余消息
+            drainRemaining();
+        }
+    }
+
+    /**
+     * 停止消费线程，等待队列中剩余消息处理完成
+     */
+    public synchronized void shutdown(Duration timeout) {
+        running = false;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        // 超时未处理完的消息由当前线程处理
+        drainRemaining();
+    }
+
+    private void drainRemaining() {
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            handle(remaining);
+        }
+    }
+
+    /**
+     * 等待所有已提交消息处理完成
+     * @return 超时前是否处理完成
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void consume() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                handle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void handle(List<T> batch) {
+        try {
+            handler.accept(batch);
+            processed.add(batch.size());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            log.error("流水线阶段处理失败 - 阶段: {}, 批量: {}, 错误: {}", name, batch.size(), e.getMessage(), e);
+        } finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getPending() {
+        return pending.get();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 队列满时由提交线程直接处理的次数
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.transaction.pipeline;
+
+import com.bank.transaction.model.Transaction;
+
+/**
+ * 交易后续处理消息
+ *
+ * @param transaction 交易对象
+ * @param operationType 操作类型（CREATE/UPDATE/DELETE）
+ */
+public record PostTransactionEvent(Transaction transaction, String operationType) {
+}
@@ -0,0 +1,283 @@
+package com.bank.transaction.pipeline;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.CacheConfig;
+import com.bank.transaction.config.PipelineConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.eventlog.TransactionEventLogger;
+import com.bank.transaction.limit.CumulativeLimitTracker;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.AccountService;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.Constants.TransactionStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易后续处理流水线
+ *
+ * 交易保存后立即返回，后续处理在独立的处理阶段中异步执行：
+ * <pre>
+ *   提交 → [银行核心系统(记账)] → [审计日志]
+ *                              → [风控检查]
+ *                              → [通知服务]
+ * </pre>
+ * - 每个阶段有独立的有界队列、批量大小和并发上限，见 {@link PipelineConfig}
+ * - 审计、风控、通知在记账完成后才收到消息，能看到交易的最终状态
+ * - 队列满时由提交线程直接处理（背压），消息不丢失
+ * - 应用关闭时按阶段顺序处理完剩余消息
+ */
+@Slf4j
+@Component
+public class PostTransactionPipeline {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final TransactionDao transactionDao;
+    private final AccountService accountService;
+    private final TransactionStatistics transactionStatistics;
+    private final TransactionEventLogger transactionEventLogger;
+    private final Cache transactionCache;
+    private final CumulativeLimitTracker cumulativeLimitTracker;
+
+    private final PipelineStage<PostTransactionEvent> coreLedgerStage;
+    private final PipelineStage<PostTransactionEvent> auditStage;
+    private final PipelineStage<PostTransactionEvent> riskStage;
+    private final PipelineStage<PostTransactionEvent> notificationStage;
+
+    // 记账阶段处理异常、状态未能更新的交易数
+    private final LongAdder stuckCount = new LongAdder();
+
+    public PostTransactionPipeline(PipelineConfig pipelineConfig, TransactionDao transactionDao, AccountService accountService) {
+        this(pipelineConfig, transactionDao, accountService, new TransactionStatistics());
+    }
+
+    public PostTransactionPipeline(PipelineConfig pipelineConfig, TransactionDao transactionDao, AccountService accountService,
+                                   TransactionStatistics transactionStatistics) {
+        this(pipelineConfig, transactionDao, accountService, transactionStatistics, TransactionEventLogger.disabled());
+    }
+
+    public PostTransactionPipeline(PipelineConfig pipelineConfig, TransactionDao transactionDao, AccountService accountService,
+                                   TransactionStatistics transactionStatistics, TransactionEventLogger transactionEventLogger) {
+        this(pipelineConfig, transactionDao, accountService, transactionStatistics, transactionEventLogger, new NoOpCacheManager());
+    }
+
+    public PostTransactionPipeline(PipelineConfig pipelineConfig, TransactionDao transactionDao, AccountService accountService,
+                                   TransactionStatistics transactionStatistics, TransactionEventLogger transactionEventLogger,
+                                   CacheManager cacheManager) {
+        this(pipelineConfig, transactionDao, accountService, transactionStatistics, transactionEventLogger, cacheManager, null);
+    }
+
+    @Autowired
+    public PostTransactionPipeline(PipelineConfig pipelineConfig, TransactionDao transactionDao, AccountService accountService,
+                                   TransactionStatistics transactionStatistics, TransactionEventLogger transactionEventLogger,
+                                   CacheManager cacheManager, CumulativeLimitTracker cumulativeLimitTracker) {
+        this.transactionDao = transactionDao;
+        this.transactionCache = cacheManager.getCache(CacheConfig.TRANSACTIONS);
+        this.cumulativeLimitTracker = cumulativeLimitTracker;
+        this.accountService = accountService;
+        this.transactionStatistics = transactionStatistics;
+        this.transactionEventLogger = transactionEventLogger;
+        this.auditStage = new PipelineStage<>("audit", pipelineConfig.getAudit(), this::recordAuditLogs);
+        this.riskStage = new PipelineStage<>("risk", pipelineConfig.getRisk(), this::triggerRiskControl);
+        this.notificationStage = new PipelineStage<>("notification", pipelineConfig.getNotification(), this::sendNotifications);
+        this.coreLedgerStage = new PipelineStage<>("core-ledger", pipelineConfig.getCoreLedger(), this::processCoreLedger);
+    }
+
+    @PostConstruct
+    public void start() {
+        auditStage.start();
+        riskStage.start();
+        notificationStage.start();
+        coreLedgerStage.start();
+    }
+
+    /**
+     * 按上下游顺序停止：先处理完记账阶段，再处理完其下游阶段
+     */
+    @PreDestroy
+    public void shutdown() {
+        coreLedgerStage.shutdown(SHUTDOWN_TIMEOUT);
+        auditStage.shutdown(SHUTDOWN_TIMEOUT);
+        riskStage.shutdown(SHUTDOWN_TIMEOUT);
+        notificationStage.shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * 提交交易后续处理
+     */
+    public void submit(Transaction transaction, String operationType) {
+        coreLedgerStage.submit(new PostTransactionEvent(transaction, operationType));
+    }
+
+    /**
+     * 等待所有阶段处理完已提交的消息
+     * @return 超时前是否处理完成
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (PipelineStage<PostTransactionEvent> stage : getStages()) {
+            if (!stage.awaitIdle(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按上下游顺序返回各处理阶段
+     */
+    public List<PipelineStage<PostTransactionEvent>> getStages() {
+        return List.of(coreLedgerStage, auditStage, riskStage, notificationStage);
+    }
+
+    /**
+     * 记账阶段处理异常、状态未能更新（仍为PENDING）的交易数
+     */
+    public long getStuckCount() {
+        return stuckCount.sum();
+    }
+
+    /**
+     * 银行核心系统处理：清算、账务等
+     * 每条消息单独处理，一条消息处理异常不影响同批其余消息的记账和下游阶段
+     */
+    private void processCoreLedger(List<PostTransactionEvent> events) {
+        for (PostTransactionEvent event : events) {
+            try {
+                event = processCoreLedger(event);
+            } catch (RuntimeException e) {
+                stuckCount.increment();
+                log.error("银行核心系统处理异常，交易状态未更新，需要人工处理 - 交易ID: {}, 错误: {}",
+                    event.transaction().getId(), e.getMessage(), e);
+            }
+            // 示例：messageProducer.send("bank.core.queue", buildMessage(transaction.getId(), operationType, transaction));
+
+            auditStage.submit(event);
+            riskStage.submit(event);
+            notificationStage.submit(event);
+        }
+        log.debug("银行核心系统批量处理完成 - 条数: {}", events.size());
+    }
+
+    /**
+     * 对于CREATE操作，交易记账（余额变更和分录在余额锁内一起完成）并将交易状态更新为COMPLETED，
+     * 处理失败时更新为FAILED，已记账的交易追加冲正分录，并归还转出账户占用的累计额度；同步更新实时统计和交易事件日志
+     * @return 交给下游阶段的消息，状态已变更时携带变更后的交易
+     */
+    private PostTransactionEvent processCoreLedger(PostTransactionEvent event) {
+        Transaction transaction = event.transaction();
+        log.trace("银行核心系统处理 - 交易ID: {}, 操作: {}", transaction.getId(), event.operationType());
+
+        if (!"CREATE".equals(event.operationType()) || transaction.getStatus() != TransactionStatus.PENDING) {
+            return event;
+        }
+        Transaction current = postTransaction(transaction);
+        if (current == null) {
+            transactionCache.evict(transaction.getId());
+            return event;
+        }
+        // 交易查询缓存中是创建时的交易对象，替换为变更状态后的交易
+        transactionCache.put(current.getId(), current);
+        transactionStatistics.recordStatusChange(current, TransactionStatus.PENDING);
+        transactionEventLogger.statusChanged(current, TransactionStatus.PENDING);
+        return new PostTransactionEvent(current, event.operationType());
+    }
+
+    /**
+     * 记账并将存储中的交易从PENDING改为COMPLETED，记账失败时改为FAILED并归还累计额度
+     *
+     * 只对存储中的当前交易做状态变更，不保存提交时的交易对象，提交后修改的备注不会被覆盖；
+     * 状态更新与 updateTransaction 的备注更新在存储层对同一交易互斥
+     * @return 更新后的交易；存储中的交易已不是PENDING时返回null
+     */
+    private Transaction postTransaction(Transaction transaction) {
+        boolean posted = false;
+        try {
+            accountService.postTransaction(transaction);
+            posted = true;
+            Optional<Transaction> completed = transactionDao.updateStatus(
+                transaction.getId(), TransactionStatus.PENDING, TransactionStatus.COMPLETED);
+            if (completed.isEmpty()) {
+                log.error("交易已不是待处理状态，冲正已记账的交易 - 交易ID: {}", transaction.getId());
+                reversePosting(transaction);
+                return null;
+            }
+            return completed.get();
+        } catch (Exception e) {
+            log.error("银行核心系统处理失败 - 交易ID: {}, 错误: {}", transaction.getId(), e.getMessage());
+            if (posted) {
+                reversePosting(transaction);
+            }
+            Optional<Transaction> failed = transactionDao.updateStatus(
+                transaction.getId(), TransactionStatus.PENDING, TransactionStatus.FAILED);
+            if (failed.isPresent() && cumulativeLimitTracker != null) {
+                cumulativeLimitTracker.releaseFailed(failed.get());
+            }
+            return failed.orElse(null);
+        }
+    }
+
+    /**
+     * 冲正已记账但未能保存为COMPLETED的交易；冲正失败时记录错误，需要人工对账
+     */
+    private void reversePosting(Transaction transaction) {
+        try {
+            accountService.reverseTransactions(List.of(transaction));
+        } catch (Exception e) {
+            log.error("交易冲正失败，需要人工对账 - 交易ID: {}, 错误: {}", transaction.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 审计日志：确保所有交易操作的完整审计追踪
+     */
+    private void recordAuditLogs(List<PostTransactionEvent> events) {
+        if (log.isTraceEnabled()) {
+            for (PostTransactionEvent event : events) {
+                log.trace("记录审计日志 - 交易ID: {}, 操作: {}, 状态: {}",
+                    event.transaction().getId(), event.operationType(), event.transaction().getStatus());
+            }
+        }
+        log.debug("审计日志批量记录完成 - 条数: {}", events.size());
+        // 示例：messageProducer.sendBatch("audit.log.queue", buildAuditMessages(events));
+    }
+
+    /**
+     * 风控检查：反洗钱、异常交易检测等
+     */
+    private void triggerRiskControl(List<PostTransactionEvent> events) {
+        for (PostTransactionEvent event : events) {
+            log.trace("风控检查 - 交易ID: {}, 操作: {}", event.transaction().getId(), event.operationType());
+        }
+        log.debug("风控检查批量提交完成 - 条数: {}", events.size());
+        // 示例：messageProducer.sendBatch("risk.control.queue", buildRiskMessages(events));
+    }
+
+    /**
+     * 通知服务：微信、短信、邮件等多渠道通知，仅CREATE/UPDATE操作发送
+     */
+    private void sendNotifications(List<PostTransactionEvent> events) {
+        for (PostTransactionEvent event : events) {
+            if (log.isTraceEnabled() && ("CREATE".equals(event.operationType()) || "UPDATE".equals(event.operationType()))) {
+                Transaction transaction = event.transaction();
+                log.trace("发送交易通知 - 交易ID: {}, 类型: {}, 金额: {}",
+                    transaction.getId(), transaction.getType(), transaction.getAmount());
+            }
+        }
+        log.debug("交易通知批量发送完成 - 条数: {}", events.size());
+        // 示例：messageProducer.sendBatch("notification.queue", buildNotificationMessages(events));
+    }
+}
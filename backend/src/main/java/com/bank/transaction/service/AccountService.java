@@ -37,4 +37,44 @@ public interface AccountService {
      * @return 更新后的账户信息
      */
     Optional<Account> updateBalance(String accountId, java.math.BigDecimal amount);
+    
+    /**
+     * 账户间转账，转出扣款和转入入账原子完成
+     * @param fromAccountId 转出账户ID
+     * @param toAccountId 转入账户ID
+     * @param amount 转账金额（正数）
+     * @return 两个账户都存在并完成转账时返回true，任一账户不存在时返回false且余额不变
+     */
+    boolean transfer(String fromAccountId, String toAccountId, java.math.BigDecimal amount);
+    
+    /**
+     * 批量变更账户余额，全部账户一起生效或全部不生效
+     * @param changes 账户ID → 变更金额（正数为增加，负数为减少），同一账户的多笔变更应预先合并
+     * @throws com.bank.transaction.exception.business.BusinessException 账户不存在（INVALID_ACCOUNT）
+     *         或任一账户余额不足（INSUFFICIENT_BALANCE），此时所有账户余额不变
+     */
+    void applyBalanceChanges(java.util.Map<String, java.math.BigDecimal> changes);
+    
+    /**
+     * 交易记账：按交易类型生成借贷分录，变更账户余额并追加到分录日志，两者在余额锁内一起完成
+     * 存款、取款、转账变更余额，其他交易类型不记账
+     * @param transaction 交易，每笔交易只能记账一次
+     * @throws com.bank.transaction.exception.business.BusinessException 账户不存在（INVALID_ACCOUNT）、
+     *         余额不足（INSUFFICIENT_BALANCE）或交易已记账（DUPLICATE_TRANSACTION），此时余额和分录日志不变
+     */
+    void postTransaction(com.bank.transaction.model.Transaction transaction);
+    
+    /**
+     * 批量交易记账：涉及的账户一起加锁一次生效，每笔交易追加一条分录，全部生效或全部不生效
+     * @param transactions 交易，每笔交易只能记账一次
+     * @throws com.bank.transaction.exception.business.BusinessException 同 {@link #postTransaction}
+     */
+    void postTransactions(List<com.bank.transaction.model.Transaction> transactions);
+    
+    /**
+     * 冲正已记账的交易：追加方向相反的分录并撤销余额变更，全部生效或全部不生效
+     * @param transactions 已记账的交易
+     * @throws com.bank.transaction.exception.business.BusinessException 余额不足（INSUFFICIENT_BALANCE），此时余额和分录日志不变
+     */
+    void reverseTransactions(List<com.bank.transaction.model.Transaction> transactions);
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.bank.transaction.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+import com.bank.transaction.util.Constants.ExportFormat;
+import com.bank.transaction.util.Constants.TransactionStatus;
+
+/**
+ * 交易导出服务接口
+ * 按时间升序流式导出交易流水，供对账等批处理任务使用
+ */
+public interface TransactionExportService {
+
+    /**
+     * 按条件导出交易，逐批读取并写出，内存占用与导出总量无关
+     * @param filter 导出条件
+     * @param format 导出格式
+     * @param out 输出流，导出完成后不关闭
+     * @return 导出的交易条数
+     */
+    long export(Filter filter, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * 导出条件，各条件为空时不限制
+     * @param accountId 账户ID（转出或转入）
+     * @param from 开始时间（含）
+     * @param to 结束时间（不含），为空时导出到开始导出的时刻，导出期间新增的交易不导出
+     * @param status 交易状态
+     */
+    record Filter(String accountId, LocalDateTime from, LocalDateTime to, TransactionStatus status) {}
+}
@@ -1,9 +1,14 @@
 package com.bank.transaction.service;
 
+import java.util.List;
 import java.util.Optional;
 
+import com.bank.transaction.index.TransactionQuery;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.BatchResult;
 import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.Constants.BatchMode;
 import com.bank.transaction.exception.business.BusinessException;
 
 public interface TransactionService {
@@ -13,6 +18,14 @@ public interface TransactionService {
      */
     Transaction createTransaction(Transaction transaction) throws BusinessException;
     
+    /**
+     * 批量创建交易 - 逐笔校验，按账户合并余额变更后一次生效，一次批量保存
+     * @param transactions 交易列表
+     * @param mode 部分失败处理方式，为空时使用配置的默认方式
+     * @return 每笔交易的处理结果，顺序同请求
+     */
+    BatchResult createTransactions(List<Transaction> transactions, BatchMode mode) throws BusinessException;
+    
     /**
      * 修改交易 - 根据ID修改指定交易内容
      */
@@ -32,4 +45,25 @@ public interface TransactionService {
      * 列出所有交易 - 分页展示所有交易记录
      */
     PageInfo<Transaction> getAllTransactions(int page, int size) throws BusinessException;
-} 
\ No newline at end of file
+    
+    /**
+     * 列出所有交易 - 游标分页，从上一页返回的 nextCursor 继续向更早的交易翻页
+     * 游标为空时返回最新一页
+     */
+    PageInfo<Transaction> getTransactionsByCursor(String cursor, int size) throws BusinessException;
+    
+    /**
+     * 组合查询交易 - 按状态、类型、币种、渠道、金额范围和时间范围筛选，按时间倒序分页
+     */
+    PageInfo<Transaction> searchTransactions(TransactionQuery query, int page, int size) throws BusinessException;
+    
+    /**
+     * 实时统计 - 按类型/状态/币种/渠道的笔数和金额、最近一分钟TPS，O(1) 返回，不汇总历史交易
+     */
+    TransactionStatistics.Snapshot getStatistics();
+    
+    /**
+     * 账户流入流出统计 - 账户已完成交易的流入和流出笔数、金额
+     */
+    TransactionStatistics.AccountFlow getAccountFlow(String accountId);
+}
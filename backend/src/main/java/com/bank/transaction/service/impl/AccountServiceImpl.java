@@ -1,13 +1,34 @@
 package com.bank.transaction.service.impl;
 
+import com.bank.transaction.config.ExecutionConfig;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.ledger.BalanceEngine;
+import com.bank.transaction.ledger.BalanceExecutor;
+import com.bank.transaction.ledger.JournalEntry;
+import com.bank.transaction.ledger.Posting;
+import com.bank.transaction.ledger.PostingJournal;
+import com.bank.transaction.ledger.ShardedBalanceEngine;
 import com.bank.transaction.service.AccountService;
 import com.bank.transaction.model.Account;
 import com.bank.transaction.model.Bank;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.storage.ChangeJournal;
 import com.bank.transaction.util.Constants.AccountStatus;
 import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.ExecutionMode;
+import com.bank.transaction.util.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,19 +36,50 @@ import java.util.Map;
 
 /**
  * 账户服务实现类
- * 使用内存缓存模拟账户数据存储
+ * 使用内存缓存模拟账户数据存储，余额变更默认由 BalanceEngine 按账户分段加锁原子执行，
+ * bank.execution.mode=SHARDED 时由 ShardedBalanceEngine 按账户分片单线程执行
+ * 每次余额变更在余额锁内追加一条复式记账分录（见 {@link PostingJournal}）：交易记账和冲正按交易记录，
+ * 开户余额和直接变更余额记为调整分录，账本余额可以随时从分录日志重建（见 {@link com.bank.transaction.ledger.LedgerApplier}）
+ * 启用持久化时余额由快照和变更日志恢复，分录日志由变更日志中的记账和冲正分录恢复（见 {@link com.bank.transaction.storage.DurableStore}）
  */
 @Service
-public class AccountServiceImpl implements AccountService {
+public class AccountServiceImpl implements AccountService, MeterBinder {
     
     // 模拟账户缓存数据
     private final Map<String, Account> accountCache = new ConcurrentHashMap<>();
     
+    // 余额引擎：同一账户的余额变更串行，不同账户并行
+    private final BalanceExecutor balanceEngine;
+    
+    // 复式记账分录日志：与余额变更在同一个锁内追加
+    private final PostingJournal postingJournal = new PostingJournal();
+    
+    // 变更日志（持久化）：交易分录在余额锁内记录，恢复时据此重建分录日志、判断交易是否已记账
+    private volatile ChangeJournal journal = ChangeJournal.NONE;
+    
     public AccountServiceImpl() {
+        this(new BalanceEngine());
+    }
+    
+    @Autowired
+    public AccountServiceImpl(ExecutionConfig executionConfig) {
+        this(executionConfig.getMode() == ExecutionMode.SHARDED ? new ShardedBalanceEngine(executionConfig) : new BalanceEngine());
+    }
+    
+    public AccountServiceImpl(BalanceExecutor balanceEngine) {
+        this.balanceEngine = balanceEngine;
         // 初始化一些测试账户数据
         initializeTestAccounts();
     }
     
+    /**
+     * 停止余额引擎的执行线程（分片执行时）
+     */
+    @PreDestroy
+    public void shutdown() {
+        balanceEngine.shutdown();
+    }
+    
     @Override
     public Optional<Account> getAccountById(String accountId) {
         return Optional.ofNullable(accountCache.get(accountId));
@@ -50,19 +102,162 @@ public class AccountServiceImpl implements AccountService {
             return Optional.empty();
         }
         
-        // 计算新余额
-        BigDecimal newBalance = account.getBalance().add(amount);
+        // 原子地计算新余额、检查不能为负数并更新，同时记录调整分录
+        int scale = account.getBalanceScale();
+        long amountMinor = Money.toMinor(amount, scale);
+        long timestamp = System.currentTimeMillis();
+        balanceEngine.applyMinor(account, amountMinor, () -> postingJournal.appendAdjustment(timestamp, accountId, amountMinor, scale));
         
-        // 检查余额不能为负数
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new RuntimeException("账户余额不足，无法完成交易");
+        return Optional.of(account);
+    }
+    
+    @Override
+    public boolean transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        Account fromAccount = accountCache.get(fromAccountId);
+        Account toAccount = accountCache.get(toAccountId);
+        if (fromAccount == null || toAccount == null) {
+            return false;
         }
         
-        // 更新余额
-        account.setBalance(newBalance);
-        accountCache.put(accountId, account);
+        long debitMinor = Money.toMinor(amount, fromAccount.getBalanceScale());
+        long creditMinor = Money.toMinor(amount, toAccount.getBalanceScale());
+        JournalEntry adjustment = adjustment(List.of(
+            new Posting(fromAccountId, Math.negateExact(debitMinor), fromAccount.getBalanceScale()),
+            new Posting(toAccountId, creditMinor, toAccount.getBalanceScale())));
+        balanceEngine.transferMinor(fromAccount, toAccount, debitMinor, creditMinor, () -> postingJournal.appendAll(List.of(adjustment)));
+        return true;
+    }
+    
+    @Override
+    public void applyBalanceChanges(Map<String, BigDecimal> changes) {
+        List<Account> accounts = new ArrayList<>(changes.size());
+        long[] amountsMinor = new long[changes.size()];
+        List<Posting> postings = new ArrayList<>(changes.size());
+        for (Map.Entry<String, BigDecimal> change : changes.entrySet()) {
+            Account account = requireAccount(change.getKey());
+            amountsMinor[accounts.size()] = Money.toMinor(change.getValue(), account.getBalanceScale());
+            postings.add(new Posting(account.getAccountId(), amountsMinor[accounts.size()], account.getBalanceScale()));
+            accounts.add(account);
+        }
+        if (accounts.isEmpty()) {
+            return;
+        }
         
-        return Optional.of(account);
+        // 涉及的账户一起加锁，全部校验通过后一起更新，同时记录调整分录
+        JournalEntry adjustment = adjustment(postings);
+        balanceEngine.applyAll(accounts, amountsMinor, () -> postingJournal.appendAll(List.of(adjustment)));
+    }
+    
+    @Override
+    public void postTransaction(Transaction transaction) {
+        postTransactions(List.of(transaction));
+    }
+    
+    @Override
+    public void postTransactions(List<Transaction> transactions) {
+        List<JournalEntry> entries = new ArrayList<>(transactions.size());
+        List<String> transactionIds = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            List<Posting> postings = postingsOf(transaction);
+            if (!postings.isEmpty()) {
+                entries.add(JournalEntry.draft(JournalEntry.Type.POSTING, transaction.getId(), withClearing(postings)));
+                transactionIds.add(transaction.getId());
+            }
+        }
+        
+        // 先占用交易ID防止重复记账，余额变更失败时释放
+        postingJournal.reserve(transactionIds);
+        try {
+            applyEntries(entries);
+        } catch (RuntimeException e) {
+            postingJournal.release(transactionIds);
+            throw e;
+        }
+    }
+    
+    @Override
+    public void reverseTransactions(List<Transaction> transactions) {
+        List<JournalEntry> entries = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            List<Posting> postings = postingsOf(transaction);
+            if (!postings.isEmpty()) {
+                List<Posting> reversed = new ArrayList<>(postings.size());
+                for (Posting posting : postings) {
+                    reversed.add(posting.negate());
+                }
+                entries.add(JournalEntry.draft(JournalEntry.Type.REVERSAL, transaction.getId(), withClearing(reversed)));
+            }
+        }
+        applyEntries(entries);
+    }
+    
+    /**
+     * 复式记账分录日志
+     */
+    public PostingJournal getPostingJournal() {
+        return postingJournal;
+    }
+    
+    /**
+     * 设置余额变更日志（持久化），余额变更和交易分录在余额引擎的锁内记录
+     */
+    public void setJournal(ChangeJournal journal) {
+        this.journal = journal;
+        balanceEngine.setJournal(journal);
+    }
+    
+    /**
+     * 全部账户，用于写快照
+     */
+    public Collection<Account> getAccounts() {
+        return accountCache.values();
+    }
+    
+    /**
+     * 从快照/日志恢复账户余额，不记录变更日志和分录；账户不存在时忽略
+     * 恢复完成后由 {@link #reconcilePostingJournal()} 使账本余额与恢复后的余额一致
+     * @return 账户存在并已恢复时返回true
+     */
+    public boolean restoreBalance(String accountId, long balanceMinor, int balanceScale) {
+        Account account = accountCache.get(accountId);
+        if (account == null) {
+            return false;
+        }
+        account.setBalance(Money.toBigDecimal(balanceMinor, balanceScale));
+        return true;
+    }
+    
+    /**
+     * 从日志恢复记账和冲正分录，不变更余额、不记录变更日志；记账分录的交易登记为已记账
+     */
+    public void restoreEntries(List<JournalEntry> entries) {
+        postingJournal.appendAll(entries);
+    }
+    
+    /**
+     * 恢复完成后，把账户余额与账本余额的差额记为调整分录：
+     * 快照中的余额（快照之前分录的合计）以及没有写入日志的余额调整在这里补记
+     * @return 补记调整分录的账户数
+     */
+    public int reconcilePostingJournal() {
+        Map<String, Long> ledgerBalances = new HashMap<>();
+        postingJournal.forEachBalance((accountIndex, amountMinor, scale) ->
+            ledgerBalances.put(postingJournal.accountIdOf(accountIndex), amountMinor));
+        int adjusted = 0;
+        long timestamp = System.currentTimeMillis();
+        for (Account account : accountCache.values()) {
+            long difference = Math.subtractExact(account.getBalanceMinor(), ledgerBalances.getOrDefault(account.getAccountId(), 0L));
+            if (difference != 0) {
+                postingJournal.appendAdjustment(timestamp, account.getAccountId(), difference, account.getBalanceScale());
+                adjusted++;
+            }
+        }
+        return adjusted;
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        balanceEngine.bindTo(registry);
     }
     
     /**
@@ -89,5 +284,127 @@ public class AccountServiceImpl implements AccountService {
                                  Bank bank, BigDecimal balance, Currency currency, AccountStatus status) {
         Account account = new Account(accountId, accountNumber, accountName, bank, balance, currency, status);
         accountCache.put(accountId, account);
+        // 开户余额
+        postingJournal.appendAdjustment(System.currentTimeMillis(), accountId, account.getBalanceMinor(), account.getBalanceScale());
+    }
+    
+    /**
+     * 按交易类型生成客户账户的分录行（未配平），规则同余额校验：存款入账、取款扣款、转账两个账户；其他类型不记账
+     */
+    private List<Posting> postingsOf(Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        String fromAccountId = transaction.getFromAccountId();
+        String toAccountId = transaction.getToAccountId();
+        List<Posting> postings = new ArrayList<>(2);
+        switch (transaction.getType()) {
+            case DEPOSIT -> {
+                if (toAccountId != null) {
+                    postings.add(posting(toAccountId, amount));
+                }
+            }
+            case WITHDRAWAL -> {
+                if (fromAccountId != null) {
+                    postings.add(posting(fromAccountId, amount.negate()));
+                }
+            }
+            case TRANSFER -> {
+                if (fromAccountId != null) {
+                    postings.add(posting(fromAccountId, amount.negate()));
+                }
+                if (toAccountId != null) {
+                    postings.add(posting(toAccountId, amount));
+                }
+            }
+            default -> {
+                // 其他类型不变更余额
+            }
+        }
+        return postings;
+    }
+    
+    private Posting posting(String accountId, BigDecimal amount) {
+        Account account = requireAccount(accountId);
+        return new Posting(accountId, Money.toMinor(amount, account.getBalanceScale()), account.getBalanceScale());
+    }
+    
+    /**
+     * 调整分录：对方为清算账户
+     */
+    private JournalEntry adjustment(List<Posting> postings) {
+        return JournalEntry.draft(JournalEntry.Type.ADJUSTMENT, null, withClearing(postings));
+    }
+    
+    /**
+     * 按小数位数补清算账户分录行，使分录借贷平衡
+     */
+    private static List<Posting> withClearing(List<Posting> postings) {
+        int scale = postings.get(0).scale();
+        long sameScaleTotal = 0;
+        for (Posting posting : postings) {
+            if (posting.scale() != scale) {
+                return withClearingByScale(postings);
+            }
+            sameScaleTotal = Math.addExact(sameScaleTotal, posting.amountMinor());
+        }
+        if (sameScaleTotal == 0) {
+            return postings;
+        }
+        List<Posting> balanced = new ArrayList<>(postings.size() + 1);
+        balanced.addAll(postings);
+        balanced.add(new Posting(PostingJournal.CLEARING_ACCOUNT, Math.negateExact(sameScaleTotal), scale));
+        return balanced;
+    }
+    
+    private static List<Posting> withClearingByScale(List<Posting> postings) {
+        Map<Integer, Long> totals = new LinkedHashMap<>();
+        for (Posting posting : postings) {
+            totals.merge(posting.scale(), posting.amountMinor(), Math::addExact);
+        }
+        List<Posting> balanced = new ArrayList<>(postings.size() + totals.size());
+        balanced.addAll(postings);
+        totals.forEach((scale, total) -> {
+            if (total != 0) {
+                balanced.add(new Posting(PostingJournal.CLEARING_ACCOUNT, Math.negateExact(total), scale));
+            }
+        });
+        return balanced;
+    }
+    
+    /**
+     * 合并各分录对客户账户余额的变更，涉及的账户一起加锁一次生效，并在锁内按顺序追加全部分录
+     */
+    private void applyEntries(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, Long> changes = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            for (Posting posting : entry.postings()) {
+                if (!PostingJournal.CLEARING_ACCOUNT.equals(posting.accountId())) {
+                    changes.merge(posting.accountId(), posting.amountMinor(), Math::addExact);
+                }
+            }
+        }
+        List<Account> accounts = new ArrayList<>(changes.size());
+        long[] amountsMinor = new long[changes.size()];
+        for (Map.Entry<String, Long> change : changes.entrySet()) {
+            amountsMinor[accounts.size()] = change.getValue();
+            accounts.add(requireAccount(change.getKey()));
+        }
+        ChangeJournal journal = this.journal;
+        long[] ticket = new long[1];
+        balanceEngine.applyAll(accounts, amountsMinor, () -> {
+            postingJournal.appendAll(entries);
+            ticket[0] = journal.entriesApplied(entries);
+        });
+        journal.awaitDurable(ticket[0]);
+    }
+    
+    private Account requireAccount(String accountId) {
+        Account account = accountCache.get(accountId);
+        if (account == null) {
+            throw new BusinessException(ErrorCode.INVALID_ACCOUNT, "账户不存在: " + accountId);
+        }
+        return account;
     }
 } 
\ No newline at end of file
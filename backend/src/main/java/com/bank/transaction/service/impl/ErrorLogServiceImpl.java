@@ -5,13 +5,15 @@ import com.bank.transaction.exception.BaseException;
 import com.bank.transaction.util.Constants.ErrorLevel;
 import org.springframework.stereotype.Service;
 import jakarta.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.bank.transaction.errorlog.ErrorEvent;
+import com.bank.transaction.errorlog.ErrorEventSink;
 
 @Service
 public class ErrorLogServiceImpl implements ErrorLogService {
-    private static final Logger log = LoggerFactory.getLogger(ErrorLogServiceImpl.class);
+    
+    @Autowired
+    private ErrorEventSink errorEventSink;
 
     @Override
     public void saveError(Exception exception, HttpServletRequest request) {
@@ -33,24 +35,11 @@ public class ErrorLogServiceImpl implements ErrorLogService {
 
     @Override
     public void saveError(String errorCode, String errorMessage, String detail, ErrorLevel level, HttpServletRequest request) {
-        // 实际项目中这里会插入数据库
-        // 目前使用日志记录模拟
+        // 请求线程只按错误码计数，汇总日志、致命异常告警和文件写入由 ErrorEventSink 处理
         String uri = request != null ? request.getRequestURI() : "unknown";
         String method = request != null ? request.getMethod() : "unknown";
         String clientIp = getClientIp(request);
-        
-        log.info("错误日志记录 - 时间: {}, 错误级别: {}, 错误码: {}, 错误信息: {}, 详细描述: {}, 请求URI: {}, 请求方法: {}, 客户端IP: {}", 
-                LocalDateTime.now(), level, errorCode, errorMessage, detail, uri, method, clientIp);
-        
-        // 根据异常级别进行不同处理
-        if (level == ErrorLevel.FATAL) {
-            log.error("*** 致命异常告警 *** - 需要立即通知运维团队");
-        } else if (level == ErrorLevel.ERROR) {
-            log.warn("*** 重要异常告警 *** - 需要关注处理");
-        }
-        
-        // TODO: 实际项目中替换为数据库插入
-        // errorLogRepository.save(new ErrorLog(errorCode, errorMessage, detail, level, request...));
+        errorEventSink.record(new ErrorEvent(errorCode, errorMessage, detail, level, uri, method, clientIp));
     }
 
     private String getClientIp(HttpServletRequest request) {
@@ -0,0 +1,177 @@
+package com.bank.transaction.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionExportService;
+import com.bank.transaction.util.Constants.ExportFormat;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * 交易导出服务实现类
+ *
+ * 实现说明：
+ * - 按 (时间键, 交易ID) 键集分批遍历：未指定账户时遍历全部交易（见 TransactionDao#findAfter），指定账户时遍历该账户的交易（见 TransactionDao#findByAccountIdAfter）
+ * - 每批 CHUNK_SIZE 笔，批量读取后逐行写出并刷新输出流，客户端边下载边接收，服务端只保留当前一批
+ * - 状态条件在读取后过滤
+ * - NDJSON 使用应用的 ObjectMapper 序列化，字段与查询接口一致；CSV 不包含参考号、幂等性键等敏感字段
+ */
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService {
+
+    /**
+     * 每批读取的交易数
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "id,timestamp,type,status,amount,currency,channel,direction,"
+            + "fromAccountId,toAccountId,remark,initiatedBy,approvedBy";
+
+    @Autowired
+    private TransactionDao transactionDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public long export(Filter filter, ExportFormat format, OutputStream out) throws IOException {
+        long endTimeKey = TransactionTimeIndex.toTimeKey(filter.to() != null ? filter.to() : LocalDateTime.now());
+        TimeCursor position = new TimeCursor(
+                filter.from() != null ? TransactionTimeIndex.toTimeKey(filter.from()) : Long.MIN_VALUE, "");
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+
+        long count = 0;
+        while (position != null) {
+            List<Transaction> chunk = filter.accountId() != null
+                    ? transactionDao.findByAccountIdAfter(filter.accountId(), position, endTimeKey, CHUNK_SIZE)
+                    : transactionDao.findAfter(position, endTimeKey, CHUNK_SIZE);
+            position = chunk.size() < CHUNK_SIZE ? null : positionOf(chunk.get(chunk.size() - 1));
+            for (Transaction transaction : chunk) {
+                if (filter.status() == null || filter.status() == transaction.getStatus()) {
+                    writer.write(transaction);
+                    count++;
+                }
+            }
+            writer.flush();
+        }
+        return count;
+    }
+
+    private static TimeCursor positionOf(Transaction transaction) {
+        return new TimeCursor(TransactionTimeIndex.toTimeKey(transaction.getTimestamp()), transaction.getId());
+    }
+
+    /**
+     * 按行写出交易
+     */
+    private interface RowWriter {
+        void write(Transaction transaction) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    /**
+     * NDJSON：每笔交易一行 JSON，共用一个 JsonGenerator，写入后不逐条刷新
+     */
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter transactionWriter;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            this.transactionWriter = objectMapper.writerFor(Transaction.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            transactionWriter.writeValue(generator, transaction);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * CSV：首行为表头，含逗号、引号或换行的字段加引号
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            field(transaction.getId());
+            field(transaction.getTimestamp());
+            field(transaction.getType());
+            field(transaction.getStatus());
+            field(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null);
+            field(transaction.getCurrency());
+            field(transaction.getChannel());
+            field(transaction.getDirection());
+            field(transaction.getFromAccountId());
+            field(transaction.getToAccountId());
+            field(transaction.getRemark());
+            field(transaction.getInitiatedBy());
+            lastField(transaction.getApprovedBy());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void field(Object value) throws IOException {
+            value(value);
+            writer.write(',');
+        }
+
+        private void lastField(Object value) throws IOException {
+            value(value);
+            writer.write('\n');
+        }
+
+        private void value(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
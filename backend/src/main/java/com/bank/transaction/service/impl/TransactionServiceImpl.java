@@ -1,31 +1,54 @@
 package com.bank.transaction.service.impl;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
-import com.bank.transaction.util.VirtualThreadExecutor;
 import com.bank.transaction.service.TransactionService;
 import com.bank.transaction.service.TransactionToolService;
+import com.bank.transaction.config.BatchConfig;
 import com.bank.transaction.config.TransactionLimitConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.BeanUtils;
+import com.bank.transaction.exception.BaseException;
 import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.exception.business.ValidationException;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.model.Account;
 import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.eventlog.TransactionEventLogger;
+import com.bank.transaction.idempotency.IdempotencyStore;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.limit.CumulativeLimitTracker;
 import com.bank.transaction.service.AccountService;
+import com.bank.transaction.statistics.TransactionMetrics;
+import com.bank.transaction.statistics.TransactionMetrics.Stage;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.BatchResult;
+import com.bank.transaction.util.Constants.BatchMode;
 import com.bank.transaction.util.Constants.ErrorCode;
 import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
 import com.bank.transaction.util.Constants.AccountStatus;
+import com.bank.transaction.util.Money;
 import com.bank.transaction.util.PageInfo;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
@@ -42,18 +65,48 @@ public class TransactionServiceImpl implements TransactionService {
     @Autowired
     private AccountService accountService;
     
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    @Autowired
+    private CumulativeLimitTracker cumulativeLimitTracker;
+    
+    @Autowired
+    private BatchConfig batchConfig;
+    
+    @Autowired
+    private TransactionStatistics transactionStatistics;
+    
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+    
+    @Autowired
+    private TransactionEventLogger transactionEventLogger;
+    
+    // 不缓存返回的PENDING交易：流水线可能在返回前已完成记账并缓存了变更状态后的交易，缓存返回值会覆盖为过期状态
     @Override
-    @CachePut(value = "transactions", key = "#result.id", condition = "#result != null")
+    @CacheEvict(value = "transactions", key = "#result.id", condition = "#result != null")
     public Transaction createTransaction(Transaction transaction) {
+        IdempotencyStore.Claim claim = null;
+        CumulativeLimitTracker.Reservation limitReservation = null;
+        long start = System.nanoTime();
+        long stageStart = start;
+        boolean success = false;
         try {
-            // 1. 银行业务校验 - 幂等性检查
-            if (transaction.getIdempotencyKey() != null 
-                && existsByIdempotencyKey(transaction.getIdempotencyKey())) {
-                throw new BusinessException(ErrorCode.TRANSACTION_CONFLICT, "重复的交易请求，幂等性键已存在");
+            // 1. 银行业务校验 - 幂等性检查：重复请求直接返回首次请求创建的交易，处理中的重复请求等待其完成
+            if (transaction.getIdempotencyKey() != null && !transaction.getIdempotencyKey().trim().isEmpty()) {
+                claim = idempotencyStore.claim(transaction.getIdempotencyKey());
+                if (claim.isReplay()) {
+                    Transaction replayed = findReplayedTransaction(claim);
+                    success = true;
+                    return replayed;
+                }
             }
+            stageStart = transactionMetrics.recordStage(Stage.IDEMPOTENCY, stageStart);
             
             // 2. 根据账户ID获取完整账户信息
             populateAccountsFromIds(transaction);
+            stageStart = transactionMetrics.recordStage(Stage.ACCOUNT_LOOKUP, stageStart);
             
             // 3. 银行业务校验 - 账户状态检查
             validateAccountStatus(transaction);
@@ -63,27 +116,162 @@ public class TransactionServiceImpl implements TransactionService {
             
             // 4. 银行业务校验 - 交易限额检查
             validateTransactionLimits(transaction);
+            stageStart = transactionMetrics.recordStage(Stage.VALIDATION, stageStart);
+            
+            // 4. 银行业务校验 - 日/月累计限额检查，通过后占用转出账户的累计额度
+            limitReservation = reserveCumulativeLimits(transaction);
+            stageStart = transactionMetrics.recordStage(Stage.CUMULATIVE_LIMIT, stageStart);
             
             // 5. 生成银行标准交易数据
             prepareTransactionData(transaction);
+            stageStart = transactionMetrics.recordStage(Stage.ID_GENERATION, stageStart);
             
             // 6. 根据交易类型设置账户信息
             configureAccountsByTransactionType(transaction);
             
             // 7. 保存交易记录
             Transaction savedTransaction = transactionDao.save(transaction);
+            cumulativeLimitTracker.confirm(limitReservation);
+            if (claim != null) {
+                idempotencyStore.complete(claim, savedTransaction.getId());
+            }
+            stageStart = transactionMetrics.recordStage(Stage.SAVE, stageStart);
             
-            // 8. 维护时间索引
-            transactionToolService.maintainTimeIndex(savedTransaction);
+            // 8. 维护实时统计和交易事件日志（在交给后续处理之前计入，记账完成时再更新状态统计）
+            transactionStatistics.recordCreated(savedTransaction);
+            transactionEventLogger.created(savedTransaction);
+            stageStart = transactionMetrics.recordStage(Stage.INDEX, stageStart);
             
             // 9. 银行后续处理（实际银行系统中可能需要发送到清算系统、记录审计日志等）可交给消息，统一处理
             transactionToolService.performPostTransactionProcessing(savedTransaction, "CREATE");
+            transactionMetrics.recordStage(Stage.POST_PROCESSING, stageStart);
             
+            success = true;
             return savedTransaction;
         } catch (BusinessException e) {
+            transactionMetrics.recordError(e.getErrorCode());
             throw e;
         } catch (Exception e) {
+            transactionMetrics.recordError(ErrorCode.SYSTEM_ERROR);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建交易失败: " + e.getMessage());
+        } finally {
+            // 处理失败时归还累计额度、释放幂等性键，允许客户端重试
+            cumulativeLimitTracker.release(limitReservation);
+            if (claim != null) {
+                idempotencyStore.release(claim);
+            }
+            transactionMetrics.recordCreate(start, success);
+        }
+    }
+
+    /**
+     * 批量创建交易
+     * 
+     * 与逐笔调用 createTransaction 的区别：
+     * - 余额校验计入同一批次中排在前面的交易，转出账户不会因为整批合计超出余额而透支
+     * - 通过校验的交易一起记账：按账户合并余额变更，所有涉及账户一起加锁一次生效，每笔交易追加一条记账分录，交易直接保存为COMPLETED；
+     *   后续审计、风控、通知仍交给流水线，记账阶段不会重复变更余额
+     * - 全部交易一次批量保存（内存存储合并刷盘，JDBC 存储一个数据库事务）
+     * - ALL_OR_NOTHING：任一笔失败则整批不生效，返回全部失败原因；BEST_EFFORT：跳过失败的交易
+     * - 批量交易不支持幂等性键：带幂等性键的交易校验失败，其余交易自动生成
+     */
+    @Override
+    public BatchResult createTransactions(List<Transaction> transactions, BatchMode mode) {
+        BatchMode batchMode = mode != null ? mode : batchConfig.getDefaultMode();
+        if (transactions == null || transactions.isEmpty()) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "批量交易不能为空");
+        }
+        if (transactions.size() > batchConfig.getMaxSize()) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "单次批量交易不能超过" + batchConfig.getMaxSize() + "笔");
+        }
+        
+        BaseException[] errors = new BaseException[transactions.size()];
+        List<Transaction> accepted = new ArrayList<>(transactions.size());
+        List<CumulativeLimitTracker.Reservation> reservations = new ArrayList<>(transactions.size());
+        Map<String, BigDecimal> balanceChanges = new LinkedHashMap<>();
+        boolean completed = false;
+        try {
+            // 1. 逐笔校验：失败的交易记录原因，不影响其他交易的校验
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                CumulativeLimitTracker.Reservation limitReservation = null;
+                try {
+                    // 批量交易不登记幂等性键，带键的交易重试时会重复记账，直接拒绝
+                    if (transaction.getIdempotencyKey() != null && !transaction.getIdempotencyKey().trim().isEmpty()) {
+                        throw new BusinessException(ErrorCode.VALIDATION_ERROR, "批量交易不支持幂等性键，请逐笔提交带幂等性键的交易");
+                    }
+                    populateAccountsFromIds(transaction);
+                    validateAccountStatus(transaction);
+                    validateAccountBalance(transaction, balanceChanges);
+                    validateTransactionLimits(transaction);
+                    limitReservation = reserveCumulativeLimits(transaction);
+                    prepareTransactionData(transaction);
+                    configureAccountsByTransactionType(transaction);
+                    addBalanceChanges(transaction, balanceChanges);
+                    accepted.add(transaction);
+                    reservations.add(limitReservation);
+                } catch (BaseException e) {
+                    cumulativeLimitTracker.release(limitReservation);
+                    errors[i] = e;
+                } catch (Exception e) {
+                    cumulativeLimitTracker.release(limitReservation);
+                    errors[i] = new BusinessException(ErrorCode.SYSTEM_ERROR, "创建交易失败: " + e.getMessage());
+                }
+            }
+            if (batchMode == BatchMode.ALL_OR_NOTHING && accepted.size() < transactions.size()) {
+                return rejectedBatch(batchMode, errors);
+            }
+            
+            // 2. 整批记账一次生效；校验之后余额被并发交易改变时，整批失败或逐笔重试
+            try {
+                accountService.postTransactions(accepted);
+            } catch (RuntimeException e) {
+                if (batchMode == BatchMode.ALL_OR_NOTHING) {
+                    Arrays.fill(errors, postingError(e));
+                    return rejectedBatch(batchMode, errors);
+                }
+                postTransactionsOneByOne(transactions, accepted, reservations, errors);
+            }
+            
+            // 3. 批量保存，失败时冲正已记账的交易
+            for (Transaction transaction : accepted) {
+                transaction.setStatus(TransactionStatus.COMPLETED);
+            }
+            try {
+                transactionDao.saveAll(accepted);
+            } catch (Exception e) {
+                reverseTransactions(accepted);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "批量保存交易失败: " + e.getMessage());
+            }
+            for (CumulativeLimitTracker.Reservation reservation : reservations) {
+                cumulativeLimitTracker.confirm(reservation);
+            }
+            completed = true;
+            
+            // 4. 维护实时统计和交易事件日志，交给后续处理流水线
+            for (Transaction transaction : accepted) {
+                transactionStatistics.recordCreated(transaction);
+                transactionEventLogger.created(transaction);
+                transactionToolService.performPostTransactionProcessing(transaction, "CREATE");
+            }
+            
+            BatchResult result = new BatchResult(batchMode, transactions.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                if (errors[i] == null) {
+                    result.addSuccess(i, transactions.get(i));
+                } else {
+                    transactionMetrics.recordError(errors[i].getErrorCode());
+                    result.addFailure(i, errors[i].getErrorCode(), messageOf(errors[i]));
+                }
+            }
+            return result;
+        } finally {
+            // 整批未生效时归还全部累计额度
+            if (!completed) {
+                for (CumulativeLimitTracker.Reservation reservation : reservations) {
+                    cumulativeLimitTracker.release(reservation);
+                }
+            }
         }
     }
 
@@ -103,26 +291,59 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     public PageInfo<Transaction> getAllTransactions(int page, int size) {
         try {
-            // 1. 根据时间排序，获取到 page, size 的 transIds
-            List<String> transactionIds = transactionToolService.getTransactionIdsByTime(page, size);
+            // 按交易时间倒序分页由存储层的时间索引完成（内存索引 / 数据库交易时间索引）
+            List<Transaction> transactions = transactionDao.findNewestFirst(page, size);
+            return PageInfo.of(transactions, page, size, transactionDao.count());
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "查询交易列表失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public PageInfo<Transaction> searchTransactions(TransactionQuery query, int page, int size) {
+        if (query.minAmount() != null && query.maxAmount() != null && query.minAmount().compareTo(query.maxAmount()) > 0) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "最小金额不能大于最大金额");
+        }
+        if (query.from() != null && query.to() != null && !query.from().isBefore(query.to())) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "开始时间必须早于结束时间");
+        }
+        
+        // 组合查询由存储层的二级索引完成，不扫描全部交易
+        return transactionDao.findByQuery(query, page, size);
+    }
+
+    @Override
+    public TransactionStatistics.Snapshot getStatistics() {
+        return transactionStatistics.snapshot();
+    }
+
+    @Override
+    public TransactionStatistics.AccountFlow getAccountFlow(String accountId) {
+        return transactionStatistics.accountFlow(accountId);
+    }
+
+    @Override
+    public PageInfo<Transaction> getTransactionsByCursor(String cursor, int size) {
+        TimeCursor before;
+        try {
+            before = cursor == null || cursor.isBlank() ? null : TimeCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(ErrorCode.VALIDATION_ERROR, "无效的分页游标");
+        }
+        
+        try {
+            // 1. 查询早于游标的 size + 1 条交易，多取一条用于判断是否还有下一页
+            List<Transaction> transactions = transactionDao.findBefore(before, size + 1);
+            boolean hasMore = transactions.size() > size;
+            List<Transaction> pageItems = hasMore ? transactions.subList(0, size) : transactions;
             
-            if (transactionIds.isEmpty()) {
-                int totalCount = transactionToolService.getTotalTransactionCount();
-                return PageInfo.of(List.of(), page, size, totalCount);
+            // 2. 以本页最后一条交易生成下一页游标
+            String nextCursor = null;
+            if (hasMore) {
+                Transaction last = pageItems.get(pageItems.size() - 1);
+                nextCursor = new TimeCursor(TransactionTimeIndex.toTimeKey(last.getTimestamp()), last.getId()).encode();
             }
-            
-            // 2. 开虚拟线程并行查询 transactionDao.findById(transId)
-            List<Transaction> transactions = VirtualThreadExecutor.runWithVirtualThreadsLogic(
-                transactionIds,
-                transactionDao::findById
-            ).stream()
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .toList();
-            
-            // 3. 返回 PageInfo<Transaction>
-            int totalCount = transactionToolService.getTotalTransactionCount();
-            return PageInfo.of(transactions, page, size, totalCount);
+            return PageInfo.ofCursor(pageItems, cursor, nextCursor, size, transactionDao.count());
             
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "查询交易列表失败: " + e.getMessage());
@@ -130,11 +351,13 @@ public class TransactionServiceImpl implements TransactionService {
     }
     
     /**
-     * 检查幂等性键是否已存在（模拟实现）
+     * 查询重复请求对应的原交易
+     * 幂等性存储只保存键的指纹，比对原交易的幂等性键排除指纹冲突
      */
-    private boolean existsByIdempotencyKey(String idempotencyKey) {
-        // TODO: 实际实现应查询数据库
-        return false;
+    private Transaction findReplayedTransaction(IdempotencyStore.Claim claim) {
+        return transactionDao.findById(claim.getTransactionId())
+            .filter(existing -> claim.getKey().equals(existing.getIdempotencyKey()))
+            .orElseThrow(() -> new BusinessException(ErrorCode.TRANSACTION_CONFLICT, "重复的交易请求，幂等性键已存在"));
     }
     
     /**
@@ -183,18 +406,42 @@ public class TransactionServiceImpl implements TransactionService {
      * 银行业务校验 - 余额充足性检查
      */
     private void validateAccountBalance(Transaction transaction) {
+        validateAccountBalance(transaction, Collections.emptyMap());
+    }
+    
+    /**
+     * 银行业务校验 - 余额充足性检查，计入尚未生效的余额变更
+     * @param pendingChanges 账户ID → 同一批次中排在前面的交易对该账户余额的变更
+     */
+    private void validateAccountBalance(Transaction transaction, Map<String, BigDecimal> pendingChanges) {
         // 只对需要扣款的交易类型进行余额检查
         if (!isDebitTransaction(transaction.getType()) || transaction.getFromAccount() == null) {
             return;
         }
         
-        if (transaction.getFromAccount().getBalance().compareTo(transaction.getAmount()) <= 0) {
+        // 按账户余额小数位数比较最小货币单位，金额向上取整，不足一个最小单位的零头也视为需要扣款
+        Account fromAccount = transaction.getFromAccount();
+        BigDecimal pendingChange = pendingChanges.get(fromAccount.getAccountId());
+        if (fromAccount.getBalanceScale() < 0 || availableMinor(fromAccount, pendingChange) 
+                <= Money.toMinor(transaction.getAmount(), fromAccount.getBalanceScale(), RoundingMode.CEILING)) {
+            BigDecimal available = pendingChange == null || fromAccount.getBalance() == null 
+                ? fromAccount.getBalance() : fromAccount.getBalance().add(pendingChange);
             throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, 
-                "账户余额不足，当前余额: " + transaction.getFromAccount().getBalance() + 
+                "账户余额不足，当前余额: " + available + 
                 "，交易金额: " + transaction.getAmount());
         }
     }
     
+    /**
+     * 计入未生效变更后的可用余额（最小货币单位），变更金额向下取整
+     */
+    private long availableMinor(Account account, BigDecimal pendingChange) {
+        if (pendingChange == null) {
+            return account.getBalanceMinor();
+        }
+        return account.getBalanceMinor() + Money.toMinor(pendingChange, account.getBalanceScale(), RoundingMode.FLOOR);
+    }
+    
     /**
      * 银行业务校验 - 交易限额检查
      * 使用动态配置进行金额范围和限额校验
@@ -212,15 +459,42 @@ public class TransactionServiceImpl implements TransactionService {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, 
                 "单笔交易金额不能超过限额: " + limitConfig.getSingleTransactionLimit());
         }
-        
+
+        // 金额小数位数不能超出币种和涉及账户余额的最小货币单位，余额以最小货币单位记账
+        int scale = Money.scaleOf(transaction.getCurrency());
+        for (Account account : new Account[] {transaction.getFromAccount(), transaction.getToAccount()}) {
+            if (account != null && account.getBalanceScale() >= 0) {
+                scale = Math.min(scale, account.getBalanceScale());
+            }
+        }
+        if (transaction.getAmount().stripTrailingZeros().scale() > scale) {
+            throw new BusinessException(ErrorCode.VALIDATION_ERROR,
+                "交易金额小数位数不能超过" + scale + "位: " + transaction.getAmount());
+        }
+
         // 2. 大额交易预警
         if (limitConfig.getLargeAmountThreshold() != null 
             && transaction.getAmount().compareTo(limitConfig.getLargeAmountThreshold()) >= 0) {
-            // TODO: 记录大额交易日志，发送预警通知
-            System.out.println("大额交易预警: 交易金额 " + transaction.getAmount() + " 超过预警阈值 " + limitConfig.getLargeAmountThreshold());
+            transactionEventLogger.largeAmount(transaction, limitConfig.getLargeAmountThreshold());
         }
-        
-        // TODO: 日累计限额检查、月累计限额检查等高级业务规则
+    }
+    
+    /**
+     * 银行业务校验 - 累计限额检查
+     * 按转出账户的滚动窗口计数器校验日累计金额、日累计笔数和月累计金额，O(1)，不汇总历史交易
+     */
+    private CumulativeLimitTracker.Reservation reserveCumulativeLimits(Transaction transaction) {
+        if (!isDebitTransaction(transaction.getType())) {
+            return null;
+        }
+        String accountId = transaction.getFromAccountId();
+        if ((accountId == null || accountId.trim().isEmpty()) && transaction.getFromAccount() != null) {
+            accountId = transaction.getFromAccount().getAccountId();
+        }
+        if (accountId == null || accountId.trim().isEmpty()) {
+            return null;
+        }
+        return cumulativeLimitTracker.reserve(accountId, transaction.getAmount());
     }
     
     /**
@@ -287,13 +561,116 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
     
+    /**
+     * 累加交易对账户余额的变更（用于批量余额校验），规则同交易记账：存款入账、取款扣款、转账转出扣款转入入账，其他类型不变更余额
+     */
+    private void addBalanceChanges(Transaction transaction, Map<String, BigDecimal> balanceChanges) {
+        BigDecimal amount = transaction.getAmount();
+        String fromAccountId = transaction.getFromAccountId();
+        String toAccountId = transaction.getToAccountId();
+        switch (transaction.getType()) {
+            case DEPOSIT -> {
+                if (toAccountId != null) {
+                    balanceChanges.merge(toAccountId, amount, BigDecimal::add);
+                }
+            }
+            case WITHDRAWAL -> {
+                if (fromAccountId != null) {
+                    balanceChanges.merge(fromAccountId, amount.negate(), BigDecimal::add);
+                }
+            }
+            case TRANSFER -> {
+                if (fromAccountId != null) {
+                    balanceChanges.merge(fromAccountId, amount.negate(), BigDecimal::add);
+                }
+                if (toAccountId != null) {
+                    balanceChanges.merge(toAccountId, amount, BigDecimal::add);
+                }
+            }
+            default -> {
+                // 其他类型不变更余额
+            }
+        }
+    }
+    
+    /**
+     * 整批记账失败后逐笔记账，按原顺序生效（同一账户先存后取时顺序决定成败），
+     * 失败的交易从 accepted 中移除并归还累计额度
+     */
+    private void postTransactionsOneByOne(List<Transaction> transactions, List<Transaction> accepted,
+                                             List<CumulativeLimitTracker.Reservation> reservations, BaseException[] errors) {
+        Map<Transaction, Integer> indexes = new IdentityHashMap<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            indexes.put(transactions.get(i), i);
+        }
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Transaction transaction = accepted.get(i);
+            try {
+                accountService.postTransaction(transaction);
+            } catch (RuntimeException e) {
+                errors[indexes.get(transaction)] = postingError(e);
+                failed.add(i);
+            }
+        }
+        // 从后往前移除，前面的下标不受影响
+        for (int i = failed.size() - 1; i >= 0; i--) {
+            int index = failed.get(i);
+            cumulativeLimitTracker.release(reservations.remove(index));
+            accepted.remove(index);
+        }
+    }
+    
+    /**
+     * 记账异常转换为单笔交易的失败原因，非业务异常按系统错误处理
+     */
+    private BaseException postingError(RuntimeException e) {
+        if (e instanceof BaseException baseException) {
+            return baseException;
+        }
+        return new BusinessException(ErrorCode.SYSTEM_ERROR, "创建交易失败: " + e.getMessage());
+    }
+    
+    /**
+     * 冲正已记账的交易（保存失败时调用）；冲正失败时记录错误，需要人工对账
+     */
+    private void reverseTransactions(List<Transaction> transactions) {
+        try {
+            accountService.reverseTransactions(transactions);
+        } catch (Exception e) {
+            log.error("批量交易保存失败且冲正失败，需要人工对账 - 交易数: {}, 错误: {}", transactions.size(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 整批不生效的结果：失败的交易返回各自原因，其余交易返回被整批拒绝
+     */
+    private BatchResult rejectedBatch(BatchMode mode, BaseException[] errors) {
+        int firstFailure = 0;
+        while (errors[firstFailure] == null) {
+            firstFailure++;
+        }
+        BatchResult result = new BatchResult(mode, errors.length);
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                transactionMetrics.recordError(errors[i].getErrorCode());
+                result.addFailure(i, errors[i].getErrorCode(), messageOf(errors[i]));
+            } else {
+                result.addFailure(i, ErrorCode.BUSINESS_ERROR, "第" + (firstFailure + 1) + "笔交易失败，整批未执行");
+            }
+        }
+        return result;
+    }
+    
+    private static String messageOf(BaseException e) {
+        return e.getDetailMessage() != null ? e.getDetailMessage() : e.getErrorCode().getMessage();
+    }
+    
     /**
      * 判断是否为扣款类交易
      */
     private boolean isDebitTransaction(TransactionType type) {
-        return type == TransactionType.WITHDRAWAL || 
-               type == TransactionType.TRANSFER || 
-               type == TransactionType.PAYMENT;
+        return type != null && type.isDebit();
     }
     
 
@@ -312,11 +689,10 @@ public class TransactionServiceImpl implements TransactionService {
             // 2. 银行业务校验 - 交易状态检查（只允许PENDING或FAILED状态修改）
             validateTransactionStatusForUpdate(existingTransaction);
 
-            // 3. 更新remark字段
-            Transaction updatedTransaction = updateRemarkOnly(existingTransaction, transaction);
-
-            // 5. 保存更新
-            Transaction result = transactionDao.save(updatedTransaction);
+            // 3. 只更新remark字段：存储中的状态仍是校验时的状态才更新，不覆盖记账流水线并发写入的状态
+            String remark = transaction.getRemark() != null ? transaction.getRemark() : existingTransaction.getRemark();
+            Transaction result = transactionDao.updateRemark(id, existingTransaction.getStatus(), remark)
+                .orElseThrow(() -> new BusinessException(ErrorCode.TRANSACTION_CONFLICT, "交易状态已变更，请重新查询后再修改: " + id));
             
             // 6. 银行后续处理
             transactionToolService.performPostTransactionProcessing(result, "UPDATE");
@@ -341,21 +717,4 @@ public class TransactionServiceImpl implements TransactionService {
             throw new BusinessException(ErrorCode.VALIDATION_ERROR, "只有待处理或失败状态的交易可以修改备注");
         }
     }
-
-
-
-    /**
-     * 只更新remark字段
-     */
-    private Transaction updateRemarkOnly(Transaction existing, Transaction update) {
-        Transaction updatedTransaction = new Transaction();
-        BeanUtils.copyProperties(existing, updatedTransaction);
-        
-        // 只允许更新remark字段
-        if (update.getRemark() != null) {
-            updatedTransaction.setRemark(update.getRemark());
-        }
-        
-        return updatedTransaction;
-    }
 } 
\ No newline at end of file
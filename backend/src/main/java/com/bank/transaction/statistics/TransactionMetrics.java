@@ -0,0 +1,133 @@
+package com.bank.transaction.statistics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.util.Constants.ErrorCode;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * 创建交易的分阶段耗时和失败计数
+ *
+ * 指标（通过 /actuator/metrics 查看）：
+ * - bank.transactions.create.stage{stage}：各阶段耗时，发布百分位直方图和 p50/p95/p99
+ * - bank.transactions.create{outcome}：创建交易总耗时，outcome 为 success / failure
+ * - bank.transactions.errors{code}：按错误码统计的创建失败次数（批量创建按笔计）
+ *
+ * 计时器在构造时注册到内部的 CompositeMeterRegistry，绑定到应用的 MeterRegistry 之前记录开销可以忽略；
+ * 服务只需取一次 System.nanoTime() 作为各阶段的分界
+ */
+@Component
+public class TransactionMetrics implements MeterBinder {
+
+    /**
+     * 创建交易的阶段，与 TransactionServiceImpl.createTransaction 的步骤对应
+     */
+    public enum Stage {
+        IDEMPOTENCY("idempotency"),
+        ACCOUNT_LOOKUP("account-lookup"),
+        VALIDATION("validation"),
+        CUMULATIVE_LIMIT("cumulative-limit"),
+        ID_GENERATION("id-generation"),
+        SAVE("save"),
+        INDEX("index"),
+        POST_PROCESSING("post-processing");
+
+        private final String tag;
+        Stage(String tag) {this.tag = tag;}
+        public String getTag() {return tag;}
+    }
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final LongAdder[] errors = new LongAdder[ErrorCode.values().length];
+
+    public TransactionMetrics() {
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = timer("bank.transactions.create.stage", "创建交易各阶段耗时")
+                    .tag("stage", stage.getTag())
+                    .register(registry);
+        }
+        successTimer = timer("bank.transactions.create", "创建交易总耗时").tag("outcome", "success").register(registry);
+        failureTimer = timer("bank.transactions.create", "创建交易总耗时").tag("outcome", "failure").register(registry);
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * @param stage 阶段
+     * @param startNanos 阶段开始时的 System.nanoTime()
+     * @return 当前的 System.nanoTime()，即下一个阶段的开始时间
+     */
+    public long recordStage(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stageTimers[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * 记录创建交易的总耗时
+     * @param startNanos 开始时的 System.nanoTime()
+     * @param success 是否创建成功
+     */
+    public void recordCreate(long startNanos, boolean success) {
+        (success ? successTimer : failureTimer).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次创建失败
+     */
+    public void recordError(ErrorCode errorCode) {
+        errors[(errorCode != null ? errorCode : ErrorCode.SYSTEM_ERROR).ordinal()].increment();
+    }
+
+    /**
+     * 按错误码统计的失败次数
+     */
+    public long getErrorCount(ErrorCode errorCode) {
+        return errors[errorCode.ordinal()].sum();
+    }
+
+    /**
+     * 阶段计时器，用于查看记录次数和耗时
+     */
+    public Timer getStageTimer(Stage stage) {
+        return stageTimers[stage.ordinal()];
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        registry.add(meterRegistry);
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            if (errorCode == ErrorCode.SUCCESS) {
+                continue;
+            }
+            FunctionCounter.builder("bank.transactions.errors", errors[errorCode.ordinal()], LongAdder::sum)
+                    .tag("code", errorCode.name())
+                    .description("按错误码统计的创建交易失败次数").register(meterRegistry);
+        }
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+}
@@ -0,0 +1,263 @@
+package com.bank.transaction.statistics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.limit.RollingCounter;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Money;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 交易实时统计
+ *
+ * 统计口径（自应用启动起）：
+ * - 按类型、币种、渠道：创建的交易笔数和金额
+ * - 按状态：当前处于该状态的交易笔数和金额，状态变更时从原状态移到新状态
+ * - 按账户：已完成交易的流入（转入账户）和流出（转出账户）笔数和金额
+ * - TPS：最近60秒创建的交易笔数 / 60
+ *
+ * 特性：
+ * - 创建交易和记账完成时增量更新，每笔交易 O(1)，查询时不汇总历史交易
+ * - 笔数和金额（按 AMOUNT_SCALE 位小数转为 long）用 LongAdder 累加，并发更新分散到不同的槽位，不竞争同一个变量
+ * - 每秒笔数按线程分散到多个 {@link RollingCounter}，查询时合并
+ * - 各维度分别累加，并发更新期间读到的快照之间可能相差正在处理的几笔交易
+ * - 按类型的创建笔数和最近60秒TPS同时发布为 Micrometer 指标 bank.transactions.created{type}、bank.transactions.tps
+ */
+@Component
+public class TransactionStatistics implements MeterBinder {
+
+    /**
+     * 金额累加的小数位数，不小于所有币种的小数位数
+     */
+    static final int AMOUNT_SCALE = 4;
+
+    static final int TPS_WINDOW_SECONDS = 60;
+
+    private final LongSupplier clock;
+    private final LocalDateTime since;
+
+    private final LongAdder created = new LongAdder();
+    private final Accumulator[] byType = accumulators(TransactionType.values().length);
+    private final Accumulator[] byStatus = accumulators(TransactionStatus.values().length);
+    private final Accumulator[] byCurrency = accumulators(Currency.values().length);
+    private final Map<String, Accumulator> byChannel = new ConcurrentHashMap<>();
+    private final Map<String, AccountAccumulator> byAccount = new ConcurrentHashMap<>();
+    private final RollingCounter[] perSecond;
+
+    @Autowired
+    public TransactionStatistics() {
+        this(System::currentTimeMillis);
+    }
+
+    TransactionStatistics(LongSupplier clock) {
+        this.clock = clock;
+        this.since = LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault());
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.perSecond = new RollingCounter[stripes];
+        for (int i = 0; i < stripes; i++) {
+            // 多保留一个桶：当前这一秒还在累加，统计的是之前完整的60秒
+            perSecond[i] = new RollingCounter(TPS_WINDOW_SECONDS + 1);
+        }
+    }
+
+    /**
+     * 记录新创建的交易（按交易当前状态计入状态统计，已完成的交易同时计入账户流入流出）
+     */
+    public void recordCreated(Transaction transaction) {
+        long amount = amountOf(transaction);
+        created.increment();
+        add(byType, transaction.getType(), amount);
+        add(byCurrency, transaction.getCurrency(), amount);
+        add(byStatus, transaction.getStatus(), amount);
+        if (transaction.getChannel() != null) {
+            byChannel.computeIfAbsent(transaction.getChannel(), key -> new Accumulator()).add(1, amount);
+        }
+        if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+            recordFlows(transaction, amount);
+        }
+        stripe().add(clock.getAsLong() / 1000, 1);
+    }
+
+    /**
+     * 记录交易状态变更（交易已更新为新状态），变为已完成时计入账户流入流出
+     * @param transaction 交易
+     * @param previous 变更前的状态
+     */
+    public void recordStatusChange(Transaction transaction, TransactionStatus previous) {
+        TransactionStatus current = transaction.getStatus();
+        if (current == previous) {
+            return;
+        }
+        long amount = amountOf(transaction);
+        if (previous != null) {
+            byStatus[previous.ordinal()].add(-1, -amount);
+        }
+        add(byStatus, current, amount);
+        if (current == TransactionStatus.COMPLETED) {
+            recordFlows(transaction, amount);
+        }
+    }
+
+    /**
+     * 全局统计快照，只读取累加器，与交易总量无关
+     */
+    public Snapshot snapshot() {
+        Map<String, Aggregate> channels = new TreeMap<>();
+        byChannel.forEach((channel, accumulator) -> channels.put(channel, accumulator.toAggregate()));
+        long lastMinute = lastMinuteCount();
+        return new Snapshot(since, created.sum(),
+                toMap(TransactionType.class, byType), toMap(TransactionStatus.class, byStatus),
+                toMap(Currency.class, byCurrency), channels,
+                lastMinute, (double) lastMinute / TPS_WINDOW_SECONDS);
+    }
+
+    /**
+     * 账户流入流出统计，账户没有已完成的交易时各项为0
+     */
+    public AccountFlow accountFlow(String accountId) {
+        AccountAccumulator accumulator = byAccount.get(accountId);
+        if (accumulator == null) {
+            Aggregate none = new Accumulator().toAggregate();
+            return new AccountFlow(accountId, none, none);
+        }
+        return new AccountFlow(accountId, accumulator.inflow.toAggregate(), accumulator.outflow.toAggregate());
+    }
+
+    /**
+     * 之前完整的60秒内创建的交易笔数
+     */
+    long lastMinuteCount() {
+        long previousSecond = clock.getAsLong() / 1000 - 1;
+        long total = 0;
+        for (RollingCounter counter : perSecond) {
+            total += counter.sum(previousSecond, TPS_WINDOW_SECONDS);
+        }
+        return total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TransactionType type : TransactionType.values()) {
+            FunctionCounter.builder("bank.transactions.created", byType[type.ordinal()].count, LongAdder::sum)
+                    .tag("type", type.name())
+                    .description("按交易类型统计的创建笔数").register(registry);
+        }
+        Gauge.builder("bank.transactions.tps", this, statistics -> (double) statistics.lastMinuteCount() / TPS_WINDOW_SECONDS)
+                .description("最近60秒的平均每秒创建交易数").register(registry);
+    }
+
+    private void recordFlows(Transaction transaction, long amount) {
+        String fromAccountId = transaction.getFromAccountId();
+        String toAccountId = transaction.getToAccountId();
+        if (fromAccountId != null) {
+            byAccount.computeIfAbsent(fromAccountId, key -> new AccountAccumulator()).outflow.add(1, amount);
+        }
+        if (toAccountId != null) {
+            byAccount.computeIfAbsent(toAccountId, key -> new AccountAccumulator()).inflow.add(1, amount);
+        }
+    }
+
+    private RollingCounter stripe() {
+        return perSecond[(int) (Thread.currentThread().threadId() & (perSecond.length - 1))];
+    }
+
+    private static void add(Accumulator[] accumulators, Enum<?> value, long amount) {
+        if (value != null) {
+            accumulators[value.ordinal()].add(1, amount);
+        }
+    }
+
+    private static long amountOf(Transaction transaction) {
+        return transaction.getAmount() != null
+                ? Money.toMinor(transaction.getAmount(), AMOUNT_SCALE, RoundingMode.HALF_UP)
+                : 0;
+    }
+
+    private static <E extends Enum<E>> Map<E, Aggregate> toMap(Class<E> type, Accumulator[] accumulators) {
+        Map<E, Aggregate> result = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            result.put(value, accumulators[value.ordinal()].toAggregate());
+        }
+        return result;
+    }
+
+    private static Accumulator[] accumulators(int count) {
+        Accumulator[] accumulators = new Accumulator[count];
+        for (int i = 0; i < count; i++) {
+            accumulators[i] = new Accumulator();
+        }
+        return accumulators;
+    }
+
+    /**
+     * 笔数和金额累加器
+     */
+    private static final class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amount = new LongAdder();
+
+        private void add(long countDelta, long amountDelta) {
+            count.add(countDelta);
+            amount.add(amountDelta);
+        }
+
+        private Aggregate toAggregate() {
+            BigDecimal total = Money.toBigDecimal(amount.sum(), AMOUNT_SCALE).stripTrailingZeros();
+            return new Aggregate(count.sum(), total.scale() < Money.DEFAULT_SCALE ? total.setScale(Money.DEFAULT_SCALE) : total);
+        }
+    }
+
+    private static final class AccountAccumulator {
+        private final Accumulator inflow = new Accumulator();
+        private final Accumulator outflow = new Accumulator();
+    }
+
+    /**
+     * 笔数和金额
+     */
+    public record Aggregate(long count, BigDecimal amount) {}
+
+    /**
+     * 账户流入流出
+     * @param accountId 账户ID
+     * @param inflow 作为转入账户的已完成交易
+     * @param outflow 作为转出账户的已完成交易
+     */
+    public record AccountFlow(String accountId, Aggregate inflow, Aggregate outflow) {}
+
+    /**
+     * 全局统计快照
+     * @param since 统计开始时间（应用启动时间）
+     * @param totalCreated 创建的交易总数
+     * @param byType 按交易类型
+     * @param byStatus 按当前状态
+     * @param byCurrency 按币种
+     * @param byChannel 按渠道
+     * @param lastMinuteCount 最近60秒创建的交易数
+     * @param tps 最近60秒的平均每秒交易数
+     */
+    public record Snapshot(LocalDateTime since, long totalCreated,
+                           Map<TransactionType, Aggregate> byType, Map<TransactionStatus, Aggregate> byStatus,
+                           Map<Currency, Aggregate> byCurrency, Map<String, Aggregate> byChannel,
+                           long lastMinuteCount, double tps) {}
+}
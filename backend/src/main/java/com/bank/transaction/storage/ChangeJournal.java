@@ -0,0 +1,65 @@
+package com.bank.transaction.storage;
+
+import java.util.List;
+
+import com.bank.transaction.ledger.JournalEntry;
+
+/**
+ * 内存存储变更日志
+ *
+ * 内存存储（交易存储、余额引擎）在修改内存状态后、释放自己的锁之前记录变更，保证同一对象的日志顺序与内存修改顺序一致；
+ * 释放锁之后再调用 {@link #awaitDurable} 等待落盘，等待期间不阻塞其他对象的写入。
+ */
+public interface ChangeJournal {
+
+    /**
+     * 不记录日志（未启用持久化）
+     */
+    ChangeJournal NONE = new ChangeJournal() {
+        @Override
+        public long transactionSaved(byte[] encoded) {return 0;}
+
+        @Override
+        public long transactionDeleted(String transactionId) {return 0;}
+
+        @Override
+        public long balanceChanged(String accountId, long balanceMinor, int balanceScale) {return 0;}
+
+        @Override
+        public long entriesApplied(List<JournalEntry> entries) {return 0;}
+
+        @Override
+        public void awaitDurable(long ticket) {}
+    };
+
+    /**
+     * 交易已保存
+     * @param encoded 交易的 {@link TransactionCodec} 编码
+     * @return 日志序号
+     */
+    long transactionSaved(byte[] encoded);
+
+    /**
+     * 交易已删除
+     * @return 日志序号
+     */
+    long transactionDeleted(String transactionId);
+
+    /**
+     * 账户余额已变更，记录变更后的余额（回放时直接覆盖，可重复回放）
+     * @return 日志序号
+     */
+    long balanceChanged(String accountId, long balanceMinor, int balanceScale);
+
+    /**
+     * 交易分录已记账（在记录余额变更之后、释放余额锁之前调用），记录记账和冲正分录，
+     * 恢复时据此重建分录日志，并判断仍是待处理状态的交易是否已经记账
+     * @return 日志序号
+     */
+    long entriesApplied(List<JournalEntry> entries);
+
+    /**
+     * 等待指定序号及之前的日志落盘
+     */
+    void awaitDurable(long ticket);
+}
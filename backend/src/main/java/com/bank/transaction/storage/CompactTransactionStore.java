@@ -0,0 +1,120 @@
+package com.bank.transaction.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.bank.transaction.model.Transaction;
+
+/**
+ * 冷存储层：以紧凑二进制形式保存全部交易
+ *
+ * 说明：
+ * - 每笔交易只保存一个 byte[]（约 150-250 字节），远小于交易对象图
+ * - 作为热缓存层的后备存储，热层淘汰的交易从这里解码恢复
+ * - 条数有上限（maxRecords），达到上限后不再保存新交易，已有交易可以继续更新
+ * - 线程安全，基于 ConcurrentHashMap
+ */
+public class CompactTransactionStore {
+
+    private final long maxRecords;
+    private final Map<String, byte[]> records = new ConcurrentHashMap<>();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public CompactTransactionStore() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxRecords 最多保存的交易条数
+     */
+    public CompactTransactionStore(long maxRecords) {
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * 编码并保存交易
+     * @return 交易编码，调用方不得修改；新交易超过条数上限时不保存，返回 null
+     */
+    public byte[] put(Transaction transaction) {
+        byte[] encoded = TransactionCodec.encode(transaction);
+        boolean[] full = new boolean[1];
+        records.compute(transaction.getId(), (id, previous) -> {
+            if (previous == null && !tryAcquire()) {
+                full[0] = true;
+                return null;
+            }
+            totalBytes.addAndGet(encoded.length - (previous != null ? previous.length : 0));
+            return encoded;
+        });
+        return full[0] ? null : encoded;
+    }
+
+    /**
+     * 直接保存已编码的交易（用于从快照/日志恢复），不受条数上限限制
+     */
+    public void putEncoded(String transactionId, byte[] encoded) {
+        records.compute(transactionId, (id, previous) -> {
+            if (previous == null) {
+                count.incrementAndGet();
+            }
+            totalBytes.addAndGet(encoded.length - (previous != null ? previous.length : 0));
+            return encoded;
+        });
+    }
+
+    /**
+     * 遍历全部交易编码（弱一致，遍历期间的并发写入可能可见也可能不可见）
+     */
+    public void forEachEncoded(Consumer<byte[]> action) {
+        records.values().forEach(action);
+    }
+
+    /**
+     * 解码读取交易，不存在时返回null
+     */
+    public Transaction get(String transactionId) {
+        byte[] encoded = records.get(transactionId);
+        return encoded != null ? TransactionCodec.decode(encoded) : null;
+    }
+
+    public boolean remove(String transactionId) {
+        byte[] previous = records.remove(transactionId);
+        if (previous != null) {
+            count.decrementAndGet();
+            totalBytes.addAndGet(-previous.length);
+        }
+        return previous != null;
+    }
+
+    public int size() {
+        return (int) Math.min(count.get(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 还能保存的新交易条数
+     */
+    public long remainingCapacity() {
+        return Math.max(0, maxRecords - count.get());
+    }
+
+    private boolean tryAcquire() {
+        long current;
+        do {
+            current = count.get();
+            if (current >= maxRecords) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * 冷存储占用的编码字节总数（不含哈希表开销）
+     */
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+}
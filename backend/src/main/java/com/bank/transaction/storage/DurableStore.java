@@ -0,0 +1,415 @@
+package com.bank.transaction.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.PersistenceConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.ledger.JournalEntry;
+import com.bank.transaction.ledger.Posting;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionToolService;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.util.Constants.TransactionStatus;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 内存存储持久化：预写日志 + 定期快照
+ *
+ * 流程：
+ * - 启动时（应用开始接收请求之前）加载最新的有效快照，再回放快照之后的 WAL 记录，恢复交易、账户索引、时间索引和账户余额；
+ *   记账分录日志由 WAL 中的记账和冲正分录重建，快照之前的分录和其他余额调整按账户补记为一条调整分录
+ * - 恢复后仍是待处理状态的交易：已记账的（WAL 中有记账记录、没有冲正记录）改为已完成，未记账的重新提交后续处理流水线记账
+ * - 运行时交易存储和余额引擎在各自的锁内把变更写入 WAL，释放锁后等待组提交刷盘，见 {@link WriteAheadLog}
+ * - 按 bank.persistence.snapshot-interval-seconds 定期写快照，快照不阻塞写入；
+ *   保留最近 retained-snapshots 个快照，删除最旧保留快照之前的 WAL 段
+ * - 仅支持内存存储（storage.type=cache），JDBC 存储由数据库负责持久化
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.persistence", name = "enabled", havingValue = "true")
+public class DurableStore implements ChangeJournal, MeterBinder {
+
+    static final byte TRANSACTION_SAVED = 1;
+    static final byte TRANSACTION_DELETED = 2;
+    static final byte BALANCE_CHANGED = 3;
+    static final byte ENTRIES_APPLIED = 4;
+
+    private final PersistenceConfig config;
+    private final TransactionDao transactionDao;
+    private final AccountServiceImpl accountService;
+    private final TransactionToolService transactionToolService;
+    private final Path directory;
+
+    // 已记账、可能仍是待处理状态的交易ID，写入快照；写快照时移除已不是待处理状态的交易
+    private final Set<String> postedTransactions = ConcurrentHashMap.newKeySet();
+    // 恢复过程中仍是待处理状态的交易ID
+    private final Set<String> recoveredPending = new HashSet<>();
+
+    private CacheTransactionDao store;
+    private volatile WriteAheadLog wal;
+    private ScheduledExecutorService snapshotScheduler;
+    private volatile RecoveryStats recoveryStats;
+
+    @Autowired
+    public DurableStore(PersistenceConfig config, TransactionDao transactionDao,
+                        AccountServiceImpl accountService, TransactionToolService transactionToolService) {
+        this.config = config;
+        this.transactionDao = transactionDao;
+        this.accountService = accountService;
+        this.transactionToolService = transactionToolService;
+        this.directory = Path.of(config.getDirectory());
+    }
+
+    /**
+     * 恢复数据并开始记录变更日志
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!(transactionDao instanceof CacheTransactionDao cacheDao)) {
+            log.warn("当前交易存储 {} 不是内存存储，忽略 bank.persistence 配置", transactionDao.getClass().getSimpleName());
+            return;
+        }
+        this.store = cacheDao;
+        recoveryStats = recover();
+        log.info("内存存储恢复完成: 快照 {} 条交易, 回放日志 {} 条, 耗时 {} ms",
+                recoveryStats.snapshotTransactions(), recoveryStats.walRecords(), recoveryStats.elapsedMillis());
+
+        wal = new WriteAheadLog(directory, config.getSegmentBytes(), config.isFsync(), recoveryStats.nextSeq());
+        store.setJournal(this);
+        accountService.setJournal(this);
+        resumePendingTransactions();
+
+        if (config.getSnapshotIntervalSeconds() > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("store-snapshot").daemon().factory());
+            snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot,
+                    config.getSnapshotIntervalSeconds(), config.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 立即写一次快照，并清理过期快照和 WAL 段
+     * @return 快照文件
+     */
+    public synchronized Path snapshot() throws IOException {
+        WriteAheadLog currentWal = requireWal();
+        long seq = currentWal.getLastSeq() + 1;
+        long start = System.nanoTime();
+        // 已不是待处理状态的交易不会再变回待处理，移除后不影响恢复
+        postedTransactions.removeIf(id -> store.findById(id)
+                .map(transaction -> transaction.getStatus() != TransactionStatus.PENDING).orElse(true));
+        Path file = SnapshotFile.write(directory, seq, accountService.getAccounts(), postedTransactions, store::forEachEncoded);
+
+        List<Path> snapshots = SnapshotFile.list(directory);
+        int retained = Math.max(1, config.getRetainedSnapshots());
+        for (Path old : snapshots.subList(Math.min(retained, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+        long oldestRetainedSeq = SnapshotFile.seqOf(snapshots.get(Math.min(retained, snapshots.size()) - 1));
+        currentWal.deleteSegmentsBefore(oldestRetainedSeq);
+        log.info("快照完成: {} ({} 字节), 耗时 {} ms", file.getFileName(), Files.size(file),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return file;
+    }
+
+    /**
+     * 最近一次启动恢复的统计，未启用时为 null
+     */
+    public RecoveryStats getRecoveryStats() {
+        return recoveryStats;
+    }
+
+    @Override
+    public long transactionSaved(byte[] encoded) {
+        return requireWal().append(TRANSACTION_SAVED, encoded);
+    }
+
+    @Override
+    public long transactionDeleted(String transactionId) {
+        return requireWal().append(TRANSACTION_DELETED, transactionId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public long balanceChanged(String accountId, long balanceMinor, int balanceScale) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(Short.BYTES + id.length + Long.BYTES + Integer.BYTES);
+        payload.putShort((short) id.length).put(id).putLong(balanceMinor).putInt(balanceScale);
+        return requireWal().append(BALANCE_CHANGED, payload.array());
+    }
+
+    /**
+     * 记录记账和冲正分录：[int 条数] 每条 [byte 分录类型][long 时间][short 交易ID长度，null 为 -1][交易ID]
+     * [short 行数] 每行 [short 账户ID长度][账户ID][long 金额][byte 小数位数]
+     */
+    @Override
+    public long entriesApplied(List<JournalEntry> entries) {
+        long seq = requireWal().append(ENTRIES_APPLIED, encodeEntries(entries));
+        trackPosted(entries);
+        return seq;
+    }
+
+    @Override
+    public void awaitDurable(long ticket) {
+        requireWal().awaitDurable(ticket);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.persistence.wal.appends", this, durable -> durable.wal != null ? durable.wal.getAppendCount() : 0)
+                .description("写入 WAL 的记录数").register(registry);
+        FunctionCounter.builder("bank.persistence.wal.fsyncs", this, durable -> durable.wal != null ? durable.wal.getForceCount() : 0)
+                .description("WAL 刷盘次数（组提交）").register(registry);
+        Gauge.builder("bank.persistence.recovery.time", this,
+                        durable -> durable.recoveryStats != null ? durable.recoveryStats.elapsedMillis() / 1000.0 : 0)
+                .description("启动恢复耗时").baseUnit("seconds").register(registry);
+    }
+
+    /**
+     * 停止快照并关闭 WAL；关闭后的变更不再记录
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (store != null) {
+            store.setJournal(ChangeJournal.NONE);
+            accountService.setJournal(ChangeJournal.NONE);
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    /**
+     * 加载最新的有效快照（损坏时依次尝试更早的快照），再回放之后的 WAL 记录
+     */
+    private RecoveryStats recover() throws IOException {
+        long start = System.nanoTime();
+        long snapshotSeq = 0;
+        long[] snapshotTransactions = new long[1];
+        for (Path snapshot : SnapshotFile.list(directory)) {
+            try {
+                snapshotSeq = SnapshotFile.read(snapshot, new SnapshotFile.Handler() {
+                    @Override
+                    public void balance(String accountId, long balanceMinor, int balanceScale) {
+                        accountService.restoreBalance(accountId, balanceMinor, balanceScale);
+                    }
+
+                    @Override
+                    public void posted(String transactionId) {
+                        postedTransactions.add(transactionId);
+                        accountService.getPostingJournal().markPosted(transactionId);
+                    }
+
+                    @Override
+                    public void transaction(byte[] encoded) {
+                        restoreTransaction(encoded);
+                        snapshotTransactions[0]++;
+                    }
+                });
+                break;
+            } catch (IOException e) {
+                log.warn("快照 {} 不可用，尝试更早的快照: {}", snapshot.getFileName(), e.getMessage());
+            }
+        }
+
+        WriteAheadLog.ReplayResult replay = WriteAheadLog.replay(directory, snapshotSeq, this::replayRecord);
+        int adjusted = accountService.reconcilePostingJournal();
+        log.debug("分录日志恢复完成: 最后分录序号 {}, 补记调整分录 {} 个账户", accountService.getPostingJournal().getLastSequence(), adjusted);
+        long nextSeq = Math.max(Math.max(replay.lastSeq() + 1, snapshotSeq), 1);
+        return new RecoveryStats(snapshotSeq, snapshotTransactions[0], replay.replayed(), replay.tornSegments(), nextSeq,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void replayRecord(long seq, byte type, byte[] payload) throws IOException {
+        switch (type) {
+            case TRANSACTION_SAVED -> restoreTransaction(payload);
+            case TRANSACTION_DELETED -> {
+                String transactionId = new String(payload, StandardCharsets.UTF_8);
+                store.restoreDeletion(transactionId);
+                recoveredPending.remove(transactionId);
+            }
+            case ENTRIES_APPLIED -> {
+                List<JournalEntry> entries = decodeEntries(payload);
+                trackPosted(entries);
+                accountService.restoreEntries(entries);
+            }
+            case BALANCE_CHANGED -> {
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                byte[] id = new byte[buffer.getShort()];
+                buffer.get(id);
+                accountService.restoreBalance(new String(id, StandardCharsets.UTF_8), buffer.getLong(), buffer.getInt());
+            }
+            default -> throw new IOException("未知的 WAL 记录类型: " + type + ", 序号: " + seq);
+        }
+    }
+
+    private void restoreTransaction(byte[] encoded) {
+        Transaction transaction = store.restore(encoded);
+        if (transaction.getStatus() == TransactionStatus.PENDING) {
+            recoveredPending.add(transaction.getId());
+        } else {
+            recoveredPending.remove(transaction.getId());
+            if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+                // 记账分录可能在快照之前，已完成的交易不能再记账
+                accountService.getPostingJournal().markPosted(transaction.getId());
+            }
+        }
+    }
+
+    /**
+     * 按 entriesApplied 的记录维护已记账交易：记账时加入，冲正时移除
+     */
+    private void trackPosted(List<JournalEntry> entries) {
+        for (JournalEntry entry : entries) {
+            if (entry.transactionId() == null) {
+                continue;
+            }
+            if (entry.type() == JournalEntry.Type.POSTING) {
+                postedTransactions.add(entry.transactionId());
+            } else if (entry.type() == JournalEntry.Type.REVERSAL) {
+                postedTransactions.remove(entry.transactionId());
+            }
+        }
+    }
+
+    private static byte[] encodeEntries(List<JournalEntry> entries) {
+        int size = Integer.BYTES;
+        byte[][] ids = new byte[entries.size()][];
+        List<byte[][]> accountIds = new ArrayList<>(entries.size());
+        for (int i = 0; i < ids.length; i++) {
+            JournalEntry entry = entries.get(i);
+            ids[i] = entry.transactionId() != null ? entry.transactionId().getBytes(StandardCharsets.UTF_8) : null;
+            size += 1 + Long.BYTES + Short.BYTES + (ids[i] != null ? ids[i].length : 0) + Short.BYTES;
+            byte[][] accounts = new byte[entry.postings().size()][];
+            for (int j = 0; j < accounts.length; j++) {
+                accounts[j] = entry.postings().get(j).accountId().getBytes(StandardCharsets.UTF_8);
+                size += Short.BYTES + accounts[j].length + Long.BYTES + 1;
+            }
+            accountIds.add(accounts);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size).putInt(entries.size());
+        for (int i = 0; i < ids.length; i++) {
+            JournalEntry entry = entries.get(i);
+            payload.put((byte) entry.type().ordinal()).putLong(entry.timestampMillis());
+            if (ids[i] != null) {
+                payload.putShort((short) ids[i].length).put(ids[i]);
+            } else {
+                payload.putShort((short) -1);
+            }
+            payload.putShort((short) entry.postings().size());
+            for (int j = 0; j < entry.postings().size(); j++) {
+                Posting posting = entry.postings().get(j);
+                byte[] accountId = accountIds.get(i)[j];
+                payload.putShort((short) accountId.length).put(accountId).putLong(posting.amountMinor()).put((byte) posting.scale());
+            }
+        }
+        return payload.array();
+    }
+
+    private static List<JournalEntry> decodeEntries(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int count = buffer.getInt();
+        List<JournalEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JournalEntry.Type type = JournalEntry.Type.values()[buffer.get()];
+            long timestampMillis = buffer.getLong();
+            short idLength = buffer.getShort();
+            String transactionId = null;
+            if (idLength >= 0) {
+                byte[] id = new byte[idLength];
+                buffer.get(id);
+                transactionId = new String(id, StandardCharsets.UTF_8);
+            }
+            int lines = buffer.getShort();
+            List<Posting> postings = new ArrayList<>(lines);
+            for (int j = 0; j < lines; j++) {
+                byte[] accountId = new byte[buffer.getShort()];
+                buffer.get(accountId);
+                postings.add(new Posting(new String(accountId, StandardCharsets.UTF_8), buffer.getLong(), buffer.get()));
+            }
+            entries.add(new JournalEntry(0, timestampMillis, type, transactionId, List.copyOf(postings)));
+        }
+        return entries;
+    }
+
+    /**
+     * 处理恢复后仍是待处理状态的交易（在开始记录变更日志之后调用）：
+     * 已记账的只差状态更新，直接改为已完成；未记账的重新提交后续处理流水线，由流水线记账并更新状态
+     */
+    private void resumePendingTransactions() {
+        int completed = 0;
+        int resubmitted = 0;
+        for (String transactionId : recoveredPending) {
+            if (postedTransactions.contains(transactionId)) {
+                if (store.updateStatus(transactionId, TransactionStatus.PENDING, TransactionStatus.COMPLETED).isPresent()) {
+                    completed++;
+                }
+            } else {
+                Transaction transaction = store.findById(transactionId).orElse(null);
+                if (transaction != null && transaction.getStatus() == TransactionStatus.PENDING) {
+                    transactionToolService.performPostTransactionProcessing(transaction, "CREATE");
+                    resubmitted++;
+                }
+            }
+        }
+        recoveredPending.clear();
+        if (completed > 0 || resubmitted > 0) {
+            log.info("恢复待处理交易: 已记账改为已完成 {} 笔, 重新提交记账 {} 笔", completed, resubmitted);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("定期快照失败", e);
+        }
+    }
+
+    private WriteAheadLog requireWal() {
+        WriteAheadLog current = wal;
+        if (current == null) {
+            throw new IllegalStateException("持久化未启动");
+        }
+        return current;
+    }
+
+    /**
+     * 启动恢复统计
+     * @param snapshotSeq 使用的快照的日志序号，没有快照时为0
+     * @param snapshotTransactions 从快照恢复的交易数
+     * @param walRecords 回放的 WAL 记录数
+     * @param tornSegments 末尾有不完整记录的 WAL 段数
+     * @param nextSeq 恢复后下一条日志序号
+     * @param elapsedMillis 恢复耗时（毫秒）
+     */
+    public record RecoveryStats(long snapshotSeq, long snapshotTransactions, long walRecords, int tornSegments,
+                                long nextSeq, long elapsedMillis) {}
+}
@@ -0,0 +1,210 @@
+package com.bank.transaction.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.bank.transaction.model.Account;
+
+/**
+ * 内存存储快照文件
+ *
+ * 文件格式（snapshot-<日志序号>.snap）：
+ * - [int 魔数][byte 版本][long 日志序号]
+ * - [int 账户数] 每个账户 [UTF 账户ID][long 余额(最小货币单位)][int 小数位数]
+ * - [int 交易数] 已记账但写快照时可能仍是待处理状态的交易 [UTF 交易ID]（版本2起）
+ * - 每笔交易 [int 编码长度][TransactionCodec 编码]，以长度0结束，随后 [long 交易数]
+ * - [long CRC32C] 覆盖之前的全部内容
+ *
+ * 说明：
+ * - 日志序号为开始写快照时的下一条日志序号，恢复时回放序号不小于它的日志记录
+ * - 写快照期间不停止写入，快照可能包含之后的部分变更；日志记录按对象覆盖写，重复回放结果不变
+ * - 先写临时文件并刷盘，再原子重命名，恢复时不会读到写了一半的快照
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x42534E50;
+    private static final byte VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private SnapshotFile() {}
+
+    /**
+     * 写快照
+     * @param directory 快照目录
+     * @param seq 开始写快照时的下一条日志序号
+     * @param accounts 全部账户
+     * @param postedTransactionIds 已记账、可能仍是待处理状态的交易ID
+     * @param transactions 遍历全部交易编码
+     * @return 快照文件
+     */
+    public static Path write(Path directory, long seq, Collection<Account> accounts, Collection<String> postedTransactionIds,
+                             Consumer<Consumer<byte[]>> transactions) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        List<Account> accountList = List.copyOf(accounts);
+        List<String> postedList = List.copyOf(postedTransactionIds);
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_BYTES), crc));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seq);
+            out.writeInt(accountList.size());
+            for (Account account : accountList) {
+                out.writeUTF(account.getAccountId());
+                out.writeLong(account.getBalanceMinor());
+                out.writeInt(account.getBalanceScale());
+            }
+            out.writeInt(postedList.size());
+            for (String transactionId : postedList) {
+                out.writeUTF(transactionId);
+            }
+            long[] count = new long[1];
+            transactions.accept(encoded -> {
+                try {
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeInt(0);
+            out.writeLong(count[0]);
+            out.flush();
+            // CRC 本身不计入校验
+            DataOutputStream tail = new DataOutputStream(file);
+            tail.writeLong(crc.getValue());
+            tail.flush();
+            file.getFD().sync();
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读快照：先校验完整性，再依次交给处理器
+     * @return 快照的日志序号
+     * @throws IOException 文件损坏或格式不符
+     */
+    public static long read(Path file, Handler handler) throws IOException {
+        verify(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            byte version = readVersion(in);
+            long seq = in.readLong();
+            int accounts = in.readInt();
+            for (int i = 0; i < accounts; i++) {
+                handler.balance(in.readUTF(), in.readLong(), in.readInt());
+            }
+            int posted = version >= 2 ? in.readInt() : 0;
+            for (int i = 0; i < posted; i++) {
+                handler.posted(in.readUTF());
+            }
+            for (int length = in.readInt(); length > 0; length = in.readInt()) {
+                byte[] encoded = new byte[length];
+                in.readFully(encoded);
+                handler.transaction(encoded);
+            }
+            return seq;
+        }
+    }
+
+    /**
+     * 目录中的快照文件，最新的在前
+     */
+    public static List<Path> list(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).forEach(snapshots::add);
+        }
+        snapshots.sort(Comparator.comparingLong(SnapshotFile::seqOf).reversed());
+        return snapshots;
+    }
+
+    /**
+     * 快照文件名中的日志序号
+     */
+    public static long seqOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void verify(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size < Long.BYTES) {
+            throw new IOException("快照文件不完整: " + file);
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream raw = Files.newInputStream(file);
+             CheckedInputStream in = new CheckedInputStream(new BufferedInputStream(raw, BUFFER_BYTES), crc)) {
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = size - Long.BYTES;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("快照文件不完整: " + file);
+                }
+                remaining -= read;
+            }
+            long computed = crc.getValue();
+            if (new DataInputStream(in).readLong() != computed) {
+                throw new IOException("快照文件校验失败: " + file);
+            }
+        }
+    }
+
+    private static byte readVersion(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是快照文件");
+        }
+        byte version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        return version;
+    }
+
+    /**
+     * 快照内容处理器
+     */
+    public interface Handler {
+        void balance(String accountId, long balanceMinor, int balanceScale) throws IOException;
+
+        void posted(String transactionId) throws IOException;
+
+        void transaction(byte[] encoded) throws IOException;
+    }
+}
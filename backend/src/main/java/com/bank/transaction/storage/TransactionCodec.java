@@ -0,0 +1,259 @@
+package com.bank.transaction.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 交易紧凑二进制编解码
+ *
+ * 编码说明：
+ * - 首字节为格式版本号，便于后续兼容升级
+ * - 枚举按名称编码，调整枚举顺序不影响已持久化的数据
+ * - 金额按 unscaledValue + scale 编码，不丢失精度
+ * - 只编码交易自身字段；转出/转入账户对象（fromAccount/toAccount）不编码，解码后为null，通过账户ID关联
+ */
+public final class TransactionCodec {
+
+    private static final byte VERSION = 1;
+
+    private TransactionCodec() {}
+
+    public static byte[] encode(Transaction transaction) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            encode(transaction, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("交易编码失败: " + transaction.getId(), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 从字节数组解码：直接按偏移读取，ASCII 字符串一次拷贝生成，小金额不经过 BigInteger
+     * （冷层读取和启动恢复的热点路径，格式与 {@link #decode(DataInputStream)} 相同）
+     */
+    public static Transaction decode(byte[] bytes) {
+        try {
+            return new Reader(bytes).readTransaction();
+        } catch (IOException e) {
+            throw new UncheckedIOException("交易解码失败", e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new UncheckedIOException("交易解码失败", new EOFException("交易编码不完整"));
+        }
+    }
+
+    public static void encode(Transaction transaction, DataOutputStream out) throws IOException {
+        out.writeByte(VERSION);
+        writeString(out, transaction.getId());
+        writeAmount(out, transaction.getAmount());
+        writeString(out, transaction.getType() != null ? transaction.getType().name() : null);
+        writeTimestamp(out, transaction.getTimestamp());
+        writeString(out, transaction.getStatus() != null ? transaction.getStatus().name() : null);
+        writeString(out, transaction.getCurrency() != null ? transaction.getCurrency().name() : null);
+        writeString(out, transaction.getChannel());
+        writeString(out, transaction.getReferenceNumber());
+        writeString(out, transaction.getDirection());
+        writeString(out, transaction.getRemark());
+        writeString(out, transaction.getFromAccountId());
+        writeString(out, transaction.getToAccountId());
+        writeString(out, transaction.getIdempotencyKey());
+        writeString(out, transaction.getInitiatedBy());
+        writeString(out, transaction.getApprovedBy());
+    }
+
+    public static Transaction decode(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的交易编码版本: " + version);
+        }
+        Transaction transaction = new Transaction();
+        transaction.setId(readString(in));
+        transaction.setAmount(readAmount(in));
+        String type = readString(in);
+        transaction.setType(type != null ? TransactionType.valueOf(type) : null);
+        transaction.setTimestamp(readTimestamp(in));
+        String status = readString(in);
+        transaction.setStatus(status != null ? TransactionStatus.valueOf(status) : null);
+        String currency = readString(in);
+        transaction.setCurrency(currency != null ? Currency.valueOf(currency) : null);
+        transaction.setChannel(readString(in));
+        transaction.setReferenceNumber(readString(in));
+        transaction.setDirection(readString(in));
+        transaction.setRemark(readString(in));
+        transaction.setFromAccountId(readString(in));
+        transaction.setToAccountId(readString(in));
+        transaction.setIdempotencyKey(readString(in));
+        transaction.setInitiatedBy(readString(in));
+        transaction.setApprovedBy(readString(in));
+        return transaction;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeAmount(DataOutputStream out, BigDecimal amount) throws IOException {
+        out.writeBoolean(amount != null);
+        if (amount != null) {
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+            out.writeShort(amount.scale());
+        }
+    }
+
+    private static BigDecimal readAmount(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readShort());
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+        out.writeBoolean(timestamp != null);
+        if (timestamp != null) {
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(timestamp.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * 字节数组读取器
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        Transaction readTransaction() throws IOException {
+            byte version = bytes[position++];
+            if (version != VERSION) {
+                throw new IOException("不支持的交易编码版本: " + version);
+            }
+            Transaction transaction = new Transaction();
+            transaction.setId(readString());
+            transaction.setAmount(readAmount());
+            String type = readString();
+            transaction.setType(type != null ? TransactionType.valueOf(type) : null);
+            transaction.setTimestamp(readTimestamp());
+            String status = readString();
+            transaction.setStatus(status != null ? TransactionStatus.valueOf(status) : null);
+            String currency = readString();
+            transaction.setCurrency(currency != null ? Currency.valueOf(currency) : null);
+            transaction.setChannel(readString());
+            transaction.setReferenceNumber(readString());
+            transaction.setDirection(readString());
+            transaction.setRemark(readString());
+            transaction.setFromAccountId(readString());
+            transaction.setToAccountId(readString());
+            transaction.setIdempotencyKey(readString());
+            transaction.setInitiatedBy(readString());
+            transaction.setApprovedBy(readString());
+            return transaction;
+        }
+
+        private String readString() throws IOException {
+            if (bytes[position++] == 0) {
+                return null;
+            }
+            int length = ((bytes[position] & 0xFF) << 8) | (bytes[position + 1] & 0xFF);
+            int start = position + 2;
+            for (int i = start; i < start + length; i++) {
+                if (bytes[i] < 0) {
+                    // 非 ASCII：按 writeUTF 的修改版 UTF-8 解码
+                    String value = new DataInputStream(new ByteArrayInputStream(bytes, position, length + 2)).readUTF();
+                    position = start + length;
+                    return value;
+                }
+            }
+            position = start + length;
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+
+        private BigDecimal readAmount() {
+            if (bytes[position++] == 0) {
+                return null;
+            }
+            int length = bytes[position++] & 0xFF;
+            BigDecimal amount;
+            if (length <= Long.BYTES) {
+                long unscaled = bytes[position];
+                for (int i = 1; i < length; i++) {
+                    unscaled = (unscaled << 8) | (bytes[position + i] & 0xFF);
+                }
+                position += length;
+                amount = BigDecimal.valueOf(unscaled, readShort());
+            } else {
+                BigInteger unscaled = new BigInteger(bytes, position, length);
+                position += length;
+                amount = new BigDecimal(unscaled, readShort());
+            }
+            return amount;
+        }
+
+        private LocalDateTime readTimestamp() {
+            if (bytes[position++] == 0) {
+                return null;
+            }
+            long epochSecond = readLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, readInt(), ZoneOffset.UTC);
+        }
+
+        private short readShort() {
+            short value = (short) (((bytes[position] & 0xFF) << 8) | (bytes[position + 1] & 0xFF));
+            position += 2;
+            return value;
+        }
+
+        private int readInt() {
+            int value = 0;
+            for (int i = 0; i < Integer.BYTES; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.bank.transaction.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 追加写的内存映射预写日志（WAL）
+ *
+ * 文件格式：
+ * - 日志由若干段文件组成，文件名为 wal-<段内第一条记录序号>.log，每段预先映射 segmentBytes 字节（未写部分为0）
+ * - 记录：[int 负载长度][int CRC32C][long 序号][byte 类型][负载]，CRC 覆盖序号、类型和负载
+ * - 序号全局递增，读到长度为0或 CRC 不符（写到一半的记录）时该段结束
+ *
+ * 组提交刷盘：
+ * - append 在锁内分配序号并复制到映射内存，只是一次内存拷贝，可以在调用方的锁内调用
+ * - awaitDurable 等待记录刷盘；单个刷盘线程每次 force 覆盖此前所有已追加的记录，并发写入共用一次 fsync
+ * - fsync=false 时不等待刷盘，记录写入页缓存后即返回
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    static final int HEADER_BYTES = 4 + 4 + 8 + 1;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C appendCrc = new CRC32C();
+    private Segment current;
+    private volatile long lastSeq;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+    private volatile long durableSeq;
+    private volatile IOException flushFailure;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    /**
+     * 打开日志并从 nextSeq 开始写入新段，已有段文件只读不追加
+     * @param directory 日志目录
+     * @param segmentBytes 段文件大小
+     * @param fsync 是否组提交刷盘
+     * @param nextSeq 下一条记录的序号，必须大于已有记录的序号
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, boolean fsync, long nextSeq) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.lastSeq = nextSeq - 1;
+        this.durableSeq = nextSeq - 1;
+        this.current = Segment.create(directory, nextSeq, segmentBytes);
+        this.flusher = fsync ? Thread.ofPlatform().name("wal-flusher").daemon().start(this::flushLoop) : null;
+    }
+
+    /**
+     * 追加一条记录
+     * @param type 记录类型
+     * @param payload 负载
+     * @return 记录序号，用于 {@link #awaitDurable}
+     */
+    public long append(byte type, byte[] payload) {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("WAL 记录超过段大小: " + recordBytes);
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("WAL 已关闭");
+            }
+            if (current.buffer.remaining() < recordBytes) {
+                roll();
+            }
+            long seq = lastSeq + 1;
+            MappedByteBuffer buffer = current.buffer;
+            int position = buffer.position();
+            buffer.putLong(position + 8, seq);
+            buffer.put(position + 16, type);
+            buffer.put(position + HEADER_BYTES, payload);
+            appendCrc.reset();
+            appendCrc.update(buffer.slice(position + 8, recordBytes - 8));
+            buffer.putInt(position + 4, (int) appendCrc.getValue());
+            buffer.putInt(position, payload.length);
+            buffer.position(position + recordBytes);
+            lastSeq = seq;
+            appends.increment();
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException("WAL 切换段文件失败", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * 等待指定序号及之前的记录刷盘；未开启 fsync 时立即返回
+     */
+    public void awaitDurable(long seq) {
+        if (!fsync || seq <= durableSeq) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushRequested.signal();
+            while (durableSeq < seq) {
+                if (flushFailure != null) {
+                    throw new UncheckedIOException("WAL 刷盘失败", flushFailure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("WAL 已关闭");
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 最后一条已追加记录的序号
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * 已追加的记录数
+     */
+    public long getAppendCount() {
+        return appends.sum();
+    }
+
+    /**
+     * 刷盘次数，组提交时远小于追加记录数
+     */
+    public long getForceCount() {
+        return forces.sum();
+    }
+
+    /**
+     * 删除全部记录序号都小于 seq 的段文件（当前段除外）
+     */
+    public void deleteSegmentsBefore(long seq) throws IOException {
+        List<SegmentFile> segments = listSegments(directory);
+        long currentStart;
+        appendLock.lock();
+        try {
+            currentStart = current.startSeq;
+        } finally {
+            appendLock.unlock();
+        }
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            SegmentFile segment = segments.get(i);
+            if (segment.startSeq() < currentStart && segments.get(i + 1).startSeq() <= seq) {
+                Files.deleteIfExists(segment.path());
+            }
+        }
+    }
+
+    /**
+     * 刷盘剩余记录并停止刷盘线程
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current.buffer.force();
+            current.channel.close();
+            durableSeq = lastSeq;
+        } finally {
+            appendLock.unlock();
+        }
+        flushLock.lock();
+        try {
+            flushRequested.signalAll();
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 按序号顺序回放目录中的全部段文件
+     * @param directory 日志目录
+     * @param fromSeq 只回放序号不小于 fromSeq 的记录
+     * @param handler 记录处理器
+     * @return 回放结果，lastSeq 为读到的最大序号（包括小于 fromSeq 的记录）
+     */
+    public static ReplayResult replay(Path directory, long fromSeq, RecordHandler handler) throws IOException {
+        long lastSeq = 0;
+        long replayed = 0;
+        int tornSegments = 0;
+        CRC32C crc = new CRC32C();
+        for (SegmentFile segment : listSegments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int position = 0;
+                while (buffer.limit() - position >= HEADER_BYTES) {
+                    int length = buffer.getInt(position);
+                    if (length <= 0 || length > buffer.limit() - position - HEADER_BYTES) {
+                        break;
+                    }
+                    crc.reset();
+                    crc.update(buffer.slice(position + 8, length + HEADER_BYTES - 8));
+                    if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                        tornSegments++;
+                        log.warn("WAL 段 {} 在偏移 {} 处记录校验失败，忽略该段后续内容", segment.path().getFileName(), position);
+                        break;
+                    }
+                    long seq = buffer.getLong(position + 8);
+                    if (seq >= fromSeq) {
+                        byte[] payload = new byte[length];
+                        buffer.get(position + HEADER_BYTES, payload);
+                        handler.accept(seq, buffer.get(position + 16), payload);
+                        replayed++;
+                    }
+                    lastSeq = Math.max(lastSeq, seq);
+                    position += HEADER_BYTES + length;
+                }
+            }
+        }
+        return new ReplayResult(lastSeq, replayed, tornSegments);
+    }
+
+    /**
+     * 切换到新段：旧段刷盘后关闭，新段从下一条记录的序号开始
+     */
+    private void roll() throws IOException {
+        Segment previous = current;
+        if (fsync) {
+            previous.buffer.force();
+        }
+        previous.channel.close();
+        current = Segment.create(directory, lastSeq + 1, segmentBytes);
+        log.debug("WAL 切换到新段 {}", segmentName(current.startSeq));
+    }
+
+    /**
+     * 刷盘线程：有未刷盘的记录时 force 当前段，然后唤醒等待到该序号的写入方
+     *
+     * force 失败时页缓存中的数据是否落盘不确定，不推进已刷盘序号，也不再重试：
+     * 记录失败原因后退出，此后等待刷盘的写入都会失败
+     */
+    private void flushLoop() {
+        while (!closed) {
+            Segment segment;
+            long target;
+            appendLock.lock();
+            try {
+                segment = current;
+                target = lastSeq;
+            } finally {
+                appendLock.unlock();
+            }
+            if (target > durableSeq) {
+                boolean forced = false;
+                try {
+                    segment.buffer.force();
+                    forces.increment();
+                    forced = true;
+                } catch (UncheckedIOException e) {
+                    flushFailure = e.getCause();
+                    log.error("WAL 刷盘失败，停止刷盘，未刷盘的写入全部失败", e);
+                }
+                flushLock.lock();
+                try {
+                    if (forced && target > durableSeq) {
+                        durableSeq = target;
+                    }
+                    flushed.signalAll();
+                } finally {
+                    flushLock.unlock();
+                }
+                if (!forced) {
+                    return;
+                }
+                continue;
+            }
+            flushLock.lock();
+            try {
+                if (!closed && lastSeq <= durableSeq) {
+                    flushRequested.await(10, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private static List<SegmentFile> listSegments(Path directory) throws IOException {
+        List<SegmentFile> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long startSeq = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    segments.add(new SegmentFile(path, startSeq));
+                }
+            });
+        }
+        segments.sort((a, b) -> Long.compare(a.startSeq(), b.startSeq()));
+        return segments;
+    }
+
+    private static String segmentName(long startSeq) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, startSeq, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * WAL 记录处理器
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long seq, byte type, byte[] payload) throws IOException;
+    }
+
+    /**
+     * 回放结果
+     * @param lastSeq 读到的最大记录序号，没有记录时为0
+     * @param replayed 回放（交给处理器）的记录数
+     * @param tornSegments 末尾有不完整记录的段数
+     */
+    public record ReplayResult(long lastSeq, long replayed, int tornSegments) {}
+
+    private record SegmentFile(Path path, long startSeq) {}
+
+    /**
+     * 正在写入的段
+     */
+    private static final class Segment {
+        private final long startSeq;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long startSeq, FileChannel channel, MappedByteBuffer buffer) {
+            this.startSeq = startSeq;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, long startSeq, int segmentBytes) throws IOException {
+            // 同名段只可能是上次切换后未写入任何记录的空段，可以覆盖
+            FileChannel channel = FileChannel.open(directory.resolve(segmentName(startSeq)),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(startSeq, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+}
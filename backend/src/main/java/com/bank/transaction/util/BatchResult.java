@@ -0,0 +1,66 @@
+package com.bank.transaction.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.BatchMode;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+/**
+ * 批量创建交易结果，按请求顺序返回每笔交易的处理结果
+ */
+public class BatchResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private BatchMode mode;                          // 部分失败处理方式
+    private int total;                               // 请求交易数
+    private int succeeded;                           // 成功交易数
+    private int failed;                              // 失败交易数
+    private List<Item> items = new ArrayList<>();    // 每笔交易的结果，顺序同请求
+
+    public BatchResult() {}
+
+    public BatchResult(BatchMode mode, int total) {
+        this.mode = mode;
+        this.total = total;
+        this.items = new ArrayList<>(total);
+    }
+
+    // 便捷方法
+    public void addSuccess(int index, Transaction transaction) {
+        items.add(new Item(index, true, transaction, null, null));
+        succeeded++;
+    }
+
+    public void addFailure(int index, ErrorCode errorCode, String message) {
+        items.add(new Item(index, false, null, errorCode.getCode(), message));
+        failed++;
+    }
+
+    public boolean isAllSucceeded() {return failed == 0;}
+
+    // Getter/Setter方法
+    public BatchMode getMode() {return mode;}
+    public void setMode(BatchMode mode) {this.mode = mode;}
+    public int getTotal() {return total;}
+    public void setTotal(int total) {this.total = total;}
+    public int getSucceeded() {return succeeded;}
+    public void setSucceeded(int succeeded) {this.succeeded = succeeded;}
+    public int getFailed() {return failed;}
+    public void setFailed(int failed) {this.failed = failed;}
+    public List<Item> getItems() {return items;}
+    public void setItems(List<Item> items) {this.items = items;}
+
+    /**
+     * 单笔交易结果
+     * @param index 在请求中的序号（从0开始）
+     * @param success 是否成功
+     * @param transaction 成功时为创建的交易
+     * @param errorCode 失败时的错误码
+     * @param message 失败原因
+     */
+    public record Item(int index, boolean success, Transaction transaction, String errorCode, String message)
+            implements Serializable {}
+}
@@ -15,6 +15,13 @@ public class Constants {
     public enum TransactionType {
         DEPOSIT, WITHDRAWAL, TRANSFER, PAYMENT, REFUND;
         
+        /**
+         * 是否为扣款类交易（从转出账户扣款）
+         */
+        public boolean isDebit() {
+            return this == WITHDRAWAL || this == TRANSFER || this == PAYMENT;
+        }
+        
         @JsonCreator
         public static TransactionType fromString(String key) {
             return key == null ? null : TransactionType.valueOf(key.toUpperCase());
@@ -47,6 +54,51 @@ public class Constants {
         }
     }
     
+    /**
+     * 批量交易的部分失败处理方式
+     * ALL_OR_NOTHING: 任一笔失败则整批不生效
+     * BEST_EFFORT: 失败的交易跳过，其余交易照常生效
+     */
+    public enum BatchMode {
+        ALL_OR_NOTHING, BEST_EFFORT;
+        
+        @JsonCreator
+        public static BatchMode fromString(String key) {
+            return key == null ? null : BatchMode.valueOf(key.toUpperCase());
+        }
+        
+        @JsonValue
+        public String toValue() {
+            return this.name();
+        }
+    }
+    
+    /**
+     * 交易导出格式
+     * NDJSON: 每行一个 JSON 对象，字段同查询接口
+     * CSV: 带表头的逗号分隔文本
+     */
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+        
+        private final String contentType;
+        private final String extension;
+        
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+    }
+    
     /**
      * 异常级别枚举
      * FATAL: 致命异常，系统不可用，需要立即告警
@@ -56,6 +108,13 @@ public class Constants {
      */
     public enum ErrorLevel {FATAL, ERROR, WARN, INFO}
     
+    /**
+     * 余额变更执行方式
+     * LOCKED: 调用线程按账户分段加锁直接执行
+     * SHARDED: 按账户分片交给单线程执行，跨分片的变更两阶段提交
+     */
+    public enum ExecutionMode {LOCKED, SHARDED}
+    
     /**
      * 错误码枚举
      */
@@ -117,23 +176,30 @@ public class Constants {
     
     /**
      * 货币枚举
+     * scale: 最小货币单位的小数位数（ISO 4217），如人民币为2（分），日元为0
      */
     public enum Currency {
-        CNY("人民币", "¥"),
-        USD("美元", "$"),
-        EUR("欧元", "€"),
-        JPY("日元", "¥"),
-        GBP("英镑", "£"),
-        HKD("港币", "HK$"),
-        TWD("台币", "NT$"),
-        KRW("韩元", "₩");
+        CNY("人民币", "¥", 2),
+        USD("美元", "$", 2),
+        EUR("欧元", "€", 2),
+        JPY("日元", "¥", 0),
+        GBP("英镑", "£", 2),
+        HKD("港币", "HK$", 2),
+        TWD("台币", "NT$", 2),
+        KRW("韩元", "₩", 0);
         
         private final String name;
         private final String symbol;
+        private final int scale;
         
-        Currency(String name, String symbol) {
+        Currency(String name, String symbol, int scale) {
             this.name = name;
             this.symbol = symbol;
+            this.scale = scale;
+        }
+        
+        public int getScale() {
+            return scale;
         }
         
         public String getName() {
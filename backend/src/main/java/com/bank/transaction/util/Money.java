@@ -0,0 +1,54 @@
+package com.bank.transaction.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.bank.transaction.util.Constants.Currency;
+
+/**
+ * 定点金额工具类
+ *
+ * 核心记账路径上的金额以 long 最小货币单位（如人民币的分）表示，小数位数取自 {@link Currency#getScale()}。
+ * 只在接口边界（JSON、配置、错误信息）与 BigDecimal 互相转换，余额计算和比较不再分配 BigDecimal 对象。
+ */
+public final class Money {
+
+    /**
+     * 未指定币种时使用的小数位数
+     */
+    public static final int DEFAULT_SCALE = 2;
+
+    private Money() {}
+
+    /**
+     * 币种对应的小数位数，币种为空时返回 {@link #DEFAULT_SCALE}
+     */
+    public static int scaleOf(Currency currency) {
+        return currency != null ? currency.getScale() : DEFAULT_SCALE;
+    }
+
+    /**
+     * 转换为最小货币单位，小数位数超出 scale 时抛出 ArithmeticException
+     * @param amount 金额
+     * @param scale 小数位数
+     * @return 最小货币单位数量
+     */
+    public static long toMinor(BigDecimal amount, int scale) {
+        return toMinor(amount, scale, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * 按指定舍入方式转换为最小货币单位
+     * @throws ArithmeticException 超出 long 范围，或舍入方式为 UNNECESSARY 且需要舍入
+     */
+    public static long toMinor(BigDecimal amount, int scale, RoundingMode roundingMode) {
+        return amount.setScale(scale, roundingMode).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 最小货币单位转换为 BigDecimal
+     */
+    public static BigDecimal toBigDecimal(long minor, int scale) {
+        return BigDecimal.valueOf(minor, scale);
+    }
+}
@@ -12,6 +12,8 @@ public class PageInfo<T> implements Serializable {
     private int total = 0;                           // 总记录数
     private int maxPage = 0;                         // 总页数
     private List<T> items;                           // 当前页数据
+    private String cursor;                           // 游标分页：本页请求的游标
+    private String nextCursor;                       // 游标分页：下一页游标，没有更多数据时为null
 
     public PageInfo() {}
 
@@ -32,8 +34,16 @@ public class PageInfo<T> implements Serializable {
         return new PageInfo<>(items, page, pageSize, total);
     }
 
+    public static <T> PageInfo<T> ofCursor(List<T> items, String cursor, String nextCursor, int pageSize, int total) {
+        PageInfo<T> pageInfo = new PageInfo<>(items, 0, pageSize, total);
+        pageInfo.cursor = cursor != null ? cursor : "";
+        pageInfo.nextCursor = nextCursor;
+        return pageInfo;
+    }
+
     // 便捷判断方法
-    public boolean hasNext() {return page < maxPage - 1;}
+    public boolean isCursorMode() {return cursor != null;}
+    public boolean hasNext() {return isCursorMode() ? nextCursor != null : page < maxPage - 1;}
     public boolean hasPrevious() {return page > 0;}
     public boolean isEmpty() {return items == null || items.isEmpty();}
 
@@ -51,6 +61,10 @@ public class PageInfo<T> implements Serializable {
         return items;
     }
     public void setItems(List<T> items) {this.items = items;}
+    public String getCursor() {return cursor;}
+    public void setCursor(String cursor) {this.cursor = cursor;}
+    public String getNextCursor() {return nextCursor;}
+    public void setNextCursor(String nextCursor) {this.nextCursor = nextCursor;}
 
     // 兼容旧版本的方法名
     @Deprecated
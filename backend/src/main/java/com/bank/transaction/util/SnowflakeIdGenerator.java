@@ -0,0 +1,171 @@
+package com.bank.transaction.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.IdGeneratorConfig;
+
+/**
+ * 交易标识生成器（Snowflake 风格）
+ *
+ * 每个标识由 毫秒时间戳 + 节点号 + 毫秒内序号 组成，保持原有格式：
+ * - 交易ID：TXN + yyyyMMdd + 8位36进制（当日毫秒数、节点号、序号）
+ * - 参考号：REF + yyyyMMddHHmmss + 6位36进制（当秒毫秒数、节点号、序号）
+ * - 日期时间前缀按 UTC 计算：固定时区偏移没有夏令时切换，本地时间不会回拨，同一前缀不会重复出现
+ * - 幂等性键：IDM + 13位毫秒时间戳 + 8位36进制（节点号、序号）
+ *
+ * 特性：
+ * - 毫秒时间戳和序号合并在一个 AtomicLong 中递增，同一节点上严格单调，不加锁、不阻塞
+ * - 同一毫秒的序号用完时借用下一毫秒；时钟回拨时沿用已发出的时间戳继续递增，不会重复
+ * - 不同节点号（0-63）生成的标识互不冲突
+ * - 日期时间前缀按秒缓存，编码直接写入定长字符数组，不再创建 DateTimeFormatter 和 UUID
+ * - 36进制字符为 0-9A-Z，同一前缀下字典序与生成顺序一致
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    public static final int NODE_BITS = 6;
+    public static final int SEQUENCE_BITS = 8;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int NODE_SEQUENCE_BITS = NODE_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    private final ZoneOffset zone;
+
+    /**
+     * 最近发出的 毫秒时间戳 << SEQUENCE_BITS | 序号
+     */
+    private final AtomicLong lastTick = new AtomicLong();
+
+    private volatile TimePrefix cachedPrefix;
+
+    @Autowired
+    public SnowflakeIdGenerator(IdGeneratorConfig config) {
+        this(config.getNodeId());
+    }
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis, ZoneOffset.UTC);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock, ZoneOffset zone) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0-" + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+        this.zone = zone;
+    }
+
+    /**
+     * 生成交易ID：TXN + yyyyMMdd + 8位
+     */
+    public String nextTransactionId() {
+        long tick = nextTick();
+        long millis = tick >>> SEQUENCE_BITS;
+        TimePrefix prefix = prefixOf(millis);
+        char[] buffer = new char[19];
+        buffer[0] = 'T';
+        buffer[1] = 'X';
+        buffer[2] = 'N';
+        System.arraycopy(prefix.digits(), 0, buffer, 3, 8);
+        encode36(buffer, 11, 8, (millis - prefix.dayStart()) << NODE_SEQUENCE_BITS | nodeSequence(tick));
+        return new String(buffer);
+    }
+
+    /**
+     * 生成交易参考号：REF + yyyyMMddHHmmss + 6位
+     */
+    public String nextReferenceNumber() {
+        long tick = nextTick();
+        long millis = tick >>> SEQUENCE_BITS;
+        TimePrefix prefix = prefixOf(millis);
+        char[] buffer = new char[23];
+        buffer[0] = 'R';
+        buffer[1] = 'E';
+        buffer[2] = 'F';
+        System.arraycopy(prefix.digits(), 0, buffer, 3, 14);
+        encode36(buffer, 17, 6, (millis - prefix.secondStart()) << NODE_SEQUENCE_BITS | nodeSequence(tick));
+        return new String(buffer);
+    }
+
+    /**
+     * 生成幂等性键：IDM + 13位毫秒时间戳 + 8位
+     */
+    public String nextIdempotencyKey() {
+        long tick = nextTick();
+        char[] buffer = new char[24];
+        buffer[0] = 'I';
+        buffer[1] = 'D';
+        buffer[2] = 'M';
+        writeDecimal(buffer, 3, 13, tick >>> SEQUENCE_BITS);
+        encode36(buffer, 16, 8, nodeSequence(tick));
+        return new String(buffer);
+    }
+
+    /**
+     * 取下一个 毫秒时间戳 + 序号：不早于当前时间，且严格大于上次发出的值
+     */
+    private long nextTick() {
+        return lastTick.accumulateAndGet(clock.getAsLong() << SEQUENCE_BITS, (last, now) -> Math.max(last + 1, now));
+    }
+
+    private long nodeSequence(long tick) {
+        return nodeBits | (tick & SEQUENCE_MASK);
+    }
+
+    private TimePrefix prefixOf(long millis) {
+        TimePrefix prefix = cachedPrefix;
+        if (prefix == null || millis < prefix.secondStart() || millis >= prefix.secondStart() + 1000) {
+            prefix = TimePrefix.of(millis, zone);
+            cachedPrefix = prefix;
+        }
+        return prefix;
+    }
+
+    private static void encode36(char[] buffer, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = DIGITS[(int) (value % 36)];
+            value /= 36;
+        }
+    }
+
+    private static void writeDecimal(char[] buffer, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * 按秒缓存的日期时间前缀
+     * @param secondStart 当秒起始毫秒时间戳
+     * @param dayStart 当日零点毫秒时间戳
+     * @param digits yyyyMMddHHmmss
+     */
+    private record TimePrefix(long secondStart, long dayStart, char[] digits) {
+
+        static TimePrefix of(long millis, ZoneOffset zone) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+            char[] digits = new char[14];
+            writeDecimal(digits, 0, 4, time.getYear());
+            writeDecimal(digits, 4, 2, time.getMonthValue());
+            writeDecimal(digits, 6, 2, time.getDayOfMonth());
+            writeDecimal(digits, 8, 2, time.getHour());
+            writeDecimal(digits, 10, 2, time.getMinute());
+            writeDecimal(digits, 12, 2, time.getSecond());
+            long dayStart = time.toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+            return new TimePrefix(millis - Math.floorMod(millis, 1000), dayStart, digits);
+        }
+    }
+}
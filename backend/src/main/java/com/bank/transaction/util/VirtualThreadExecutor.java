@@ -1,25 +1,70 @@
 package com.bank.transaction.util;
 
+import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bank.transaction.config.VirtualThreadConfig;
+import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 
 /**
- * 虚拟线程执行器工具类
- * 基于Java 21虚拟线程，提供高性能并发执行能力
- * 
+ * 虚拟线程执行器
+ * 基于Java 21虚拟线程，提供有界、可超时的并行执行能力
+ *
+ * 特性：
+ * - 并发上限：所有并行调用共享一个信号量，大分页的扇出不会同时压到下游存储，超出的任务排队等待
+ * - 超时：每次调用有截止时间（默认见 {@link VirtualThreadConfig}），排队和执行都计入，超时后取消未完成的任务
+ * - 快速失败：任一任务失败立即取消同一调用中的其他任务，并抛出该任务的异常
+ * - 由 Spring 管理生命周期，应用关闭时关闭线程池
+ * - 指标：执行中任务数、排队任务数、超时次数、取消任务数
+ *
  * @author bank-transaction-system
- * @version 1.3.0
+ * @version 1.4.0
  */
-public class VirtualThreadExecutor {
-    // 共享的虚拟线程池，避免频繁创建和销毁
-    private static final ExecutorService virtualThreadPool = Executors.newVirtualThreadPerTaskExecutor();
+@Component
+public class VirtualThreadExecutor implements MeterBinder {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ExecutorService virtualThreadPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vt-exec-", 0).factory());
+    private final Semaphore permits;
+    private final Duration defaultTimeout;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    @Autowired
+    public VirtualThreadExecutor(VirtualThreadConfig config) {
+        this.permits = new Semaphore(Math.max(1, config.getMaxConcurrency()));
+        this.defaultTimeout = Duration.ofMillis(config.getTimeoutMillis());
+    }
 
     /**
      * 条件性虚拟线程执行
@@ -27,9 +72,9 @@ public class VirtualThreadExecutor {
      * @param runInMainThread 是否在主线程执行
      * @param logic 执行逻辑
      */
-    public static <T> void runWithVirtualThreads(List<T> list, Boolean runInMainThread, java.util.function.Consumer<T> logic) {
+    public <T> void runWithVirtualThreads(List<T> list, Boolean runInMainThread, Consumer<T> logic) {
         if (runInMainThread) {
-            list.stream().forEach(logic);
+            list.forEach(logic);
         } else {
             runWithVirtualThreads(list, logic);
         }
@@ -40,34 +85,41 @@ public class VirtualThreadExecutor {
      * @param list 执行列表
      * @param logic 执行逻辑
      */
-    public static <T> void runWithVirtualThreads(List<T> list, java.util.function.Consumer<T> logic) {
-        List<CompletableFuture<Void>> futures = list.stream()
-                .map(item -> CompletableFuture.runAsync(() -> logic.accept(item), virtualThreadPool))
-                .collect(Collectors.toList());
+    public <T> void runWithVirtualThreads(List<T> list, Consumer<T> logic) {
+        runWithVirtualThreadsLogic(list, item -> {
+            logic.accept(item);
+            return null;
+        });
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    /**
+     * 虚拟线程并行执行（有返回值），使用默认超时
+     * @param itemList 执行列表
+     * @param logic 执行逻辑
+     * @return 执行结果列表，顺序与执行列表一致
+     */
+    public <T, R> List<R> runWithVirtualThreadsLogic(List<T> itemList, Function<T, R> logic) {
+        return runWithVirtualThreadsLogic(itemList, logic, defaultTimeout);
     }
 
     /**
      * 虚拟线程并行执行（有返回值）
      * @param itemList 执行列表
      * @param logic 执行逻辑
-     * @return 执行结果列表
+     * @param timeout 本次调用的超时时间
+     * @return 执行结果列表，顺序与执行列表一致
+     * @throws SystemException 超时或等待被中断
      */
-    public static <T, R> List<R> runWithVirtualThreadsLogic(List<T> itemList, Function<T, R> logic) {
-        // 将 IntStream 映射为 CompletableFuture 并在虚拟线程中执行
-        List<CompletableFuture<R>> futures = IntStream.range(0, itemList.size())
-                .mapToObj(idx -> CompletableFuture.supplyAsync(() -> {
-                    T item = itemList.get(idx);
-                    // 执行传入的逻辑
-                    return logic.apply(item);
-                }, virtualThreadPool))
-                .collect(Collectors.toList());
-
-        // 等待所有任务完成并收集结果
-        return futures.stream()
-                .map(CompletableFuture::join) // 等待每个任务完成
-                .collect(Collectors.toList()); // 收集结果
+    public <T, R> List<R> runWithVirtualThreadsLogic(List<T> itemList, Function<T, R> logic, Duration timeout) {
+        if (itemList.isEmpty()) {
+            return List.of();
+        }
+        FanOut<R> fanOut = new FanOut<>(itemList.size(), System.nanoTime() + timeout.toNanos());
+        for (int i = 0; i < itemList.size(); i++) {
+            T item = itemList.get(i);
+            fanOut.fork(i, () -> logic.apply(item));
+        }
+        return fanOut.join();
     }
 
     /**
@@ -76,27 +128,153 @@ public class VirtualThreadExecutor {
      * @param logic 执行逻辑
      * @return 包含索引和结果的Map.Entry列表
      */
-    public static <T, R> List<Map.Entry<Integer, R>> runWithVirtualThreadsWithIndex(List<T> itemList, Function<T, R> logic) {
-        // 将 IntStream 映射为 CompletableFuture 并在虚拟线程中执行
-        List<CompletableFuture<Map.Entry<Integer, R>>> futures = IntStream.range(0, itemList.size())
-                .mapToObj(idx -> CompletableFuture.supplyAsync(() -> {
-                    T item = itemList.get(idx);
-                    // 执行传入的逻辑，并返回索引和结果
-                    R result = logic.apply(item);
-                    return (Map.Entry<Integer, R>) new AbstractMap.SimpleEntry<>(idx, result);
-                }, virtualThreadPool))
-                .collect(Collectors.toList());
-
-        // 等待所有任务完成并收集结果
-        return futures.stream()
-                .map(CompletableFuture::join) // 等待每个任务完成
-                .collect(Collectors.toList()); // 收集结果
+    public <T, R> List<Map.Entry<Integer, R>> runWithVirtualThreadsWithIndex(List<T> itemList, Function<T, R> logic) {
+        List<R> results = runWithVirtualThreadsLogic(itemList, logic);
+        List<Map.Entry<Integer, R>> entries = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            entries.add(new AbstractMap.SimpleEntry<>(i, results.get(i)));
+        }
+        return entries;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bank.virtual.tasks.inflight", inFlight, AtomicInteger::get)
+                .description("正在执行的并行任务数").register(registry);
+        Gauge.builder("bank.virtual.tasks.queued", queued, AtomicInteger::get)
+                .description("等待并发许可的并行任务数").register(registry);
+        FunctionCounter.builder("bank.virtual.tasks.timeouts", timeouts, LongAdder::sum)
+                .description("超时的并行调用次数").register(registry);
+        FunctionCounter.builder("bank.virtual.tasks.cancelled", cancelled, LongAdder::sum)
+                .description("因超时或其他任务失败被取消的任务数").register(registry);
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * 等待并发许可的任务数
+     */
+    public int getQueuedCount() {
+        return queued.get();
     }
 
     /**
      * 在应用关闭时，确保关闭线程池
      */
-    public static void shutdown() {
+    @PreDestroy
+    public void shutdown() {
         virtualThreadPool.shutdown();
+        try {
+            if (!virtualThreadPool.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                virtualThreadPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            virtualThreadPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 一次并行调用：所有任务完成、任一任务失败或到达截止时间时结束，结束时取消未完成的任务
+     */
+    private final class FanOut<R> {
+        private final long deadline;
+        private final List<Future<?>> futures;
+        private final Object[] results;
+        private final CountDownLatch remaining;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private FanOut(int size, long deadline) {
+            this.deadline = deadline;
+            this.futures = new ArrayList<>(size);
+            this.results = new Object[size];
+            this.remaining = new CountDownLatch(size);
+        }
+
+        void fork(int index, Callable<R> task) {
+            futures.add(virtualThreadPool.submit(() -> {
+                if (!acquire()) {
+                    throw new SystemException(ErrorCode.SYSTEM_ERROR, "等待并发许可超时");
+                }
+                inFlight.incrementAndGet();
+                try {
+                    results[index] = task.call();
+                    return null;
+                } catch (Throwable e) {
+                    fail(e);
+                    throw e;
+                } finally {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                    remaining.countDown();
+                }
+            }));
+        }
+
+        List<R> join() {
+            try {
+                long timeout = deadline - System.nanoTime();
+                if (!remaining.await(Math.max(0, timeout), TimeUnit.NANOSECONDS) && failure.get() == null) {
+                    timeouts.increment();
+                    cancelAll();
+                    throw new SystemException(ErrorCode.SYSTEM_ERROR, "并行任务执行超时");
+                }
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new SystemException(ErrorCode.SYSTEM_ERROR, "并行任务执行被中断");
+            }
+            Throwable error = failure.get();
+            if (error != null) {
+                cancelAll();
+                if (error instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (error instanceof Error fatal) {
+                    throw fatal;
+                }
+                throw new SystemException(ErrorCode.SYSTEM_ERROR, error);
+            }
+            // 计数归零前每个任务都已写入结果，CountDownLatch 保证结果对当前线程可见
+            @SuppressWarnings("unchecked")
+            List<R> ordered = (List<R>) Arrays.asList(results);
+            return ordered;
+        }
+
+        /**
+         * 在截止时间前获取并发许可，超时返回 false（调用方随后按超时处理）
+         */
+        private boolean acquire() throws InterruptedException {
+            queued.incrementAndGet();
+            try {
+                return permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        /**
+         * 记录第一个失败的任务并唤醒等待线程
+         */
+        private void fail(Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                while (remaining.getCount() > 0) {
+                    remaining.countDown();
+                }
+            }
+        }
+
+        private void cancelAll() {
+            for (Future<?> future : futures) {
+                if (future.cancel(true)) {
+                    cancelled.increment();
+                }
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bank.transaction.model.Account;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+
+/**
+ * 余额更新竞争基准测试：8个线程并发调用 updateBalance
+ *
+ * - accounts = 1：全部线程更新同一个账户，锁竞争最激烈
+ * - accounts = 4：线程分散到4个账户，每个账户2个线程
+ * - 每个线程交替存入、取出 0.01，余额保持稳定
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BalanceContentionBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class BalanceContentionBenchmark {
+
+    private static final BigDecimal DEPOSIT = new BigDecimal("0.01");
+    private static final BigDecimal WITHDRAW = DEPOSIT.negate();
+
+    @Param({"1", "4"})
+    private int accounts;
+
+    private AccountServiceImpl accountService;
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountService = new AccountServiceImpl();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        String accountId;
+        boolean deposit;
+
+        @Setup(Level.Trial)
+        public void setUp(BalanceContentionBenchmark benchmark) {
+            accountId = "ACC00" + (1 + benchmark.threadIndex.getAndIncrement() % benchmark.accounts);
+        }
+    }
+
+    @Benchmark
+    public Account updateBalance(ThreadState state) {
+        state.deposit = !state.deposit;
+        return accountService.updateBalance(state.accountId, state.deposit ? DEPOSIT : WITHDRAW).orElseThrow();
+    }
+}
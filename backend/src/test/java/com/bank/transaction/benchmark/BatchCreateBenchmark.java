@@ -0,0 +1,129 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.transaction.config.BatchConfig;
+import com.bank.transaction.config.IdempotencyConfig;
+import com.bank.transaction.config.PipelineConfig;
+import com.bank.transaction.config.TransactionConfig;
+import com.bank.transaction.config.TransactionLimitConfig;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.eventlog.TransactionEventLogger;
+import com.bank.transaction.idempotency.IdempotencyStore;
+import com.bank.transaction.limit.CumulativeLimitTracker;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.pipeline.PostTransactionPipeline;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.service.impl.TransactionServiceImpl;
+import com.bank.transaction.service.impl.TransactionToolServiceImpl;
+import com.bank.transaction.statistics.TransactionMetrics;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.Constants.BatchMode;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+
+/**
+ * 批量创建交易基准测试：逐笔调用 createTransaction 与一次调用 createTransactions 对比
+ *
+ * - 每次操作创建 batchSize 笔转账（ACC001 与 ACC002 之间往返，余额保持稳定），结果为每秒操作数，乘以 batchSize 即每秒交易数
+ * - 使用真实的内存存储、余额引擎和后续处理流水线；逐笔创建时余额由流水线记账阶段异步变更
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BatchCreateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BatchCreateBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int batchSize;
+
+    @Param({"single", "batch"})
+    private String api;
+
+    private TransactionServiceImpl transactionService;
+    private PostTransactionPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AccountServiceImpl accountService = new AccountServiceImpl();
+        CacheTransactionDao transactionDao = new CacheTransactionDao();
+        pipeline = new PostTransactionPipeline(new PipelineConfig(), transactionDao, accountService);
+        pipeline.start();
+
+        TransactionToolServiceImpl transactionToolService = new TransactionToolServiceImpl();
+        ReflectionTestUtils.setField(transactionToolService, "postTransactionPipeline", pipeline);
+        ReflectionTestUtils.setField(transactionToolService, "idGenerator", new SnowflakeIdGenerator(1));
+
+        TransactionLimitConfig limitConfig = new TransactionLimitConfig();
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setMaxSize(Integer.MAX_VALUE);
+        transactionService = new TransactionServiceImpl();
+        ReflectionTestUtils.setField(transactionService, "transactionDao", transactionDao);
+        ReflectionTestUtils.setField(transactionService, "transactionToolService", transactionToolService);
+        ReflectionTestUtils.setField(transactionService, "limitConfig", limitConfig);
+        ReflectionTestUtils.setField(transactionService, "accountService", accountService);
+        ReflectionTestUtils.setField(transactionService, "idempotencyStore", new IdempotencyStore(new IdempotencyConfig()));
+        ReflectionTestUtils.setField(transactionService, "cumulativeLimitTracker",
+                new CumulativeLimitTracker(limitConfig, new TransactionConfig(), transactionDao));
+        ReflectionTestUtils.setField(transactionService, "batchConfig", batchConfig);
+        ReflectionTestUtils.setField(transactionService, "transactionStatistics", new TransactionStatistics());
+        ReflectionTestUtils.setField(transactionService, "transactionMetrics", new TransactionMetrics());
+        ReflectionTestUtils.setField(transactionService, "transactionEventLogger", TransactionEventLogger.disabled());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Benchmark
+    public void create(Blackhole blackhole) {
+        List<Transaction> transactions = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            transactions.add(transfer(i % 2 == 0 ? "ACC001" : "ACC002", i % 2 == 0 ? "ACC002" : "ACC001"));
+        }
+        if ("batch".equals(api)) {
+            blackhole.consume(transactionService.createTransactions(transactions, BatchMode.ALL_OR_NOTHING));
+        } else {
+            for (Transaction transaction : transactions) {
+                blackhole.consume(transactionService.createTransaction(transaction));
+            }
+        }
+    }
+
+    private static Transaction transfer(String fromAccountId, String toAccountId) {
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("0.01"));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("BATCH");
+        transaction.setFromAccountId(fromAccountId);
+        transaction.setToAccountId(toAccountId);
+        return transaction;
+    }
+}
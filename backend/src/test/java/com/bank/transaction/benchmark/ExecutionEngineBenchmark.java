@@ -0,0 +1,97 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bank.transaction.config.ExecutionConfig;
+import com.bank.transaction.ledger.BalanceEngine;
+import com.bank.transaction.ledger.BalanceExecutor;
+import com.bank.transaction.ledger.ShardedBalanceEngine;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.util.Constants.AccountStatus;
+import com.bank.transaction.util.Constants.Currency;
+
+/**
+ * 余额变更执行方式基准测试：8个线程并发在随机账户之间转账 0.01
+ *
+ * - mode=locked：BalanceEngine 调用线程分段加锁执行（当前默认路径）
+ * - mode=sharded：ShardedBalanceEngine 按账户分片单线程执行，跨分片转账两阶段提交
+ * - accounts：参与转账的账户数，账户越少同一账户上的竞争越激烈
+ * - 同时统计吞吐量和单次转账耗时分布（SampleTime 输出 p99 等分位数），不包含记账分录
+ *
+ * 目前只有单处理器（nproc=1）上的结果：locked 约 4-8 ops/us，sharded 约 0.06 ops/us，
+ * 分片执行的每个命令都要两次线程切换；多核机器上的结果尚未测量，选择 SHARDED 之前需要在
+ * 处理器数多于分片数加提交线程数的机器上运行本测试。
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ExecutionEngineBenchmark -p shards=2,4,8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ExecutionEngineBenchmark {
+
+    @Param({"locked", "sharded"})
+    private String mode;
+
+    @Param({"16", "10000"})
+    private int accounts;
+
+    @Param({"4"})
+    private int shards;
+
+    private BalanceExecutor executor;
+    private Account[] accountArray;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("sharded".equals(mode)) {
+            ExecutionConfig config = new ExecutionConfig();
+            config.setShards(shards);
+            executor = new ShardedBalanceEngine(config);
+        } else {
+            executor = new BalanceEngine();
+        }
+        accountArray = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountArray[i] = new Account("ACC" + i, "622202" + i, "测试", null,
+                new BigDecimal("1000000000"), Currency.CNY, AccountStatus.ACTIVE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = random.nextInt(accounts - 1);
+        if (to >= from) {
+            to++;
+        }
+        executor.transferMinor(accountArray[from], accountArray[to], 1, 1, null);
+    }
+}
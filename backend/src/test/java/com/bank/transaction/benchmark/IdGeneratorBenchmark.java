@@ -0,0 +1,128 @@
+package com.bank.transaction.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bank.transaction.util.SnowflakeIdGenerator;
+
+/**
+ * 交易标识生成基准测试：原 DateTimeFormatter + UUID 实现与 SnowflakeIdGenerator 对比
+ *
+ * - createIds：8个平台线程并发，每次操作生成一笔交易所需的 交易ID + 参考号 + 幂等性键
+ * - virtualThreads：每次操作启动 10000 个虚拟线程，每个虚拟线程生成一组标识
+ *
+ * 运行（-prof gc 输出分配速率 gc.alloc.rate.norm）：
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main IdGeneratorBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private static final int VIRTUAL_THREADS = 10_000;
+
+    @Param({"legacy", "snowflake"})
+    private String generator;
+
+    private IdSource source;
+
+    @Setup
+    public void setUp() {
+        source = "legacy".equals(generator) ? new LegacyIdSource() : new SnowflakeIdSource(new SnowflakeIdGenerator(1));
+    }
+
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void createIds(Blackhole blackhole) {
+        blackhole.consume(source.transactionId());
+        blackhole.consume(source.referenceNumber());
+        blackhole.consume(source.idempotencyKey());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void virtualThreads(Blackhole blackhole) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                executor.submit(() -> {
+                    blackhole.consume(source.transactionId());
+                    blackhole.consume(source.referenceNumber());
+                    blackhole.consume(source.idempotencyKey());
+                });
+            }
+        }
+    }
+
+    private interface IdSource {
+        String transactionId();
+        String referenceNumber();
+        String idempotencyKey();
+    }
+
+    /**
+     * 原 TransactionToolServiceImpl 实现
+     */
+    private static final class LegacyIdSource implements IdSource {
+
+        @Override
+        public String transactionId() {
+            String datePrefix = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+            String randomSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
+            return "TXN" + datePrefix + randomSuffix;
+        }
+
+        @Override
+        public String referenceNumber() {
+            String timePrefix = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+            String randomSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
+            return "REF" + timePrefix + randomSuffix;
+        }
+
+        @Override
+        public String idempotencyKey() {
+            return "IDM" + System.currentTimeMillis() + UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
+        }
+    }
+
+    private record SnowflakeIdSource(SnowflakeIdGenerator generator) implements IdSource {
+
+        @Override
+        public String transactionId() {
+            return generator.nextTransactionId();
+        }
+
+        @Override
+        public String referenceNumber() {
+            return generator.nextReferenceNumber();
+        }
+
+        @Override
+        public String idempotencyKey() {
+            return generator.nextIdempotencyKey();
+        }
+    }
+}
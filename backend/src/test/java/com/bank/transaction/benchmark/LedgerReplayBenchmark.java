@@ -0,0 +1,95 @@
+package com.bank.transaction.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bank.transaction.config.LedgerConfig;
+import com.bank.transaction.ledger.JournalEntry;
+import com.bank.transaction.ledger.LedgerApplier;
+import com.bank.transaction.ledger.Posting;
+import com.bank.transaction.ledger.PostingJournal;
+
+/**
+ * 记账分录重放耗时基准测试
+ *
+ * - 分录日志保留全部 entries 条转账分录，涉及 100000 个账户
+ * - replay：单线程顺序访问全部分录行并累加到余额数组，是重建耗时的下限
+ * - rebuild：新建 LedgerApplier 从第一条分录重建余额视图，shards 个分片线程各自扫描全部分录
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main LedgerReplayBenchmark.replay
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main LedgerReplayBenchmark.rebuild -p entries=10000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LedgerReplayBenchmark {
+
+    private static final int ACCOUNTS = 100_000;
+    private static final int BATCH = 1024;
+
+    @Param({"1000000", "10000000"})
+    private int entries;
+
+    @Param({"1", "4"})
+    private int shards;
+
+    private PostingJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        journal = new PostingJournal(Integer.MAX_VALUE);
+        JournalEntry[] batch = new JournalEntry[BATCH];
+        for (int i = 0; i < entries; i += BATCH) {
+            int size = Math.min(BATCH, entries - i);
+            for (int j = 0; j < size; j++) {
+                int n = i + j;
+                long amount = 1 + n % 100_000;
+                batch[j] = JournalEntry.draft(JournalEntry.Type.POSTING, "TXN" + n, List.of(
+                    new Posting("ACC" + (n % ACCOUNTS), -amount, 2),
+                    new Posting("ACC" + ((n * 31 + 7) % ACCOUNTS), amount, 2)));
+            }
+            journal.appendAll(List.of(batch).subList(0, size));
+        }
+    }
+
+    @Benchmark
+    public long replay() {
+        long[] balances = new long[journal.getAccountCount()];
+        journal.forEachPosting(1, journal.getLastSequence(), (accountIndex, amountMinor, scale) -> balances[accountIndex] += amountMinor);
+        return balances[0];
+    }
+
+    @Benchmark
+    public long rebuild() {
+        LedgerConfig config = new LedgerConfig();
+        config.setShards(shards);
+        LedgerApplier applier = new LedgerApplier(journal, config);
+        applier.start();
+        try {
+            if (!applier.awaitApplied(journal.getLastSequence(), Duration.ofMinutes(5))) {
+                throw new IllegalStateException("重建超时");
+            }
+            return applier.getAppliedSequence();
+        } finally {
+            applier.shutdown();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bank.transaction.ledger.BalanceEngine;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.util.Constants.Currency;
+
+/**
+ * 余额记账路径基准测试：BigDecimal 与 long 最小货币单位对比
+ *
+ * 每次操作为一笔“余额校验 + 扣款 + 入账”：
+ * - legacyBigDecimal：原实现，BigDecimal 比较、加减并写回余额（无锁，并发下会丢失更新）
+ * - lockedBigDecimal：原实现逐笔加锁（扣款、入账各加锁一次），作为线程安全的对照组
+ * - engineMinor：BalanceEngine 以 long 最小货币单位记账（含分段锁）
+ * - engineBigDecimalBoundary：同上，但每次在边界把 BigDecimal 金额转换为最小货币单位
+ *
+ * 运行（-prof gc 输出分配速率 gc.alloc.rate.norm）：
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main MoneyBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("12.34");
+    private final long amountMinor = 1234L;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private BigDecimal legacyBalance;
+    private BalanceEngine engine;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        legacyBalance = new BigDecimal("100000.00");
+        engine = new BalanceEngine();
+        account = new Account();
+        account.setAccountId("ACC001");
+        account.setCurrency(Currency.CNY);
+        account.setBalance(new BigDecimal("100000.00"));
+    }
+
+    @Benchmark
+    public BigDecimal legacyBigDecimal() {
+        if (legacyBalance.compareTo(amount) <= 0) {
+            throw new IllegalStateException("余额不足");
+        }
+        BigDecimal debited = legacyBalance.add(amount.negate());
+        if (debited.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalStateException("余额不足");
+        }
+        legacyBalance = debited.add(amount);
+        return legacyBalance;
+    }
+
+    @Benchmark
+    public BigDecimal lockedBigDecimal() {
+        if (legacyBalance.compareTo(amount) <= 0) {
+            throw new IllegalStateException("余额不足");
+        }
+        lock.lock();
+        try {
+            BigDecimal debited = legacyBalance.add(amount.negate());
+            if (debited.compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalStateException("余额不足");
+            }
+            legacyBalance = debited;
+        } finally {
+            lock.unlock();
+        }
+        lock.lock();
+        try {
+            legacyBalance = legacyBalance.add(amount);
+            return legacyBalance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public long engineMinor() {
+        if (account.getBalanceMinor() <= amountMinor) {
+            throw new IllegalStateException("余额不足");
+        }
+        engine.applyMinor(account, -amountMinor);
+        return engine.applyMinor(account, amountMinor);
+    }
+
+    @Benchmark
+    public long engineBigDecimalBoundary() {
+        engine.apply(account, amount.negate());
+        return engine.apply(account, amount);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionQueryIndex;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 组合查询索引基准测试：records 笔交易上的一页（20条）查询耗时
+ *
+ * - status：单个等值条件（约1/4的交易匹配）
+ * - intersect：状态 + 币种 + 渠道三个位图求交集
+ * - amountRange：状态 + 金额范围，在位图候选行上比较金额列
+ * - timeRange：只有时间范围（最近1%），在全部行上比较时间列
+ * - deepPage：单个等值条件的第500页
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main QueryIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class QueryIndexBenchmark {
+
+    private static final String[] CHANNELS = {"ONLINE", "MOBILE", "ATM", "BRANCH", "BATCH"};
+
+    @Param({"1000000", "5000000"})
+    private int records;
+
+    private TransactionQueryIndex index;
+    private LocalDateTime base;
+
+    private TransactionQuery statusQuery;
+    private TransactionQuery intersectQuery;
+    private TransactionQuery amountRangeQuery;
+    private TransactionQuery timeRangeQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new TransactionQueryIndex();
+        base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        TransactionStatus[] statuses = TransactionStatus.values();
+        Currency[] currencies = Currency.values();
+        TransactionType[] types = TransactionType.values();
+        Transaction transaction = new Transaction();
+        for (int i = 0; i < records; i++) {
+            transaction.setId("TXN" + i);
+            transaction.setStatus(statuses[i % statuses.length]);
+            transaction.setCurrency(currencies[(i / 7) % currencies.length]);
+            transaction.setType(types[(i / 3) % types.length]);
+            transaction.setChannel(CHANNELS[(i / 11) % CHANNELS.length]);
+            transaction.setAmount(BigDecimal.valueOf(i % 1_000_000, 2));
+            transaction.setTimestamp(base.plusNanos(i * 10_000_000L));
+            index.add(transaction);
+        }
+        statusQuery = new TransactionQuery(TransactionStatus.COMPLETED, null, null, null, null, null, null, null);
+        intersectQuery = new TransactionQuery(TransactionStatus.COMPLETED, null, Currency.USD, "ATM", null, null, null, null);
+        amountRangeQuery = new TransactionQuery(TransactionStatus.COMPLETED, null, null, null,
+                new BigDecimal("100.00"), new BigDecimal("200.00"), null, null);
+        timeRangeQuery = new TransactionQuery(null, null, null, null, null, null,
+                base.plusNanos(records * 9_900_000L), null);
+    }
+
+    @Benchmark
+    public TransactionQueryIndex.Result status() {
+        return index.query(statusQuery, 0, 20);
+    }
+
+    @Benchmark
+    public TransactionQueryIndex.Result intersect() {
+        return index.query(intersectQuery, 0, 20);
+    }
+
+    @Benchmark
+    public TransactionQueryIndex.Result amountRange() {
+        return index.query(amountRangeQuery, 0, 20);
+    }
+
+    @Benchmark
+    public TransactionQueryIndex.Result timeRange() {
+        return index.query(timeRangeQuery, 0, 20);
+    }
+
+    @Benchmark
+    public TransactionQueryIndex.Result deepPage() {
+        return index.query(statusQuery, 500 * 20, 20);
+    }
+}
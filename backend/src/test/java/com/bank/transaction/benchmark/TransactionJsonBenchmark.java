@@ -0,0 +1,109 @@
+package com.bank.transaction.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * 交易 JSON 序列化基准测试，ObjectMapper 按 application.yml 的 spring.jackson 配置构建
+ *
+ * - serialize / deserialize：单笔交易（创建接口的请求和响应）
+ * - serializePage：一页20笔交易（列表接口的响应）
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TransactionJsonBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionJsonBenchmark {
+
+    private ObjectWriter transactionWriter;
+    private ObjectReader transactionReader;
+    private ObjectWriter pageWriter;
+
+    private Transaction transaction;
+    private byte[] transactionJson;
+    private PageInfo<Transaction> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new Jackson2ObjectMapperBuilder()
+                .simpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .timeZone(TimeZone.getTimeZone("Asia/Shanghai"))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        transactionWriter = objectMapper.writerFor(Transaction.class);
+        transactionReader = objectMapper.readerFor(Transaction.class);
+        pageWriter = objectMapper.writerFor(PageInfo.class);
+
+        List<Transaction> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(transaction(i));
+        }
+        transaction = items.get(0);
+        transactionJson = transactionWriter.writeValueAsBytes(transaction);
+        page = PageInfo.of(items, 0, items.size(), 1000);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return transactionWriter.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserialize() throws IOException {
+        return transactionReader.readValue(transactionJson);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    private static Transaction transaction(int i) {
+        Transaction transaction = new Transaction();
+        transaction.setId("TXN2024010100000000" + i);
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("ONLINE");
+        transaction.setDirection("OUT");
+        transaction.setAmount(new BigDecimal("1234.56"));
+        transaction.setRemark("转账备注");
+        transaction.setFromAccountId("ACC001");
+        transaction.setToAccountId("ACC002");
+        transaction.setReferenceNumber("REF20240101" + i);
+        transaction.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0).plusSeconds(i));
+        return transaction;
+    }
+}
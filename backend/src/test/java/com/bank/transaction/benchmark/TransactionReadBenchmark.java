@@ -0,0 +1,94 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.impl.TransactionServiceImpl;
+import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 交易查询基准测试：records 笔交易上的分页列表和按账户查询耗时
+ *
+ * - firstPage / deepPage：getAllTransactions 第一页和中间一页（每页20条），比较深分页的额外开销
+ * - findByAccountId：查询一个账户的全部交易（交易平均分布在4个账户，约 records / 2 笔涉及该账户）
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TransactionReadBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TransactionReadBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String[] ACCOUNTS = {"ACC001", "ACC002", "ACC003", "ACC004"};
+
+    @Param({"100000", "1000000"})
+    private int records;
+
+    private TransactionServiceImpl transactionService;
+    private CacheTransactionDao transactionDao;
+    private int deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionDao = new CacheTransactionDao();
+        transactionService = new TransactionServiceImpl();
+        ReflectionTestUtils.setField(transactionService, "transactionDao", transactionDao);
+
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < records; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(String.format("TXN%010d", i));
+            transaction.setType(TransactionType.TRANSFER);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setCurrency(Currency.CNY);
+            transaction.setChannel("ONLINE");
+            transaction.setAmount(BigDecimal.valueOf(i % 100_000, 2));
+            transaction.setFromAccountId(ACCOUNTS[i % ACCOUNTS.length]);
+            transaction.setToAccountId(ACCOUNTS[(i + 1) % ACCOUNTS.length]);
+            transaction.setTimestamp(base.plusNanos(i * 10_000_000L));
+            transactionDao.save(transaction);
+        }
+        deepPage = records / PAGE_SIZE / 2;
+    }
+
+    @Benchmark
+    public PageInfo<Transaction> firstPage() {
+        return transactionService.getAllTransactions(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PageInfo<Transaction> deepPage() {
+        return transactionService.getAllTransactions(deepPage, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> findByAccountId() {
+        return transactionDao.findByAccountId("ACC001");
+    }
+}
@@ -0,0 +1,145 @@
+package com.bank.transaction.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bank.transaction.config.PersistenceConfig;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.service.impl.TransactionToolServiceImpl;
+import com.bank.transaction.storage.DurableStore;
+import com.bank.transaction.storage.SnapshotFile;
+import com.bank.transaction.storage.TransactionCodec;
+import com.bank.transaction.storage.WriteAheadLog;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+/**
+ * 内存存储恢复耗时基准测试
+ *
+ * - source=wal：全部交易只在 WAL 中（最坏情况，从未写过快照）
+ * - source=snapshot：全部交易在快照中，WAL 为空
+ * - decode：只读取、校验并解码全部记录，是恢复耗时的下限
+ * - recover：DurableStore 完整恢复到新的 CacheTransactionDao（含账户索引和时间索引），受堆大小限制
+ *
+ * 运行：
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WalRecoveryBenchmark.decode -p records=10000000
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main WalRecoveryBenchmark.recover -p records=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WalRecoveryBenchmark {
+
+    private static final int ACCOUNTS = 100_000;
+
+    @Param({"1000000", "10000000"})
+    private int records;
+
+    @Param({"wal", "snapshot"})
+    private String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-recovery");
+        LocalDateTime base = LocalDateTime.of(2024, 12, 25, 0, 0);
+        if ("wal".equals(source)) {
+            try (WriteAheadLog wal = new WriteAheadLog(directory, 256 * 1024 * 1024, false, 1)) {
+                for (int i = 0; i < records; i++) {
+                    wal.append((byte) 1, TransactionCodec.encode(transaction(i, base)));
+                }
+            }
+        } else {
+            SnapshotFile.write(directory, 1, List.of(), List.of(), action -> {
+                for (int i = 0; i < records; i++) {
+                    action.accept(TransactionCodec.encode(transaction(i, base)));
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long decode(Blackhole blackhole) throws IOException {
+        if ("wal".equals(source)) {
+            return WriteAheadLog.replay(directory, 1, (seq, type, payload) -> blackhole.consume(TransactionCodec.decode(payload))).replayed();
+        }
+        return SnapshotFile.read(SnapshotFile.list(directory).get(0), new SnapshotFile.Handler() {
+            @Override
+            public void balance(String accountId, long balanceMinor, int balanceScale) {}
+
+            @Override
+            public void posted(String transactionId) {}
+
+            @Override
+            public void transaction(byte[] encoded) {
+                blackhole.consume(TransactionCodec.decode(encoded));
+            }
+        });
+    }
+
+    @Benchmark
+    public DurableStore.RecoveryStats recover() throws IOException {
+        PersistenceConfig config = new PersistenceConfig();
+        config.setDirectory(directory.toString());
+        config.setSnapshotIntervalSeconds(0);
+        config.setFsync(false);
+        DurableStore store = new DurableStore(config, new CacheTransactionDao(), new AccountServiceImpl(), new TransactionToolServiceImpl());
+        store.start();
+        store.stop();
+        return store.getRecoveryStats();
+    }
+
+    private static Transaction transaction(int i, LocalDateTime base) {
+        Transaction transaction = new Transaction();
+        transaction.setId(String.format("TXN20241225%08d", i));
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(BigDecimal.valueOf(10_000 + i % 100_000, 2));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("ONLINE");
+        transaction.setReferenceNumber(String.format("REF20241225000000%06d", i % 1_000_000));
+        transaction.setDirection("OUT");
+        transaction.setFromAccountId("ACC" + (i % ACCOUNTS));
+        transaction.setToAccountId("ACC" + ((i * 7 + 1) % ACCOUNTS));
+        transaction.setTimestamp(base.plusNanos(i * 1_000_000L));
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        return transaction;
+    }
+}
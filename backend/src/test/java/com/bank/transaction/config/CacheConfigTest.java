@@ -0,0 +1,110 @@
+package com.bank.transaction.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.model.Transaction;
+
+@DisplayName("缓存配置单元测试")
+class CacheConfigTest {
+
+    private final CacheConfig cacheConfig = new CacheConfig();
+    private StorageConfig storageConfig;
+
+    @BeforeEach
+    void setUp() {
+        storageConfig = new StorageConfig();
+    }
+
+    @Test
+    @DisplayName("默认使用有界 Caffeine 缓存 - 超出容量后淘汰")
+    void testCaffeineCacheIsBounded() {
+        // Given
+        StorageConfig.Spec spec = new StorageConfig.Spec();
+        spec.setMaxSize(10);
+        storageConfig.getCache().getSpecs().put(CacheConfig.TRANSACTIONS, spec);
+        CacheManager cacheManager = cacheConfig.cacheManager(storageConfig, new CacheTransactionDao());
+
+        // When
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTIONS);
+        for (int i = 0; i < 100; i++) {
+            cache.put("TXN" + i, new Transaction());
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+        nativeCache.cleanUp();
+
+        // Then
+        assertInstanceOf(CaffeineCacheManager.class, cacheManager);
+        assertTrue(cacheManager.getCacheNames().containsAll(
+            List.of("transactions", "transactionsByAccount", "transactionsByStatus", "transactionStatistics")));
+        assertTrue(nativeCache.estimatedSize() <= 10, "缓存条数应不超过上限，实际: " + nativeCache.estimatedSize());
+        assertTrue(nativeCache.stats().evictionCount() >= 90);
+    }
+
+    @Test
+    @DisplayName("按缓存名称覆盖规格 - 未覆盖项使用全局默认值")
+    void testSpecOf_FallsBackToDefaults() {
+        // Given
+        StorageConfig.Spec spec = new StorageConfig.Spec();
+        spec.setMaxSize(100);
+        storageConfig.getCache().getSpecs().put(CacheConfig.TRANSACTION_STATISTICS, spec);
+
+        // When
+        StorageConfig.Spec statistics = storageConfig.getCache().specOf(CacheConfig.TRANSACTION_STATISTICS);
+        StorageConfig.Spec transactions = storageConfig.getCache().specOf(CacheConfig.TRANSACTIONS);
+
+        // Then
+        assertEquals(100, statistics.getMaxSize());
+        assertEquals(60L, statistics.getExpireMinutes());
+        assertEquals(10000, transactions.getMaxSize());
+        assertEquals(0L, transactions.getRefreshMinutes());
+    }
+
+    @Test
+    @DisplayName("异步模式 - 带刷新的交易缓存可正常读写")
+    void testAsyncCacheMode() {
+        // Given
+        storageConfig.getCache().setAsync(true);
+        storageConfig.getCache().setRefreshMinutes(5);
+        CacheTransactionDao transactionDao = new CacheTransactionDao();
+        Transaction transaction = new Transaction();
+        transaction.setId("TXN001");
+        transaction.setAmount(new BigDecimal("100"));
+        transactionDao.save(transaction);
+        CacheManager cacheManager = cacheConfig.cacheManager(storageConfig, transactionDao);
+
+        // When
+        Cache cache = cacheManager.getCache(CacheConfig.TRANSACTIONS);
+        cache.put("TXN001", transaction);
+
+        // Then
+        assertSame(transaction, cache.get("TXN001", Transaction.class));
+        assertNull(cache.get("UNKNOWN"));
+    }
+
+    @Test
+    @DisplayName("simple 模式 - 回退为 ConcurrentMapCacheManager")
+    void testSimpleManager() {
+        // Given
+        storageConfig.getCache().setManager("simple");
+
+        // When
+        CacheManager cacheManager = cacheConfig.cacheManager(storageConfig, new CacheTransactionDao());
+
+        // Then
+        assertInstanceOf(ConcurrentMapCacheManager.class, cacheManager);
+        assertNotNull(cacheManager.getCache(CacheConfig.TRANSACTIONS));
+    }
+}
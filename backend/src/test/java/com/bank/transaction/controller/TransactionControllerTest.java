@@ -1,16 +1,26 @@
 package com.bank.transaction.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,13 +32,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.bank.transaction.index.TransactionQuery;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.ErrorLogService;
+import com.bank.transaction.service.TransactionExportService;
 import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.statistics.TransactionStatistics;
 import com.bank.transaction.util.Constants.Currency;
 import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
 import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.BatchResult;
 import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.Constants.BatchMode;
+import com.bank.transaction.util.Constants.ExportFormat;
 import com.bank.transaction.exception.business.ValidationException;
 import com.bank.transaction.exception.business.BusinessException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -46,6 +63,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
     
+    @MockBean
+    private TransactionExportService transactionExportService;
+    
+    @MockBean
+    private ErrorLogService errorLogService;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -85,6 +108,35 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.toAccountId").value("ACC002"));
     }
     
+    @Test
+    @DisplayName("批量创建交易 - 返回每笔交易的结果")
+    void createTransactions_Success() throws Exception {
+        // Given
+        BatchResult batchResult = new BatchResult(BatchMode.BEST_EFFORT, 2);
+        batchResult.addSuccess(0, sampleTransaction);
+        batchResult.addFailure(1, ErrorCode.INSUFFICIENT_BALANCE, "账户余额不足");
+        when(transactionService.createTransactions(anyList(), eq(BatchMode.BEST_EFFORT))).thenReturn(batchResult);
+        
+        // When & Then
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("mode", "BEST_EFFORT",
+                        "transactions", List.of(sampleTransaction, sampleTransaction)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].transaction.id").value("TXN001"))
+                .andExpect(jsonPath("$.items[1].errorCode").value("2002"));
+    }
+    
+    @Test
+    @DisplayName("批量创建交易 - 空列表返回400")
+    void createTransactions_Empty() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transactions\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     @DisplayName("创建交易 - 自转账校验失败")
     void createTransaction_SelfTransfer_Fail() throws Exception {
@@ -147,6 +199,7 @@ class TransactionControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(largAmountTransaction)))
                 .andExpect(status().isBadRequest()); // BusinessException 返回400
+        verify(errorLogService).saveError(any(BusinessException.class), any());
     }
     
     @Test
@@ -191,6 +244,50 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.total").value(1));
     }
     
+    @Test
+    @DisplayName("组合查询交易 - 请求参数组装为查询条件")
+    void searchTransactions_Success() throws Exception {
+        // Given
+        PageInfo<Transaction> pageInfo = PageInfo.of(Arrays.asList(sampleTransaction), 1, 10, 11);
+        TransactionQuery query = new TransactionQuery(TransactionStatus.PENDING, TransactionType.TRANSFER, Currency.CNY, "ONLINE",
+                new BigDecimal("100"), new BigDecimal("5000"), LocalDateTime.of(2024, 12, 1, 0, 0), null);
+        
+        when(transactionService.searchTransactions(query, 1, 10)).thenReturn(pageInfo);
+        
+        // When & Then
+        mockMvc.perform(post("/api/transactions/search")
+                .param("status", "PENDING")
+                .param("type", "TRANSFER")
+                .param("currency", "CNY")
+                .param("channel", "ONLINE")
+                .param("minAmount", "100")
+                .param("maxAmount", "5000")
+                .param("from", "2024-12-01T00:00:00")
+                .param("page", "1")
+                .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("TXN001"))
+                .andExpect(jsonPath("$.total").value(11));
+    }
+    
+    @Test
+    @DisplayName("游标分页查询交易 - 成功")
+    void getTransactionsByCursor_Success() throws Exception {
+        // Given
+        PageInfo<Transaction> pageInfo = PageInfo.ofCursor(Arrays.asList(sampleTransaction), "", "NEXT", 20, 30);
+        
+        when(transactionService.getTransactionsByCursor("", 20)).thenReturn(pageInfo);
+        
+        // When & Then
+        mockMvc.perform(post("/api/transactions")
+                .param("cursor", "")
+                .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("TXN001"))
+                .andExpect(jsonPath("$.nextCursor").value("NEXT"))
+                .andExpect(jsonPath("$.hasNextPage").value(true));
+    }
+    
     @Test
     @DisplayName("更新交易 - 成功")
     void updateTransaction_Success() throws Exception {
@@ -237,6 +334,57 @@ class TransactionControllerTest {
                 .andExpect(status().isUnprocessableEntity());
     }
     
+    @Test
+    @DisplayName("账户流入流出统计 - 成功")
+    void getAccountFlow_Success() throws Exception {
+        // Given
+        TransactionStatistics.AccountFlow flow = new TransactionStatistics.AccountFlow("ACC001",
+                new TransactionStatistics.Aggregate(2, new BigDecimal("300.00")),
+                new TransactionStatistics.Aggregate(1, new BigDecimal("50.00")));
+        when(transactionService.getAccountFlow("ACC001")).thenReturn(flow);
+        
+        // When & Then
+        mockMvc.perform(post("/api/transactions/statistics/accounts/ACC001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inflow.count").value(2))
+                .andExpect(jsonPath("$.outflow.amount").value(50.00));
+    }
+    
+    @Test
+    @DisplayName("导出交易 - 按条件流式写出CSV")
+    void exportTransactions_Csv() throws Exception {
+        // Given
+        TransactionExportService.Filter filter = new TransactionExportService.Filter("ACC001",
+                LocalDateTime.of(2024, 12, 1, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0), TransactionStatus.COMPLETED);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class).write("id\nTXN001\n".getBytes());
+            return 1L;
+        }).when(transactionExportService).export(eq(filter), eq(ExportFormat.CSV), any(OutputStream.class));
+        
+        // When & Then
+        mockMvc.perform(post("/api/transactions/export")
+                .param("format", "CSV")
+                .param("accountId", "ACC001")
+                .param("from", "2024-12-01T00:00:00")
+                .param("to", "2025-01-01T00:00:00")
+                .param("status", "COMPLETED"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""))
+                .andExpect(content().string("id\nTXN001\n"));
+    }
+    
+    @Test
+    @DisplayName("导出交易 - 开始时间不早于结束时间")
+    void exportTransactions_InvalidTimeRange() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/transactions/export")
+                .param("from", "2025-01-01T00:00:00")
+                .param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isUnprocessableEntity());
+        verify(transactionExportService, never()).export(any(), any(), any());
+    }
+    
     @Test
     @DisplayName("参数校验 - 缺少必填字段")
     void validation_MissingRequiredFields() throws Exception {
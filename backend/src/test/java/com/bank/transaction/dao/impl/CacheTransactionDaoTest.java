@@ -0,0 +1,342 @@
+package com.bank.transaction.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.StorageConfig;
+import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.bank.transaction.util.PageInfo;
+
+@DisplayName("内存交易DAO单元测试")
+class CacheTransactionDaoTest {
+
+    private CacheTransactionDao transactionDao;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        transactionDao = new CacheTransactionDao();
+    }
+
+    @Test
+    @DisplayName("按账户查询 - 按时间倒序返回转出和转入交易")
+    void testFindByAccountId_NewestFirst() {
+        // Given
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transaction("TXN002", TransactionType.DEPOSIT, null, "ACC001", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN003", TransactionType.WITHDRAWAL, "ACC003", null, base.plusSeconds(3)));
+
+        // When
+        List<Transaction> result = transactionDao.findByAccountId("ACC001");
+
+        // Then
+        assertEquals(List.of("TXN002", "TXN001"), result.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN001"), transactionDao.findByAccountId("ACC002").stream().map(Transaction::getId).toList());
+        assertTrue(transactionDao.findByAccountId("ACC999").isEmpty());
+    }
+
+    @Test
+    @DisplayName("按账户查询 - 识别账户对象中的账户ID")
+    void testFindByAccountId_AccountObjectOnly() {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER, null, null, base);
+        transaction.setFromAccount(account("ACC001"));
+        transaction.setToAccount(account("ACC002"));
+        transactionDao.save(transaction);
+
+        // Then
+        assertEquals(1, transactionDao.findByAccountId("ACC001").size());
+        assertEquals(1, transactionDao.findByAccountId("ACC002").size());
+    }
+
+    @Test
+    @DisplayName("重复保存 - 更新状态不产生重复索引")
+    void testSave_ResaveDoesNotDuplicate() {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base);
+        transactionDao.save(transaction);
+
+        // When
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transactionDao.save(transaction);
+
+        // Then
+        List<Transaction> result = transactionDao.findByAccountId("ACC001");
+        assertEquals(1, result.size());
+        assertEquals(TransactionStatus.COMPLETED, result.get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("删除交易 - 同步清理账户索引")
+    void testDeleteById_RemovesFromAccountIndex() {
+        // Given
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base));
+
+        // When
+        transactionDao.deleteById("TXN001");
+
+        // Then
+        assertTrue(transactionDao.findById("TXN001").isEmpty());
+        assertTrue(transactionDao.findByAccountId("ACC001").isEmpty());
+        assertTrue(transactionDao.findByAccountId("ACC002").isEmpty());
+    }
+
+    @Test
+    @DisplayName("热层容量受限 - 淘汰后从冷层恢复完整交易")
+    void testHotTierEviction_FallsBackToColdTier() {
+        // Given - 热层最多保留10条
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getCache().setMaxSize(10);
+        CacheTransactionDao boundedDao = new CacheTransactionDao(storageConfig);
+        for (int i = 0; i < 100; i++) {
+            Transaction transaction = transaction("TXN" + i, TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(i));
+            transaction.setAmount(new BigDecimal("100.25"));
+            transaction.setCurrency(Currency.CNY);
+            transaction.setIdempotencyKey("IDM" + i);
+            boundedDao.save(transaction);
+        }
+        boundedDao.cleanUp();
+
+        // When
+        Transaction restored = boundedDao.findById("TXN0").orElseThrow();
+        List<Transaction> history = boundedDao.findByAccountId("ACC001");
+        boundedDao.cleanUp();
+
+        // Then
+        CacheTransactionDao.StorageStats stats = boundedDao.getStorageStats();
+        assertTrue(stats.hotSize() <= 10, "热层条数应不超过上限，实际: " + stats.hotSize());
+        assertEquals(100, stats.coldSize());
+        assertTrue(stats.evictions() >= 90);
+        assertTrue(stats.coldHits() > 0);
+        assertEquals(100, history.size());
+        assertEquals(0, new BigDecimal("100.25").compareTo(restored.getAmount()));
+        assertEquals(Currency.CNY, restored.getCurrency());
+        assertEquals("IDM0", restored.getIdempotencyKey());
+        assertEquals(base, restored.getTimestamp());
+    }
+
+    @Test
+    @DisplayName("存储条数受限 - 达到上限后拒绝新交易，已有交易仍可更新，删除后释放容量")
+    void testMaxRecords_RejectsNewTransactions() {
+        // Given - 最多保存3条
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getCache().setMaxRecords(3);
+        CacheTransactionDao boundedDao = new CacheTransactionDao(storageConfig);
+        boundedDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base));
+        boundedDao.save(transaction("TXN002", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+
+        // When & Then - 批量保存超过剩余容量时整批不写入
+        assertThrows(SystemException.class, () -> boundedDao.saveAll(List.of(
+            transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(2)),
+            transaction("TXN004", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(3)))));
+        assertEquals(2, boundedDao.count());
+
+        boundedDao.save(transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(2)));
+        SystemException exception = assertThrows(SystemException.class,
+            () -> boundedDao.save(transaction("TXN004", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(3))));
+        assertEquals(ErrorCode.DATABASE_ERROR, exception.getErrorCode());
+        assertTrue(boundedDao.findById("TXN004").isEmpty());
+        assertEquals(3, boundedDao.findByAccountId("ACC001").size());
+        assertTrue(boundedDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED).isPresent());
+
+        boundedDao.deleteById("TXN002");
+        boundedDao.save(transaction("TXN004", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(3)));
+        assertEquals(3, boundedDao.getStorageStats().coldSize());
+    }
+
+    @Test
+    @DisplayName("批量查询 - 保持ID顺序，跳过不存在的ID，热层淘汰的从冷层恢复")
+    void testFindAllById() {
+        // Given - 热层最多保留10条
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getCache().setMaxSize(10);
+        CacheTransactionDao boundedDao = new CacheTransactionDao(storageConfig);
+        for (int i = 0; i < 50; i++) {
+            boundedDao.save(transaction("TXN" + i, TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(i)));
+        }
+        boundedDao.cleanUp();
+
+        // When
+        List<Transaction> result = boundedDao.findAllById(List.of("TXN49", "UNKNOWN", "TXN0", "TXN25"));
+
+        // Then
+        assertEquals(List.of("TXN49", "TXN0", "TXN25"), result.stream().map(Transaction::getId).toList());
+        assertTrue(boundedDao.getStorageStats().coldHits() > 0);
+        assertEquals(1, boundedDao.getStorageStats().misses());
+        assertTrue(boundedDao.findAllById(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("按账户区间查询 - 按 (时间, ID) 升序返回游标之后、结束时间之前的交易")
+    void testFindByAccountIdAfter() {
+        // Given - TXN002 和 TXN003 时间相同
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC003", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN002", TransactionType.DEPOSIT, null, "ACC001", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN004", TransactionType.WITHDRAWAL, "ACC003", null, base.plusSeconds(3)));
+        transactionDao.save(transaction("TXN005", TransactionType.TRANSFER, "ACC002", "ACC001", base.plusSeconds(5)));
+        TimeCursor start = new TimeCursor(Long.MIN_VALUE, "");
+
+        // When
+        List<Transaction> beforeEnd = transactionDao.findByAccountIdAfter("ACC001", start, TransactionTimeIndex.toTimeKey(base.plusSeconds(5)), 10);
+        List<Transaction> limited = transactionDao.findByAccountIdAfter("ACC001", start, Long.MAX_VALUE, 2);
+        List<Transaction> next = transactionDao.findByAccountIdAfter("ACC001",
+                new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(2)), "TXN002"), Long.MAX_VALUE, 10);
+
+        // Then
+        assertEquals(List.of("TXN001", "TXN002", "TXN003"), beforeEnd.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN001", "TXN002"), limited.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN003", "TXN005"), next.stream().map(Transaction::getId).toList());
+        assertTrue(transactionDao.findByAccountIdAfter("ACC999", start, Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("组合查询 - 状态、币种、渠道和金额范围同时满足，按时间倒序分页，状态变更后按新状态查询")
+    void testFindByQuery() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = transaction("TXN" + i, TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(i));
+            transaction.setAmount(new BigDecimal(100 * i));
+            transaction.setCurrency(i % 2 == 0 ? Currency.CNY : Currency.USD);
+            transaction.setChannel(i < 5 ? "ONLINE" : "ATM");
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transactionDao.save(transaction);
+        }
+        Transaction failed = transactionDao.findById("TXN2").orElseThrow();
+        failed.setStatus(TransactionStatus.FAILED);
+        transactionDao.save(failed);
+
+        // When - 完成、人民币、ONLINE、金额 [0, 400]：TXN0、TXN4（TXN2 已失败）
+        TransactionQuery query = new TransactionQuery(TransactionStatus.COMPLETED, null, Currency.CNY, "ONLINE",
+                BigDecimal.ZERO, new BigDecimal("400"), null, null);
+        PageInfo<Transaction> firstPage = transactionDao.findByQuery(query, 0, 1);
+        PageInfo<Transaction> secondPage = transactionDao.findByQuery(query, 1, 1);
+
+        // Then
+        assertEquals(2, firstPage.getTotal());
+        assertEquals(List.of("TXN4"), firstPage.getItems().stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN0"), secondPage.getItems().stream().map(Transaction::getId).toList());
+        PageInfo<Transaction> byTime = transactionDao.findByQuery(
+                new TransactionQuery(null, TransactionType.TRANSFER, null, null, null, null, base.plusSeconds(8), null), 0, 10);
+        assertEquals(List.of("TXN9", "TXN8"), byTime.getItems().stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN2"), transactionDao.findByQuery(
+                new TransactionQuery(TransactionStatus.FAILED, null, null, null, null, null, null, null), 0, 10)
+                .getItems().stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    @DisplayName("条件更新 - 状态和备注各自只改一个字段，状态不符时不更新，已返回的交易对象不变")
+    void testUpdateStatusAndRemark() {
+        // Given
+        Transaction saved = transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base);
+        transactionDao.save(saved);
+
+        // When
+        Transaction remarked = transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "新备注").orElseThrow();
+        Transaction completed = transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED).orElseThrow();
+
+        // Then
+        assertEquals("新备注", remarked.getRemark());
+        assertEquals(TransactionStatus.COMPLETED, completed.getStatus());
+        assertEquals("新备注", completed.getRemark());
+        assertEquals(TransactionStatus.PENDING, saved.getStatus());
+        assertTrue(transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "过期的修改").isEmpty());
+        assertTrue(transactionDao.updateStatus("UNKNOWN", TransactionStatus.PENDING, TransactionStatus.FAILED).isEmpty());
+        assertEquals("新备注", transactionDao.findById("TXN001").orElseThrow().getRemark());
+        assertEquals(List.of("TXN001"), transactionDao.findByQuery(
+                new TransactionQuery(TransactionStatus.COMPLETED, null, null, null, null, null, null, null), 0, 10)
+                .getItems().stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    @DisplayName("全局时间顺序 - 按时间倒序分页，重复保存不重复计数，删除后移除")
+    void testFindNewestFirst() {
+        // Given - 乱序到达的交易
+        transactionDao.save(transaction("TXN002", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(3)));
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transactionDao.findById("TXN001").orElseThrow());
+
+        // When & Then
+        assertEquals(List.of("TXN003", "TXN002"), ids(transactionDao.findNewestFirst(0, 2)));
+        assertEquals(List.of("TXN001"), ids(transactionDao.findNewestFirst(1, 2)));
+        assertTrue(transactionDao.findNewestFirst(2, 2).isEmpty());
+        assertEquals(3, transactionDao.count());
+        transactionDao.deleteById("TXN003");
+        assertEquals(List.of("TXN002", "TXN001"), ids(transactionDao.findNewestFirst(0, 10)));
+        assertEquals(2, transactionDao.count());
+    }
+
+    @Test
+    @DisplayName("全局时间顺序 - 键集翻页不受新交易插入影响，区间遍历按时间升序")
+    void testFindBeforeAndAfter() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            transactionDao.save(transaction("TXN00" + i, TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(i)));
+        }
+        List<Transaction> firstPage = transactionDao.findBefore(null, 2);
+        Transaction last = firstPage.get(firstPage.size() - 1);
+
+        // When - 翻页前插入更新的交易
+        transactionDao.save(transaction("TXN006", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(6)));
+        List<Transaction> secondPage = transactionDao.findBefore(
+                new TimeCursor(TransactionTimeIndex.toTimeKey(last.getTimestamp()), last.getId()), 2);
+        List<Transaction> range = transactionDao.findAfter(
+                new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(2)), "TXN002"),
+                TransactionTimeIndex.toTimeKey(base.plusSeconds(5)), 10);
+
+        // Then
+        assertEquals(List.of("TXN005", "TXN004"), ids(firstPage));
+        assertEquals(List.of("TXN003", "TXN002"), ids(secondPage));
+        assertEquals(List.of("TXN003", "TXN004"), ids(range));
+    }
+
+    @Test
+    @DisplayName("统计计数 - 未命中")
+    void testStorageStats_Miss() {
+        // When
+        assertTrue(transactionDao.findById("UNKNOWN").isEmpty());
+
+        // Then
+        assertEquals(1, transactionDao.getStorageStats().misses());
+    }
+
+    private Transaction transaction(String id, TransactionType type, String fromAccountId, String toAccountId, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setFromAccountId(fromAccountId);
+        transaction.setToAccountId(toAccountId);
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus(TransactionStatus.PENDING);
+        return transaction;
+    }
+
+    private static List<String> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    private Account account(String accountId) {
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
+}
@@ -0,0 +1,303 @@
+package com.bank.transaction.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.JdbcStorageConfig;
+import com.bank.transaction.config.StorageConfig;
+import com.bank.transaction.config.VirtualThreadConfig;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.bank.transaction.util.PageInfo;
+import com.bank.transaction.util.VirtualThreadExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+
+@DisplayName("JDBC交易DAO单元测试（H2 MySQL模式）")
+class JdbcTransactionDaoTest {
+
+    private HikariDataSource dataSource;
+    private StorageConfig storageConfig;
+    private VirtualThreadExecutor virtualThreadExecutor;
+    private JdbcTransactionDao transactionDao;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        storageConfig = new StorageConfig();
+        storageConfig.getMysql().setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        storageConfig.getMysql().setUsername("sa");
+        storageConfig.getMysql().setConnectionPoolSize(4);
+        storageConfig.getMysql().setBatchSize(64);
+        dataSource = JdbcStorageConfig.createDataSource(storageConfig.getMysql());
+        virtualThreadExecutor = new VirtualThreadExecutor(new VirtualThreadConfig());
+        transactionDao = new JdbcTransactionDao(dataSource, storageConfig, virtualThreadExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionDao.shutdown();
+        virtualThreadExecutor.shutdown();
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("保存和查询 - 字段完整往返，重复保存覆盖原记录")
+    void testSaveAndFindById() {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base);
+        transaction.setAmount(new BigDecimal("100.25"));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setIdempotencyKey("IDM001");
+        transaction.setReferenceNumber("REF001");
+        transactionDao.save(transaction);
+
+        // When
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transactionDao.save(transaction);
+        Transaction found = transactionDao.findById("TXN001").orElseThrow();
+
+        // Then
+        assertEquals(new BigDecimal("100.25"), found.getAmount());
+        assertEquals(Currency.CNY, found.getCurrency());
+        assertEquals(TransactionType.TRANSFER, found.getType());
+        assertEquals(TransactionStatus.COMPLETED, found.getStatus());
+        assertEquals(base, found.getTimestamp());
+        assertEquals("ACC001", found.getFromAccountId());
+        assertEquals("ACC002", found.getToAccountId());
+        assertEquals("IDM001", found.getIdempotencyKey());
+        assertEquals("REF001", found.getReferenceNumber());
+        assertTrue(transactionDao.findById("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    @DisplayName("按账户查询 - 按时间倒序返回转出和转入交易，识别账户对象中的账户ID")
+    void testFindByAccountId_NewestFirst() {
+        // Given
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transaction("TXN002", TransactionType.DEPOSIT, null, "ACC001", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN003", TransactionType.WITHDRAWAL, "ACC003", null, base.plusSeconds(3)));
+        Transaction withAccountObject = transaction("TXN004", TransactionType.TRANSFER, null, null, base.plusSeconds(4));
+        withAccountObject.setFromAccount(account("ACC002"));
+        withAccountObject.setToAccount(account("ACC001"));
+        transactionDao.save(withAccountObject);
+
+        // When
+        List<Transaction> result = transactionDao.findByAccountId("ACC001");
+
+        // Then
+        assertEquals(List.of("TXN004", "TXN002", "TXN001"), result.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN004", "TXN001"), transactionDao.findByAccountId("ACC002").stream().map(Transaction::getId).toList());
+        assertTrue(transactionDao.findByAccountId("ACC999").isEmpty());
+    }
+
+    @Test
+    @DisplayName("按账户区间查询 - 按 (时间, ID) 升序返回游标之后、结束时间之前的交易")
+    void testFindByAccountIdAfter() {
+        // Given - TXN002 和 TXN003 时间相同
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC003", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN002", TransactionType.DEPOSIT, null, "ACC001", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN004", TransactionType.WITHDRAWAL, "ACC003", null, base.plusSeconds(3)));
+        transactionDao.save(transaction("TXN005", TransactionType.TRANSFER, "ACC002", "ACC001", base.plusSeconds(5)));
+        TimeCursor start = new TimeCursor(Long.MIN_VALUE, "");
+
+        // When
+        List<Transaction> beforeEnd = transactionDao.findByAccountIdAfter("ACC001", start, TransactionTimeIndex.toTimeKey(base.plusSeconds(5)), 10);
+        List<Transaction> limited = transactionDao.findByAccountIdAfter("ACC001", start, Long.MAX_VALUE, 2);
+        List<Transaction> next = transactionDao.findByAccountIdAfter("ACC001",
+                new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(2)), "TXN002"), Long.MAX_VALUE, 10);
+
+        // Then
+        assertEquals(List.of("TXN001", "TXN002", "TXN003"), beforeEnd.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN001", "TXN002"), limited.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN003", "TXN005"), next.stream().map(Transaction::getId).toList());
+        assertTrue(transactionDao.findByAccountIdAfter("ACC999", start, Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("交易时间 - 2038年之后和1970年之前的时间按微秒原样往返，游标从该时间继续")
+    void testTimestampRoundTripOutsideEpochRange() {
+        // Given
+        LocalDateTime late = LocalDateTime.of(2040, 3, 1, 10, 15, 30, 123_456_000);
+        LocalDateTime early = LocalDateTime.of(1965, 6, 1, 8, 0, 0, 1_000);
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", early));
+        transactionDao.save(transaction("TXN002", TransactionType.TRANSFER, "ACC001", "ACC002", late));
+
+        // When
+        Transaction found = transactionDao.findById("TXN002").orElseThrow();
+        List<Transaction> all = transactionDao.findAfter(new TimeCursor(Long.MIN_VALUE, ""), Long.MAX_VALUE, 10);
+        List<Transaction> afterLate = transactionDao.findByAccountIdAfter("ACC001",
+                new TimeCursor(TransactionTimeIndex.toTimeKey(found.getTimestamp()), found.getId()), Long.MAX_VALUE, 10);
+
+        // Then
+        assertEquals(late, found.getTimestamp());
+        assertEquals(List.of("TXN001", "TXN002"), all.stream().map(Transaction::getId).toList());
+        assertEquals(early, all.get(0).getTimestamp());
+        assertTrue(afterLate.isEmpty());
+    }
+
+    @Test
+    @DisplayName("组合查询 - 状态、币种、渠道和金额范围同时满足，按时间倒序分页，状态变更后按新状态查询")
+    void testFindByQuery() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = transaction("TXN" + i, TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(i));
+            transaction.setAmount(new BigDecimal(100 * i));
+            transaction.setCurrency(i % 2 == 0 ? Currency.CNY : Currency.USD);
+            transaction.setChannel(i < 5 ? "ONLINE" : "ATM");
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transactionDao.save(transaction);
+        }
+        Transaction failed = transactionDao.findById("TXN2").orElseThrow();
+        failed.setStatus(TransactionStatus.FAILED);
+        transactionDao.save(failed);
+
+        // When - 完成、人民币、ONLINE、金额 [0, 400]：TXN0、TXN4（TXN2 已失败）
+        TransactionQuery query = new TransactionQuery(TransactionStatus.COMPLETED, null, Currency.CNY, "ONLINE",
+                BigDecimal.ZERO, new BigDecimal("400"), null, null);
+        PageInfo<Transaction> firstPage = transactionDao.findByQuery(query, 0, 1);
+        PageInfo<Transaction> secondPage = transactionDao.findByQuery(query, 1, 1);
+
+        // Then
+        assertEquals(2, firstPage.getTotal());
+        assertEquals(List.of("TXN4"), firstPage.getItems().stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN0"), secondPage.getItems().stream().map(Transaction::getId).toList());
+        PageInfo<Transaction> byTime = transactionDao.findByQuery(
+                new TransactionQuery(null, TransactionType.TRANSFER, null, null, null, null, base.plusSeconds(8), null), 0, 10);
+        assertEquals(List.of("TXN9", "TXN8"), byTime.getItems().stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN2"), transactionDao.findByQuery(
+                new TransactionQuery(TransactionStatus.FAILED, null, null, null, null, null, null, null), 0, 10)
+                .getItems().stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    @DisplayName("批量查询 - 保持ID顺序，跳过不存在的ID，超过单次IN参数上限时分批并行查询")
+    void testFindAllById() {
+        // Given
+        for (int i = 0; i < 300; i++) {
+            transactionDao.save(transaction("TXN" + i, TransactionType.DEPOSIT, null, "ACC001", base.plusSeconds(i)));
+        }
+        List<String> ids = IntStream.range(0, 300).map(i -> 299 - i).mapToObj(i -> "TXN" + i).toList();
+
+        // When
+        List<Transaction> small = transactionDao.findAllById(List.of("TXN5", "UNKNOWN", "TXN1", "TXN3"));
+        List<Transaction> large = transactionDao.findAllById(ids);
+
+        // Then
+        assertEquals(List.of("TXN5", "TXN1", "TXN3"), small.stream().map(Transaction::getId).toList());
+        assertEquals(ids, large.stream().map(Transaction::getId).toList());
+        assertTrue(transactionDao.findAllById(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("组提交 - 并发保存合并为批量写入，返回时已提交")
+    void testGroupCommit() {
+        // When - 200个虚拟线程并发保存
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                String id = "TXN" + i;
+                executor.submit(() -> {
+                    transactionDao.save(transaction(id, TransactionType.DEPOSIT, null, "ACC001", base));
+                    assertTrue(transactionDao.findById(id).isPresent());
+                });
+            }
+        }
+
+        // Then
+        assertEquals(200, transactionDao.getRowsWritten());
+        assertEquals(200, transactionDao.findByAccountId("ACC001").size());
+        assertTrue(transactionDao.getBatchCount() < 200, "并发写入应合并提交，实际批次: " + transactionDao.getBatchCount());
+    }
+
+    @Test
+    @DisplayName("条件更新 - 状态和备注各自只改一个字段，状态不符时不更新")
+    void testUpdateStatusAndRemark() {
+        // Given
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base));
+
+        // When
+        transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "新备注").orElseThrow();
+        Transaction completed = transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED).orElseThrow();
+
+        // Then
+        assertEquals(TransactionStatus.COMPLETED, completed.getStatus());
+        assertEquals("新备注", completed.getRemark());
+        assertTrue(transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "过期的修改").isEmpty());
+        assertTrue(transactionDao.updateStatus("UNKNOWN", TransactionStatus.PENDING, TransactionStatus.FAILED).isEmpty());
+        assertEquals("新备注", transactionDao.findById("TXN001").orElseThrow().getRemark());
+    }
+
+    @Test
+    @DisplayName("全局时间顺序 - 按时间倒序分页和计数，键集翻页不受新交易插入影响，区间遍历按时间升序")
+    void testTimeOrderedQueries() {
+        // Given - TXN002 和 TXN003 时间相同
+        transactionDao.save(transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(1)));
+        transactionDao.save(transaction("TXN003", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN002", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(2)));
+        transactionDao.save(transaction("TXN004", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(4)));
+        List<Transaction> firstPage = transactionDao.findBefore(null, 2);
+
+        // When - 翻页前插入更新的交易
+        transactionDao.save(transaction("TXN005", TransactionType.TRANSFER, "ACC001", "ACC002", base.plusSeconds(5)));
+        List<Transaction> secondPage = transactionDao.findBefore(
+                new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(2)), "TXN003"), 2);
+        List<Transaction> range = transactionDao.findAfter(
+                new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(2)), "TXN002"),
+                TransactionTimeIndex.toTimeKey(base.plusSeconds(5)), 10);
+
+        // Then
+        assertEquals(List.of("TXN004", "TXN003"), firstPage.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN002", "TXN001"), secondPage.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN003", "TXN004"), range.stream().map(Transaction::getId).toList());
+        assertEquals(List.of("TXN003", "TXN002"),
+                transactionDao.findNewestFirst(1, 2).stream().map(Transaction::getId).toList());
+        assertEquals(5, transactionDao.count());
+    }
+
+    @Test
+    @DisplayName("IN参数补齐 - 补齐到2的幂且不超过上限")
+    void testPaddedSize() {
+        assertEquals(1, JdbcTransactionDao.paddedSize(1));
+        assertEquals(2, JdbcTransactionDao.paddedSize(2));
+        assertEquals(4, JdbcTransactionDao.paddedSize(3));
+        assertEquals(64, JdbcTransactionDao.paddedSize(33));
+        assertEquals(128, JdbcTransactionDao.paddedSize(128));
+    }
+
+    private Transaction transaction(String id, TransactionType type, String fromAccountId, String toAccountId, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setFromAccountId(fromAccountId);
+        transaction.setToAccountId(toAccountId);
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus(TransactionStatus.PENDING);
+        return transaction;
+    }
+
+    private Account account(String accountId) {
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.transaction.errorlog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bank.transaction.config.ErrorLogConfig;
+import com.bank.transaction.util.Constants.ErrorLevel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DisplayName("错误事件汇总单元测试")
+class ErrorEventSinkTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private ErrorLogConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ErrorLogConfig();
+        config.setWindowSeconds(10);
+        config.setAlertIntervalSeconds(60);
+    }
+
+    @Test
+    @DisplayName("按错误码汇总 - 每个窗口每个错误码一条记录，窗口结束后清零")
+    void testFlush_AggregatesPerErrorCode() throws Exception {
+        // Given
+        ErrorEventSink sink = new ErrorEventSink(config, now::get);
+        for (int i = 0; i < 100; i++) {
+            sink.record(event("3000", ErrorLevel.INFO));
+        }
+        sink.record(event("2001", ErrorLevel.WARN));
+
+        // When & Then
+        assertEquals(2, sink.flush());
+        assertEquals(101, sink.getRecordedCount());
+        assertEquals(0, sink.flush());
+    }
+
+    @Test
+    @DisplayName("错误码数量上限 - 超出后新错误码只计入溢出数")
+    void testRecord_OverflowBeyondMaxKeys() throws Exception {
+        // Given
+        config.setMaxKeys(2);
+        ErrorEventSink sink = new ErrorEventSink(config, now::get);
+
+        // When
+        sink.record(event("1001", ErrorLevel.ERROR));
+        sink.record(event("1002", ErrorLevel.ERROR));
+        sink.record(event("1003", ErrorLevel.ERROR));
+        sink.record(event("1001", ErrorLevel.ERROR));
+
+        // Then
+        assertEquals(1, sink.getOverflowCount());
+        assertEquals(2, sink.flush());
+    }
+
+    @Test
+    @DisplayName("致命异常告警 - 告警间隔内同一错误码只告警一次")
+    void testRecord_FatalAlertRateLimited() {
+        // Given
+        ErrorEventSink sink = new ErrorEventSink(config, now::get);
+
+        // When
+        sink.record(event("1000", ErrorLevel.FATAL));
+        sink.record(event("1000", ErrorLevel.FATAL));
+        sink.record(event("1000", ErrorLevel.FATAL));
+        sink.record(event("1004", ErrorLevel.FATAL));
+
+        // Then
+        assertEquals(2, sink.getSuppressedAlertCount());
+
+        // 间隔过后重新告警
+        now.addAndGet(60_000);
+        sink.record(event("1000", ErrorLevel.FATAL));
+        assertEquals(2, sink.getSuppressedAlertCount());
+    }
+
+    @Test
+    @DisplayName("文件输出 - 汇总记录追加写入当天的 NDJSON 文件")
+    void testFlush_WritesNdjsonFile(@TempDir Path directory) throws Exception {
+        // Given
+        config.setFileEnabled(true);
+        config.setDirectory(directory.toString());
+        ErrorEventSink sink = new ErrorEventSink(config, now::get);
+        sink.record(event("3000", ErrorLevel.INFO));
+        sink.record(event("3000", ErrorLevel.INFO));
+        sink.flush();
+        now.addAndGet(10_000);
+        sink.record(event("2001", ErrorLevel.WARN));
+
+        // When
+        sink.flush();
+
+        // Then
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.toList();
+        }
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).getFileName().toString().matches("errors-\\d{4}-\\d{2}-\\d{2}\\.ndjson"));
+        List<String> lines = Files.readAllLines(files.get(0), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("3000", first.get("errorCode").asText());
+        assertEquals("INFO", first.get("level").asText());
+        assertEquals(2, first.get("count").asLong());
+        assertEquals("/api/transactions/create", first.get("uri").asText());
+        assertEquals("2001", objectMapper.readTree(lines.get(1)).get("errorCode").asText());
+    }
+
+    private ErrorEvent event(String errorCode, ErrorLevel level) {
+        return new ErrorEvent(errorCode, "错误", "详细描述", level, "/api/transactions/create", "POST", "127.0.0.1");
+    }
+}
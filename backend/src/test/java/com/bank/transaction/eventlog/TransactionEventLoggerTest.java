@@ -0,0 +1,156 @@
+package com.bank.transaction.eventlog;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+import com.bank.transaction.config.EventLogConfig;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("交易事件日志单元测试")
+class TransactionEventLoggerTest {
+
+    private Logger eventLog;
+    private EventLogConfig config;
+
+    @BeforeEach
+    void setUp() {
+        eventLog = mock(Logger.class);
+        when(eventLog.isInfoEnabled()).thenReturn(true);
+        when(eventLog.isWarnEnabled()).thenReturn(true);
+        config = new EventLogConfig();
+        config.setBufferSize(16);
+        config.setBatchSize(4);
+        config.setSampleThreshold(1.0);
+    }
+
+    @Test
+    @DisplayName("批量输出 - 每个事件一次日志输出，字段在记录时复制")
+    void testDrain_OneLogCallPerEvent() {
+        // Given
+        TransactionEventLogger logger = new TransactionEventLogger(config, eventLog);
+        Transaction transaction = transaction("TXN001");
+        logger.created(transaction);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        logger.statusChanged(transaction, TransactionStatus.PENDING);
+        logger.largeAmount(transaction, new BigDecimal("50000"));
+
+        // When
+        int count = logger.drain();
+
+        // Then
+        assertEquals(3, count);
+        ArgumentCaptor<String> info = ArgumentCaptor.forClass(String.class);
+        verify(eventLog, times(2)).info(info.capture());
+        List<String> lines = info.getAllValues();
+        assertTrue(lines.get(0).startsWith("event=CREATED time="));
+        assertTrue(lines.get(0).contains(" txnId=TXN001 type=TRANSFER amount=1000.00 currency=CNY status=PENDING channel=ONLINE from=ACC001 to=ACC002"));
+        assertTrue(lines.get(1).contains("event=STATUS_CHANGED") && lines.get(1).contains("status=COMPLETED previous=PENDING"));
+        assertFalse(lines.get(0).contains("\n"));
+        verify(eventLog).warn(contains("event=LARGE_AMOUNT"));
+        assertEquals(0, logger.getBufferedCount());
+        assertEquals(0, logger.drain());
+    }
+
+    @Test
+    @DisplayName("级别未开启 - 不写入缓冲区")
+    void testLevelDisabled_SkipsEvent() {
+        // Given
+        when(eventLog.isInfoEnabled()).thenReturn(false);
+        TransactionEventLogger logger = new TransactionEventLogger(config, eventLog);
+
+        // When
+        logger.created(transaction("TXN001"));
+        logger.largeAmount(transaction("TXN002"), BigDecimal.ONE);
+
+        // Then
+        assertEquals(1, logger.getPublishedCount());
+        assertEquals(1, logger.drain());
+        verify(eventLog, never()).info(anyString());
+        assertFalse(TransactionEventLogger.disabled().isEnabled(TransactionEventLogger.EventType.LARGE_AMOUNT));
+    }
+
+    @Test
+    @DisplayName("缓冲区满 - 丢弃新事件并计数，输出后槽位可以复用")
+    void testBufferFull_DropsEvents() {
+        // Given
+        TransactionEventLogger logger = new TransactionEventLogger(config, eventLog);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            logger.created(transaction("TXN" + i));
+        }
+
+        // Then
+        assertEquals(16, logger.getPublishedCount());
+        assertEquals(4, logger.getDroppedCount());
+        assertEquals(4, logger.drain());
+        logger.created(transaction("TXN-NEXT"));
+        assertEquals(17, logger.getPublishedCount());
+        assertEquals(13, logger.getBufferedCount());
+    }
+
+    @Test
+    @DisplayName("过载采样 - 超过阈值后 INFO 事件按比例采样，WARN 事件不采样")
+    void testOverload_SamplesInfoEvents() {
+        // Given - 占用超过一半后每 1000000 个 INFO 事件保留约1个
+        config.setSampleThreshold(0.5);
+        config.setSampleRate(1_000_000);
+        TransactionEventLogger logger = new TransactionEventLogger(config, eventLog);
+
+        // When
+        for (int i = 0; i < 12; i++) {
+            logger.created(transaction("TXN" + i));
+        }
+        logger.largeAmount(transaction("TXN-LARGE"), BigDecimal.ONE);
+
+        // Then
+        assertEquals(9, logger.getPublishedCount());
+        assertEquals(4, logger.getSampledCount());
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("启动和停止 - 输出线程逐个输出，停止时输出剩余事件")
+    void testStartAndShutdown_FlushesRemaining() {
+        // Given
+        config.setBufferSize(1024);
+        TransactionEventLogger logger = new TransactionEventLogger(config, eventLog);
+        logger.start();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            logger.created(transaction("TXN" + i));
+        }
+        logger.shutdown();
+
+        // Then
+        verify(eventLog, times(100)).info(startsWith("event=CREATED"));
+        assertEquals(0, logger.getBufferedCount());
+    }
+
+    private Transaction transaction(String id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setAmount(new BigDecimal("1000.00"));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("ONLINE");
+        transaction.setFromAccountId("ACC001");
+        transaction.setToAccountId("ACC002");
+        return transaction;
+    }
+}
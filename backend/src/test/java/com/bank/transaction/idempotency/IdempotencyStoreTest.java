@@ -0,0 +1,199 @@
+package com.bank.transaction.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.IdempotencyConfig;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("幂等性键存储单元测试")
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private IdempotencyConfig config;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        config = new IdempotencyConfig();
+        config.setTtlMinutes(10);
+        config.setBucketSeconds(60);
+        config.setWaitTimeoutMillis(200);
+        store = new IdempotencyStore(config, now::get);
+    }
+
+    @Test
+    @DisplayName("首次请求获得处理权，完成后重复请求返回原交易ID")
+    void testClaimCompleteReplay() {
+        // When
+        IdempotencyStore.Claim first = store.claim("IDM001");
+        store.complete(first, "TXN001");
+        IdempotencyStore.Claim replay = store.claim("IDM001");
+
+        // Then
+        assertFalse(first.isReplay());
+        assertTrue(replay.isReplay());
+        assertEquals("TXN001", replay.getTransactionId());
+        assertEquals("IDM001", replay.getKey());
+        assertFalse(store.claim("IDM002").isReplay());
+    }
+
+    @Test
+    @DisplayName("重启恢复 - 从已保存的交易恢复保留期内的键，重复请求返回原交易")
+    void testRebuildFromStoredTransactions() {
+        // Given - 保留期10分钟，IDM001 在5分钟前创建，IDM002 在20分钟前创建
+        CacheTransactionDao transactionDao = new CacheTransactionDao();
+        transactionDao.save(transaction("TXN001", "IDM001", 5));
+        transactionDao.save(transaction("TXN002", "IDM002", 20));
+        store = new IdempotencyStore(config, now::get, transactionDao);
+
+        // When
+        int restored = store.rebuild();
+        IdempotencyStore.Claim replay = store.claim("IDM001");
+
+        // Then
+        assertEquals(1, restored);
+        assertTrue(replay.isReplay());
+        assertEquals("TXN001", replay.getTransactionId());
+        assertFalse(store.claim("IDM002").isReplay());
+        // 按交易时间计算过期：再过6分钟 IDM001 过期
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        assertFalse(store.claim("IDM001").isReplay());
+    }
+
+    @Test
+    @DisplayName("首次请求失败释放后，相同的键可以重新获得处理权")
+    void testReleaseAllowsRetry() {
+        // When
+        IdempotencyStore.Claim first = store.claim("IDM001");
+        store.release(first);
+        IdempotencyStore.Claim retry = store.claim("IDM001");
+
+        // Then
+        assertFalse(retry.isReplay());
+        assertEquals(1, store.size());
+        // 已完成的处理权调用 release 无效果
+        store.complete(retry, "TXN001");
+        store.release(retry);
+        assertTrue(store.claim("IDM001").isReplay());
+    }
+
+    @Test
+    @DisplayName("处理中的重复请求等待首次请求完成后返回原交易ID")
+    void testConcurrentDuplicateWaits() throws Exception {
+        // Given
+        config.setWaitTimeoutMillis(5000);
+        store = new IdempotencyStore(config, now::get);
+        IdempotencyStore.Claim first = store.claim("IDM001");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+
+        // When
+        try {
+            Future<?>[] duplicates = new Future<?>[4];
+            for (int i = 0; i < duplicates.length; i++) {
+                duplicates[i] = executor.submit(() -> {
+                    started.countDown();
+                    return store.claim("IDM001");
+                });
+            }
+            started.await();
+            Thread.sleep(50);
+            store.complete(first, "TXN001");
+
+            // Then
+            for (Future<?> duplicate : duplicates) {
+                IdempotencyStore.Claim claim = (IdempotencyStore.Claim) duplicate.get(5, TimeUnit.SECONDS);
+                assertTrue(claim.isReplay());
+                assertEquals("TXN001", claim.getTransactionId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("处理中的重复请求等待超时 - 抛出交易冲突")
+    void testConcurrentDuplicateTimeout() {
+        // Given
+        store.claim("IDM001");
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> store.claim("IDM001"));
+
+        // Then
+        assertEquals(ErrorCode.TRANSACTION_CONFLICT, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("按时间桶过期 - 过期后相同的键视为新请求，清理后释放空间")
+    void testExpiry() {
+        // Given
+        store.complete(store.claim("IDM001"), "TXN001");
+
+        // When & Then - 保留时间内仍然重放
+        now.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        assertTrue(store.claim("IDM001").isReplay());
+
+        // 超过保留时间和一个时间桶后过期
+        now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        store.complete(store.claim("IDM002"), "TXN002");
+        store.purgeExpired();
+        assertEquals(1, store.size());
+        assertFalse(store.claim("IDM001").isReplay());
+    }
+
+    @Test
+    @DisplayName("容量写满 - 淘汰最早的时间桶，键数量不超过上限")
+    void testBoundedEviction() {
+        // Given
+        config.setMaxEntries(1000);
+        config.setSegments(4);
+        store = new IdempotencyStore(config, now::get);
+
+        // When - 写入5000个键，每1000个键推进一个时间桶
+        for (int i = 0; i < 5000; i++) {
+            if (i % 1000 == 0) {
+                now.addAndGet(TimeUnit.SECONDS.toMillis(60));
+            }
+            store.complete(store.claim("IDM" + i), "TXN" + i);
+        }
+
+        // Then - 最新写入的键保留，最早写入的键被淘汰
+        assertTrue(store.size() <= 1000, "键数量应不超过上限，实际: " + store.size());
+        assertTrue(store.claim("IDM4999").isReplay());
+        assertFalse(store.claim("IDM0").isReplay());
+    }
+
+    private Transaction transaction(String id, String idempotencyKey, int minutesAgo) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setIdempotencyKey(idempotencyKey);
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setToAccountId("ACC001");
+        transaction.setTimestamp(LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(now.get() - TimeUnit.MINUTES.toMillis(minutesAgo)), ZoneId.systemDefault()));
+        return transaction;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.transaction.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("交易组合查询索引单元测试")
+class TransactionQueryIndexTest {
+
+    private TransactionQueryIndex index;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        index = new TransactionQueryIndex();
+        // TXN0..TXN99：偶数完成、奇数失败；每5笔中1笔美元；渠道 ONLINE/ATM 交替；金额 i 元
+        for (int i = 0; i < 100; i++) {
+            index.add(transaction("TXN" + i, i % 2 == 0 ? TransactionStatus.COMPLETED : TransactionStatus.FAILED,
+                    i % 5 == 0 ? Currency.USD : Currency.CNY, i % 4 < 2 ? "ONLINE" : "ATM", new BigDecimal(i), base.plusSeconds(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("等值条件 - 多个位图求交集，按时间倒序返回")
+    void testQuery_IntersectsBitmaps() {
+        // When - 完成 且 美元：i 为10的倍数
+        TransactionQueryIndex.Result result = index.query(query(TransactionStatus.COMPLETED, Currency.USD, null, null, null), 0, 3);
+
+        // Then
+        assertEquals(10, result.total());
+        assertEquals(List.of("TXN90", "TXN80", "TXN70"), result.transactionIds());
+    }
+
+    @Test
+    @DisplayName("范围条件 - 金额闭区间与等值条件组合，分页跳过前面的记录")
+    void testQuery_AmountRangeAndOffset() {
+        // When - 完成、ONLINE（i % 4 == 0）、金额 [20, 60]：20,24,...,60
+        TransactionQuery query = query(TransactionStatus.COMPLETED, null, "ONLINE", new BigDecimal("20"), new BigDecimal("60.00"));
+        TransactionQueryIndex.Result result = index.query(query, 2, 3);
+
+        // Then
+        assertEquals(11, result.total());
+        assertEquals(List.of("TXN52", "TXN48", "TXN44"), result.transactionIds());
+        assertTrue(index.query(query, 11, 3).transactionIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("范围条件 - 时间左闭右开，无等值条件时在全部交易上过滤")
+    void testQuery_TimeRange() {
+        // When
+        TransactionQuery query = new TransactionQuery(null, null, null, null, null, null, base.plusSeconds(10), base.plusSeconds(15));
+        TransactionQueryIndex.Result result = index.query(query, 0, 10);
+
+        // Then
+        assertEquals(List.of("TXN14", "TXN13", "TXN12", "TXN11", "TXN10"), result.transactionIds());
+    }
+
+    @Test
+    @DisplayName("更新和删除 - 状态变更后移到新状态的位图，删除后不再返回，行号复用")
+    void testAddAndRemove_UpdatesBitmaps() {
+        // When
+        index.add(transaction("TXN1", TransactionStatus.COMPLETED, Currency.USD, "ONLINE", new BigDecimal(1), base.plusSeconds(1)));
+        index.remove("TXN90");
+        index.add(transaction("TXN-NEW", TransactionStatus.COMPLETED, Currency.USD, "BRANCH", BigDecimal.TEN, base.minusDays(1)));
+
+        // Then
+        TransactionQueryIndex.Result result = index.query(query(TransactionStatus.COMPLETED, Currency.USD, null, null, null), 0, 100);
+        assertEquals(11, result.total());
+        assertEquals("TXN80", result.transactionIds().get(0));
+        assertEquals(List.of("TXN1", "TXN0", "TXN-NEW"), result.transactionIds().subList(8, 11));
+        assertEquals(100, index.size());
+        assertEquals(List.of("TXN-NEW"), index.query(query(null, null, "BRANCH", null, null), 0, 10).transactionIds());
+    }
+
+    @Test
+    @DisplayName("无匹配 - 未出现过的渠道返回空结果")
+    void testQuery_UnknownChannel() {
+        // When
+        TransactionQueryIndex.Result result = index.query(query(null, null, "UNKNOWN", null, null), 0, 10);
+
+        // Then
+        assertEquals(0, result.total());
+        assertTrue(result.transactionIds().isEmpty());
+    }
+
+    private TransactionQuery query(TransactionStatus status, Currency currency, String channel, BigDecimal minAmount, BigDecimal maxAmount) {
+        return new TransactionQuery(status, null, currency, channel, minAmount, maxAmount, null, null);
+    }
+
+    private Transaction transaction(String id, TransactionStatus status, Currency currency, String channel, BigDecimal amount, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setStatus(status);
+        transaction.setCurrency(currency);
+        transaction.setChannel(channel);
+        transaction.setAmount(amount);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
@@ -0,0 +1,141 @@
+package com.bank.transaction.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.util.Constants.AccountStatus;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+@DisplayName("账户余额引擎单元测试")
+class BalanceEngineTest {
+
+    private BalanceEngine engine;
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        engine = new BalanceEngine();
+        fromAccount = account("ACC001", "100.00");
+        toAccount = account("ACC002", "50.00");
+    }
+
+    @Test
+    @DisplayName("转账 - 双方余额同时变更")
+    void testTransfer_Success() {
+        // When
+        engine.transfer(fromAccount, toAccount, new BigDecimal("30.50"));
+
+        // Then
+        assertEquals(new BigDecimal("69.50"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("80.50"), toAccount.getBalance());
+    }
+
+    @Test
+    @DisplayName("转账余额不足 - 双方余额均不变")
+    void testTransfer_InsufficientBalance() {
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> engine.transfer(fromAccount, toAccount, new BigDecimal("100.01")));
+
+        // Then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        assertEquals(new BigDecimal("100.00"), fromAccount.getBalance());
+        assertEquals(new BigDecimal("50.00"), toAccount.getBalance());
+    }
+
+    @Test
+    @DisplayName("单账户变更 - 扣减至零允许，扣减为负拒绝")
+    void testApply_NotNegative() {
+        // When
+        assertEquals(0L, engine.apply(fromAccount, new BigDecimal("-100")));
+
+        // Then
+        assertThrows(BusinessException.class, () -> engine.apply(fromAccount, new BigDecimal("-0.01")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(fromAccount.getBalance()));
+    }
+
+    @Test
+    @DisplayName("同一锁段内转账 - 不重复加锁")
+    void testTransfer_SameStripe() {
+        // Given - 只有一个锁段，所有账户都在同一锁段
+        BalanceEngine singleStripe = new BalanceEngine(1);
+
+        // When
+        singleStripe.transfer(fromAccount, toAccount, new BigDecimal("10"));
+
+        // Then
+        assertEquals(singleStripe.stripeIndexOf("ACC001"), singleStripe.stripeIndexOf("ACC002"));
+        assertEquals(1, singleStripe.getContentionStats().get(0).acquisitions());
+        assertEquals(new BigDecimal("90.00"), fromAccount.getBalance());
+    }
+
+    @Test
+    @DisplayName("批量变更 - 任一账户余额不足时全部不生效")
+    void testApplyAll_Atomic() {
+        // Given
+        Account thirdAccount = account("ACC003", "0.00");
+
+        // When - 第三个账户扣款后为负
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> engine.applyAll(List.of(fromAccount, toAccount, thirdAccount), new long[] {-5000, 5000, -1}));
+        engine.applyAll(List.of(fromAccount, toAccount), new long[] {-10000, 10000});
+
+        // Then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        assertEquals(0, thirdAccount.getBalanceMinor());
+        assertEquals(0, fromAccount.getBalanceMinor());
+        assertEquals(new BigDecimal("150.00"), toAccount.getBalance());
+    }
+
+    @Test
+    @DisplayName("定点金额 - 余额按币种小数位数以最小货币单位存储")
+    void testBalanceMinorUnits() {
+        // Given
+        Account yenAccount = new Account("ACC006", "6222021234567895", "测试", null, new BigDecimal("1000"), Currency.JPY, AccountStatus.ACTIVE);
+
+        // When
+        engine.apply(fromAccount, new BigDecimal("0.25"));
+        engine.apply(yenAccount, new BigDecimal("-1"));
+
+        // Then
+        assertEquals(10025L, fromAccount.getBalanceMinor());
+        assertEquals(new BigDecimal("100.25"), fromAccount.getBalance());
+        assertEquals(999L, yenAccount.getBalanceMinor());
+        assertEquals(new BigDecimal("999"), yenAccount.getBalance());
+        // 日元没有小数单位，不足一日元的金额不能记账
+        assertThrows(ArithmeticException.class, () -> engine.apply(yenAccount, new BigDecimal("0.5")));
+    }
+
+    @Test
+    @DisplayName("定点金额 - 未指定币种时按2位小数存储，不丢失金额自身精度")
+    void testSetBalanceScale() {
+        // Given
+        Account account = new Account();
+
+        // When & Then
+        assertNull(account.getBalance());
+        account.setBalance(new BigDecimal("10000"));
+        assertEquals(2, account.getBalanceScale());
+        assertEquals(1000000L, account.getBalanceMinor());
+        account.setBalance(new BigDecimal("0.005"));
+        assertEquals(3, account.getBalanceScale());
+        assertEquals(new BigDecimal("0.005"), account.getBalance());
+    }
+
+    private Account account(String accountId, String balance) {
+        Account account = new Account();
+        account.setAccountId(accountId);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+}
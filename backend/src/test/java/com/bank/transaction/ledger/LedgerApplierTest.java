@@ -0,0 +1,204 @@
+package com.bank.transaction.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.LedgerConfig;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("账本余额视图单元测试")
+class LedgerApplierTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private AccountServiceImpl accountService;
+    private PostingJournal journal;
+    private LedgerApplier applier;
+
+    @BeforeEach
+    void setUp() {
+        accountService = new AccountServiceImpl();
+        journal = accountService.getPostingJournal();
+        applier = new LedgerApplier(journal, config(3));
+        applier.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        applier.shutdown();
+    }
+
+    @Test
+    @DisplayName("交易记账 - 账本余额与账户余额一致，所有账户合计为零")
+    void testPostTransactions_LedgerMatchesAccounts() {
+        // When
+        accountService.postTransactions(List.of(
+            transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", "1000.00"),
+            transaction("TXN002", TransactionType.DEPOSIT, null, "ACC003", "500.00"),
+            transaction("TXN003", TransactionType.WITHDRAWAL, "ACC004", null, "200.00"),
+            transaction("TXN004", TransactionType.PAYMENT, "ACC004", null, "1.00")));
+        accountService.updateBalance("ACC002", new BigDecimal("-0.50"));
+
+        // Then - 5条开户分录 + 3条记账分录（支付不记账）+ 1条调整分录
+        assertEquals(9, journal.getLastSequence());
+        assertTrue(applier.awaitApplied(journal.getLastSequence(), TIMEOUT));
+        assertEquals(List.of(), applier.reconcile(accountService.getAccounts()));
+        assertEquals(new BigDecimal("9000.00"), applier.getLedgerBalance("ACC001").orElseThrow());
+        assertEquals(new BigDecimal("5999.50"), applier.getLedgerBalance("ACC002").orElseThrow());
+        // 清算账户是所有客户账户的对方：开户 38000，存款 500，取款 -200，调整 -0.50
+        assertEquals(new BigDecimal("-38299.50"), applier.getLedgerBalance(PostingJournal.CLEARING_ACCOUNT).orElseThrow());
+        assertTrue(journal.sequenceOf("TXN001").isPresent());
+        assertTrue(journal.sequenceOf("TXN004").isEmpty());
+    }
+
+    @Test
+    @DisplayName("重复记账和余额不足 - 余额和分录日志都不变")
+    void testPostTransactions_RejectedLeavesJournalUnchanged() {
+        // Given
+        Transaction transfer = transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", "1000.00");
+        accountService.postTransaction(transfer);
+        long sequence = journal.getLastSequence();
+
+        // When
+        BusinessException duplicate = assertThrows(BusinessException.class, () -> accountService.postTransaction(transfer));
+        BusinessException insufficient = assertThrows(BusinessException.class, () -> accountService.postTransactions(List.of(
+            transaction("TXN002", TransactionType.TRANSFER, "ACC002", "ACC001", "1.00"),
+            transaction("TXN003", TransactionType.WITHDRAWAL, "ACC001", null, "9001.01"))));
+
+        // Then
+        assertEquals(ErrorCode.DUPLICATE_TRANSACTION, duplicate.getErrorCode());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, insufficient.getErrorCode());
+        assertEquals(sequence, journal.getLastSequence());
+        assertEquals(new BigDecimal("9000.00"), accountService.getAccountById("ACC001").orElseThrow().getBalance());
+        // 失败的交易没有占用交易ID，可以重新记账
+        accountService.postTransaction(transaction("TXN002", TransactionType.TRANSFER, "ACC002", "ACC001", "1.00"));
+        assertTrue(applier.awaitApplied(journal.getLastSequence(), TIMEOUT));
+        assertEquals(List.of(), applier.reconcile(accountService.getAccounts()));
+    }
+
+    @Test
+    @DisplayName("冲正 - 追加反向分录并撤销余额变更")
+    void testReverseTransactions() {
+        // Given
+        Transaction transfer = transaction("TXN001", TransactionType.TRANSFER, "ACC001", "ACC002", "1000.00");
+        accountService.postTransaction(transfer);
+
+        // When
+        accountService.reverseTransactions(List.of(transfer));
+
+        // Then
+        JournalEntry reversal = journal.get(journal.getLastSequence());
+        assertEquals(JournalEntry.Type.REVERSAL, reversal.type());
+        assertEquals("TXN001", reversal.transactionId());
+        assertEquals(new BigDecimal("10000.00"), accountService.getAccountById("ACC001").orElseThrow().getBalance());
+        assertTrue(applier.awaitApplied(journal.getLastSequence(), TIMEOUT));
+        assertEquals(new BigDecimal("10000.00"), applier.getLedgerBalance("ACC001").orElseThrow());
+        assertEquals(new BigDecimal("5000.00"), applier.getLedgerBalance("ACC002").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("并发记账后重建 - 新的视图从第一条分录重放得到相同余额")
+    void testRebuild_AfterConcurrentPostings() throws Exception {
+        // Given - 8个线程并发互相转账
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        String[] accounts = {"ACC001", "ACC002", "ACC003", "ACC004"};
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String from = accounts[(thread + i) % accounts.length];
+                    String to = accounts[(thread + i + 1) % accounts.length];
+                    accountService.postTransaction(transaction("TXN" + thread + "-" + i, TransactionType.TRANSFER, from, to, "0.01"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // When
+        LedgerApplier rebuilt = new LedgerApplier(journal, config(1));
+        rebuilt.start();
+
+        // Then
+        try {
+            assertEquals(5 + 16_000, journal.getLastSequence());
+            assertTrue(applier.awaitApplied(journal.getLastSequence(), TIMEOUT));
+            assertTrue(rebuilt.awaitApplied(journal.getLastSequence(), TIMEOUT));
+            assertEquals(List.of(), applier.reconcile(accountService.getAccounts()));
+            assertEquals(List.of(), rebuilt.reconcile(accountService.getAccounts()));
+            assertEquals(new BigDecimal("-38000.00"), rebuilt.getLedgerBalance(PostingJournal.CLEARING_ACCOUNT).orElseThrow());
+        } finally {
+            rebuilt.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("日志释放早期分录后重建 - 从期初余额和保留的分录重放得到相同余额")
+    void testRebuild_FromOpeningBalances() {
+        // Given
+        PostingJournal compacted = new PostingJournal(4096);
+        for (int i = 1; i <= 10_000; i++) {
+            compacted.append(JournalEntry.Type.ADJUSTMENT, null, List.of(
+                new Posting("ACC00" + (i % 5), -i, 2), new Posting("ACC00" + ((i + 1) % 5), i, 2)));
+        }
+        assertTrue(compacted.getBaseSequence() > 0);
+
+        // When
+        LedgerApplier rebuilt = new LedgerApplier(compacted, config(2));
+        rebuilt.start();
+
+        // Then
+        try {
+            assertTrue(rebuilt.awaitApplied(compacted.getLastSequence(), TIMEOUT));
+            BigDecimal total = BigDecimal.ZERO;
+            for (int a = 0; a < 5; a++) {
+                long expected = 0;
+                for (int i = 1; i <= 10_000; i++) {
+                    expected += (i % 5 == a ? -i : 0) + ((i + 1) % 5 == a ? i : 0);
+                }
+                BigDecimal balance = rebuilt.getLedgerBalance("ACC00" + a).orElseThrow();
+                assertEquals(BigDecimal.valueOf(expected, 2), balance);
+                total = total.add(balance);
+            }
+            assertEquals(0, total.signum());
+        } finally {
+            rebuilt.shutdown();
+        }
+    }
+
+    private static LedgerConfig config(int shards) {
+        LedgerConfig config = new LedgerConfig();
+        config.setShards(shards);
+        config.setBatchSize(64);
+        return config;
+    }
+
+    private static Transaction transaction(String id, TransactionType type, String from, String to, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setFromAccountId(from);
+        transaction.setToAccountId(to);
+        return transaction;
+    }
+}
@@ -0,0 +1,196 @@
+package com.bank.transaction.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+@DisplayName("记账分录日志单元测试")
+class PostingJournalTest {
+
+    private PostingJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = new PostingJournal();
+    }
+
+    @Test
+    @DisplayName("追加分录 - 序号连续，按序读取分录和分录行")
+    void testAppend_SequencesAndRead() {
+        // When
+        long first = journal.append(JournalEntry.Type.ADJUSTMENT, null, List.of(
+            new Posting("ACC001", 10000, 2), new Posting(PostingJournal.CLEARING_ACCOUNT, -10000, 2)));
+        long last = journal.appendAll(List.of(
+            JournalEntry.draft(JournalEntry.Type.POSTING, "TXN001", List.of(new Posting("ACC001", -2500, 2), new Posting("ACC002", 2500, 2))),
+            JournalEntry.draft(JournalEntry.Type.REVERSAL, "TXN001", List.of(new Posting("ACC001", 2500, 2), new Posting("ACC002", -2500, 2)))));
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(3, last);
+        assertEquals(3, journal.getLastSequence());
+        JournalEntry posting = journal.get(2);
+        assertEquals(JournalEntry.Type.POSTING, posting.type());
+        assertEquals("TXN001", posting.transactionId());
+        assertEquals(List.of(new Posting("ACC001", -2500, 2), new Posting("ACC002", 2500, 2)), posting.postings());
+        assertTrue(posting.timestampMillis() > 0);
+
+        List<String> lines = new ArrayList<>();
+        journal.forEachPosting(2, 3, (accountIndex, amountMinor, scale) ->
+            lines.add(journal.accountIdOf(accountIndex) + ":" + amountMinor));
+        assertEquals(List.of("ACC001:-2500", "ACC002:2500", "ACC001:2500", "ACC002:-2500"), lines);
+        assertEquals(3, journal.getAccountCount());
+    }
+
+    @Test
+    @DisplayName("借贷不平衡 - 整批不追加")
+    void testAppend_UnbalancedRejected() {
+        // When
+        assertThrows(IllegalArgumentException.class, () -> journal.appendAll(List.of(
+            JournalEntry.draft(JournalEntry.Type.ADJUSTMENT, null, List.of(new Posting("ACC001", 100, 2), new Posting("CLEARING", -100, 2))),
+            JournalEntry.draft(JournalEntry.Type.ADJUSTMENT, null, List.of(new Posting("ACC001", 100, 2), new Posting("CLEARING", -99, 2))))));
+
+        // Then
+        assertEquals(0, journal.getLastSequence());
+        // 小数位数不同时按金额配平
+        journal.append(JournalEntry.Type.ADJUSTMENT, null, List.of(new Posting("ACC001", -100, 2), new Posting("ACC009", 1, 0)));
+        assertEquals(1, journal.getLastSequence());
+    }
+
+    @Test
+    @DisplayName("重复记账 - 已记账的交易不能再占用，失败时整批释放")
+    void testReserve_RejectsPostedTransaction() {
+        // Given
+        journal.reserve(List.of("TXN001"));
+        journal.append(JournalEntry.Type.POSTING, "TXN001", List.of(new Posting("ACC001", -100, 2), new Posting("ACC002", 100, 2)));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> journal.reserve(List.of("TXN002", "TXN001")));
+
+        // Then
+        assertEquals(ErrorCode.DUPLICATE_TRANSACTION, exception.getErrorCode());
+        assertEquals(1, journal.sequenceOf("TXN001").getAsLong());
+        assertTrue(journal.sequenceOf("TXN002").isEmpty());
+        journal.reserve(List.of("TXN002"));
+        journal.release(List.of("TXN002"));
+        journal.reserve(List.of("TXN002"));
+        // 恢复时登记的已记账交易没有分录，同样不能再记账
+        journal.markPosted("TXN003");
+        assertTrue(journal.isPosted("TXN003"));
+        assertTrue(journal.sequenceOf("TXN003").isEmpty());
+        assertThrows(BusinessException.class, () -> journal.reserve(List.of("TXN003")));
+    }
+
+    @Test
+    @DisplayName("并发追加 - 序号不重复，每个线程的分录按调用顺序写入且返回时已发布")
+    void testAppend_Concurrent() throws Exception {
+        // Given
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try {
+            // When - 交替追加单账户调整和分录批次
+            for (int t = 0; t < threads; t++) {
+                String accountId = "ACC00" + t;
+                futures.add(executor.submit(() -> {
+                    long[] sequences = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        sequences[i] = i % 2 == 0
+                            ? journal.appendAdjustment(System.currentTimeMillis(), accountId, i, 2)
+                            : journal.append(JournalEntry.Type.ADJUSTMENT, null, List.of(
+                                new Posting(accountId, i, 2), new Posting(PostingJournal.CLEARING_ACCOUNT, -i, 2)));
+                        assertTrue(journal.getLastSequence() >= sequences[i]);
+                    }
+                    return sequences;
+                }));
+            }
+
+            // Then
+            Set<Long> all = new HashSet<>();
+            for (int t = 0; t < threads; t++) {
+                long[] sequences = futures.get(t).get();
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(all.add(sequences[i]));
+                    assertTrue(i == 0 || sequences[i] > sequences[i - 1]);
+                    assertEquals(new Posting("ACC00" + t, i, 2), journal.get(sequences[i]).postings().get(0));
+                }
+            }
+            assertEquals((long) threads * perThread, journal.getLastSequence());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("跨分块读取 - 分录行按追加顺序连续访问")
+    void testForEachPosting_AcrossChunks() {
+        // Given - 每条分录3行，超过单个分块容量
+        for (int i = 1; i <= 10_000; i++) {
+            journal.append(JournalEntry.Type.ADJUSTMENT, null, List.of(
+                new Posting("ACC001", i, 2), new Posting("ACC002", i, 2), new Posting(PostingJournal.CLEARING_ACCOUNT, -2L * i, 2)));
+        }
+
+        // When
+        long[] totals = new long[journal.getAccountCount()];
+        long[] lines = new long[1];
+        journal.forEachPosting(4000, 6000, (accountIndex, amountMinor, scale) -> {
+            totals[accountIndex] += amountMinor;
+            lines[0]++;
+        });
+
+        // Then
+        long expected = (4000L + 6000L) * 2001 / 2;
+        assertEquals(3 * 2001, lines[0]);
+        assertEquals(expected, totals[journal.accountIndexOf("ACC001")]);
+        assertEquals(expected, totals[journal.accountIndexOf("ACC002")]);
+        assertEquals(-2 * expected, totals[journal.accountIndexOf(PostingJournal.CLEARING_ACCOUNT)]);
+        assertEquals(new Posting("ACC002", 10_000, 2), journal.get(10_000).postings().get(1));
+    }
+
+    @Test
+    @DisplayName("释放早期分录 - 期初余额等于已释放分录的合计，之后的分录仍可读取")
+    void testCompaction_FoldsOldChunksIntoOpeningBalances() {
+        // Given - 只保留 4096 条分录
+        journal = new PostingJournal(4096);
+        for (int i = 1; i <= 10_000; i++) {
+            journal.append(JournalEntry.Type.POSTING, "TXN" + i, List.of(
+                new Posting("ACC001", -i, 2), new Posting("ACC002", i, 2)));
+        }
+
+        // When
+        long[] opening = new long[journal.getAccountCount()];
+        long base = journal.forEachOpeningBalance((accountIndex, amountMinor, scale) -> opening[accountIndex] += amountMinor);
+
+        // Then
+        assertEquals(4096, base);
+        assertEquals(4096, journal.getBaseSequence());
+        long expected = 4096L * 4097 / 2;
+        assertEquals(-expected, opening[journal.accountIndexOf("ACC001")]);
+        assertEquals(expected, opening[journal.accountIndexOf("ACC002")]);
+        assertThrows(IllegalStateException.class, () -> journal.get(4096));
+        assertEquals(new Posting("ACC002", 4097, 2), journal.get(4097).postings().get(1));
+        // 已释放分录的交易没有分录序号，但仍然不能重复记账
+        assertTrue(journal.sequenceOf("TXN1").isEmpty());
+        assertTrue(journal.isPosted("TXN1"));
+        assertThrows(BusinessException.class, () -> journal.reserve(List.of("TXN1")));
+        assertEquals(4097, journal.sequenceOf("TXN4097").getAsLong());
+        List<Long> sequences = new ArrayList<>();
+        journal.forEach(1, entry -> sequences.add(entry.sequence()));
+        assertEquals(10_000 - 4096, sequences.size());
+        assertEquals(4097L, sequences.get(0));
+    }
+}
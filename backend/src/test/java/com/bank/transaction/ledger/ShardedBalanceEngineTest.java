@@ -0,0 +1,218 @@
+package com.bank.transaction.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.ExecutionConfig;
+import com.bank.transaction.config.LedgerConfig;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.util.Constants.AccountStatus;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("分片余额执行引擎单元测试")
+class ShardedBalanceEngineTest {
+
+    private ShardedBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ShardedBalanceEngine(config(4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("单账户变更 - 成功时在执行线程内记录分录，余额不足时余额不变")
+    void testApply_NotNegative() {
+        // Given
+        Account account = account("ACC001", "100.00");
+        AtomicInteger applied = new AtomicInteger();
+
+        // When
+        assertEquals(0L, engine.applyMinor(account, -10000, applied::incrementAndGet));
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> engine.applyMinor(account, -1, applied::incrementAndGet));
+
+        // Then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.getBalance()));
+        assertEquals(1, applied.get());
+    }
+
+    @Test
+    @DisplayName("跨分片转账 - 扣款在分录之前生效，入账在分录之后生效")
+    void testTransfer_CrossShard() {
+        // Given
+        Account from = account("ACC001", "100.00");
+        Account to = accountOnOtherShard(from, "50.00");
+        List<BigDecimal> duringOnApplied = new ArrayList<>();
+
+        // When
+        engine.transferMinor(from, to, 3050, 3050, () -> {
+            duringOnApplied.add(from.getBalance());
+            duringOnApplied.add(to.getBalance());
+        });
+
+        // Then
+        assertEquals(List.of(new BigDecimal("69.50"), new BigDecimal("50.00")), duringOnApplied);
+        assertEquals(new BigDecimal("69.50"), from.getBalance());
+        assertEquals(new BigDecimal("80.50"), to.getBalance());
+    }
+
+    @Test
+    @DisplayName("跨分片余额不足 - 已预留的分片退回扣款，全部账户余额不变")
+    void testApplyAll_CrossShardAborted() {
+        // Given - 第一个账户扣款成功，另一个分片上的账户余额不足
+        Account first = account("ACC001", "100.00");
+        Account second = accountOnOtherShard(first, "10.00");
+        Account third = account("ACC999", "0.00");
+        AtomicInteger applied = new AtomicInteger();
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> engine.applyAll(
+            List.of(first, second, third), new long[] {-5000, -1001, 6001}, applied::incrementAndGet));
+
+        // Then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        assertEquals(new BigDecimal("100.00"), first.getBalance());
+        assertEquals(new BigDecimal("10.00"), second.getBalance());
+        assertEquals(new BigDecimal("0.00"), third.getBalance());
+        assertEquals(0, applied.get());
+    }
+
+    @Test
+    @DisplayName("分片执行并发记账 - 余额总额不变，账本余额与账户余额一致")
+    void testConcurrentPostings_LedgerMatchesAccounts() throws Exception {
+        // Given - 账户服务使用分片执行，8个线程并发互相转账
+        ShardedBalanceEngine sharded = new ShardedBalanceEngine(config(3));
+        AccountServiceImpl accountService = new AccountServiceImpl(sharded);
+        LedgerConfig ledgerConfig = new LedgerConfig();
+        ledgerConfig.setShards(2);
+        LedgerApplier applier = new LedgerApplier(accountService.getPostingJournal(), ledgerConfig);
+        applier.start();
+        String[] accounts = {"ACC001", "ACC002", "ACC003", "ACC004"};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            // When
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        Transaction transaction = new Transaction();
+                        transaction.setId("TXN" + thread + "-" + i);
+                        transaction.setType(TransactionType.TRANSFER);
+                        transaction.setAmount(new BigDecimal("1.00"));
+                        transaction.setFromAccountId(accounts[(thread + i) % accounts.length]);
+                        transaction.setToAccountId(accounts[(thread + 2 * i + 1) % accounts.length]);
+                        accountService.postTransaction(transaction);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // Then
+            BigDecimal total = BigDecimal.ZERO;
+            for (String accountId : accounts) {
+                total = total.add(accountService.getAccountById(accountId).orElseThrow().getBalance());
+            }
+            assertEquals(new BigDecimal("35000.00"), total);
+            assertTrue(applier.awaitApplied(accountService.getPostingJournal().getLastSequence(), Duration.ofSeconds(5)));
+            assertEquals(List.of(), applier.reconcile(accountService.getAccounts()));
+        } finally {
+            executor.shutdown();
+            applier.shutdown();
+            accountService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("停止引擎 - 已提交的命令执行完，提交线程不会一直等待，停止后提交抛出异常")
+    void testShutdown_DrainsSubmittedCommands() throws Exception {
+        // Given - 8个线程持续给同一批账户入账
+        ShardedBalanceEngine stopping = new ShardedBalanceEngine(config(2));
+        Account[] accounts = {account("ACC001", "0.00"), account("ACC002", "0.00"), account("ACC003", "0.00")};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                int applied = 0;
+                try {
+                    for (int i = 0; ; i++) {
+                        stopping.applyMinor(accounts[(thread + i) % accounts.length], 1, null);
+                        applied++;
+                    }
+                } catch (IllegalStateException e) {
+                    return applied;
+                }
+            }));
+        }
+
+        try {
+            // When
+            Thread.sleep(50);
+            stopping.shutdown();
+
+            // Then - 全部提交线程返回，成功的入账都已生效
+            long applied = 0;
+            for (Future<Integer> future : futures) {
+                applied += future.get(5, TimeUnit.SECONDS);
+            }
+            long total = 0;
+            for (Account account : accounts) {
+                total += account.getBalanceMinor();
+            }
+            assertEquals(applied, total);
+            assertThrows(IllegalStateException.class, () -> stopping.applyMinor(accounts[0], 1, null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Account accountOnOtherShard(Account account, String balance) {
+        int shard = engine.shardIndexOf(account.getAccountId());
+        for (int i = 2; ; i++) {
+            String accountId = String.format("ACC%03d", i);
+            if (engine.shardIndexOf(accountId) != shard) {
+                return account(accountId, balance);
+            }
+        }
+    }
+
+    private static ExecutionConfig config(int shards) {
+        ExecutionConfig config = new ExecutionConfig();
+        config.setShards(shards);
+        config.setBufferSize(64);
+        return config;
+    }
+
+    private static Account account(String accountId, String balance) {
+        return new Account(accountId, "622202" + accountId, "测试", null, new BigDecimal(balance), Currency.CNY, AccountStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,200 @@
+package com.bank.transaction.limit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.TransactionConfig;
+import com.bank.transaction.config.TransactionLimitConfig;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("累计限额跟踪器单元测试")
+class CumulativeLimitTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(1_735_000_000_000L);
+    private TransactionLimitConfig limitConfig;
+    private TransactionConfig transactionConfig;
+    private CacheTransactionDao transactionDao;
+    private CumulativeLimitTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        limitConfig = new TransactionLimitConfig();
+        limitConfig.setDailyTransactionLimit(new BigDecimal("1000"));
+        limitConfig.setMonthlyTransactionLimit(new BigDecimal("2500"));
+        transactionConfig = new TransactionConfig();
+        transactionDao = new CacheTransactionDao();
+        tracker = new CumulativeLimitTracker(limitConfig, transactionConfig, transactionDao, now::get);
+    }
+
+    @Test
+    @DisplayName("日累计金额 - 超限时拒绝且不占用额度")
+    void testDailyAmountLimit() {
+        // Given
+        tracker.confirm(tracker.reserve("ACC001", new BigDecimal("600")));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> tracker.reserve("ACC001", new BigDecimal("400.01")));
+
+        // Then
+        assertEquals(ErrorCode.VALIDATION_ERROR, exception.getErrorCode());
+        assertTrue(exception.getMessage().contains("日累计交易金额超过限额"));
+        assertEquals(0, new BigDecimal("600").compareTo(tracker.getDailyAmount("ACC001")));
+        assertNotNull(tracker.reserve("ACC001", new BigDecimal("400")));
+        // 其他账户不受影响
+        assertNotNull(tracker.reserve("ACC002", new BigDecimal("1000")));
+    }
+
+    @Test
+    @DisplayName("滚动窗口 - 24小时后日累计滚出窗口，月累计仍然计入")
+    void testRollingWindow() {
+        // Given
+        tracker.confirm(tracker.reserve("ACC001", new BigDecimal("1000")));
+        now.addAndGet(TimeUnit.HOURS.toMillis(25));
+        tracker.confirm(tracker.reserve("ACC001", new BigDecimal("1000")));
+        now.addAndGet(TimeUnit.HOURS.toMillis(25));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> tracker.reserve("ACC001", new BigDecimal("1000")));
+
+        // Then
+        assertTrue(exception.getMessage().contains("月累计交易金额超过限额"));
+        assertNotNull(tracker.reserve("ACC001", new BigDecimal("500")));
+        // 30天后月累计也滚出窗口
+        now.addAndGet(TimeUnit.DAYS.toMillis(31));
+        assertNotNull(tracker.reserve("ACC001", new BigDecimal("1000")));
+    }
+
+    @Test
+    @DisplayName("日累计笔数 - 按 TransactionConfig.dailyLimit 限制")
+    void testDailyCountLimit() {
+        // Given
+        limitConfig.setDailyTransactionLimit(null);
+        limitConfig.setMonthlyTransactionLimit(null);
+        transactionConfig.setDailyLimit(3);
+        for (int i = 0; i < 3; i++) {
+            tracker.confirm(tracker.reserve("ACC001", new BigDecimal("1")));
+        }
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> tracker.reserve("ACC001", new BigDecimal("1")));
+
+        // Then
+        assertTrue(exception.getMessage().contains("日累计交易笔数超过限制"));
+    }
+
+    @Test
+    @DisplayName("归还额度 - 未保存的交易归还额度，已确认的占用不能归还")
+    void testRelease() {
+        // Given
+        CumulativeLimitTracker.Reservation confirmed = tracker.reserve("ACC001", new BigDecimal("300"));
+        tracker.confirm(confirmed);
+        CumulativeLimitTracker.Reservation abandoned = tracker.reserve("ACC001", new BigDecimal("700"));
+
+        // When
+        tracker.release(abandoned);
+        tracker.release(abandoned);
+        tracker.release(confirmed);
+        tracker.release(null);
+
+        // Then
+        assertEquals(0, new BigDecimal("300").compareTo(tracker.getDailyAmount("ACC001")));
+    }
+
+    @Test
+    @DisplayName("历史重建 - 首次使用时从历史交易恢复窗口内未失败的扣款交易")
+    void testRebuildFromHistory() {
+        // Given
+        transactionDao.save(transaction("TXN1", TransactionType.WITHDRAWAL, "500", TransactionStatus.COMPLETED, 1));
+        transactionDao.save(transaction("TXN2", TransactionType.TRANSFER, "300", TransactionStatus.PENDING, 2));
+        transactionDao.save(transaction("TXN3", TransactionType.PAYMENT, "900", TransactionStatus.FAILED, 3));
+        transactionDao.save(transaction("TXN4", TransactionType.DEPOSIT, "900", TransactionStatus.COMPLETED, 4));
+        transactionDao.save(transaction("TXN5", TransactionType.WITHDRAWAL, "900", TransactionStatus.COMPLETED, 48));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> tracker.reserve("ACC001", new BigDecimal("200.01")));
+
+        // Then - 最近24小时计入 500 + 300，月累计计入 500 + 300 + 900
+        assertTrue(exception.getMessage().contains("日累计交易金额超过限额"));
+        assertNotNull(tracker.reserve("ACC001", new BigDecimal("200")));
+        assertEquals(0, new BigDecimal("1000").compareTo(tracker.getDailyAmount("ACC001")));
+    }
+
+    @Test
+    @DisplayName("历史重建 - 从月窗口起点分批读取，同一时间的交易不遗漏")
+    void testRebuildInChunks() {
+        // Given - 超过一批的窗口内交易，多笔交易时间相同；另有一笔窗口外的交易
+        limitConfig.setDailyTransactionLimit(new BigDecimal("5000"));
+        limitConfig.setMonthlyTransactionLimit(null);
+        for (int i = 0; i < 1200; i++) {
+            transactionDao.save(transaction("TXN" + i, TransactionType.WITHDRAWAL, "1", TransactionStatus.COMPLETED, i % 20));
+        }
+        transactionDao.save(transaction("TXN_OLD", TransactionType.WITHDRAWAL, "900", TransactionStatus.COMPLETED, 24 * 40));
+
+        // When
+        tracker.confirm(tracker.reserve("ACC001", BigDecimal.ONE));
+
+        // Then
+        assertEquals(0, new BigDecimal("1201").compareTo(tracker.getDailyAmount("ACC001")));
+    }
+
+    @Test
+    @DisplayName("并发占用 - 合计不超过限额")
+    void testConcurrentReservations() {
+        // Given
+        limitConfig.setMonthlyTransactionLimit(null);
+        AtomicInteger accepted = new AtomicInteger();
+
+        // When - 1000个虚拟线程各占用1元，日累计限额1000元
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                executor.submit(() -> {
+                    try {
+                        tracker.confirm(tracker.reserve("ACC001", BigDecimal.ONE));
+                        accepted.incrementAndGet();
+                    } catch (BusinessException e) {
+                        // 超限被拒绝
+                    }
+                });
+            }
+        }
+
+        // Then
+        assertTrue(accepted.get() <= 1000, "通过的交易不能超过限额，实际: " + accepted.get());
+        assertEquals(0, BigDecimal.valueOf(accepted.get()).compareTo(tracker.getDailyAmount("ACC001")));
+    }
+
+    private Transaction transaction(String id, TransactionType type, String amount, TransactionStatus status, int hoursAgo) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setStatus(status);
+        transaction.setFromAccountId(type == TransactionType.DEPOSIT ? null : "ACC001");
+        transaction.setToAccountId(type == TransactionType.DEPOSIT ? "ACC001" : "ACC002");
+        transaction.setTimestamp(LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(now.get() - TimeUnit.HOURS.toMillis(hoursAgo)), ZoneId.systemDefault()));
+        return transaction;
+    }
+}
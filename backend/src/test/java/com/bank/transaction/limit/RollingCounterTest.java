@@ -0,0 +1,77 @@
+package com.bank.transaction.limit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("滚动窗口计数器单元测试")
+class RollingCounterTest {
+
+    // 20位序号的后半段：按回绕比较不晚于空槽位的序号0
+    private static final long UPPER_HALF_EPOCH = (1L << 19) + 5;
+
+    @Test
+    @DisplayName("从未写入的槽位 - 序号在回绕后半段时累加不被忽略")
+    void testAdd_NeverUsedSlot() {
+        // Given
+        RollingCounter counter = new RollingCounter(24);
+
+        // When
+        counter.add(UPPER_HALF_EPOCH, 100);
+        counter.add(UPPER_HALF_EPOCH + 1, 50);
+
+        // Then
+        assertEquals(100, counter.sum(UPPER_HALF_EPOCH));
+        assertEquals(150, counter.sum(UPPER_HALF_EPOCH + 1));
+    }
+
+    @Test
+    @DisplayName("按小时计的时间桶 - 2030年之后的小时数同样计入")
+    void testAdd_HourEpochAfterWrap() {
+        // Given - 2030-01-01 起的小时数已超过 2^19
+        long hour = 1_893_456_000_000L / 3_600_000L;
+        RollingCounter counter = new RollingCounter(24);
+
+        // When
+        for (int i = 0; i < 24; i++) {
+            counter.add(hour + i, 1);
+        }
+
+        // Then
+        assertTrue(hour > 1L << 19);
+        assertEquals(24, counter.sum(hour + 23));
+        assertEquals(12, counter.sum(hour + 23, 12));
+    }
+
+    @Test
+    @DisplayName("过期槽位 - 新时间桶覆盖过期值，滚出窗口的时间桶写入被忽略")
+    void testAdd_ExpiredAndRolledOut() {
+        // Given
+        RollingCounter counter = new RollingCounter(4);
+        counter.add(10, 7);
+
+        // When - 时间桶14与10落在同一槽位
+        counter.add(14, 3);
+        counter.add(10, 5);
+
+        // Then
+        assertEquals(3, counter.sum(14));
+        assertEquals(0, counter.sum(18));
+    }
+
+    @Test
+    @DisplayName("撤销累加 - 负数变化量不会使计数小于零")
+    void testAdd_NegativeDelta() {
+        // Given
+        RollingCounter counter = new RollingCounter(4);
+        counter.add(UPPER_HALF_EPOCH, 10);
+
+        // When
+        counter.add(UPPER_HALF_EPOCH, -4);
+        counter.add(UPPER_HALF_EPOCH, -100);
+
+        // Then
+        assertEquals(0, counter.sum(UPPER_HALF_EPOCH));
+    }
+}
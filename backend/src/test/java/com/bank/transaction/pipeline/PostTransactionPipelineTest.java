@@ -0,0 +1,374 @@
+package com.bank.transaction.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import com.bank.transaction.config.PipelineConfig;
+import com.bank.transaction.config.TransactionConfig;
+import com.bank.transaction.config.TransactionLimitConfig;
+import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.eventlog.TransactionEventLogger;
+import com.bank.transaction.limit.CumulativeLimitTracker;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.AccountService;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("交易后续处理流水线单元测试")
+class PostTransactionPipelineTest {
+
+    @Mock
+    private TransactionDao transactionDao;
+
+    @Mock
+    private AccountService accountService;
+
+    private TransactionStatistics statistics;
+
+    private PostTransactionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new TransactionStatistics();
+        pipeline = new PostTransactionPipeline(new PipelineConfig(), transactionDao, accountService, statistics);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("CREATE转账 - 异步记账并完成交易")
+    void testSubmit_CreateTransferCompletes() throws InterruptedException {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER);
+        givenStoredTransactions(transaction);
+
+        // When
+        pipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(accountService).postTransaction(transaction);
+        verify(transactionDao).updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED);
+        verify(transactionDao, never()).save(any());
+        pipeline.getStages().forEach(stage -> assertEquals(1, stage.getProcessedCount(), stage.getName()));
+    }
+
+    @Test
+    @DisplayName("记账失败 - 交易状态更新为FAILED")
+    void testSubmit_LedgerFailureMarksFailed() throws InterruptedException {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.WITHDRAWAL);
+        doThrow(new RuntimeException("账户余额不足，无法完成交易")).when(accountService).postTransaction(any());
+        givenStoredTransactions(transaction);
+
+        // When
+        pipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(transactionDao).updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("记账失败 - 归还转出账户已占用的日累计额度")
+    void testSubmit_LedgerFailureReleasesCumulativeLimit() throws InterruptedException {
+        // Given - 已有一笔占用额度的交易，新交易保存时确认占用
+        TransactionLimitConfig limitConfig = new TransactionLimitConfig();
+        limitConfig.setDailyTransactionLimit(new BigDecimal("1000"));
+        CumulativeLimitTracker tracker = new CumulativeLimitTracker(limitConfig, new TransactionConfig(), transactionDao);
+        tracker.confirm(tracker.reserve("ACC001", new BigDecimal("300")));
+        BigDecimal before = tracker.getDailyAmount("ACC001");
+        Transaction transaction = transaction("TXN001", TransactionType.WITHDRAWAL);
+        transaction.setTimestamp(LocalDateTime.now());
+        tracker.confirm(tracker.reserve("ACC001", transaction.getAmount()));
+        doThrow(new RuntimeException("账户余额不足，无法完成交易")).when(accountService).postTransaction(any());
+        givenStoredTransactions(transaction);
+        PostTransactionPipeline limitedPipeline = new PostTransactionPipeline(new PipelineConfig(), transactionDao, accountService,
+            statistics, TransactionEventLogger.disabled(), new NoOpCacheManager(), tracker);
+        limitedPipeline.start();
+
+        // When
+        limitedPipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(limitedPipeline.awaitIdle(Duration.ofSeconds(5)));
+        limitedPipeline.shutdown();
+        verify(transactionDao).updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED);
+        assertEquals(0, before.compareTo(tracker.getDailyAmount("ACC001")), "实际: " + tracker.getDailyAmount("ACC001"));
+    }
+
+    @Test
+    @DisplayName("记账后保存失败 - 冲正已记账的交易并更新为FAILED")
+    void testSubmit_SaveFailureReversesPosting() throws InterruptedException {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER);
+        when(transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED))
+            .thenThrow(new RuntimeException("数据库连接失败"));
+        when(transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED))
+            .thenReturn(Optional.of(stored(transaction, TransactionStatus.FAILED)));
+
+        // When
+        pipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(accountService).postTransaction(transaction);
+        verify(accountService).reverseTransactions(List.of(transaction));
+        verify(transactionDao).updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("记账完成 - 只变更存储中当前交易的状态，提交后修改的备注保留，下游阶段看到最终状态")
+    void testSubmit_KeepsRemarkChangedAfterSubmit() throws InterruptedException {
+        // Given - 提交后交易备注被修改，存储中是修改后的副本
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER);
+        Transaction remarked = stored(transaction, TransactionStatus.COMPLETED);
+        remarked.setRemark("提交后修改的备注");
+        when(transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED))
+            .thenReturn(Optional.of(remarked));
+
+        // When
+        pipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(transactionDao, never()).save(any());
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+        assertEquals(1, statistics.snapshot().byStatus().get(TransactionStatus.COMPLETED).count());
+    }
+
+    @Test
+    @DisplayName("状态更新异常 - 不影响同批其余交易的记账和下游阶段")
+    void testSubmit_StatusUpdateErrorDoesNotStopBatch() throws InterruptedException {
+        // Given - 第一笔交易记账失败后更新为FAILED时存储异常
+        Transaction broken = transaction("TXN001", TransactionType.WITHDRAWAL);
+        Transaction transfer = transaction("TXN002", TransactionType.TRANSFER);
+        doThrow(new RuntimeException("账户余额不足，无法完成交易")).when(accountService).postTransaction(broken);
+        when(transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED))
+            .thenThrow(new RuntimeException("存储空间不足"));
+        when(transactionDao.updateStatus("TXN002", TransactionStatus.PENDING, TransactionStatus.COMPLETED))
+            .thenReturn(Optional.of(stored(transfer, TransactionStatus.COMPLETED)));
+
+        // When
+        pipeline.submit(broken, "CREATE");
+        pipeline.submit(transfer, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(accountService).postTransaction(transfer);
+        verify(transactionDao).updateStatus("TXN002", TransactionStatus.PENDING, TransactionStatus.COMPLETED);
+        assertEquals(1, pipeline.getStuckCount());
+        pipeline.getStages().forEach(stage -> assertEquals(2, stage.getProcessedCount(), stage.getName()));
+        pipeline.getStages().forEach(stage -> assertEquals(0, stage.getFailedCount(), stage.getName()));
+    }
+
+    @Test
+    @DisplayName("记账完成时交易已不是PENDING - 冲正已记账的交易")
+    void testSubmit_StatusChangedReversesPosting() throws InterruptedException {
+        // Given - 存储中的交易已不是PENDING
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER);
+        when(transactionDao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED))
+            .thenReturn(Optional.empty());
+
+        // When
+        pipeline.submit(transaction, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verify(accountService).reverseTransactions(List.of(transaction));
+        verify(transactionDao, never()).updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("记账完成 - 实时统计从PENDING移到新状态，完成的交易计入账户流入流出")
+    void testSubmit_UpdatesStatistics() throws InterruptedException {
+        // Given - 转账成功，取款失败
+        Transaction transfer = transaction("TXN001", TransactionType.TRANSFER);
+        Transaction withdrawal = transaction("TXN002", TransactionType.WITHDRAWAL);
+        lenient().doThrow(new RuntimeException("账户余额不足，无法完成交易")).when(accountService)
+            .postTransaction(argThat(t -> t.getType() == TransactionType.WITHDRAWAL));
+        statistics.recordCreated(transfer);
+        statistics.recordCreated(withdrawal);
+        givenStoredTransactions(transfer, withdrawal);
+
+        // When
+        pipeline.submit(transfer, "CREATE");
+        pipeline.submit(withdrawal, "CREATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        TransactionStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(0, snapshot.byStatus().get(TransactionStatus.PENDING).count());
+        assertEquals(1, snapshot.byStatus().get(TransactionStatus.COMPLETED).count());
+        assertEquals(1, snapshot.byStatus().get(TransactionStatus.FAILED).count());
+        assertEquals(1, statistics.accountFlow("ACC001").outflow().count());
+        assertEquals(new BigDecimal("100.00"), statistics.accountFlow("ACC002").inflow().amount());
+    }
+
+    @Test
+    @DisplayName("UPDATE操作 - 不重复记账")
+    void testSubmit_UpdateDoesNotPost() throws InterruptedException {
+        // Given
+        Transaction transaction = transaction("TXN001", TransactionType.TRANSFER);
+
+        // When
+        pipeline.submit(transaction, "UPDATE");
+
+        // Then
+        assertTrue(pipeline.awaitIdle(Duration.ofSeconds(5)));
+        verifyNoInteractions(accountService, transactionDao);
+        assertEquals(TransactionStatus.PENDING, transaction.getStatus());
+    }
+
+    @Test
+    @DisplayName("处理阶段 - 批量消费且不超过批量大小")
+    void testStage_BatchesUpToBatchSize() throws InterruptedException {
+        // Given
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new PipelineConfig.Stage(1000, 16, 1),
+            batch -> batchSizes.add(batch.size()));
+        stage.start();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            stage.submit(i);
+        }
+
+        // Then
+        assertTrue(stage.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(100, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+        assertEquals(100, stage.getProcessedCount());
+        stage.shutdown(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("处理阶段 - 队列满时由提交线程处理（背压）")
+    void testStage_BackpressureRunsOnCaller() throws InterruptedException {
+        // Given - 单线程消费被阻塞，队列容量为1
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> handledBy = Collections.synchronizedList(new ArrayList<>());
+        PipelineConfig.Stage config = new PipelineConfig.Stage(1, 1, 1);
+        config.setOfferTimeoutMillis(10);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", config, batch -> {
+            handledBy.add(Thread.currentThread().getName());
+            if (batch.get(0) == 0) {
+                await(blocker);
+            }
+        });
+        stage.start();
+
+        // When - 第1条阻塞消费线程，第2条占满队列，第3条触发背压
+        stage.submit(0);
+        while (stage.getQueueSize() > 0 || handledBy.isEmpty()) {
+            Thread.sleep(1);
+        }
+        stage.submit(1);
+        stage.submit(2);
+
+        // Then
+        assertEquals(1, stage.getCallerRunsCount());
+        assertTrue(handledBy.contains(Thread.currentThread().getName()));
+        blocker.countDown();
+        assertTrue(stage.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3, stage.getProcessedCount());
+        stage.shutdown(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("处理阶段 - 与停止并发提交的消息全部处理，不滞留在队列中")
+    void testStage_SubmitDuringShutdownIsHandled() throws InterruptedException {
+        // Given
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new PipelineConfig.Stage(1000, 16, 1), batch -> { });
+        stage.start();
+        int producers = 4;
+        int perProducer = 5_000;
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                started.countDown();
+                for (int i = 0; i < perProducer; i++) {
+                    stage.submit(i);
+                }
+            }));
+        }
+
+        // When - 提交过程中停止
+        started.await();
+        stage.shutdown(Duration.ofSeconds(1));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertTrue(stage.awaitIdle(Duration.ofSeconds(5)), "滞留消息数: " + stage.getPending());
+        assertEquals(0, stage.getQueueSize());
+        assertEquals((long) producers * perProducer, stage.getProcessedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 存储层的条件更新返回更新了状态的副本
+     */
+    private void givenStoredTransactions(Transaction... transactions) {
+        when(transactionDao.updateStatus(anyString(), eq(TransactionStatus.PENDING), any())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            return Arrays.stream(transactions).filter(t -> t.getId().equals(id)).findFirst()
+                .map(t -> stored(t, invocation.getArgument(2)));
+        });
+    }
+
+    private static Transaction stored(Transaction transaction, TransactionStatus status) {
+        Transaction stored = new Transaction();
+        BeanUtils.copyProperties(transaction, stored);
+        stored.setStatus(status);
+        return stored;
+    }
+
+    private Transaction transaction(String id, TransactionType type) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setFromAccountId("ACC001");
+        transaction.setToAccountId("ACC002");
+        transaction.setStatus(TransactionStatus.PENDING);
+        return transaction;
+    }
+}
@@ -3,6 +3,7 @@ package com.bank.transaction.service;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 import com.bank.transaction.model.Account;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.pipeline.PostTransactionPipeline;
 import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
 import com.bank.transaction.util.Constants.AccountStatus;
@@ -32,6 +34,9 @@ class TransactionServiceIntegrationTest {
     @Autowired
     private TransactionToolService transactionToolService;
     
+    @Autowired
+    private PostTransactionPipeline postTransactionPipeline;
+    
     private Transaction testTransaction;
     private Account fromAccount;
     private Account toAccount;
@@ -61,9 +66,10 @@ class TransactionServiceIntegrationTest {
 
     @Test
     @DisplayName("集成测试 - 完整的创建交易流程")
-    void testFullCreateTransactionFlow() {
+    void testFullCreateTransactionFlow() throws InterruptedException {
         // When - 执行完整的创建流程
         Transaction result = transactionService.createTransaction(testTransaction);
+        assertTrue(postTransactionPipeline.awaitIdle(Duration.ofSeconds(5)));
         
         // Then - 验证所有组件协作结果
         assertNotNull(result);
@@ -73,8 +79,8 @@ class TransactionServiceIntegrationTest {
         assertTrue(result.getReferenceNumber().startsWith("REF"));
         assertNotNull(result.getIdempotencyKey());
         assertTrue(result.getIdempotencyKey().startsWith("IDM"));
-        // 注意：由于银行核心系统的后续处理，状态会从PENDING自动更新为COMPLETED
-        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        // 注意：银行核心系统在后续处理流水线中异步处理完成后，存储中的状态从PENDING更新为COMPLETED
+        assertEquals(TransactionStatus.COMPLETED, transactionService.getTransactionById(result.getId()).orElseThrow().getStatus());
         assertEquals("OUT", result.getDirection());
         assertNotNull(result.getTimestamp());
     }
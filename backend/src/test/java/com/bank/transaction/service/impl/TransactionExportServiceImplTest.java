@@ -0,0 +1,134 @@
+package com.bank.transaction.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionExportService.Filter;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ExportFormat;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+@DisplayName("交易导出服务实现类单元测试")
+class TransactionExportServiceImplTest {
+
+    private CacheTransactionDao transactionDao;
+    private ObjectMapper objectMapper;
+    private TransactionExportServiceImpl transactionExportService;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        transactionDao = new CacheTransactionDao();
+        objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionExportService = new TransactionExportServiceImpl();
+        ReflectionTestUtils.setField(transactionExportService, "transactionDao", transactionDao);
+        ReflectionTestUtils.setField(transactionExportService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    @DisplayName("NDJSON导出 - 跨多批按时间升序输出，按状态过滤，不含导出开始之后的交易")
+    void testExportNdjson_AllAccounts() throws IOException {
+        // Given - 超过两批的交易，每3笔中1笔失败；另有一笔时间在导出开始之后
+        int total = TransactionExportServiceImpl.CHUNK_SIZE * 2 + 500;
+        for (int i = 0; i < total; i++) {
+            save(transaction("TXN" + i, "ACC" + (i % 10), "ACC" + (i % 10 + 1), base.plusSeconds(i),
+                    i % 3 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED));
+        }
+        save(transaction("TXN-FUTURE", "ACC001", "ACC002", LocalDateTime.now().plusHours(1), TransactionStatus.COMPLETED));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = transactionExportService.export(new Filter(null, null, null, TransactionStatus.COMPLETED), ExportFormat.NDJSON, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(total - (total + 2) / 3, count);
+        assertEquals(count, lines.size());
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\n"));
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("TXN1", first.get("id").asText());
+        assertEquals("COMPLETED", first.get("status").asText());
+        assertEquals("TXN" + (total - 2), objectMapper.readTree(lines.get(lines.size() - 1)).get("id").asText());
+    }
+
+    @Test
+    @DisplayName("CSV导出 - 按账户和时间范围过滤，含逗号和引号的字段加引号")
+    void testExportCsv_AccountAndTimeRange() throws IOException {
+        // Given
+        Transaction quoted = transaction("TXN002", "ACC002", "ACC001", base.plusSeconds(2), TransactionStatus.COMPLETED);
+        quoted.setRemark("工资,12月 \"奖金\"");
+        save(transaction("TXN001", "ACC001", "ACC002", base.plusSeconds(1), TransactionStatus.COMPLETED));
+        save(quoted);
+        save(transaction("TXN003", "ACC003", "ACC004", base.plusSeconds(3), TransactionStatus.COMPLETED));
+        save(transaction("TXN004", "ACC001", "ACC003", base.plusSeconds(4), TransactionStatus.COMPLETED));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = transactionExportService.export(new Filter("ACC001", base.plusSeconds(2), base.plusSeconds(4), null),
+                ExportFormat.CSV, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, count);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("id,timestamp,type,status,amount"));
+        assertEquals("TXN002,2024-12-25T10:00:02,TRANSFER,COMPLETED,100.25,CNY,ONLINE,OUT,ACC002,ACC001,"
+                + "\"工资,12月 \"\"奖金\"\"\",,", lines.get(1));
+    }
+
+    @Test
+    @DisplayName("按账户导出 - 跨多批遍历，同一时间的交易不重复不遗漏")
+    void testExport_AccountAcrossChunks() throws IOException {
+        // Given - 全部交易时间相同，只能靠交易ID区分位置
+        int total = TransactionExportServiceImpl.CHUNK_SIZE + 1;
+        for (int i = 0; i < total; i++) {
+            save(transaction(String.format("TXN%05d", i), "ACC001", "ACC002", base, TransactionStatus.COMPLETED));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = transactionExportService.export(new Filter("ACC002", null, null, null), ExportFormat.NDJSON, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(total, count);
+        assertEquals(total, lines.stream().distinct().count());
+    }
+
+    private void save(Transaction transaction) {
+        transactionDao.save(transaction);
+    }
+
+    private Transaction transaction(String id, String fromAccountId, String toAccountId, LocalDateTime timestamp, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("100.25"));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("ONLINE");
+        transaction.setDirection("OUT");
+        transaction.setFromAccountId(fromAccountId);
+        transaction.setToAccountId(toAccountId);
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus(status);
+        return transaction;
+    }
+}
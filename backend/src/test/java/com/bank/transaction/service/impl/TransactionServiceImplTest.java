@@ -12,17 +12,33 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
 
 import com.bank.transaction.dao.TransactionDao;
+import com.bank.transaction.eventlog.TransactionEventLogger;
 import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.exception.business.ValidationException;
 import com.bank.transaction.model.Account;
 import com.bank.transaction.model.Transaction;
 import com.bank.transaction.service.TransactionToolService;
 import com.bank.transaction.service.AccountService;
+import com.bank.transaction.statistics.TransactionMetrics;
+import com.bank.transaction.statistics.TransactionStatistics;
+import com.bank.transaction.config.BatchConfig;
+import com.bank.transaction.config.IdempotencyConfig;
+import com.bank.transaction.config.TransactionConfig;
 import com.bank.transaction.config.TransactionLimitConfig;
+import com.bank.transaction.idempotency.IdempotencyStore;
+import com.bank.transaction.index.TimeCursor;
+import com.bank.transaction.index.TransactionQuery;
+import com.bank.transaction.index.TransactionTimeIndex;
+import com.bank.transaction.limit.CumulativeLimitTracker;
+import com.bank.transaction.util.BatchResult;
+import com.bank.transaction.util.Constants.BatchMode;
 import com.bank.transaction.util.Constants.ErrorCode;
 import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
@@ -30,6 +46,7 @@ import com.bank.transaction.util.Constants.AccountStatus;
 import com.bank.transaction.util.Constants.Currency;
 import com.bank.transaction.util.PageInfo;
 import org.springframework.test.util.ReflectionTestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 import java.util.Arrays;
 
@@ -65,6 +82,14 @@ class TransactionServiceImplTest {
         
         // 注入到服务中
         ReflectionTestUtils.setField(transactionService, "limitConfig", limitConfig);
+        ReflectionTestUtils.setField(transactionService, "idempotencyStore", new IdempotencyStore(new IdempotencyConfig()));
+        ReflectionTestUtils.setField(transactionService, "cumulativeLimitTracker", 
+            new CumulativeLimitTracker(limitConfig, new TransactionConfig(), transactionDao));
+        
+        ReflectionTestUtils.setField(transactionService, "batchConfig", new BatchConfig());
+        ReflectionTestUtils.setField(transactionService, "transactionStatistics", new TransactionStatistics());
+        ReflectionTestUtils.setField(transactionService, "transactionMetrics", new TransactionMetrics());
+        ReflectionTestUtils.setField(transactionService, "transactionEventLogger", TransactionEventLogger.disabled());
         
         // 准备测试数据
         fromAccount = new Account();
@@ -112,6 +137,86 @@ class TransactionServiceImplTest {
         verify(transactionToolService).performPostTransactionProcessing(result, "CREATE");
     }
 
+    @Test
+    @DisplayName("创建交易 - 保存后计入实时统计")
+    void testCreateTransaction_RecordsStatistics() {
+        // Given
+        TransactionStatistics statistics = new TransactionStatistics();
+        ReflectionTestUtils.setField(transactionService, "transactionStatistics", statistics);
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN20241225TEST001");
+        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        
+        // When
+        transactionService.createTransaction(testTransaction);
+        
+        // Then
+        TransactionStatistics.Snapshot snapshot = transactionService.getStatistics();
+        assertEquals(1, snapshot.totalCreated());
+        assertEquals(1, snapshot.byType().get(TransactionType.TRANSFER).count());
+        assertEquals(new BigDecimal("1000.00"), snapshot.byStatus().get(TransactionStatus.PENDING).amount());
+    }
+
+    @Test
+    @DisplayName("创建交易 - 相同幂等性键的重复请求返回原交易")
+    void testCreateTransaction_IdempotentReplay() {
+        // Given
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN20241225TEST001");
+        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(transactionDao.findById("TXN20241225TEST001")).thenReturn(Optional.of(testTransaction));
+        Transaction first = transactionService.createTransaction(testTransaction);
+        
+        Transaction retry = new Transaction();
+        retry.setType(TransactionType.TRANSFER);
+        retry.setAmount(new BigDecimal("1000"));
+        retry.setIdempotencyKey("IDM123456");
+        
+        // When
+        Transaction result = transactionService.createTransaction(retry);
+        
+        // Then - 不重复保存和记账
+        assertSame(first, result);
+        verify(transactionDao, times(1)).save(any(Transaction.class));
+        verify(transactionToolService, times(1)).performPostTransactionProcessing(any(), eq("CREATE"));
+    }
+
+    @Test
+    @DisplayName("创建交易 - 首次请求失败后相同幂等性键可以重试")
+    void testCreateTransaction_IdempotencyKeyReleasedOnFailure() {
+        // Given - 首次请求余额不足
+        fromAccount.setBalance(new BigDecimal("500"));
+        assertThrows(BusinessException.class, () -> transactionService.createTransaction(testTransaction));
+        fromAccount.setBalance(new BigDecimal("10000"));
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN20241225TEST001");
+        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        
+        // When
+        Transaction result = transactionService.createTransaction(testTransaction);
+        
+        // Then
+        assertEquals("TXN20241225TEST001", result.getId());
+        verify(transactionDao).save(any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("创建交易 - 超过日累计限额")
+    void testCreateTransaction_DailyCumulativeLimitExceeded() {
+        // Given - 日累计限额1500，每笔1000
+        limitConfig.setDailyTransactionLimit(new BigDecimal("1500"));
+        fromAccount.setAccountId("ACC001");
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN20241225TEST001");
+        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        transactionService.createTransaction(testTransaction);
+        testTransaction.setIdempotencyKey("IDM654321");
+        
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, 
+            () -> transactionService.createTransaction(testTransaction));
+        
+        assertEquals(ErrorCode.VALIDATION_ERROR, exception.getErrorCode());
+        assertTrue(exception.getMessage().contains("日累计交易金额超过限额"));
+        verify(transactionDao, times(1)).save(any(Transaction.class));
+    }
+
     @Test
     @DisplayName("创建交易 - 账户状态异常")
     void testCreateTransaction_InvalidAccountStatus() {
@@ -127,6 +232,33 @@ class TransactionServiceImplTest {
         verify(transactionDao, never()).save(any());
     }
 
+    @Test
+    @DisplayName("创建交易 - 记录各阶段耗时，失败时按错误码计数")
+    void testCreateTransaction_RecordsMetrics() {
+        // Given
+        TransactionMetrics metrics = new TransactionMetrics();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+        ReflectionTestUtils.setField(transactionService, "transactionMetrics", metrics);
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN20241225TEST001");
+        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        
+        // When
+        transactionService.createTransaction(testTransaction);
+        fromAccount.setStatus(AccountStatus.FROZEN);
+        testTransaction.setIdempotencyKey(null);
+        assertThrows(BusinessException.class, () -> transactionService.createTransaction(testTransaction));
+        
+        // Then - 失败的请求只经过账户状态校验之前的阶段
+        for (TransactionMetrics.Stage stage : TransactionMetrics.Stage.values()) {
+            long expected = stage.compareTo(TransactionMetrics.Stage.ACCOUNT_LOOKUP) <= 0 ? 2 : 1;
+            assertEquals(expected, registry.get("bank.transactions.create.stage").tag("stage", stage.getTag()).timer().count(), stage.getTag());
+        }
+        assertEquals(1, registry.get("bank.transactions.create").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("bank.transactions.create").tag("outcome", "failure").timer().count());
+        assertEquals(1, metrics.getErrorCount(ErrorCode.INVALID_ACCOUNT));
+    }
+
     @Test
     @DisplayName("创建交易 - 余额不足")
     void testCreateTransaction_InsufficientBalance() {
@@ -173,6 +305,25 @@ class TransactionServiceImplTest {
         verify(transactionDao, never()).save(any());
     }
 
+    @Test
+    @DisplayName("创建交易 - 金额小数位数超出币种最小货币单位")
+    void testCreateTransaction_AmountScaleExceedsCurrency() {
+        // Given - 人民币最小单位为分，10.005无法按分记账
+        testTransaction.setType(TransactionType.DEPOSIT);
+        testTransaction.setFromAccount(null);
+        testTransaction.setCurrency(Currency.CNY);
+        testTransaction.setAmount(new BigDecimal("10.005"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> transactionService.createTransaction(testTransaction));
+
+        assertEquals(ErrorCode.VALIDATION_ERROR, exception.getErrorCode());
+        assertTrue(exception.getMessage().contains("交易金额小数位数不能超过2位"));
+        verify(transactionDao, never()).save(any());
+        verify(accountService, never()).postTransaction(any());
+    }
+
     @Test
     @DisplayName("创建交易 - 存款类型配置")
     void testCreateTransaction_DepositType() {
@@ -232,7 +383,7 @@ class TransactionServiceImplTest {
         updateData.setRemark("更新后的备注"); // 只修改remark字段
         
         when(transactionDao.findById(transactionId)).thenReturn(Optional.of(testTransaction));
-        when(transactionDao.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(transactionDao.updateRemark(transactionId, TransactionStatus.PENDING, "更新后的备注")).thenReturn(Optional.of(testTransaction));
         doNothing().when(transactionToolService).performPostTransactionProcessing(any(), eq("UPDATE"));
         
         // When
@@ -240,7 +391,8 @@ class TransactionServiceImplTest {
         
         // Then
         assertNotNull(result);
-        verify(transactionDao).save(any(Transaction.class));
+        verify(transactionDao).updateRemark(transactionId, TransactionStatus.PENDING, "更新后的备注");
+        verify(transactionDao, never()).save(any());
         verify(transactionToolService).performPostTransactionProcessing(result, "UPDATE");
     }
 
@@ -256,7 +408,25 @@ class TransactionServiceImplTest {
             () -> transactionService.updateTransaction(transactionId, new Transaction()));
         
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        verify(transactionDao, never()).updateRemark(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("更新交易 - 校验后交易被记账流水线改为完成，不覆盖新状态")
+    void testUpdateTransaction_StatusChangedConcurrently() {
+        // Given - 读取时PENDING，条件更新时存储中的状态已变更
+        Transaction updateData = new Transaction();
+        updateData.setRemark("并发修改的备注");
+        when(transactionDao.findById("TXN001")).thenReturn(Optional.of(testTransaction));
+        when(transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "并发修改的备注")).thenReturn(Optional.empty());
+        
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, 
+            () -> transactionService.updateTransaction("TXN001", updateData));
+        
+        assertEquals(ErrorCode.TRANSACTION_CONFLICT, exception.getErrorCode());
         verify(transactionDao, never()).save(any());
+        verify(transactionToolService, never()).performPostTransactionProcessing(any(), any());
     }
 
     @Test
@@ -284,7 +454,12 @@ class TransactionServiceImplTest {
         updateData.setRemark("新的备注"); // 只有这个会被更新
         
         when(transactionDao.findById(anyString())).thenReturn(Optional.of(testTransaction));
-        when(transactionDao.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "新的备注")).thenAnswer(invocation -> {
+            Transaction stored = new Transaction();
+            BeanUtils.copyProperties(testTransaction, stored);
+            stored.setRemark(invocation.getArgument(2));
+            return Optional.of(stored);
+        });
         doNothing().when(transactionToolService).performPostTransactionProcessing(any(), eq("UPDATE"));
         
         // When
@@ -295,7 +470,7 @@ class TransactionServiceImplTest {
         assertEquals(testTransaction.getId(), result.getId()); // ID保持不变
         assertEquals(testTransaction.getAmount(), result.getAmount()); // 金额保持不变
         assertEquals("新的备注", result.getRemark()); // 只有remark被更新
-        verify(transactionDao).save(any(Transaction.class));
+        verify(transactionDao, never()).save(any());
     }
 
     @Test
@@ -307,7 +482,12 @@ class TransactionServiceImplTest {
         updateData.setRemark("测试备注"); // 只有remark会被更新
         
         when(transactionDao.findById(anyString())).thenReturn(Optional.of(testTransaction));
-        when(transactionDao.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionDao.updateRemark("TXN001", TransactionStatus.PENDING, "测试备注")).thenAnswer(invocation -> {
+            Transaction stored = new Transaction();
+            BeanUtils.copyProperties(testTransaction, stored);
+            stored.setRemark(invocation.getArgument(2));
+            return Optional.of(stored);
+        });
         doNothing().when(transactionToolService).performPostTransactionProcessing(any(), eq("UPDATE"));
         
         // When
@@ -317,7 +497,7 @@ class TransactionServiceImplTest {
         assertNotNull(result);
         assertEquals(testTransaction.getAmount(), result.getAmount()); // 金额保持不变
         assertEquals("测试备注", result.getRemark()); // remark被更新
-        verify(transactionDao).save(any(Transaction.class));
+        verify(transactionDao, never()).save(any());
     }
 
     @Test
@@ -374,12 +554,8 @@ class TransactionServiceImplTest {
     @DisplayName("查询所有交易 - 成功场景")
     void testGetAllTransactions_Success() {
         // Given
-        List<String> transactionIds = Arrays.asList("TXN001", "TXN002");
-        
-        when(transactionToolService.getTransactionIdsByTime(0, 10)).thenReturn(transactionIds);
-        when(transactionToolService.getTotalTransactionCount()).thenReturn(2);
-        when(transactionDao.findById("TXN001")).thenReturn(Optional.of(testTransaction));
-        when(transactionDao.findById("TXN002")).thenReturn(Optional.of(testTransaction));
+        when(transactionDao.findNewestFirst(0, 10)).thenReturn(List.of(testTransaction, testTransaction));
+        when(transactionDao.count()).thenReturn(2);
         
         // When
         PageInfo<Transaction> result = transactionService.getAllTransactions(0, 10);
@@ -387,8 +563,70 @@ class TransactionServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(2, result.getTotal());
-        verify(transactionToolService).getTransactionIdsByTime(0, 10);
-        verify(transactionToolService).getTotalTransactionCount();
+        verify(transactionDao).findNewestFirst(0, 10);
+        verify(transactionDao).count();
+    }
+
+    @Test
+    @DisplayName("游标分页查询 - 还有下一页，下一页游标指向本页最后一笔交易")
+    void testGetTransactionsByCursor_HasMore() {
+        // Given - 多取一条用于判断是否还有下一页
+        LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+        TimeCursor cursor = new TimeCursor(TransactionTimeIndex.toTimeKey(base.plusSeconds(4)), "TXN004");
+        Transaction second = cursorTransaction("TXN002", base.plusSeconds(2));
+        when(transactionDao.findBefore(cursor, 3)).thenReturn(List.of(
+            cursorTransaction("TXN003", base.plusSeconds(3)), second, cursorTransaction("TXN001", base.plusSeconds(1))));
+        when(transactionDao.count()).thenReturn(5);
+        
+        // When
+        PageInfo<Transaction> result = transactionService.getTransactionsByCursor(cursor.encode(), 2);
+        
+        // Then
+        assertEquals(List.of("TXN003", "TXN002"), result.getItems().stream().map(Transaction::getId).toList());
+        assertEquals(cursor.encode(), result.getCursor());
+        assertEquals(new TimeCursor(TransactionTimeIndex.toTimeKey(second.getTimestamp()), "TXN002").encode(), result.getNextCursor());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    @DisplayName("游标分页查询 - 首页从最新交易开始，最后一页没有下一页游标")
+    void testGetTransactionsByCursor_LastPage() {
+        // Given
+        when(transactionDao.findBefore(null, 3)).thenReturn(List.of(testTransaction));
+        when(transactionDao.count()).thenReturn(1);
+        
+        // When
+        PageInfo<Transaction> result = transactionService.getTransactionsByCursor("", 2);
+        
+        // Then
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    @DisplayName("游标分页查询 - 无效游标")
+    void testGetTransactionsByCursor_InvalidCursor() {
+        // When & Then
+        ValidationException exception = assertThrows(ValidationException.class, 
+            () -> transactionService.getTransactionsByCursor("BAD", 2));
+        
+        assertEquals(ErrorCode.VALIDATION_ERROR, exception.getErrorCode());
+        verify(transactionDao, never()).findBefore(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("组合查询 - 金额或时间范围无效时拒绝，不访问存储")
+    void testSearchTransactions_InvalidRange() {
+        // Given
+        TransactionQuery amountQuery = new TransactionQuery(null, null, null, null, new BigDecimal("100"), new BigDecimal("10"), null, null);
+        LocalDateTime now = LocalDateTime.now();
+        TransactionQuery timeQuery = new TransactionQuery(null, null, null, null, null, null, now, now);
+        
+        // When & Then
+        assertThrows(ValidationException.class, () -> transactionService.searchTransactions(amountQuery, 0, 20));
+        assertThrows(ValidationException.class, () -> transactionService.searchTransactions(timeQuery, 0, 20));
+        verify(transactionDao, never()).findByQuery(any(), anyInt(), anyInt());
     }
 
     @Test
@@ -406,12 +644,177 @@ class TransactionServiceImplTest {
         assertTrue(exception.getMessage().contains("创建交易失败"));
     }
 
+    @Test
+    @DisplayName("批量创建 - 整批模式下合计超出余额时整批不生效")
+    void testCreateTransactions_AllOrNothing() {
+        // Given - 余额10000，三笔各4000，第三笔累计后余额不足
+        givenBatchAccounts();
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN001", "TXN002");
+        List<Transaction> batch = List.of(batchTransfer("4000"), batchTransfer("4000"), batchTransfer("4000"));
+        
+        // When
+        BatchResult result = transactionService.createTransactions(batch, BatchMode.ALL_OR_NOTHING);
+        
+        // Then
+        assertEquals(3, result.getFailed());
+        assertEquals(0, result.getSucceeded());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE.getCode(), result.getItems().get(2).errorCode());
+        assertEquals(ErrorCode.BUSINESS_ERROR.getCode(), result.getItems().get(0).errorCode());
+        verify(accountService, never()).postTransactions(any());
+        verify(transactionDao, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("批量创建 - 尽力模式下跳过失败交易，通过校验的交易一起记账")
+    @SuppressWarnings("unchecked")
+    void testCreateTransactions_BestEffort() {
+        // Given
+        givenBatchAccounts();
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN001", "TXN002");
+        List<Transaction> batch = List.of(batchTransfer("4000"), batchTransfer("4000"), batchTransfer("4000"));
+        
+        // When
+        BatchResult result = transactionService.createTransactions(batch, BatchMode.BEST_EFFORT);
+        
+        // Then
+        assertEquals(2, result.getSucceeded());
+        assertFalse(result.getItems().get(2).success());
+        assertEquals("TXN002", result.getItems().get(1).transaction().getId());
+        ArgumentCaptor<List<Transaction>> posted = ArgumentCaptor.forClass(List.class);
+        verify(accountService, times(1)).postTransactions(posted.capture());
+        assertEquals(List.of("TXN001", "TXN002"), posted.getValue().stream().map(Transaction::getId).toList());
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionDao).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertTrue(saved.getValue().stream().allMatch(t -> t.getStatus() == TransactionStatus.COMPLETED));
+        verify(transactionToolService, times(2)).performPostTransactionProcessing(any(), eq("CREATE"));
+    }
+
+    @Test
+    @DisplayName("批量创建 - 尽力模式下记账抛出非业务异常时逐笔记账，只有出错的交易失败")
+    void testCreateTransactions_BestEffortPostingRuntimeError() {
+        // Given
+        givenBatchAccounts();
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN001", "TXN002");
+        doThrow(new IllegalStateException("记账异常")).when(accountService).postTransactions(any());
+        doAnswer(invocation -> {
+            if ("TXN002".equals(invocation.<Transaction>getArgument(0).getId())) {
+                throw new IllegalStateException("记账异常");
+            }
+            return null;
+        }).when(accountService).postTransaction(any());
+        List<Transaction> batch = List.of(batchTransfer("100"), batchTransfer("100"));
+
+        // When
+        BatchResult result = transactionService.createTransactions(batch, BatchMode.BEST_EFFORT);
+
+        // Then
+        assertEquals(1, result.getSucceeded());
+        assertTrue(result.getItems().get(0).success());
+        assertEquals(ErrorCode.SYSTEM_ERROR.getCode(), result.getItems().get(1).errorCode());
+        verify(transactionDao).saveAll(List.of(batch.get(0)));
+    }
+
+    @Test
+    @DisplayName("批量创建 - 逐笔记账按原顺序生效，先存款后取款的交易都成功")
+    void testCreateTransactions_BestEffortPostsInOrder() {
+        // Given - 空账户先存200再取100，整批记账失败后逐笔记账
+        toAccount.setAccountId("ACC002");
+        toAccount.setBalance(new BigDecimal("0.00"));
+        when(accountService.getAccountById("ACC002")).thenReturn(Optional.of(toAccount));
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN001", "TXN002");
+        doThrow(new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, "余额已变化")).when(accountService).postTransactions(any());
+        List<String> posted = new java.util.ArrayList<>();
+        doAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            if (transaction.getType() == TransactionType.WITHDRAWAL && !posted.contains("TXN001")) {
+                throw new BusinessException(ErrorCode.INSUFFICIENT_BALANCE, "账户余额不足");
+            }
+            posted.add(transaction.getId());
+            return null;
+        }).when(accountService).postTransaction(any());
+        Transaction deposit = batchTransfer("200");
+        deposit.setType(TransactionType.DEPOSIT);
+        deposit.setFromAccountId(null);
+        Transaction withdrawal = batchTransfer("100");
+        withdrawal.setType(TransactionType.WITHDRAWAL);
+        withdrawal.setFromAccountId("ACC002");
+        withdrawal.setToAccountId(null);
+
+        // When
+        BatchResult result = transactionService.createTransactions(List.of(deposit, withdrawal), BatchMode.BEST_EFFORT);
+
+        // Then
+        assertEquals(2, result.getSucceeded());
+        assertEquals(List.of("TXN001", "TXN002"), posted);
+    }
+
+    @Test
+    @DisplayName("批量创建 - 带幂等性键的交易校验失败，不会记账")
+    @SuppressWarnings("unchecked")
+    void testCreateTransactions_RejectsIdempotencyKey() {
+        // Given
+        givenBatchAccounts();
+        when(transactionToolService.generateBankTransactionId()).thenReturn("TXN001");
+        Transaction keyed = batchTransfer("100");
+        keyed.setIdempotencyKey("IDM-BATCH-1");
+        List<Transaction> batch = List.of(batchTransfer("100"), keyed);
+
+        // When
+        BatchResult result = transactionService.createTransactions(batch, BatchMode.BEST_EFFORT);
+
+        // Then
+        assertEquals(1, result.getSucceeded());
+        assertEquals(ErrorCode.VALIDATION_ERROR.getCode(), result.getItems().get(1).errorCode());
+        ArgumentCaptor<List<Transaction>> posted = ArgumentCaptor.forClass(List.class);
+        verify(accountService).postTransactions(posted.capture());
+        assertEquals(List.of(batch.get(0)), posted.getValue());
+    }
+
+    @Test
+    @DisplayName("批量创建 - 超过单次批量上限时拒绝")
+    void testCreateTransactions_TooLarge() {
+        // Given
+        BatchConfig batchConfig = new BatchConfig();
+        batchConfig.setMaxSize(2);
+        ReflectionTestUtils.setField(transactionService, "batchConfig", batchConfig);
+        
+        // When & Then
+        assertThrows(ValidationException.class, () -> transactionService.createTransactions(
+            List.of(batchTransfer("1"), batchTransfer("1"), batchTransfer("1")), null));
+    }
+
+    private void givenBatchAccounts() {
+        fromAccount.setAccountId("ACC001");
+        toAccount.setAccountId("ACC002");
+        when(accountService.getAccountById("ACC001")).thenReturn(Optional.of(fromAccount));
+        when(accountService.getAccountById("ACC002")).thenReturn(Optional.of(toAccount));
+    }
+
+    private Transaction cursorTransaction(String id, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    private Transaction batchTransfer(String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setChannel("BATCH");
+        transaction.setFromAccountId("ACC001");
+        transaction.setToAccountId("ACC002");
+        return transaction;
+    }
+
     @Test
     @DisplayName("系统异常处理 - 更新交易")
     void testUpdateTransaction_SystemError() {
         // Given
         when(transactionDao.findById(anyString())).thenReturn(Optional.of(testTransaction));
-        when(transactionDao.save(any())).thenThrow(new RuntimeException("数据库连接失败"));
+        when(transactionDao.updateRemark(any(), any(), any())).thenThrow(new RuntimeException("数据库连接失败"));
         
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class, 
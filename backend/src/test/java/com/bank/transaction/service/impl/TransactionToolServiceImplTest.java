@@ -1,6 +1,7 @@
 package com.bank.transaction.service.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -9,16 +10,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.pipeline.PostTransactionPipeline;
 import com.bank.transaction.util.Constants.TransactionStatus;
 import com.bank.transaction.util.Constants.TransactionType;
+import com.bank.transaction.util.SnowflakeIdGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("交易工具服务实现类单元测试")
 class TransactionToolServiceImplTest {
 
+    @Mock
+    private PostTransactionPipeline postTransactionPipeline;
+
     @InjectMocks
     private TransactionToolServiceImpl transactionToolService;
     
@@ -26,6 +34,8 @@ class TransactionToolServiceImplTest {
     
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(transactionToolService, "idGenerator", new SnowflakeIdGenerator(1));
+        
         testTransaction = new Transaction();
         testTransaction.setId("TXN20241225TEST001");
         testTransaction.setType(TransactionType.TRANSFER);
@@ -134,6 +144,10 @@ class TransactionToolServiceImplTest {
         // When & Then - 应该不抛出异常
         assertDoesNotThrow(() -> 
             transactionToolService.performPostTransactionProcessing(testTransaction, "CREATE"));
+        
+        // 只提交到流水线，不在调用线程处理
+        verify(postTransactionPipeline).submit(testTransaction, "CREATE");
+        assertEquals(TransactionStatus.PENDING, testTransaction.getStatus());
     }
 
     @Test
@@ -158,6 +172,7 @@ class TransactionToolServiceImplTest {
         // When & Then - 应该不抛出异常（方法内部有异常处理）
         assertDoesNotThrow(() -> 
             transactionToolService.performPostTransactionProcessing(null, "CREATE"));
+        verifyNoInteractions(postTransactionPipeline);
     }
 
     @Test
@@ -204,4 +219,4 @@ class TransactionToolServiceImplTest {
         // Then
         assertEquals(batchSize, generatedIds.size(), "批量生成的ID应该全部唯一");
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.bank.transaction.statistics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.statistics.TransactionMetrics.Stage;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("交易指标单元测试")
+class TransactionMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private TransactionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new TransactionMetrics();
+        metrics.bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("阶段耗时 - 按阶段标签记录，返回值作为下一阶段的开始时间，发布百分位")
+    void testRecordStage() {
+        // When
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+        long next = metrics.recordStage(Stage.SAVE, start);
+        metrics.recordStage(Stage.INDEX, next);
+
+        // Then
+        Timer save = registry.get("bank.transactions.create.stage").tag("stage", "save").timer();
+        assertEquals(1, save.count());
+        assertTrue(save.totalTime(TimeUnit.MILLISECONDS) >= 5);
+        assertEquals(1, registry.get("bank.transactions.create.stage").tag("stage", "index").timer().count());
+        assertEquals(0, registry.get("bank.transactions.create.stage").tag("stage", "validation").timer().count());
+        ValueAtPercentile[] percentiles = save.takeSnapshot().percentileValues();
+        assertEquals(3, percentiles.length);
+        assertEquals(0.99, percentiles[2].percentile());
+    }
+
+    @Test
+    @DisplayName("总耗时和失败计数 - 按结果和错误码分别统计")
+    void testRecordCreateAndErrors() {
+        // When
+        long start = System.nanoTime();
+        metrics.recordCreate(start, true);
+        metrics.recordCreate(start, false);
+        metrics.recordCreate(start, false);
+        metrics.recordError(ErrorCode.INSUFFICIENT_BALANCE);
+        metrics.recordError(ErrorCode.INSUFFICIENT_BALANCE);
+        metrics.recordError(null);
+
+        // Then
+        assertEquals(1, registry.get("bank.transactions.create").tag("outcome", "success").timer().count());
+        assertEquals(2, registry.get("bank.transactions.create").tag("outcome", "failure").timer().count());
+        assertEquals(2.0, registry.get("bank.transactions.errors").tag("code", "INSUFFICIENT_BALANCE").functionCounter().count());
+        assertEquals(1, metrics.getErrorCount(ErrorCode.SYSTEM_ERROR));
+        assertTrue(registry.find("bank.transactions.errors").tag("code", "SUCCESS").functionCounter() == null);
+    }
+
+    @Test
+    @DisplayName("绑定之前的记录不发布，绑定后开始发布")
+    void testRecordBeforeBind() {
+        // Given
+        TransactionMetrics unbound = new TransactionMetrics();
+        unbound.recordStage(Stage.VALIDATION, System.nanoTime());
+
+        // When
+        SimpleMeterRegistry later = new SimpleMeterRegistry();
+        unbound.bindTo(later);
+        unbound.recordStage(Stage.VALIDATION, System.nanoTime());
+
+        // Then
+        assertEquals(1, later.get("bank.transactions.create.stage").tag("stage", "validation").timer().count());
+    }
+
+    @Test
+    @DisplayName("按交易类型的创建笔数 - 由实时统计发布")
+    void testCreatedByType() {
+        // Given
+        TransactionStatistics statistics = new TransactionStatistics();
+        statistics.bindTo(registry);
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setCurrency(Currency.CNY);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setAmount(BigDecimal.TEN);
+
+        // When
+        statistics.recordCreated(transaction);
+        statistics.recordCreated(transaction);
+
+        // Then
+        assertEquals(2.0, registry.get("bank.transactions.created").tag("type", "DEPOSIT").functionCounter().count());
+        assertEquals(0.0, registry.get("bank.transactions.created").tag("type", "TRANSFER").functionCounter().count());
+        assertNotNull(registry.get("bank.transactions.tps").gauge());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bank.transaction.statistics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("交易实时统计单元测试")
+class TransactionStatisticsTest {
+
+    private final AtomicLong now = new AtomicLong(1_735_000_000_000L);
+
+    private TransactionStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new TransactionStatistics(now::get);
+    }
+
+    @Test
+    @DisplayName("创建交易 - 按类型、币种、渠道、状态累计笔数和金额")
+    void testRecordCreated() {
+        // When
+        statistics.recordCreated(transaction(TransactionType.TRANSFER, Currency.CNY, "ONLINE", "100.25", TransactionStatus.PENDING));
+        statistics.recordCreated(transaction(TransactionType.TRANSFER, Currency.USD, "ONLINE", "10", TransactionStatus.PENDING));
+        statistics.recordCreated(transaction(TransactionType.DEPOSIT, Currency.CNY, "ATM", "5000", TransactionStatus.COMPLETED));
+
+        // Then
+        TransactionStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(3, snapshot.totalCreated());
+        assertEquals(new TransactionStatistics.Aggregate(2, new BigDecimal("110.25")), snapshot.byType().get(TransactionType.TRANSFER));
+        assertEquals(new TransactionStatistics.Aggregate(2, new BigDecimal("5100.25")), snapshot.byCurrency().get(Currency.CNY));
+        assertEquals(new TransactionStatistics.Aggregate(1, new BigDecimal("5000.00")), snapshot.byChannel().get("ATM"));
+        assertEquals(2, snapshot.byStatus().get(TransactionStatus.PENDING).count());
+        assertEquals(0, snapshot.byStatus().get(TransactionStatus.FAILED).count());
+        // 已完成的存款计入转入账户流入
+        assertEquals(new TransactionStatistics.Aggregate(1, new BigDecimal("5000.00")), statistics.accountFlow("ACC002").inflow());
+        assertEquals(0, statistics.accountFlow("ACC001").outflow().count());
+    }
+
+    @Test
+    @DisplayName("状态变更 - 从原状态移到新状态，完成时计入账户流入流出，重复通知不重复计入")
+    void testRecordStatusChange() {
+        // Given
+        Transaction transaction = transaction(TransactionType.TRANSFER, Currency.CNY, "ONLINE", "100", TransactionStatus.PENDING);
+        statistics.recordCreated(transaction);
+
+        // When
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        statistics.recordStatusChange(transaction, TransactionStatus.PENDING);
+        statistics.recordStatusChange(transaction, TransactionStatus.COMPLETED);
+
+        // Then
+        TransactionStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(new TransactionStatistics.Aggregate(0, new BigDecimal("0.00")), snapshot.byStatus().get(TransactionStatus.PENDING));
+        assertEquals(new TransactionStatistics.Aggregate(1, new BigDecimal("100.00")), snapshot.byStatus().get(TransactionStatus.COMPLETED));
+        assertEquals(new TransactionStatistics.Aggregate(1, new BigDecimal("100.00")), statistics.accountFlow("ACC001").outflow());
+        assertEquals(new TransactionStatistics.Aggregate(1, new BigDecimal("100.00")), statistics.accountFlow("ACC002").inflow());
+        assertEquals(new TransactionStatistics.Aggregate(0, new BigDecimal("0.00")), statistics.accountFlow("ACC999").inflow());
+    }
+
+    @Test
+    @DisplayName("TPS - 只统计之前完整的60秒，不含当前这一秒")
+    void testTps_LastFullMinute() {
+        // Given - 连续61秒每秒创建 i 笔（第0秒到第60秒）
+        long start = now.get() / 1000 * 1000;
+        for (int second = 0; second <= 60; second++) {
+            now.set(start + second * 1000L);
+            for (int i = 0; i < second; i++) {
+                statistics.recordCreated(transaction(TransactionType.TRANSFER, Currency.CNY, "ONLINE", "1", TransactionStatus.PENDING));
+            }
+        }
+
+        // When - 当前处于第60秒：统计第0~59秒
+        TransactionStatistics.Snapshot current = statistics.snapshot();
+        now.set(start + 61_000);
+        TransactionStatistics.Snapshot next = statistics.snapshot();
+
+        // Then
+        assertEquals(59 * 60 / 2, current.lastMinuteCount());
+        assertEquals(59 * 60 / 2 / 60.0, current.tps(), 1e-9);
+        assertEquals(60 * 61 / 2, next.lastMinuteCount());
+    }
+
+    @Test
+    @DisplayName("并发更新 - 多线程累加不丢失")
+    void testConcurrentRecord() throws InterruptedException {
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    statistics.recordCreated(transaction(TransactionType.TRANSFER, Currency.CNY, "ONLINE", "0.01", TransactionStatus.PENDING));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        TransactionStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(80_000, snapshot.totalCreated());
+        assertEquals(new BigDecimal("800.00"), snapshot.byChannel().get("ONLINE").amount());
+    }
+
+    private Transaction transaction(TransactionType type, Currency currency, String channel, String amount, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setCurrency(currency);
+        transaction.setChannel(channel);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setStatus(status);
+        transaction.setFromAccountId(type == TransactionType.DEPOSIT ? null : "ACC001");
+        transaction.setToAccountId("ACC002");
+        return transaction;
+    }
+}
@@ -0,0 +1,246 @@
+package com.bank.transaction.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bank.transaction.config.PersistenceConfig;
+import com.bank.transaction.dao.impl.CacheTransactionDao;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.ledger.JournalEntry;
+import com.bank.transaction.ledger.Posting;
+import com.bank.transaction.ledger.PostingJournal;
+import com.bank.transaction.model.Account;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.service.TransactionToolService;
+import com.bank.transaction.service.impl.AccountServiceImpl;
+import com.bank.transaction.util.Constants.Currency;
+import com.bank.transaction.util.Constants.ErrorCode;
+import com.bank.transaction.util.Constants.TransactionStatus;
+import com.bank.transaction.util.Constants.TransactionType;
+
+@DisplayName("内存存储持久化单元测试")
+class DurableStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private PersistenceConfig config;
+    private Node node;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new PersistenceConfig();
+        config.setDirectory(directory.toString());
+        config.setSegmentBytes(64 * 1024);
+        config.setSnapshotIntervalSeconds(0);
+        node = new Node(config);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        node.durableStore.stop();
+    }
+
+    @Test
+    @DisplayName("重启恢复 - 只有日志时回放交易、删除和余额变更")
+    void testRecoverFromWal() throws IOException {
+        // Given
+        node.dao.save(transaction("TXN001", "ACC001", "ACC002", base));
+        node.dao.save(transaction("TXN002", "ACC001", "ACC003", base.plusSeconds(1)));
+        Transaction updated = transaction("TXN001", "ACC001", "ACC002", base);
+        updated.setStatus(TransactionStatus.COMPLETED);
+        node.dao.save(updated);
+        node.dao.deleteById("TXN002");
+        node.accounts.transfer("ACC001", "ACC002", new BigDecimal("100.50"));
+        node.accounts.updateBalance("ACC003", new BigDecimal("-8000"));
+
+        // When
+        Node restarted = restart();
+
+        // Then
+        assertEquals(TransactionStatus.COMPLETED, restarted.dao.findById("TXN001").orElseThrow().getStatus());
+        assertTrue(restarted.dao.findById("TXN002").isEmpty());
+        assertEquals(1, restarted.dao.findByAccountId("ACC001").size());
+        assertEquals(1, restarted.dao.count());
+        assertEquals(new BigDecimal("9899.50"), restarted.accounts.getAccountById("ACC001").orElseThrow().getBalance());
+        assertEquals(new BigDecimal("5100.50"), restarted.accounts.getAccountById("ACC002").orElseThrow().getBalance());
+        assertEquals(0, restarted.accounts.getAccountById("ACC003").orElseThrow().getBalance().signum());
+        assertEquals(0, restarted.durableStore.getRecoveryStats().snapshotSeq());
+    }
+
+    @Test
+    @DisplayName("重启恢复 - 快照加快照之后的日志，快照之前的日志段被清理")
+    void testRecoverFromSnapshotAndWalTail() throws IOException {
+        // Given - 快照前写入足够多的交易，使日志切换多个段
+        for (int i = 0; i < 1000; i++) {
+            node.dao.save(transaction("TXN" + i, "ACC001", "ACC002", base.plusSeconds(i)));
+        }
+        node.accounts.updateBalance("ACC001", new BigDecimal("-1000"));
+        node.durableStore.snapshot();
+        assertEquals(1, walSegmentCount());
+        node.dao.save(transaction("TXN-AFTER", "ACC004", "ACC001", base.plusDays(1)));
+        node.accounts.updateBalance("ACC004", new BigDecimal("-2000"));
+
+        // When
+        Node restarted = restart();
+
+        // Then
+        DurableStore.RecoveryStats stats = restarted.durableStore.getRecoveryStats();
+        assertEquals(1000, stats.snapshotTransactions());
+        assertEquals(2, stats.walRecords());
+        assertEquals(1001, restarted.dao.findByAccountId("ACC001").size());
+        assertEquals("TXN-AFTER", restarted.dao.findByAccountId("ACC001").get(0).getId());
+        assertEquals(new BigDecimal("9000.00"), restarted.accounts.getAccountById("ACC001").orElseThrow().getBalance());
+        assertEquals(new BigDecimal("10000.00"), restarted.accounts.getAccountById("ACC004").orElseThrow().getBalance());
+        assertEquals(new BigDecimal("100.25"), restarted.dao.findById("TXN0").orElseThrow().getAmount());
+    }
+
+    @Test
+    @DisplayName("重启后继续写入 - 日志序号接续，再次重启仍能恢复全部数据")
+    void testRestartTwice() throws IOException {
+        // Given
+        node.dao.save(transaction("TXN001", "ACC001", "ACC002", base));
+        Node second = restart();
+        second.dao.save(transaction("TXN002", "ACC001", "ACC002", base.plusSeconds(1)));
+        second.durableStore.snapshot();
+        second.dao.save(transaction("TXN003", "ACC001", "ACC002", base.plusSeconds(2)));
+
+        // When
+        node = second;
+        Node third = restart();
+
+        // Then
+        assertEquals(3, third.dao.findByAccountId("ACC002").size());
+        assertEquals(3, third.dao.count());
+    }
+
+    @Test
+    @DisplayName("重启恢复待处理交易 - 已记账的改为已完成，未记账和已冲正的重新提交记账")
+    void testResumePendingTransactions() throws IOException {
+        // Given - 三笔交易保存后都停在待处理状态：TXN001 已记账（快照之前），TXN002 未记账，TXN003 记账后又冲正（快照之后）
+        Transaction posted = transaction("TXN001", "ACC001", "ACC002", base);
+        Transaction unposted = transaction("TXN002", "ACC001", "ACC002", base.plusSeconds(1));
+        Transaction reversed = transaction("TXN003", "ACC001", "ACC002", base.plusSeconds(2));
+        node.dao.save(posted);
+        node.dao.save(unposted);
+        node.dao.save(reversed);
+        node.accounts.postTransaction(posted);
+        node.durableStore.snapshot();
+        node.accounts.postTransaction(reversed);
+        node.accounts.reverseTransactions(List.of(reversed));
+
+        // When
+        Node restarted = restart();
+
+        // Then
+        assertEquals(TransactionStatus.COMPLETED, restarted.dao.findById("TXN001").orElseThrow().getStatus());
+        assertEquals(TransactionStatus.PENDING, restarted.dao.findById("TXN002").orElseThrow().getStatus());
+        verify(restarted.tool).performPostTransactionProcessing(argThat(t -> "TXN002".equals(t.getId())), eq("CREATE"));
+        verify(restarted.tool).performPostTransactionProcessing(argThat(t -> "TXN003".equals(t.getId())), eq("CREATE"));
+        verify(restarted.tool, times(2)).performPostTransactionProcessing(any(), any());
+        assertEquals(new BigDecimal("9899.75"), restarted.accounts.getAccountById("ACC001").orElseThrow().getBalance());
+
+        // When - 再次重启：已完成的交易不再处理
+        Node third = restart();
+
+        // Then
+        verify(third.tool, never()).performPostTransactionProcessing(argThat(t -> "TXN001".equals(t.getId())), any());
+    }
+
+    @Test
+    @DisplayName("重启恢复分录日志 - 重建快照之后的记账分录，账本余额与账户余额一致，已记账交易不能再记账")
+    void testRecoverPostingJournal() throws IOException {
+        // Given - TXN001 在快照之前记账，TXN002 在快照之后记账，之后直接变更余额（不写分录日志）
+        Transaction first = transaction("TXN001", "ACC001", "ACC002", base);
+        Transaction second = transaction("TXN002", "ACC001", "ACC003", base.plusSeconds(1));
+        node.dao.save(first);
+        node.accounts.postTransaction(first);
+        node.dao.updateStatus("TXN001", TransactionStatus.PENDING, TransactionStatus.COMPLETED);
+        node.durableStore.snapshot();
+        node.dao.save(second);
+        node.accounts.postTransaction(second);
+        node.dao.updateStatus("TXN002", TransactionStatus.PENDING, TransactionStatus.COMPLETED);
+        node.accounts.updateBalance("ACC004", new BigDecimal("-12.34"));
+
+        // When
+        Node restarted = restart();
+
+        // Then
+        PostingJournal journal = restarted.accounts.getPostingJournal();
+        JournalEntry posting = journal.get(journal.sequenceOf("TXN002").getAsLong());
+        assertEquals(JournalEntry.Type.POSTING, posting.type());
+        assertTrue(posting.postings().contains(new Posting("ACC001", -10025, 2)));
+        assertTrue(journal.isPosted("TXN001"));
+        Map<String, BigDecimal> ledgerBalances = new HashMap<>();
+        journal.forEachBalance((accountIndex, amountMinor, scale) ->
+            ledgerBalances.put(journal.accountIdOf(accountIndex), BigDecimal.valueOf(amountMinor, scale)));
+        for (Account account : restarted.accounts.getAccounts()) {
+            assertEquals(account.getBalance(), ledgerBalances.get(account.getAccountId()), account.getAccountId());
+        }
+        assertEquals(new BigDecimal("11987.66"), restarted.accounts.getAccountById("ACC004").orElseThrow().getBalance());
+        BusinessException exception = assertThrows(BusinessException.class, () -> restarted.accounts.postTransaction(first));
+        assertEquals(ErrorCode.DUPLICATE_TRANSACTION, exception.getErrorCode());
+    }
+
+    private long walSegmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("wal-")).count();
+        }
+    }
+
+    /**
+     * 关闭当前节点，用同一目录启动新节点
+     */
+    private Node restart() throws IOException {
+        node.durableStore.stop();
+        node = new Node(config);
+        return node;
+    }
+
+    private Transaction transaction(String id, String fromAccountId, String toAccountId, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("100.25"));
+        transaction.setCurrency(Currency.CNY);
+        transaction.setFromAccountId(fromAccountId);
+        transaction.setToAccountId(toAccountId);
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus(TransactionStatus.PENDING);
+        return transaction;
+    }
+
+    /**
+     * 一个应用实例的内存存储
+     */
+    private static final class Node {
+        private final CacheTransactionDao dao = new CacheTransactionDao();
+        private final AccountServiceImpl accounts = new AccountServiceImpl();
+        private final TransactionToolService tool = mock(TransactionToolService.class);
+        private final DurableStore durableStore;
+
+        private Node(PersistenceConfig config) throws IOException {
+            durableStore = new DurableStore(config, dao, accounts, tool);
+            durableStore.start();
+        }
+    }
+}
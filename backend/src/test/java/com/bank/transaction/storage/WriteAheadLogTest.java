@@ -0,0 +1,132 @@
+package com.bank.transaction.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("预写日志单元测试")
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("追加和回放 - 按序号顺序回放，跳过小于起始序号的记录")
+    void testAppendAndReplay() throws IOException {
+        // Given
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, true, 1)) {
+            for (int i = 1; i <= 10; i++) {
+                wal.awaitDurable(wal.append((byte) 1, ("record-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        // When
+        List<String> replayed = new ArrayList<>();
+        WriteAheadLog.ReplayResult result = WriteAheadLog.replay(directory, 4,
+            (seq, type, payload) -> replayed.add(seq + ":" + new String(payload, StandardCharsets.UTF_8)));
+
+        // Then
+        assertEquals(10, result.lastSeq());
+        assertEquals(7, result.replayed());
+        assertEquals("4:record-4", replayed.get(0));
+        assertEquals("10:record-10", replayed.get(6));
+    }
+
+    @Test
+    @DisplayName("段切换 - 写满后切换到新段，重新打开后从指定序号继续")
+    void testSegmentRollAndReopen() throws IOException {
+        // Given - 每段只能容纳少量记录
+        byte[] payload = new byte[100];
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 512, false, 1)) {
+            for (int i = 0; i < 20; i++) {
+                wal.append((byte) 1, payload);
+            }
+        }
+        long lastSeq = WriteAheadLog.replay(directory, 1, (seq, type, bytes) -> {}).lastSeq();
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 512, false, lastSeq + 1)) {
+            wal.append((byte) 2, payload);
+        }
+
+        // When
+        List<Long> seqs = new ArrayList<>();
+        WriteAheadLog.replay(directory, 1, (seq, type, bytes) -> seqs.add(seq));
+
+        // Then
+        assertTrue(segmentCount() > 5);
+        assertEquals(21, seqs.size());
+        for (int i = 0; i < seqs.size(); i++) {
+            assertEquals(i + 1, seqs.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("不完整记录 - 校验失败时该段后续内容被忽略")
+    void testTornRecordIsIgnored() throws IOException {
+        // Given
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 4096, false, 1)) {
+            for (int i = 0; i < 3; i++) {
+                wal.append((byte) 1, new byte[] {1, 2, 3, 4});
+            }
+        }
+        // 破坏第3条记录的负载
+        Path segment = onlySegment();
+        int thirdPayload = 2 * (WriteAheadLog.HEADER_BYTES + 4) + WriteAheadLog.HEADER_BYTES;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {9}), thirdPayload);
+        }
+
+        // When
+        WriteAheadLog.ReplayResult result = WriteAheadLog.replay(directory, 1, (seq, type, payload) -> {});
+
+        // Then
+        assertEquals(2, result.replayed());
+        assertEquals(2, result.lastSeq());
+        assertEquals(1, result.tornSegments());
+    }
+
+    @Test
+    @DisplayName("组提交 - 并发写入共用刷盘，返回时记录已刷盘")
+    void testGroupCommit() throws IOException {
+        // Given
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1 << 20, true, 1)) {
+            // When - 500个虚拟线程并发追加并等待刷盘
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 500; i++) {
+                    executor.submit(() -> wal.awaitDurable(wal.append((byte) 1, new byte[32])));
+                }
+            }
+
+            // Then
+            assertEquals(500, wal.getAppendCount());
+            assertTrue(wal.getForceCount() < 500, "并发写入应合并刷盘，实际刷盘次数: " + wal.getForceCount());
+        }
+        assertEquals(500, WriteAheadLog.replay(directory, 1, (seq, type, payload) -> {}).replayed());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bank.transaction.stress;
+
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.ledger.BalanceEngine;
+import com.bank.transaction.model.Account;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 账户余额引擎并发压力测试
+ *
+ * 测试目标：
+ * 1. 5个热点账户上高并发存取款不丢失更新
+ * 2. 双向并发转账不死锁，资金总额守恒，余额不出现负数
+ * 3. 输出吞吐量和锁竞争统计（只输出不断言，避免受运行环境影响）
+ */
+@DisplayName("账户余额引擎并发压力测试")
+class BalanceEngineStressTest {
+
+    private static final int ACCOUNT_COUNT = 5;
+    private static final int THREAD_COUNT = 32;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+
+    @Test
+    @DisplayName("热点账户并发存取款 - 无丢失更新")
+    void testConcurrentDepositsAndWithdrawals_NoLostUpdates() throws InterruptedException {
+        // Given
+        BalanceEngine engine = new BalanceEngine();
+        List<Account> accounts = createAccounts();
+        BigDecimal deposit = new BigDecimal("0.03");
+        BigDecimal withdrawal = new BigDecimal("-0.01");
+
+        // When - 每个线程对每个账户交替存入0.03、取出0.01
+        long elapsedNanos = runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Account account = accounts.get(i % ACCOUNT_COUNT);
+                engine.apply(account, (i / ACCOUNT_COUNT) % 2 == 0 ? deposit : withdrawal);
+            }
+        });
+
+        // Then - 每个账户净增加 次数/2 * 0.02
+        long operationsPerAccount = (long) THREAD_COUNT * OPERATIONS_PER_THREAD / ACCOUNT_COUNT;
+        BigDecimal expected = INITIAL_BALANCE.add(new BigDecimal("0.02").multiply(BigDecimal.valueOf(operationsPerAccount / 2)));
+        for (Account account : accounts) {
+            assertEquals(0, expected.compareTo(account.getBalance()),
+                account.getAccountId() + " 余额应为 " + expected + "，实际: " + account.getBalance());
+        }
+        // 每次存取款只加一次锁
+        long acquisitions = engine.getContentionStats().stream().mapToLong(BalanceEngine.StripeStats::acquisitions).sum();
+        assertEquals((long) THREAD_COUNT * OPERATIONS_PER_THREAD, acquisitions);
+        printStats("热点账户存取款", engine, (long) THREAD_COUNT * OPERATIONS_PER_THREAD, elapsedNanos);
+    }
+
+    @Test
+    @DisplayName("双向并发转账 - 不死锁且资金总额守恒")
+    void testConcurrentTransfers_NoDeadlockAndConserved() throws InterruptedException {
+        // Given
+        BalanceEngine engine = new BalanceEngine();
+        List<Account> accounts = createAccounts();
+        AtomicLong rejected = new AtomicLong();
+
+        // When - 随机账户对之间双向转账，包括余额不足被拒绝的转账
+        long elapsedNanos = runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                int from = random.nextInt(ACCOUNT_COUNT);
+                int to = (from + 1 + random.nextInt(ACCOUNT_COUNT - 1)) % ACCOUNT_COUNT;
+                BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 5_000_000), 2);
+                try {
+                    engine.transfer(accounts.get(from), accounts.get(to), amount);
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        // Then
+        BigDecimal total = accounts.stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNT_COUNT)).compareTo(total), "资金总额应守恒，实际: " + total);
+        accounts.forEach(account -> assertTrue(account.getBalance().signum() >= 0, account.getAccountId() + " 余额不能为负数"));
+        System.out.println("余额不足被拒绝的转账: " + rejected.get());
+        printStats("双向并发转账", engine, (long) THREAD_COUNT * OPERATIONS_PER_THREAD, elapsedNanos);
+    }
+
+    private List<Account> createAccounts() {
+        return IntStream.rangeClosed(1, ACCOUNT_COUNT)
+            .mapToObj(i -> {
+                Account account = new Account();
+                account.setAccountId("ACC00" + i);
+                account.setBalance(INITIAL_BALANCE);
+                return account;
+            })
+            .toList();
+    }
+
+    private long runConcurrently(Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "压力测试应该在60秒内完成（可能发生死锁）");
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private void printStats(String name, BalanceEngine engine, long operations, long elapsedNanos) {
+        double tps = operations / (elapsedNanos / 1e9);
+        System.out.println("=== " + name + " ===");
+        System.out.printf("操作数: %d, 耗时: %.1fms, TPS: %.0f%n", operations, elapsedNanos / 1e6, tps);
+        System.out.println("锁段竞争统计（锁段 / 加锁次数 / 竞争次数 / 平均等待µs）:");
+        for (BalanceEngine.StripeStats stats : engine.getContentionStats()) {
+            System.out.printf("  %2d / %d / %d / %.2f%n", stats.stripe(), stats.acquisitions(), stats.contended(),
+                stats.contended() > 0 ? stats.waitNanos() / 1000.0 / stats.contended() : 0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.bank.transaction.stress;
+
+import com.bank.transaction.index.TransactionTimeIndex;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易时间索引分页性能测试
+ *
+ * 测试目标：输出各规模下的分页延迟，验证深度偏移页、游标页与旧实现返回相同的结果
+ * 耗时只输出不断言，避免受运行环境影响
+ * - 默认规模：1万 / 10万 / 100万
+ * - 1000万规模需要更大的堆内存：
+ *   mvn test -Dtest=TimeIndexPerformanceTest -Dbank.bench.timeIndex.maxSize=10000000 -DargLine=-Xmx4g
+ */
+@DisplayName("交易时间索引分页性能测试")
+class TimeIndexPerformanceTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 2000;
+    // 旧实现每次分页复制整个队列，超过此规模不再对比
+    private static final int LEGACY_MAX_SIZE = 1_000_000;
+
+    @Test
+    @DisplayName("分页延迟随交易总量保持平稳")
+    void testPagingLatencyStaysFlat() {
+        int maxSize = Integer.getInteger("bank.bench.timeIndex.maxSize", 1_000_000);
+
+        System.out.println("=== 交易时间索引分页性能测试 ===");
+        System.out.printf("%-12s %-16s %-16s %-16s %-16s%n",
+            "交易总量", "首页(µs)", "深度偏移页(µs)", "深度游标页(µs)", "旧实现深度页(µs)");
+
+        for (int total = 10_000; total <= maxSize; total *= 10) {
+            TransactionTimeIndex index = new TransactionTimeIndex();
+            ConcurrentLinkedDeque<String> legacy = total <= LEGACY_MAX_SIZE ? new ConcurrentLinkedDeque<>() : null;
+            LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+            String cursorId = null;
+            int deepOffset = total / 2;
+            for (int i = 0; i < total; i++) {
+                String id = "TXN" + i;
+                index.add(id, base.plusNanos(i * 1000L));
+                if (legacy != null) {
+                    legacy.addFirst(id);
+                }
+                if (i == total - deepOffset) {
+                    cursorId = id;
+                }
+            }
+            assertEquals(total, index.size());
+
+            String cursor = cursorId;
+            long cursorKey = index.getTimeKey(cursor);
+            double firstPage = measureMicros(() -> index.newestFirst(0, PAGE_SIZE));
+            double deepPage = measureMicros(() -> index.newestFirst(deepOffset, PAGE_SIZE));
+            double cursorPage = measureMicros(() -> index.newestBefore(cursorKey, cursor, PAGE_SIZE));
+            String legacyResult = "-";
+            if (legacy != null) {
+                int legacyIterations = Math.max(10, ITERATIONS / (total / 10_000));
+                legacyResult = String.format("%.2f", measureMicros(() -> legacyPage(legacy, deepOffset), legacyIterations));
+            }
+
+            System.out.printf("%-12d %-16.2f %-16.2f %-16.2f %-16s%n", total, firstPage, deepPage, cursorPage, legacyResult);
+
+            List<String> page = index.newestFirst(deepOffset, PAGE_SIZE);
+            assertEquals(PAGE_SIZE, page.size());
+            assertEquals("TXN" + (total - 1 - deepOffset), page.get(0));
+            assertEquals("TXN" + (total - deepOffset - PAGE_SIZE), page.get(PAGE_SIZE - 1));
+            // 游标翻页与偏移翻页定位到同一页
+            assertEquals(page, index.newestBefore(cursorKey, cursor, PAGE_SIZE));
+            if (legacy != null) {
+                assertEquals(legacyPage(legacy, deepOffset), page);
+            }
+        }
+    }
+
+    private static double measureMicros(Runnable action) {
+        return measureMicros(action, ITERATIONS);
+    }
+
+    private static double measureMicros(Runnable action, int iterations) {
+        // 预热
+        for (int i = 0; i < Math.min(iterations, 200); i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / iterations;
+    }
+
+    /**
+     * 旧实现：每次分页复制整个双端队列
+     */
+    private static List<String> legacyPage(ConcurrentLinkedDeque<String> deque, int offset) {
+        List<String> allIds = new ArrayList<>(deque);
+        int end = Math.min(offset + PAGE_SIZE, allIds.size());
+        return offset >= allIds.size() ? List.of() : allIds.subList(offset, end);
+    }
+}
@@ -0,0 +1,139 @@
+package com.bank.transaction.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("交易标识生成器单元测试")
+class SnowflakeIdGeneratorTest {
+
+    private static final ZoneOffset ZONE = ZoneOffset.ofHours(8);
+    private static final long NOW = LocalDateTime.of(2024, 12, 25, 23, 59, 59, 999_000_000).atZone(ZONE).toInstant().toEpochMilli();
+
+    @Test
+    @DisplayName("格式 - 保持原有的前缀、日期时间和长度")
+    void testFormats() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW, ZONE);
+
+        // When
+        String transactionId = generator.nextTransactionId();
+        String referenceNumber = generator.nextReferenceNumber();
+        String idempotencyKey = generator.nextIdempotencyKey();
+
+        // Then
+        assertTrue(transactionId.matches("TXN20241225[A-Z0-9]{8}"), transactionId);
+        assertTrue(referenceNumber.matches("REF20241225235959[A-Z0-9]{6}"), referenceNumber);
+        assertTrue(idempotencyKey.matches("IDM" + NOW + "[A-Z0-9]{8}"), idempotencyKey);
+    }
+
+    @Test
+    @DisplayName("单调递增 - 同一毫秒序号用完借用下一毫秒，跨日后日期前缀随之变化")
+    void testMonotonicWithinSameMillisecond() {
+        // Given - 时钟停在当日最后一毫秒
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> NOW, ZONE);
+
+        // When
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(generator.nextTransactionId());
+        }
+
+        // Then
+        assertStrictlyIncreasing(ids);
+        assertTrue(ids.get(0).startsWith("TXN20241225"));
+        assertTrue(ids.get(999).startsWith("TXN20241226"));
+    }
+
+    @Test
+    @DisplayName("时钟回拨 - 沿用已发出的时间戳继续递增，不重复")
+    void testClockMovesBackwards() {
+        // Given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get, ZONE);
+
+        // When
+        List<String> ids = new ArrayList<>();
+        ids.add(generator.nextReferenceNumber());
+        clock.addAndGet(-5_000);
+        ids.add(generator.nextReferenceNumber());
+        clock.addAndGet(10_000);
+        ids.add(generator.nextReferenceNumber());
+
+        // Then
+        assertStrictlyIncreasing(ids);
+    }
+
+    @Test
+    @DisplayName("固定时区 - 系统时区夏令时结束、本地时间回拨一小时时参考号仍递增")
+    void testReferenceNumberAcrossDaylightSavingFallBack() {
+        // Given - 2024-11-03 06:00Z 纽约本地时间从 01:59:59 回到 01:00:00
+        long fallBack = LocalDateTime.of(2024, 11, 3, 6, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        AtomicLong clock = new AtomicLong(fallBack - 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get, ZoneOffset.UTC);
+
+        // When
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(generator.nextReferenceNumber());
+            clock.addAndGet(500);
+        }
+
+        // Then
+        assertStrictlyIncreasing(ids);
+        assertTrue(ids.get(0).startsWith("REF20241103055959"), ids.get(0));
+        assertTrue(ids.get(3).startsWith("REF20241103060000"), ids.get(3));
+    }
+
+    @Test
+    @DisplayName("并发唯一 - 两个节点在大量虚拟线程下生成的标识不重复")
+    void testUniqueAcrossThreadsAndNodes() throws Exception {
+        // Given
+        SnowflakeIdGenerator node1 = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator node2 = new SnowflakeIdGenerator(2);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int tasks = 1000;
+        int idsPerTask = 100;
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks; i++) {
+                SnowflakeIdGenerator generator = i % 2 == 0 ? node1 : node2;
+                executor.submit(() -> {
+                    for (int j = 0; j < idsPerTask; j++) {
+                        ids.add(generator.nextTransactionId());
+                        ids.add(generator.nextReferenceNumber());
+                        ids.add(generator.nextIdempotencyKey());
+                    }
+                });
+            }
+        }
+
+        // Then
+        assertEquals(tasks * idsPerTask * 3, ids.size());
+    }
+
+    @Test
+    @DisplayName("节点号超出范围 - 拒绝创建")
+    void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+
+    private void assertStrictlyIncreasing(List<String> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, ids.get(i - 1) + " 应小于 " + ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.bank.transaction.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.config.VirtualThreadConfig;
+import com.bank.transaction.exception.business.BusinessException;
+import com.bank.transaction.exception.system.SystemException;
+import com.bank.transaction.util.Constants.ErrorCode;
+
+@DisplayName("虚拟线程执行器单元测试")
+class VirtualThreadExecutorTest {
+
+    private VirtualThreadExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        VirtualThreadConfig config = new VirtualThreadConfig();
+        config.setMaxConcurrency(4);
+        config.setTimeoutMillis(5000);
+        executor = new VirtualThreadExecutor(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("并行执行 - 结果顺序与执行列表一致")
+    void testResultsKeepOrder() {
+        // Given
+        List<Integer> items = IntStream.range(0, 200).boxed().toList();
+
+        // When
+        List<Integer> results = executor.runWithVirtualThreadsLogic(items, item -> item * 2);
+
+        // Then
+        assertEquals(IntStream.range(0, 200).map(i -> i * 2).boxed().toList(), results);
+        assertTrue(executor.runWithVirtualThreadsLogic(List.<Integer>of(), item -> item).isEmpty());
+    }
+
+    @Test
+    @DisplayName("并发上限 - 同时执行的任务数不超过配置值")
+    void testConcurrencyLimit() {
+        // Given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        executor.runWithVirtualThreads(IntStream.range(0, 100).boxed().toList(), item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+        });
+
+        // Then
+        assertTrue(maxRunning.get() <= 4, "同时执行的任务数应不超过4，实际: " + maxRunning.get());
+        assertEquals(0, executor.getInFlightCount());
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    @DisplayName("快速失败 - 任一任务失败立即取消其他任务并抛出原异常")
+    void testFailFastCancelsSiblings() {
+        // Given
+        CountDownLatch siblingsStarted = new CountDownLatch(3);
+        AtomicInteger interrupted = new AtomicInteger();
+
+        // When
+        long start = System.nanoTime();
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> executor.runWithVirtualThreadsLogic(List.of(0, 1, 2, 3), item -> {
+                if (item == 0) {
+                    await(siblingsStarted);
+                    throw new BusinessException(ErrorCode.TRANSACTION_NOT_FOUND, "交易不存在");
+                }
+                siblingsStarted.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+                return item;
+            }));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        assertTrue(elapsedMillis < 2000, "失败后应立即返回，实际耗时: " + elapsedMillis + "ms");
+        waitUntil(() -> interrupted.get() == 3);
+    }
+
+    @Test
+    @DisplayName("超时 - 到达截止时间后取消未完成的任务")
+    void testDeadline() {
+        // When
+        SystemException exception = assertThrows(SystemException.class,
+            () -> executor.runWithVirtualThreadsLogic(List.of(1, 2), item -> {
+                sleep(10_000);
+                return item;
+            }, Duration.ofMillis(100)));
+
+        // Then
+        assertTrue(exception.getMessage().contains("超时"));
+        waitUntil(() -> executor.getInFlightCount() == 0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待条件超时");
+            sleep(10);
+        }
+    }
+}